@@ -3,6 +3,8 @@ package com.wind.logging.logback.kafaka;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import com.wind.logging.logback.kafaka.buffer.EventRingBuffer;
+import com.wind.logging.logback.kafaka.buffer.OverflowPolicy;
 import com.wind.logging.logback.kafaka.delivery.FailedDeliveryCallback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
@@ -11,12 +13,19 @@ import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.serialization.ByteArraySerializer;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 /**
+ * 日志事件先写入有界环形缓冲区 {@link EventRingBuffer}，由独立的发送线程批量编码并交给 kafka producer，
+ * 缓冲区写满时按照 {@link OverflowPolicy} 处理，保证日志输出不会无限阻塞业务线程，也不会无限占用内存
+ *
  * @author wuxp
  * @since 0.0.1
  */
@@ -26,16 +35,37 @@ public class KafkaAppender<E> extends KafkaAppenderConfig<E> {
 
     /**
      * Kafka clients uses this prefix for its slf4j logging.
-     * This appender defers appends of any Kafka logs since it could cause harmful infinite recursion/self feeding effects.
+     * Kafka logs never block on a full buffer since it could cause harmful self feeding effects.
      */
     private static final String KAFKA_LOGGER_PREFIX = KafkaProducer.class.getPackage().getName().replaceFirst("\\.producer$", "");
 
+    /**
+     * 发送线程空闲时的最大休眠时间
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * 等待缓冲区可写时的单次休眠时间
+     */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
     private final boolean enabled = isEnabled();
 
     private LazyProducer lazyProducer = null;
+    private final LongAdder queuedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
     private final AppenderAttachableImpl<E> aai = new AppenderAttachableImpl<>();
-    private final ConcurrentLinkedQueue<E> queue = new ConcurrentLinkedQueue<>();
-    private final FailedDeliveryCallback<E> failedDeliveryCallback = (evt, throwable) -> aai.appendLoopOnAppenders(evt);
+    private final FailedDeliveryCallback<E> failedDeliveryCallback = (evt, throwable) -> {
+        failedCount.increment();
+        aai.appendLoopOnAppenders(evt);
+    };
+
+    private EventRingBuffer<E> buffer;
+    private Thread worker;
+    private volatile boolean running = false;
+    private volatile boolean workerWaiting = false;
 
     public KafkaAppender() {
         // setting these as config values sidesteps an unnecessary warning (minor bug in KafkaProducer)
@@ -48,12 +78,7 @@ public class KafkaAppender<E> extends KafkaAppenderConfig<E> {
         if (!enabled) {
             return;
         }
-        ensureDeferredAppends();
-        if (e instanceof ILoggingEvent && ((ILoggingEvent) e).getLoggerName().startsWith(KAFKA_LOGGER_PREFIX)) {
-            deferAppend(e);
-        } else {
-            super.doAppend(e);
-        }
+        super.doAppend(e);
     }
 
     @Override
@@ -71,6 +96,11 @@ public class KafkaAppender<E> extends KafkaAppenderConfig<E> {
         }
 
         lazyProducer = new LazyProducer();
+        buffer = new EventRingBuffer<>(bufferSize);
+        running = true;
+        worker = new Thread(this::drainLoop, "wind-kafka-appender-" + getName());
+        worker.setDaemon(true);
+        worker.start();
         super.start();
     }
 
@@ -80,6 +110,21 @@ public class KafkaAppender<E> extends KafkaAppenderConfig<E> {
             return;
         }
         super.stop();
+        if (worker != null) {
+            running = false;
+            LockSupport.unpark(worker);
+            try {
+                worker.join(maxFlushTimeMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (worker.isAlive()) {
+                addWarn("Max flush time exceeded, " + buffer.size() + " queued events were possibly discarded");
+            }
+            worker = null;
+        }
+        addInfo(String.format("Kafka appender stopped, queued = %d, sent = %d, failed = %d, dropped = %d",
+                getQueuedCount(), getSentCount(), getFailedCount(), getDroppedCount()));
         if (lazyProducer != null && lazyProducer.isInitialized()) {
             try {
                 lazyProducer.get().close();
@@ -88,6 +133,10 @@ public class KafkaAppender<E> extends KafkaAppenderConfig<E> {
             }
             lazyProducer = null;
         }
+        if (deliveryStrategy != null) {
+            // producer 关闭时的发送失败回调可能仍会使用发送策略，在 producer 关闭后释放
+            deliveryStrategy.close();
+        }
     }
 
     @Override
@@ -133,6 +182,95 @@ public class KafkaAppender<E> extends KafkaAppenderConfig<E> {
         if (!enabled) {
             return;
         }
+        boolean blockable = Thread.currentThread() != worker;
+        if (e instanceof ILoggingEvent) {
+            // 在业务线程中提取 MDC、线程名称等信息
+            ILoggingEvent event = (ILoggingEvent) e;
+            event.prepareForDeferredProcessing();
+            if (includeCallerData) {
+                event.getCallerData();
+            }
+            blockable = blockable && !event.getLoggerName().startsWith(KAFKA_LOGGER_PREFIX);
+        }
+        // 发送线程和 kafka client 自身产生的日志不能阻塞，避免发送线程与缓冲区相互等待
+        enqueue(e, blockable);
+    }
+
+    private void enqueue(E e, boolean blockable) {
+        if (overflowPolicy == OverflowPolicy.DROP_BY_LEVEL && isDiscardable(e)) {
+            // 剩余容量不足时在写入前丢弃低级别事件，为高级别事件保留空间
+            droppedCount.increment();
+            return;
+        }
+        if (buffer.offer(e)) {
+            onQueued();
+            return;
+        }
+        if (!blockable) {
+            droppedCount.increment();
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+            while (!buffer.offer(e)) {
+                if (buffer.poll() != null) {
+                    droppedCount.increment();
+                }
+            }
+            onQueued();
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+        while (!buffer.offer(e)) {
+            if (System.nanoTime() - deadline >= 0) {
+                droppedCount.increment();
+                return;
+            }
+            LockSupport.unpark(worker);
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        onQueued();
+    }
+
+    private void onQueued() {
+        queuedCount.increment();
+        if (workerWaiting) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private boolean isDiscardable(E e) {
+        if (buffer.remainingCapacity() > buffer.capacity() / 5) {
+            return false;
+        }
+        if (e instanceof ILoggingEvent) {
+            return !((ILoggingEvent) e).getLevel().isGreaterOrEqual(discardingThreshold);
+        }
+        return true;
+    }
+
+    private void drainLoop() {
+        List<E> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            if (buffer.drainTo(batch, batchSize) == 0) {
+                workerWaiting = true;
+                if (running && buffer.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                workerWaiting = false;
+                continue;
+            }
+            for (E e : batch) {
+                try {
+                    send(e);
+                } catch (Exception exception) {
+                    addError("send logging event error", exception);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void send(E e) {
         final byte[] payload = encoder.encode(e);
         final byte[] key = keyingStrategy.createKey(e);
 
@@ -142,7 +280,9 @@ public class KafkaAppender<E> extends KafkaAppenderConfig<E> {
 
         final Producer<byte[], byte[]> producer = lazyProducer.get();
         if (producer != null) {
-            deliveryStrategy.send(lazyProducer.get(), producerRecord, e, failedDeliveryCallback);
+            if (deliveryStrategy.send(producer, producerRecord, e, failedDeliveryCallback)) {
+                sentCount.increment();
+            }
         } else {
             failedDeliveryCallback.onFailedDelivery(e, null);
         }
@@ -160,17 +300,39 @@ public class KafkaAppender<E> extends KafkaAppenderConfig<E> {
         return new KafkaProducer<>(new HashMap<>(producerConfig));
     }
 
-    private void deferAppend(E event) {
-        queue.add(event);
+    /**
+     * @return 写入缓冲区的事件数
+     */
+    public long getQueuedCount() {
+        return queuedCount.sum();
     }
 
-    // drains queue events to super
-    private void ensureDeferredAppends() {
-        E event;
+    /**
+     * @return 因缓冲区写满而丢弃的事件数
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
 
-        while ((event = queue.poll()) != null) {
-            super.doAppend(event);
-        }
+    /**
+     * @return 成功交给 kafka producer 的事件数
+     */
+    public long getSentCount() {
+        return sentCount.sum();
+    }
+
+    /**
+     * @return 发送失败的事件数
+     */
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * @return 当前缓冲区中的事件数
+     */
+    public int getBufferedCount() {
+        return buffer == null ? 0 : buffer.size();
     }
 
     /**
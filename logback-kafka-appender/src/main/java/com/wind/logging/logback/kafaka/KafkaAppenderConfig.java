@@ -1,8 +1,10 @@
 package com.wind.logging.logback.kafaka;
 
+import ch.qos.logback.classic.Level;
 import ch.qos.logback.core.UnsynchronizedAppenderBase;
 import ch.qos.logback.core.encoder.Encoder;
 import ch.qos.logback.core.spi.AppenderAttachable;
+import com.wind.logging.logback.kafaka.buffer.OverflowPolicy;
 import com.wind.logging.logback.kafaka.delivery.AsynchronousDeliveryStrategy;
 import com.wind.logging.logback.kafaka.delivery.DeliveryStrategy;
 import com.wind.logging.logback.kafaka.keying.KeyingStrategy;
@@ -35,6 +37,41 @@ public abstract class KafkaAppenderConfig<E> extends UnsynchronizedAppenderBase<
 
     protected Map<String, Object> producerConfig = new HashMap<String, Object>();
 
+    /**
+     * 日志事件缓冲区大小，会向上取整为 2 的幂
+     */
+    protected int bufferSize = 8192;
+
+    /**
+     * 发送线程每批次处理的最大事件数
+     */
+    protected int batchSize = 256;
+
+    /**
+     * 缓冲区写满时的处理策略
+     */
+    protected OverflowPolicy overflowPolicy = OverflowPolicy.DROP_BY_LEVEL;
+
+    /**
+     * {@link OverflowPolicy#BLOCK} 和 {@link OverflowPolicy#DROP_BY_LEVEL} 策略下的最大等待时间
+     */
+    protected long blockTimeoutMillis = 10;
+
+    /**
+     * {@link OverflowPolicy#DROP_BY_LEVEL} 策略下，缓冲区剩余容量低于 1/5 时丢弃低于该级别的事件
+     */
+    protected Level discardingThreshold = Level.WARN;
+
+    /**
+     * 停止时等待缓冲区中事件发送完成的最大时间
+     */
+    protected long maxFlushTimeMillis = 1000;
+
+    /**
+     * 是否在写入缓冲区前提取调用者信息（开销较大）
+     */
+    protected boolean includeCallerData = false;
+
     protected boolean checkPrerequisites() {
         boolean errorFree = true;
 
@@ -112,6 +149,34 @@ public abstract class KafkaAppenderConfig<E> extends UnsynchronizedAppenderBase<
         this.appendTimestamp = appendTimestamp;
     }
 
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public void setBlockTimeoutMillis(long blockTimeoutMillis) {
+        this.blockTimeoutMillis = blockTimeoutMillis;
+    }
+
+    public void setDiscardingThreshold(String discardingThreshold) {
+        this.discardingThreshold = Level.toLevel(discardingThreshold, Level.WARN);
+    }
+
+    public void setMaxFlushTimeMillis(long maxFlushTimeMillis) {
+        this.maxFlushTimeMillis = maxFlushTimeMillis;
+    }
+
+    public void setIncludeCallerData(boolean includeCallerData) {
+        this.includeCallerData = includeCallerData;
+    }
+
     private String getSystemConfig(String name) {
         String property = System.getProperty(name);
         if (property == null) {
@@ -0,0 +1,141 @@
+package com.wind.logging.logback.kafaka.buffer;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形缓冲区，每个槽位使用独立的序号标记读写状态（参见 Dmitry Vyukov bounded MPMC queue）
+ * 支持多个线程同时写入和读取，写满时 {@link #offer(Object)} 直接返回 false，不会阻塞也不会扩容
+ *
+ * @author wuxp
+ * @date 2024-08-14 09:20
+ **/
+public final class EventRingBuffer<E> {
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> elements;
+
+    /**
+     * 槽位序号，等于写入位置时可写，等于写入位置 + 1 时可读
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * 下一个写入位置
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个读取位置
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    public EventRingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("ring buffer capacity must greater than 1");
+        }
+        this.capacity = ceilingPowerOfTwo(capacity);
+        this.mask = this.capacity - 1;
+        this.elements = new AtomicReferenceArray<>(this.capacity);
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入一个元素
+     *
+     * @param element 元素
+     * @return 缓冲区已满时返回 false
+     */
+    public boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.set(index, element);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 读取并移除一个元素
+     *
+     * @return 缓冲区为空时返回 null
+     */
+    public E poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long diff = sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E result = elements.get(index);
+                    elements.lazySet(index, null);
+                    sequences.lazySet(index, position + capacity);
+                    return result;
+                }
+                position = head.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * 批量读取元素
+     *
+     * @param target      读取结果
+     * @param maxElements 最大读取数量
+     * @return 读取到的数量
+     */
+    public int drainTo(List<? super E> target, int maxElements) {
+        int result = 0;
+        E element;
+        while (result < maxElements && (element = poll()) != null) {
+            target.add(element);
+            result++;
+        }
+        return result;
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private static int ceilingPowerOfTwo(int value) {
+        int result = Integer.highestOneBit(value);
+        return result == value ? result : result << 1;
+    }
+}
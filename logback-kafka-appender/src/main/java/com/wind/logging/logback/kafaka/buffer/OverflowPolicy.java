@@ -0,0 +1,25 @@
+package com.wind.logging.logback.kafaka.buffer;
+
+/**
+ * 缓冲区写满时的处理策略
+ *
+ * @author wuxp
+ * @date 2024-08-14 09:42
+ **/
+public enum OverflowPolicy {
+
+    /**
+     * 丢弃缓冲区中最早的事件，写入新的事件
+     */
+    DROP_OLDEST,
+
+    /**
+     * 缓冲区剩余容量不足时丢弃低于指定级别的事件，高级别事件在缓冲区写满时等待一段时间后丢弃
+     */
+    DROP_BY_LEVEL,
+
+    /**
+     * 等待一段时间，超时后丢弃
+     */
+    BLOCK
+}
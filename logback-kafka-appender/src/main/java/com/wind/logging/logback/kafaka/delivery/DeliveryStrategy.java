@@ -24,4 +24,10 @@ public interface DeliveryStrategy {
      */
     <K, V, E> boolean send(Producer<K, V> producer, ProducerRecord<K, V> producerRecord, E event, FailedDeliveryCallback<E> failedDeliveryCallback);
 
+    /**
+     * Releases resources held by this strategy. Called when the appender stops, after the producer is closed.
+     */
+    default void close() {
+    }
+
 }
@@ -0,0 +1,334 @@
+package com.wind.logging.logback.kafaka.delivery;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 基于内存映射文件的追加写磁盘缓冲，由多个固定大小的 segment 文件组成
+ * 记录格式：[int 记录长度][topic][partition][timestamp][key][value]，记录长度为 0 表示 segment 结束，
+ * 记录重放后将记录长度改写为负数，作为持久化的重放位置
+ * 1: 当前写入的 segment 写满后封存并刷盘，然后创建新的 segment
+ * 2: 已封存的 segment 重放完成后删除，当前写入的 segment 重放完成后截断复用
+ * 3: 重启后会重新加载目录中已存在的 segment，跳过已重放的记录
+ * 4: 关闭时刷盘并释放内存映射，关闭后不再接受写入
+ *
+ * @author wuxp
+ * @date 2024-08-15 09:36
+ **/
+final class DiskSpool {
+
+    private static final String SEGMENT_SUFFIX = ".spool";
+
+    private static final int NULL_LENGTH = -1;
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private final int maxSegments;
+
+    /**
+     * 最早的 segment 在队首，最后一个为当前写入的 segment
+     */
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    private long nextSegmentId;
+
+    private boolean closed;
+
+    DiskSpool(File directory, int segmentSize, long maxDiskSize) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("create spool directory failure, directory = " + directory.getAbsolutePath());
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = (int) Math.max(1, maxDiskSize / segmentSize);
+        loadSegments();
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @return 超过磁盘容量上限或单条记录超过 segment 大小时返回 false
+     */
+    synchronized boolean append(SpooledRecord record) throws IOException {
+        byte[] topic = record.getTopic().getBytes(StandardCharsets.UTF_8);
+        int length = 4 + topic.length + 4 + 8 + 4 + lengthOf(record.getKey()) + 4 + lengthOf(record.getValue());
+        if (closed || length + 4 > segmentSize) {
+            return false;
+        }
+        Segment active = segments.peekLast();
+        if (active == null || active.sealed || active.buffer.remaining() < length + 4) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            if (active != null && !active.sealed) {
+                active.sealed = true;
+                active.buffer.force();
+            }
+            active = createSegment();
+        }
+        MappedByteBuffer buffer = active.buffer;
+        buffer.putInt(length);
+        buffer.putInt(topic.length);
+        buffer.put(topic);
+        buffer.putInt(record.getPartition() == null ? NULL_LENGTH : record.getPartition());
+        buffer.putLong(record.getTimestamp() == null ? Long.MIN_VALUE : record.getTimestamp());
+        putBytes(buffer, record.getKey());
+        putBytes(buffer, record.getValue());
+        if (buffer.remaining() >= 4) {
+            // 写入结束标记，覆盖截断前的旧数据
+            buffer.putInt(buffer.position(), 0);
+        }
+        return true;
+    }
+
+    synchronized boolean isEmpty() {
+        for (Segment segment : segments) {
+            if (segment.readPosition < segment.buffer.position()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 分批读取最早的 segment 中尚未重放的记录，避免一次将整个 segment 读入堆内存
+     *
+     * @param maxRecords 最多读取的记录数
+     * @param maxBytes   最多读取的字节数，至少读取一条记录
+     * @return 记录列表
+     */
+    synchronized List<SpooledRecord> readOldest(int maxRecords, int maxBytes) {
+        Segment oldest = segments.peekFirst();
+        while (oldest != null && oldest.readPosition >= oldest.buffer.position() && segments.size() > 1) {
+            // 已全部重放（例如重启时加载的空 segment）
+            removeOldest();
+            oldest = segments.peekFirst();
+        }
+        if (oldest == null) {
+            return new ArrayList<>();
+        }
+        return readRecords(oldest.buffer, oldest.readPosition, oldest.buffer.position(), maxRecords, maxBytes);
+    }
+
+    /**
+     * 按顺序标记 {@link #readOldest(int, int)} 读取的一条记录已重放，已封存且全部重放的 segment 会被删除，当前写入的 segment 会被截断
+     */
+    synchronized void commit() {
+        Segment oldest = segments.peekFirst();
+        if (closed || oldest == null || oldest.readPosition >= oldest.buffer.position()) {
+            return;
+        }
+        int length = oldest.buffer.getInt(oldest.readPosition);
+        oldest.buffer.putInt(oldest.readPosition, -length);
+        oldest.readPosition += 4 + length;
+        if (oldest.readPosition < oldest.buffer.position()) {
+            return;
+        }
+        if (oldest.sealed || segments.size() > 1) {
+            removeOldest();
+        } else {
+            oldest.buffer.putInt(0, 0);
+            oldest.buffer.position(0);
+            oldest.readPosition = 0;
+        }
+    }
+
+    /**
+     * 刷盘并释放所有 segment 的内存映射
+     */
+    synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            unmap(segment.buffer);
+        }
+        segments.clear();
+    }
+
+    private void removeOldest() {
+        Segment oldest = segments.pollFirst();
+        if (oldest == null) {
+            return;
+        }
+        unmap(oldest.buffer);
+        if (!oldest.file.delete()) {
+            oldest.file.deleteOnExit();
+        }
+    }
+
+    private void loadSegments() throws IOException {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(DiskSpool::getSegmentId));
+        for (File file : files) {
+            Segment segment = openSegment(file);
+            // 定位到写入位置与重放位置
+            segment.buffer.position(scan(segment.buffer));
+            segment.readPosition = scanReplayed(segment.buffer, segment.buffer.position());
+            segment.sealed = true;
+            segments.addLast(segment);
+            nextSegmentId = getSegmentId(file) + 1;
+        }
+    }
+
+    private Segment createSegment() throws IOException {
+        File file = new File(directory, String.format("%019d%s", nextSegmentId++, SEGMENT_SUFFIX));
+        Segment result = openSegment(file);
+        segments.addLast(result);
+        return result;
+    }
+
+    private Segment openSegment(File file) throws IOException {
+        try (RandomAccessFile accessFile = new RandomAccessFile(file, "rw"); FileChannel channel = accessFile.getChannel()) {
+            // 映射在 channel 关闭后依然有效
+            return new Segment(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, channel.size())));
+        }
+    }
+
+    /**
+     * 扫描 segment 获取写入位置
+     */
+    private static int scan(MappedByteBuffer buffer) {
+        int position = 0;
+        while (position + 4 <= buffer.capacity()) {
+            int length = Math.abs(buffer.getInt(position));
+            if (length == 0 || position + 4 + length > buffer.capacity()) {
+                break;
+            }
+            position += 4 + length;
+        }
+        return position;
+    }
+
+    /**
+     * 扫描 segment 获取重放位置，已重放的记录长度为负数
+     */
+    private static int scanReplayed(MappedByteBuffer buffer, int end) {
+        int position = 0;
+        while (position < end) {
+            int length = buffer.getInt(position);
+            if (length > 0) {
+                break;
+            }
+            position += 4 - length;
+        }
+        return position;
+    }
+
+    /**
+     * 释放内存映射，避免等待 GC 回收时长时间占用文件句柄和虚拟内存
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            try {
+                // JDK 9+
+                unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(field.get(null), buffer);
+            } catch (NoSuchMethodException exception) {
+                // JDK 8
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Exception ignore) {
+            // 释放失败时由 GC 回收
+        }
+    }
+
+    private static List<SpooledRecord> readRecords(MappedByteBuffer buffer, int start, int end, int maxRecords, int maxBytes) {
+        List<SpooledRecord> result = new ArrayList<>();
+        int position = start;
+        while (position < end && result.size() < maxRecords && (result.isEmpty() || position - start < maxBytes)) {
+            int length = buffer.getInt(position);
+            ByteBuffer record = buffer.duplicate();
+            record.position(position + 4);
+            byte[] topic = new byte[record.getInt()];
+            record.get(topic);
+            int partition = record.getInt();
+            long timestamp = record.getLong();
+            byte[] key = getBytes(record);
+            byte[] value = getBytes(record);
+            result.add(new SpooledRecord(new String(topic, StandardCharsets.UTF_8), partition == NULL_LENGTH ? null : partition,
+                    timestamp == Long.MIN_VALUE ? null : timestamp, key, value));
+            position += 4 + length;
+        }
+        return result;
+    }
+
+    private static int lengthOf(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putBytes(MappedByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(NULL_LENGTH);
+        } else {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] result = new byte[length];
+        buffer.get(result);
+        return result;
+    }
+
+    private static long getSegmentId(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException exception) {
+            return -1;
+        }
+    }
+
+    private static final class Segment {
+
+        private final File file;
+
+        private final MappedByteBuffer buffer;
+
+        /**
+         * 封存后不再写入
+         */
+        private boolean sealed;
+
+        /**
+         * 已重放的位置
+         */
+        private int readPosition;
+
+        private Segment(File file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.wind.logging.logback.kafaka.delivery;
+
+import ch.qos.logback.core.spi.ContextAwareBase;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 发送失败时将消息写入本地磁盘缓冲（内存映射的追加写 segment 文件），kafka 恢复后按写入顺序重放并删除已重放的 segment
+ * 1: 磁盘缓冲中存在积压消息时，新消息同样写入磁盘缓冲；异步发送失败（在 producer 回调中）写入磁盘的消息会晚于其后已发送成功的消息，
+ * 因此不保证消息的严格顺序
+ * 2: 由独立的守护线程每隔 {@link #replayIntervalMillis} 尝试重放一次，先同步发送一条消息探测 kafka 是否恢复，
+ * 每轮重放等待发送结果的总时间不超过 {@link #replayTimeoutMillis}；发送线程只负责写入磁盘缓冲，不会被重放阻塞
+ * 3: 每次从磁盘缓冲中读取不超过 {@link #replayBatchSize} 条、{@link #replayBatchBytes} 字节的消息，避免一次将整个 segment 读入堆内存
+ * 4: 每条消息发送成功后立即标记为已重放，重放中断时只会重复发送已发出但尚未确认的消息（至少一次）
+ * 5: 磁盘缓冲超过 {@link #maxDiskSize} 或单条消息超过 {@link #segmentSize} 时，交给 {@link FailedDeliveryCallback} 处理
+ * 6: 仅支持 key、value 为 byte[] 的消息
+ *
+ * @author wuxp
+ * @date 2024-08-15 10:12
+ **/
+public class DiskSpoolDeliveryStrategy extends ContextAwareBase implements DeliveryStrategy {
+
+    private final AsynchronousDeliveryStrategy delegate = new AsynchronousDeliveryStrategy();
+
+    private String spoolDirectory = System.getProperty("java.io.tmpdir") + File.separator + "wind-kafka-spool";
+
+    private int segmentSize = 16 * 1024 * 1024;
+
+    private long maxDiskSize = 256L * 1024 * 1024;
+
+    private long replayIntervalMillis = 5000;
+
+    private long probeTimeoutMillis = 3000;
+
+    private long replayTimeoutMillis = 10000;
+
+    private int replayBatchSize = 256;
+
+    private int replayBatchBytes = 1024 * 1024;
+
+    private volatile DiskSpool spool;
+
+    /**
+     * 重放使用的 producer，取最近一次发送使用的 producer
+     */
+    private volatile Producer<?, ?> replayProducer;
+
+    private Thread replayThread;
+
+    @Override
+    public <K, V, E> boolean send(Producer<K, V> producer, ProducerRecord<K, V> producerRecord, E event, FailedDeliveryCallback<E> failedDeliveryCallback) {
+        DiskSpool diskSpool = getSpool();
+        if (diskSpool == null) {
+            return delegate.send(producer, producerRecord, event, failedDeliveryCallback);
+        }
+        replayProducer = producer;
+        if (!diskSpool.isEmpty()) {
+            // 存在积压消息时写入磁盘，由重放线程按顺序发送
+            return spill(diskSpool, producerRecord, event, failedDeliveryCallback, null);
+        }
+        try {
+            producer.send(producerRecord, (metadata, exception) -> {
+                if (exception != null) {
+                    spill(diskSpool, producerRecord, event, failedDeliveryCallback, exception);
+                }
+            });
+            return true;
+        } catch (Exception exception) {
+            return spill(diskSpool, producerRecord, event, failedDeliveryCallback, exception);
+        }
+    }
+
+    private <K, V, E> boolean spill(DiskSpool diskSpool, ProducerRecord<K, V> producerRecord, E event, FailedDeliveryCallback<E> failedDeliveryCallback, Exception cause) {
+        Object key = producerRecord.key();
+        Object value = producerRecord.value();
+        if ((key == null || key instanceof byte[]) && (value == null || value instanceof byte[])) {
+            try {
+                SpooledRecord record = new SpooledRecord(producerRecord.topic(), producerRecord.partition(), producerRecord.timestamp(), (byte[]) key, (byte[]) value);
+                if (diskSpool.append(record)) {
+                    return true;
+                }
+            } catch (IOException exception) {
+                addError("append record to disk spool error", exception);
+            }
+        }
+        failedDeliveryCallback.onFailedDelivery(event, cause);
+        return false;
+    }
+
+    private void replayLoop(DiskSpool diskSpool) {
+        while (!Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(replayIntervalMillis));
+            Producer<?, ?> producer = replayProducer;
+            if (spool != diskSpool) {
+                return;
+            }
+            if (producer != null && !diskSpool.isEmpty()) {
+                replay(diskSpool, producer);
+            }
+        }
+    }
+
+    /**
+     * 重放磁盘缓冲中的消息
+     */
+    @SuppressWarnings("unchecked")
+    private <K, V> void replay(DiskSpool diskSpool, Producer<K, V> producer) {
+        long deadline = System.currentTimeMillis() + replayTimeoutMillis;
+        try {
+            while (!diskSpool.isEmpty()) {
+                List<SpooledRecord> records = diskSpool.readOldest(replayBatchSize, replayBatchBytes);
+                List<Future<RecordMetadata>> futures = new ArrayList<>(records.size());
+                Exception sendException = null;
+                for (SpooledRecord record : records) {
+                    Future<RecordMetadata> future;
+                    try {
+                        future = producer.send(new ProducerRecord<>(record.getTopic(), record.getPartition(), record.getTimestamp(), (K) record.getKey(), (V) record.getValue()));
+                    } catch (Exception exception) {
+                        // 先确认已发出的消息
+                        sendException = exception;
+                        break;
+                    }
+                    if (futures.isEmpty()) {
+                        // 探测 kafka 是否恢复
+                        future.get(probeTimeoutMillis, TimeUnit.MILLISECONDS);
+                    }
+                    futures.add(future);
+                }
+                // 按顺序逐条确认，等待时间有上限
+                for (Future<RecordMetadata> future : futures) {
+                    future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                    diskSpool.commit();
+                }
+                if (sendException != null) {
+                    throw sendException;
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (Exception exception) {
+            addWarn("replay disk spool records failure, retry after " + replayIntervalMillis + "ms, cause: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * 停止重放线程，刷盘并释放磁盘缓冲，未重放的消息在下次启动时重放
+     */
+    @Override
+    public void close() {
+        DiskSpool diskSpool;
+        Thread thread;
+        synchronized (this) {
+            diskSpool = spool;
+            thread = replayThread;
+            spool = null;
+            replayThread = null;
+            replayProducer = null;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(replayTimeoutMillis);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (diskSpool != null) {
+            diskSpool.close();
+        }
+    }
+
+    private DiskSpool getSpool() {
+        DiskSpool result = spool;
+        if (result == null) {
+            synchronized (this) {
+                result = spool;
+                if (result == null) {
+                    try {
+                        result = new DiskSpool(new File(spoolDirectory), segmentSize, maxDiskSize);
+                        spool = result;
+                        DiskSpool diskSpool = result;
+                        replayThread = new Thread(() -> replayLoop(diskSpool), "wind-kafka-spool-replay");
+                        replayThread.setDaemon(true);
+                        replayThread.start();
+                    } catch (IOException exception) {
+                        addError("create disk spool error, fallback to asynchronous delivery", exception);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public void setSpoolDirectory(String spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public void setMaxDiskSize(long maxDiskSize) {
+        this.maxDiskSize = maxDiskSize;
+    }
+
+    public void setReplayIntervalMillis(long replayIntervalMillis) {
+        this.replayIntervalMillis = replayIntervalMillis;
+    }
+
+    public void setProbeTimeoutMillis(long probeTimeoutMillis) {
+        this.probeTimeoutMillis = probeTimeoutMillis;
+    }
+
+    public void setReplayTimeoutMillis(long replayTimeoutMillis) {
+        this.replayTimeoutMillis = replayTimeoutMillis;
+    }
+
+    public void setReplayBatchSize(int replayBatchSize) {
+        this.replayBatchSize = replayBatchSize;
+    }
+
+    public void setReplayBatchBytes(int replayBatchBytes) {
+        this.replayBatchBytes = replayBatchBytes;
+    }
+}
@@ -0,0 +1,25 @@
+package com.wind.logging.logback.kafaka.delivery;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 写入磁盘缓冲的 kafka 消息
+ *
+ * @author wuxp
+ * @date 2024-08-15 09:30
+ **/
+@Getter
+@AllArgsConstructor
+final class SpooledRecord {
+
+    private final String topic;
+
+    private final Integer partition;
+
+    private final Long timestamp;
+
+    private final byte[] key;
+
+    private final byte[] value;
+}
@@ -0,0 +1,53 @@
+package com.wind.logging.logback.kafaka.keying;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 有界的消息 key 缓存，缓存名称（logger 名称、线程名称等）hash 后的 key，避免每个日志事件都分配新的字节数组
+ * 缓存数量超过上限时清空重建，防止名称数量不受控（例如：动态线程名称）时内存无限增长
+ *
+ * @author wuxp
+ * @date 2024-08-15 14:05
+ **/
+final class KeyCache {
+
+    static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final Map<String, byte[]> keys = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    KeyCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 获取名称对应的 key，返回的字节数组会被多个事件共享，不能修改
+     *
+     * @param name 名称
+     * @return 名称 hashCode 的大端字节序表示
+     */
+    byte[] get(String name) {
+        byte[] result = keys.get(name);
+        if (result == null) {
+            if (keys.size() >= maxSize) {
+                keys.clear();
+            }
+            result = toBytes(name.hashCode());
+            keys.put(name, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return 当前缓存的 key 数量
+     */
+    int size() {
+        return keys.size();
+    }
+
+    static byte[] toBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+}
@@ -0,0 +1,49 @@
+package com.wind.logging.logback.kafaka.keying;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import com.wind.common.WindConstants;
+
+import java.util.Map;
+
+/**
+ * This strategy uses a MDC property (default: traceId) as partitioning key. This ensures that all messages logged
+ * within the same request will land in the same partition and remain in the correct order for any consumer.
+ * Events without the MDC property are evenly distributed over all available kafka partitions.
+ * <p>
+ * MDC 值的 hash 被映射到固定数量的桶，每个桶的 key 预先分配，发送时不会分配新的字节数组
+ *
+ * @author wuxp
+ * @date 2024-08-15 14:20
+ **/
+public class MdcKeyingStrategy implements KeyingStrategy<ILoggingEvent> {
+
+    /**
+     * 桶数量，需要远大于 topic 分区数量
+     */
+    private static final int BUCKETS = 1024;
+
+    private static final byte[][] BUCKET_KEYS = new byte[BUCKETS][];
+
+    static {
+        for (int i = 0; i < BUCKETS; i++) {
+            BUCKET_KEYS[i] = KeyCache.toBytes(i);
+        }
+    }
+
+    private String mdcKey = WindConstants.TRACE_ID_NAME;
+
+    @Override
+    public byte[] createKey(ILoggingEvent e) {
+        Map<String, String> mdc = e.getMDCPropertyMap();
+        String value = mdc == null ? null : mdc.get(mdcKey);
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        return BUCKET_KEYS[(hash ^ (hash >>> 16)) & (BUCKETS - 1)];
+    }
+
+    public void setMdcKey(String mdcKey) {
+        this.mdcKey = mdcKey;
+    }
+}
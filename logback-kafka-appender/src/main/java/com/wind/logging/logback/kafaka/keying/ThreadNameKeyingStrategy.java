@@ -2,19 +2,21 @@ package com.wind.logging.logback.kafaka.keying;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 
-import java.nio.ByteBuffer;
-
 /**
  * This strategy uses the calling threads name as partitioning key. This ensures that all messages logged by the
  * same thread will remain in the correct order for any consumer.
  * But this strategy can lead to uneven log distribution for a small number of thread(-names) (compared to the number of partitions).
  *
+ * 使用有界缓存复用 key，避免每个日志事件都分配新的字节数组
+ *
  * @since 0.0.1
  */
 public class ThreadNameKeyingStrategy implements KeyingStrategy<ILoggingEvent> {
 
+    private final KeyCache keyCache = new KeyCache(KeyCache.DEFAULT_MAX_SIZE);
+
     @Override
     public byte[] createKey(ILoggingEvent e) {
-        return ByteBuffer.allocate(4).putInt(e.getThreadName().hashCode()).array();
+        return keyCache.get(e.getThreadName());
     }
 }
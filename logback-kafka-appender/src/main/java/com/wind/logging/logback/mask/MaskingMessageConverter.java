@@ -9,10 +9,8 @@ import org.slf4j.helpers.MessageFormatter;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ObjectUtils;
 
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
-import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -23,44 +21,44 @@ import java.util.Set;
  **/
 public class MaskingMessageConverter extends ClassicConverter {
 
-    public final static Set<Class<?>> IGNORE_CLASSES = new LinkedHashSet<>(ImmutableSet.of(
-            Date.class
-    ));
-
-    public final static Set<String> IGNORE_PACKAGES = new LinkedHashSet<>();
-
     public final static MaskRuleRegistry LOG_MASK_RULE_REGISTRY = new MaskRuleRegistry();
 
     private final static ObjectMaskPrinter MASKER = new ObjectMaskPrinter(LOG_MASK_RULE_REGISTRY);
 
-    static {
-        IGNORE_PACKAGES.add("org.springframework.");
-        IGNORE_PACKAGES.add("org.slf4j.");
-        IGNORE_PACKAGES.add("org.apache.");
-        IGNORE_PACKAGES.add("org.freemarker.");
-        IGNORE_PACKAGES.add("org.hibernate.");
-        IGNORE_PACKAGES.add("org.jetbrains.");
-        IGNORE_PACKAGES.add("org.jodd.");
-        IGNORE_PACKAGES.add("lombok.");
-        IGNORE_PACKAGES.add("javax.persistence.");
-        IGNORE_PACKAGES.add("java.net.");
-        IGNORE_PACKAGES.add("javax.");
-        IGNORE_PACKAGES.add("java.security.");
-        IGNORE_PACKAGES.add("java.text.");
-        IGNORE_PACKAGES.add("java.io.");
-        IGNORE_PACKAGES.add("java.time.");
-        IGNORE_PACKAGES.add("java.lang.reflect");
-        IGNORE_PACKAGES.add("sun.");
-        IGNORE_PACKAGES.add("com.google.");
-        IGNORE_PACKAGES.add("com.alibaba.");
-        IGNORE_PACKAGES.add("com.alipay.");
-        IGNORE_PACKAGES.add("com.baidu.");
-        IGNORE_PACKAGES.add("com.github.");
-        IGNORE_PACKAGES.add("reactor.");
-        IGNORE_PACKAGES.add("org.reactivestreams");
-        IGNORE_PACKAGES.add("io.reactivex.");
+    private static volatile Set<Class<?>> ignoreClasses = ImmutableSet.of(Date.class);
 
-    }
+    private static volatile Set<String> ignorePackages = ImmutableSet.of(
+            "org.springframework.",
+            "org.slf4j.",
+            "org.apache.",
+            "org.freemarker.",
+            "org.hibernate.",
+            "org.jetbrains.",
+            "org.jodd.",
+            "lombok.",
+            "javax.persistence.",
+            "java.net.",
+            "javax.",
+            "java.security.",
+            "java.text.",
+            "java.io.",
+            "java.time.",
+            "java.lang.reflect",
+            "sun.",
+            "com.google.",
+            "com.alibaba.",
+            "com.alipay.",
+            "com.baidu.",
+            "com.github.",
+            "reactor.",
+            "org.reactivestreams",
+            "io.reactivex."
+    );
+
+    /**
+     * 类型是否忽略脱敏的缓存，使用 {@link ClassValue} 避免强引用类型导致类加载器无法卸载，忽略规则变更时重建
+     */
+    private static volatile ClassValue<Boolean> ignoreCache = newIgnoreCache();
 
     @Override
     public String convert(ILoggingEvent event) {
@@ -70,14 +68,20 @@ public class MaskingMessageConverter extends ClassicConverter {
             return event.getFormattedMessage();
         }
         try {
-            Object[] args = Arrays.stream(argumentArray)
-                    .map(object -> {
-                        if (requireMask(object)) {
-                            return MASKER.mask(object);
-                        }
-                        return object;
-                    })
-                    .toArray(Object[]::new);
+            Object[] args = null;
+            for (int i = 0; i < argumentArray.length; i++) {
+                Object object = argumentArray[i];
+                if (requireMask(object)) {
+                    if (args == null) {
+                        args = argumentArray.clone();
+                    }
+                    args[i] = MASKER.mask(object);
+                }
+            }
+            if (args == null) {
+                // 没有需要脱敏的参数
+                return event.getFormattedMessage();
+            }
             return MessageFormatter.arrayFormat(event.getMessage(), args).getMessage();
         } catch (Throwable throwable) {
             // TODO
@@ -112,8 +116,62 @@ public class MaskingMessageConverter extends ClassicConverter {
     }
 
     private boolean isIgnoreMask(Object o) {
-        String name = o.getClass().getName();
-        return IGNORE_CLASSES.stream().anyMatch(c -> c.isInstance(o) ||
-                IGNORE_PACKAGES.stream().anyMatch(name::startsWith));
+        return ignoreCache.get(o.getClass());
+    }
+
+    private static boolean isIgnoreClass(Class<?> clazz) {
+        Set<Class<?>> classes = ignoreClasses;
+        if (classes.isEmpty()) {
+            return false;
+        }
+        for (Class<?> ignoreClass : classes) {
+            if (ignoreClass.isAssignableFrom(clazz)) {
+                return true;
+            }
+        }
+        String name = clazz.getName();
+        for (String ignorePackage : ignorePackages) {
+            if (name.startsWith(ignorePackage)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ClassValue<Boolean> newIgnoreCache() {
+        return new ClassValue<Boolean>() {
+            @Override
+            protected Boolean computeValue(Class<?> type) {
+                return isIgnoreClass(type);
+            }
+        };
+    }
+
+    public static Set<Class<?>> getIgnoreClasses() {
+        return ignoreClasses;
+    }
+
+    /**
+     * 设置忽略脱敏的类型，并清除类型是否忽略脱敏的缓存
+     *
+     * @param classes 忽略脱敏的类型
+     */
+    public static void setIgnoreClasses(Collection<Class<?>> classes) {
+        ignoreClasses = ImmutableSet.copyOf(classes);
+        ignoreCache = newIgnoreCache();
+    }
+
+    public static Set<String> getIgnorePackages() {
+        return ignorePackages;
+    }
+
+    /**
+     * 设置忽略脱敏的包名前缀，并清除类型是否忽略脱敏的缓存
+     *
+     * @param packages 忽略脱敏的包名前缀
+     */
+    public static void setIgnorePackages(Collection<String> packages) {
+        ignorePackages = ImmutableSet.copyOf(packages);
+        ignoreCache = newIgnoreCache();
     }
-}
\ No newline at end of file
+}
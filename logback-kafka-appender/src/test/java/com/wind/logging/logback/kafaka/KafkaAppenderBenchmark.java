@@ -0,0 +1,160 @@
+package com.wind.logging.logback.kafaka;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.encoder.EchoEncoder;
+import com.wind.common.WindConstants;
+import com.wind.logging.logback.kafaka.buffer.OverflowPolicy;
+import com.wind.logging.logback.kafaka.keying.KeyingStrategy;
+import com.wind.logging.logback.kafaka.keying.LoggerNameKeyingStrategy;
+import com.wind.logging.logback.kafaka.keying.MdcKeyingStrategy;
+import com.wind.logging.logback.kafaka.keying.ThreadNameKeyingStrategy;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KafkaAppender 写入吞吐量基准测试，allocating 为改造前每个事件分配 key 的实现，用于对比
+ * 运行方式：执行 {@link #main(String[])}
+ *
+ * @author wuxp
+ * @date 2024-08-15 15:02
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class KafkaAppenderBenchmark {
+
+    private static final Future<RecordMetadata> COMPLETED = CompletableFuture.completedFuture(null);
+
+    @Param({"allocating", "threadName", "loggerName", "mdc"})
+    private String keying;
+
+    private KafkaAppender<ILoggingEvent> appender;
+
+    private KeyingStrategy<ILoggingEvent> keyingStrategy;
+
+    private Logger logger;
+
+    private Map<String, String> mdc;
+
+    private LoggingEvent event;
+
+    @Setup
+    public void setup() {
+        keyingStrategy = newKeyingStrategy();
+        LoggerContext context = new LoggerContext();
+        logger = context.getLogger(KafkaAppenderBenchmark.class);
+        mdc = Collections.singletonMap(WindConstants.TRACE_ID_NAME, "8f3c2a6d1b7e4f90a5c3d2e1f0b9a8c7");
+        event = newEvent();
+        appender = new KafkaAppender<ILoggingEvent>() {
+            @Override
+            protected Producer<byte[], byte[]> createProducer() {
+                return new DiscardingProducer();
+            }
+        };
+        appender.setContext(context);
+        appender.setName("kafka-benchmark");
+        appender.setTopic("benchmark");
+        appender.setKeyingStrategy(keyingStrategy);
+        appender.setOverflowPolicy(OverflowPolicy.BLOCK);
+        appender.addProducerConfigValue(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        EchoEncoder<ILoggingEvent> encoder = new EchoEncoder<>();
+        encoder.setContext(context);
+        encoder.start();
+        appender.setEncoder(encoder);
+        appender.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        appender.stop();
+    }
+
+    @Benchmark
+    public void append() {
+        appender.doAppend(newEvent());
+    }
+
+    @Benchmark
+    public byte[] createKey() {
+        return keyingStrategy.createKey(event);
+    }
+
+    private LoggingEvent newEvent() {
+        LoggingEvent result = new LoggingEvent(KafkaAppenderBenchmark.class.getName(), logger, Level.INFO, "benchmark message", null, null);
+        result.setMDCPropertyMap(mdc);
+        return result;
+    }
+
+    private KeyingStrategy<ILoggingEvent> newKeyingStrategy() {
+        switch (keying) {
+            case "threadName":
+                return new ThreadNameKeyingStrategy();
+            case "loggerName":
+                return new LoggerNameKeyingStrategy();
+            case "mdc":
+                return new MdcKeyingStrategy();
+            default:
+                return e -> ByteBuffer.allocate(4).putInt(e.getThreadName().hashCode()).array();
+        }
+    }
+
+    /**
+     * 不保存发送历史的 producer，避免基准测试期间内存持续增长
+     */
+    private static class DiscardingProducer extends MockProducer<byte[], byte[]> {
+
+        DiscardingProducer() {
+            super(true, new ByteArraySerializer(), new ByteArraySerializer());
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<byte[], byte[]> record, Callback callback) {
+            return COMPLETED;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 4}) {
+            Options options = new OptionsBuilder()
+                    .include(KafkaAppenderBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
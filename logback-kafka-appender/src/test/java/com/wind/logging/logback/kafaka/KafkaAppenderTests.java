@@ -0,0 +1,106 @@
+package com.wind.logging.logback.kafaka;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.encoder.EchoEncoder;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * @author wuxp
+ * @date 2024-08-14 11:32
+ **/
+class KafkaAppenderTests {
+
+    private final MockProducer<byte[], byte[]> producer = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+
+    @Test
+    void testAppend() {
+        KafkaAppender<ILoggingEvent> appender = newAppender();
+        appender.start();
+        Assertions.assertTrue(appender.isStarted());
+        LoggerContext context = (LoggerContext) appender.getContext();
+        for (int i = 0; i < 1000; i++) {
+            appender.doAppend(new LoggingEvent("test", context.getLogger("test"), Level.INFO, "message " + i, null, null));
+        }
+        appender.stop();
+        Assertions.assertEquals(1000, producer.history().size());
+        Assertions.assertEquals(1000, appender.getQueuedCount());
+        Assertions.assertEquals(1000, appender.getSentCount());
+        Assertions.assertEquals(0, appender.getDroppedCount());
+    }
+
+    @Test
+    void testDropByLevelWhenBufferAlmostFull() throws Exception {
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        KafkaAppender<ILoggingEvent> appender = newAppender(() -> {
+            // 阻塞发送线程，让事件堆积在缓冲区中
+            creating.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return producer;
+        });
+        appender.setBufferSize(16);
+        appender.setBatchSize(1);
+        appender.start();
+        LoggerContext context = (LoggerContext) appender.getContext();
+        appender.doAppend(newEvent(context, Level.INFO, "first"));
+        Assertions.assertTrue(creating.await(5, TimeUnit.SECONDS));
+        // 填充到 80%，剩余容量不超过 20%
+        for (int i = 0; i < 13; i++) {
+            appender.doAppend(newEvent(context, Level.INFO, "message " + i));
+        }
+        Assertions.assertEquals(0, appender.getDroppedCount());
+        appender.doAppend(newEvent(context, Level.INFO, "discardable"));
+        appender.doAppend(newEvent(context, Level.DEBUG, "discardable"));
+        Assertions.assertEquals(2, appender.getDroppedCount());
+        appender.doAppend(newEvent(context, Level.WARN, "warn"));
+        appender.doAppend(newEvent(context, Level.ERROR, "error"));
+        Assertions.assertEquals(2, appender.getDroppedCount());
+        Assertions.assertEquals(16, appender.getQueuedCount());
+        release.countDown();
+        appender.stop();
+        Assertions.assertEquals(16, producer.history().size());
+    }
+
+    private static LoggingEvent newEvent(LoggerContext context, Level level, String message) {
+        return new LoggingEvent("test", context.getLogger("test"), level, message, null, null);
+    }
+
+    private KafkaAppender<ILoggingEvent> newAppender() {
+        return newAppender(() -> producer);
+    }
+
+    private KafkaAppender<ILoggingEvent> newAppender(Supplier<Producer<byte[], byte[]>> producerSupplier) {
+        KafkaAppender<ILoggingEvent> result = new KafkaAppender<ILoggingEvent>() {
+            @Override
+            protected Producer<byte[], byte[]> createProducer() {
+                return producerSupplier.get();
+            }
+        };
+        LoggerContext context = new LoggerContext();
+        result.setContext(context);
+        result.setName("kafka-test");
+        result.setTopic("test");
+        result.addProducerConfigValue(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092");
+        EchoEncoder<ILoggingEvent> encoder = new EchoEncoder<>();
+        encoder.setContext(context);
+        encoder.start();
+        result.setEncoder(encoder);
+        return result;
+    }
+}
@@ -0,0 +1,58 @@
+package com.wind.logging.logback.kafaka.buffer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * @author wuxp
+ * @date 2024-08-14 11:10
+ **/
+class EventRingBufferTests {
+
+    @Test
+    void testOfferAndPoll() {
+        EventRingBuffer<Integer> buffer = new EventRingBuffer<>(3);
+        Assertions.assertEquals(4, buffer.capacity());
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(buffer.offer(i));
+        }
+        Assertions.assertFalse(buffer.offer(4));
+        Assertions.assertEquals(0, buffer.remainingCapacity());
+        Assertions.assertEquals(0, buffer.poll());
+        Assertions.assertTrue(buffer.offer(4));
+        List<Integer> result = new ArrayList<>();
+        Assertions.assertEquals(4, buffer.drainTo(result, 10));
+        Assertions.assertEquals(Arrays.asList(1, 2, 3, 4), result);
+        Assertions.assertNull(buffer.poll());
+        Assertions.assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    void testConcurrentOffer() throws Exception {
+        EventRingBuffer<Integer> buffer = new EventRingBuffer<>(1024);
+        Set<Integer> result = ConcurrentHashMap.newKeySet();
+        Thread consumer = new Thread(() -> {
+            while (result.size() < 100000) {
+                Integer value = buffer.poll();
+                if (value != null) {
+                    result.add(value);
+                }
+            }
+        });
+        consumer.start();
+        IntStream.range(0, 100000).parallel().forEach(i -> {
+            while (!buffer.offer(i)) {
+                Thread.yield();
+            }
+        });
+        consumer.join(10000);
+        Assertions.assertEquals(100000, result.size());
+    }
+}
@@ -0,0 +1,217 @@
+package com.wind.logging.logback.kafaka.delivery;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * @author wuxp
+ * @date 2024-08-15 11:20
+ **/
+class DiskSpoolDeliveryStrategyTests {
+
+    @TempDir
+    File spoolDirectory;
+
+    private final MockProducer<byte[], byte[]> producer = new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+
+    private final List<String> failedEvents = new ArrayList<>();
+
+    private final FailedDeliveryCallback<String> callback = (evt, throwable) -> failedEvents.add(evt);
+
+    private final List<DiskSpoolDeliveryStrategy> strategies = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        strategies.forEach(DiskSpoolDeliveryStrategy::close);
+    }
+
+    @Test
+    void testSpillAndReplay() {
+        DiskSpoolDeliveryStrategy strategy = newStrategy(1024 * 1024, 4 * 1024 * 1024);
+        producer.sendException = new KafkaException("broker unavailable");
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(send(strategy, "message-" + i));
+        }
+        Assertions.assertTrue(failedEvents.isEmpty());
+        Assertions.assertEquals(1, listSegments().length);
+
+        producer.sendException = null;
+        Assertions.assertTrue(send(strategy, "message-3"));
+        awaitHistory(4);
+        List<String> values = producer.history().stream().map(record -> new String(record.value(), StandardCharsets.UTF_8)).collect(Collectors.toList());
+        Assertions.assertEquals(Arrays.asList("message-0", "message-1", "message-2", "message-3"), values);
+        // 当前写入的 segment 重放后截断复用
+        Assertions.assertEquals(1, listSegments().length);
+
+        producer.sendException = new KafkaException("broker unavailable");
+        send(strategy, "message-4");
+        producer.sendException = null;
+        send(strategy, "message-5");
+        awaitHistory(6);
+        Assertions.assertEquals("message-4", new String(producer.history().get(4).value(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testReloadSegments() {
+        producer.sendException = new KafkaException("broker unavailable");
+        DiskSpoolDeliveryStrategy strategy = newStrategy(1024 * 1024, 4 * 1024 * 1024);
+        send(strategy, "message-0");
+        strategy.close();
+        producer.sendException = null;
+        send(newStrategy(1024 * 1024, 4 * 1024 * 1024), "message-1");
+        awaitHistory(2);
+        Assertions.assertEquals("message-0", new String(producer.history().get(0).value(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testPartialReplay() throws InterruptedException {
+        DiskSpoolDeliveryStrategy strategy = newStrategy(1024 * 1024, 4 * 1024 * 1024);
+        producer.sendException = new KafkaException("broker unavailable");
+        for (int i = 0; i < 3; i++) {
+            send(strategy, "message-" + i);
+        }
+        producer.sendException = null;
+        MockProducer<byte[], byte[]> failedProducer = new MockProducer<byte[], byte[]>(true, new ByteArraySerializer(), new ByteArraySerializer()) {
+            @Override
+            public synchronized Future<RecordMetadata> send(ProducerRecord<byte[], byte[]> record, Callback callback) {
+                if ("message-1".equals(new String(record.value(), StandardCharsets.UTF_8))) {
+                    throw new KafkaException("broker unavailable");
+                }
+                return producer.send(record, callback);
+            }
+        };
+        ProducerRecord<byte[], byte[]> record = new ProducerRecord<>("test", null, System.currentTimeMillis(), null, "message-3".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertTrue(strategy.send(failedProducer, record, "message-3", callback));
+        awaitHistory(1);
+        Thread.sleep(100);
+        Assertions.assertEquals(1, producer.history().size());
+        strategy.close();
+
+        // 重启后只重放未确认的消息
+        send(newStrategy(1024 * 1024, 4 * 1024 * 1024), "message-4");
+        awaitHistory(5);
+        List<String> values = producer.history().stream().map(item -> new String(item.value(), StandardCharsets.UTF_8)).collect(Collectors.toList());
+        Assertions.assertEquals(Arrays.asList("message-0", "message-1", "message-2", "message-3", "message-4"), values);
+        Assertions.assertTrue(failedEvents.isEmpty());
+    }
+
+    @Test
+    void testSendNotBlockedByReplay() throws InterruptedException {
+        DiskSpoolDeliveryStrategy strategy = newStrategy(1024 * 1024, 4 * 1024 * 1024);
+        producer.sendException = new KafkaException("broker unavailable");
+        send(strategy, "message-0");
+        producer.sendException = null;
+        CountDownLatch replaying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MockProducer<byte[], byte[]> blockedProducer = new MockProducer<byte[], byte[]>(true, new ByteArraySerializer(), new ByteArraySerializer()) {
+            @Override
+            public Future<RecordMetadata> send(ProducerRecord<byte[], byte[]> record, Callback callback) {
+                // 模拟 kafka 不可用时 producer 阻塞
+                replaying.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                return producer.send(record, callback);
+            }
+        };
+        ProducerRecord<byte[], byte[]> record = new ProducerRecord<>("test", null, System.currentTimeMillis(), null, "message-1".getBytes(StandardCharsets.UTF_8));
+        Assertions.assertTrue(strategy.send(blockedProducer, record, "message-1", callback));
+        Assertions.assertTrue(replaying.await(5, TimeUnit.SECONDS));
+        // 重放阻塞时发送线程直接写入磁盘缓冲
+        for (int i = 2; i < 5; i++) {
+            record = new ProducerRecord<>("test", null, System.currentTimeMillis(), null, ("message-" + i).getBytes(StandardCharsets.UTF_8));
+            Assertions.assertTrue(strategy.send(blockedProducer, record, "message-" + i, callback));
+        }
+        release.countDown();
+        awaitHistory(5);
+        List<String> values = producer.history().stream().map(item -> new String(item.value(), StandardCharsets.UTF_8)).collect(Collectors.toList());
+        Assertions.assertEquals(Arrays.asList("message-0", "message-1", "message-2", "message-3", "message-4"), values);
+        strategy.close();
+    }
+
+    @Test
+    void testReadOldestInBatches() throws IOException {
+        DiskSpool spool = new DiskSpool(spoolDirectory, 1024 * 1024, 4 * 1024 * 1024);
+        for (int i = 0; i < 5; i++) {
+            spool.append(new SpooledRecord("test", null, null, null, ("message-" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        Assertions.assertEquals(2, spool.readOldest(2, 1024).size());
+        // 至少读取一条记录
+        Assertions.assertEquals(1, spool.readOldest(10, 1).size());
+        spool.commit();
+        spool.commit();
+        List<SpooledRecord> records = spool.readOldest(10, 1024);
+        Assertions.assertEquals(3, records.size());
+        Assertions.assertEquals("message-2", new String(records.get(0).getValue(), StandardCharsets.UTF_8));
+        spool.close();
+    }
+
+    @Test
+    void testAppendAfterClose() throws IOException {
+        DiskSpool spool = new DiskSpool(spoolDirectory, 1024, 4096);
+        Assertions.assertTrue(spool.append(new SpooledRecord("test", null, null, null, "message-0".getBytes(StandardCharsets.UTF_8))));
+        spool.close();
+        Assertions.assertFalse(spool.append(new SpooledRecord("test", null, null, null, "message-1".getBytes(StandardCharsets.UTF_8))));
+        Assertions.assertTrue(spool.isEmpty());
+    }
+
+    @Test
+    void testMaxDiskSize() {
+        DiskSpoolDeliveryStrategy strategy = newStrategy(128, 256);
+        producer.sendException = new KafkaException("broker unavailable");
+        for (int i = 0; i < 10; i++) {
+            send(strategy, "message-" + i);
+        }
+        Assertions.assertEquals(2, listSegments().length);
+        Assertions.assertFalse(failedEvents.isEmpty());
+    }
+
+    private boolean send(DiskSpoolDeliveryStrategy strategy, String message) {
+        ProducerRecord<byte[], byte[]> record = new ProducerRecord<>("test", null, System.currentTimeMillis(), null, message.getBytes(StandardCharsets.UTF_8));
+        return strategy.send(producer, record, message, callback);
+    }
+
+    private void awaitHistory(int size) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (producer.history().size() < size && System.currentTimeMillis() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        Assertions.assertEquals(size, producer.history().size());
+    }
+
+    private DiskSpoolDeliveryStrategy newStrategy(int segmentSize, long maxDiskSize) {
+        DiskSpoolDeliveryStrategy result = new DiskSpoolDeliveryStrategy();
+        result.setSpoolDirectory(spoolDirectory.getAbsolutePath());
+        result.setSegmentSize(segmentSize);
+        result.setMaxDiskSize(maxDiskSize);
+        result.setReplayIntervalMillis(10);
+        strategies.add(result);
+        return result;
+    }
+
+    private File[] listSegments() {
+        return spoolDirectory.listFiles((dir, name) -> name.endsWith(".spool"));
+    }
+}
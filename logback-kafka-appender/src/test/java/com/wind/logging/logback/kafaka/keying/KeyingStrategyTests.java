@@ -0,0 +1,66 @@
+package com.wind.logging.logback.kafaka.keying;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.wind.common.WindConstants;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+/**
+ * @author wuxp
+ * @date 2024-08-15 14:42
+ **/
+class KeyingStrategyTests {
+
+    private final LoggerContext context = new LoggerContext();
+
+    @Test
+    void testLoggerNameKey() {
+        LoggerNameKeyingStrategy strategy = new LoggerNameKeyingStrategy();
+        byte[] key = strategy.createKey(newEvent("com.wind.Test"));
+        Assertions.assertArrayEquals(ByteBuffer.allocate(4).putInt("com.wind.Test".hashCode()).array(), key);
+        Assertions.assertSame(key, strategy.createKey(newEvent("com.wind.Test")));
+    }
+
+    @Test
+    void testThreadNameKey() {
+        ThreadNameKeyingStrategy strategy = new ThreadNameKeyingStrategy();
+        LoggingEvent event = newEvent("test");
+        event.setThreadName("worker-1");
+        byte[] key = strategy.createKey(event);
+        Assertions.assertArrayEquals(ByteBuffer.allocate(4).putInt("worker-1".hashCode()).array(), key);
+        Assertions.assertSame(key, strategy.createKey(event));
+    }
+
+    @Test
+    void testKeyCacheBounded() {
+        KeyCache cache = new KeyCache(4);
+        for (int i = 0; i < 100; i++) {
+            Assertions.assertArrayEquals(ByteBuffer.allocate(4).putInt(("name-" + i).hashCode()).array(), cache.get("name-" + i));
+            Assertions.assertTrue(cache.size() <= 4);
+        }
+        Assertions.assertTrue(cache.size() > 0);
+        Assertions.assertSame(cache.get("name-99"), cache.get("name-99"));
+    }
+
+    @Test
+    void testMdcKey() {
+        MdcKeyingStrategy strategy = new MdcKeyingStrategy();
+        Assertions.assertNull(strategy.createKey(newEvent("test")));
+        LoggingEvent event = newEvent("test");
+        event.setMDCPropertyMap(Collections.singletonMap(WindConstants.TRACE_ID_NAME, "a1b2c3"));
+        byte[] key = strategy.createKey(event);
+        Assertions.assertNotNull(key);
+        LoggingEvent other = newEvent("other");
+        other.setMDCPropertyMap(Collections.singletonMap(WindConstants.TRACE_ID_NAME, "a1b2c3"));
+        Assertions.assertSame(key, strategy.createKey(other));
+    }
+
+    private LoggingEvent newEvent(String loggerName) {
+        return new LoggingEvent(loggerName, context.getLogger(loggerName), Level.INFO, "message", null, null);
+    }
+}
@@ -1,5 +1,8 @@
 package com.wind.logging.logback.mask;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.LoggingEvent;
 import com.wind.mask.MaskRuleGroup;
 import com.wind.mask.masker.StringRangMasker;
 import lombok.Data;
@@ -10,7 +13,10 @@ import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @author wuxp
@@ -35,6 +41,29 @@ class MaskingMessageConverterTests {
         Assertions.assertEquals(mobilePhone, user.getMobilePhone());
     }
 
+    @Test
+    void testSetIgnoreClasses() {
+        MaskingMessageConverter.LOG_MASK_RULE_REGISTRY.registerRules(MaskRuleGroup.builder().form(LogbackMaskUser.class)
+                .of(LogbackMaskUser.Fields.mobilePhone, StringRangMasker.phone())
+                .build());
+        LogbackMaskUser user = new LogbackMaskUser();
+        user.setMobilePhone("18900234567");
+        LoggerContext context = new LoggerContext();
+        LoggingEvent event = new LoggingEvent("test", context.getLogger("test"), Level.INFO, "test = {}", null, new Object[]{user});
+        MaskingMessageConverter converter = new MaskingMessageConverter();
+        Assertions.assertFalse(converter.convert(event).contains("18900234567"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> MaskingMessageConverter.getIgnoreClasses().add(LogbackMaskUser.class));
+
+        Set<Class<?>> ignoreClasses = MaskingMessageConverter.getIgnoreClasses();
+        try {
+            MaskingMessageConverter.setIgnoreClasses(Arrays.asList(Date.class, LogbackMaskUser.class));
+            Assertions.assertTrue(converter.convert(event).contains("18900234567"));
+        } finally {
+            MaskingMessageConverter.setIgnoreClasses(ignoreClasses);
+        }
+        Assertions.assertFalse(converter.convert(event).contains("18900234567"));
+    }
+
     @Data
     @FieldNameConstants
     static class LogbackMaskUser {
@@ -0,0 +1,131 @@
+package com.wind.mask;
+
+import com.wind.common.exception.BaseException;
+import com.wind.common.exception.DefaultExceptionCode;
+import com.wind.common.util.WindReflectUtils;
+import com.wind.mask.annotation.Sensitive;
+import com.wind.mask.masker.MaskerFactory;
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 类的脱敏计划，由 {@link MaskRuleRegistry} 在首次打印该类的对象时编译并缓存
+ * 预先解析字段访问器和字段脱敏规则，打印对象时不再需要反射查找字段、读取注解和匹配规则
+ * JDK 内置类型（java.*、javax.*）或字段无法访问（例如 JDK 9+ 未开放的模块）时不解析字段，{@link #isSupported()} 为 false
+ *
+ * @author wuxp
+ * @date 2024-08-15 16:10
+ **/
+@Getter
+public final class MaskPlan {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * 目标类类型
+     */
+    private final Class<?> target;
+
+    /**
+     * 是否支持按字段打印，为 false 时直接使用 {@link Object#toString()}
+     */
+    private final boolean supported;
+
+    /**
+     * 字段脱敏计划，顺序与 {@link WindReflectUtils#getFields(Class)} 一致
+     */
+    private final FieldPlan[] fields;
+
+    private MaskPlan(Class<?> target, boolean supported, FieldPlan[] fields) {
+        this.target = target;
+        this.supported = supported;
+        this.fields = fields;
+    }
+
+    static MaskPlan compile(Class<?> target, MaskRuleRegistry registry) {
+        if (MaskRuleRegistry.isJdkClass(target)) {
+            return unsupported(target);
+        }
+        try {
+            List<String> names = WindReflectUtils.getFieldNames(target);
+            Field[] fields = names.isEmpty() ? new Field[0] : WindReflectUtils.getFields(target);
+            return new MaskPlan(target, true, Arrays.stream(fields)
+                    .map(field -> new FieldPlan(field, resolveRule(field, registry)))
+                    .toArray(FieldPlan[]::new));
+        } catch (RuntimeException exception) {
+            // JDK 9+ 无法访问未开放模块中的字段（InaccessibleObjectException）
+            return unsupported(target);
+        }
+    }
+
+    private static MaskPlan unsupported(Class<?> target) {
+        return new MaskPlan(target, false, new FieldPlan[0]);
+    }
+
+    private static MaskRule resolveRule(Field field, MaskRuleRegistry registry) {
+        Sensitive annotation = field.getAnnotation(Sensitive.class);
+        String name = field.getName();
+        if (annotation == null) {
+            return registry.getRuleGroup(field.getDeclaringClass()).matchesWithName(name);
+        }
+        return new MaskRule(name, Arrays.asList(annotation.names()), MaskerFactory.getMasker(annotation.masker()));
+    }
+
+    /**
+     * 字段脱敏计划
+     */
+    @Getter
+    public static final class FieldPlan {
+
+        private final String name;
+
+        private final MethodHandle getter;
+
+        /**
+         * 字段的脱敏规则，未配置时为 {@link MaskRule#EMPTY}
+         */
+        private final MaskRule rule;
+
+        /**
+         * 字段值为 {@link java.util.Map} 时使用，由 {@link #rule} 转换的规则组
+         */
+        private final MaskRuleGroup mapRuleGroup;
+
+        private FieldPlan(Field field, MaskRule rule) {
+            this.name = field.getName();
+            this.rule = rule;
+            this.mapRuleGroup = MaskRuleGroup.convertMapRules(rule);
+            try {
+                this.getter = LOOKUP.unreflectGetter(field).asType(GETTER_TYPE);
+            } catch (IllegalAccessException exception) {
+                throw new BaseException(DefaultExceptionCode.COMMON_ERROR, String.format("unreflect field = %s getter error", field), exception);
+            }
+        }
+
+        /**
+         * 读取字段值
+         *
+         * @param target 目标对象
+         * @return 字段值
+         */
+        public Object getValue(Object target) {
+            try {
+                return getter.invokeExact(target);
+            } catch (Throwable throwable) {
+                throw new BaseException(DefaultExceptionCode.COMMON_ERROR, String.format("get field = %s value error", name), throwable);
+            }
+        }
+
+        public boolean isEmptyRule() {
+            return rule == MaskRule.EMPTY;
+        }
+    }
+}
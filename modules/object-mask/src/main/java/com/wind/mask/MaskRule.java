@@ -3,7 +3,12 @@ package com.wind.mask;
 import com.wind.common.WindConstants;
 import com.wind.common.exception.AssertUtils;
 import com.wind.mask.masker.MaskerFactory;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import javax.validation.constraints.NotNull;
 import java.util.Arrays;
@@ -46,6 +51,15 @@ public class MaskRule {
     @SuppressWarnings("rawtypes")
     private final WindMasker masker;
 
+    /**
+     * 由 {@link #name} 转换的匹配表达式，首次匹配时编译，避免每次匹配时重新编译
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile Pattern pattern;
+
 
     @SuppressWarnings("rawtypes")
     public MaskRule(String name, Collection<String> keys, WindMasker masker) {
@@ -59,7 +73,15 @@ public class MaskRule {
     }
 
     boolean matches(String name) {
-        return eq(name) || convertPattern(this.name).matcher(name).matches();
+        if (eq(name)) {
+            return true;
+        }
+        Pattern result = pattern;
+        if (result == null) {
+            result = convertPattern(this.name);
+            pattern = result;
+        }
+        return result.matcher(name).matches();
     }
 
     /**
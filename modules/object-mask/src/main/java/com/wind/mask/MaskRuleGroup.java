@@ -50,10 +50,12 @@ public final class MaskRuleGroup {
         if (fieldName == null && rules.isEmpty()) {
             return MaskRule.EMPTY;
         }
-        return rules.stream()
-                .filter(rule -> rule.eq(fieldName))
-                .findFirst()
-                .orElse(MaskRule.EMPTY);
+        for (MaskRule rule : rules) {
+            if (rule.eq(fieldName)) {
+                return rule;
+            }
+        }
+        return MaskRule.EMPTY;
     }
 
     @NotNull
@@ -61,10 +63,12 @@ public final class MaskRuleGroup {
         if (key == null && rules.isEmpty()) {
             return MaskRule.EMPTY;
         }
-        return rules.stream()
-                .filter(rule -> rule.matches(key))
-                .findFirst()
-                .orElse(MaskRule.EMPTY);
+        for (MaskRule rule : rules) {
+            if (rule.matches(key)) {
+                return rule;
+            }
+        }
+        return MaskRule.EMPTY;
     }
 
 
@@ -21,6 +21,16 @@ public class MaskRuleRegistry {
 
     private final Map<Class<?>, MaskRuleGroup> groups;
 
+    /**
+     * 类是否需要脱敏的缓存（包含不需要脱敏的结果），规则变更时清空
+     */
+    private final Map<Class<?>, Boolean> requireMasks = new ConcurrentHashMap<>();
+
+    /**
+     * 编译后的脱敏计划缓存，规则变更时清空
+     */
+    private final Map<Class<?>, MaskPlan> plans = new ConcurrentHashMap<>();
+
     public MaskRuleRegistry() {
         this(Collections.emptyList());
     }
@@ -32,14 +42,42 @@ public class MaskRuleRegistry {
     }
 
     /**
-     * 是否需要脱敏
+     * 是否需要脱敏，根据规则组和 {@link Sensitive} 注解判断，不会解析字段访问器
+     * JDK 内置类型（java.*、javax.*）仅在显式注册了规则组时需要脱敏
      *
      * @param clazz 类类型
      * @return true 需要
      */
     public boolean requireMask(Class<?> clazz) {
-        return !ObjectUtils.isEmpty(getRuleGroup(clazz)) ||
-                (clazz.isAnnotationPresent(Sensitive.class) && WindReflectUtils.findFields(clazz, Sensitive.class).length > 0);
+        AssertUtils.notNull(clazz, "argument clazz must not null");
+        Boolean result = requireMasks.get(clazz);
+        if (result == null) {
+            // 判断时会访问规则组缓存，不能在 computeIfAbsent 中执行
+            result = isRequireMask(clazz);
+            requireMasks.put(clazz, result);
+        }
+        return result;
+    }
+
+    /**
+     * 获取类的脱敏计划，仅在按字段打印对象时使用
+     *
+     * @param target 类类型
+     * @return 脱敏计划
+     */
+    @NotNull
+    public MaskPlan getMaskPlan(Class<?> target) {
+        AssertUtils.notNull(target, "get mask plan class not null");
+        MaskPlan result = plans.get(target);
+        if (result == null) {
+            // 编译时会访问规则组缓存，不能在 computeIfAbsent 中执行
+            result = MaskPlan.compile(target, this);
+            MaskPlan exists = plans.putIfAbsent(target, result);
+            if (exists != null) {
+                result = exists;
+            }
+        }
+        return result;
     }
 
     @NotNull
@@ -50,6 +88,8 @@ public class MaskRuleRegistry {
 
     public void registerRule(MaskRuleGroup group) {
         this.groups.put(group.getTarget(), group);
+        // 字段规则可能来自超类的规则组，全部重新编译
+        clearCaches();
     }
 
     public void registerRules(@NotNull Collection<MaskRuleGroup> groups) {
@@ -58,14 +98,38 @@ public class MaskRuleRegistry {
 
     public void clearRules(@NotNull Class<?> clazz) {
         groups.remove(clazz);
+        clearCaches();
     }
 
     public void clearRules() {
         groups.clear();
+        clearCaches();
+    }
+
+    private boolean isRequireMask(Class<?> clazz) {
+        if (isJdkClass(clazz)) {
+            return !ObjectUtils.isEmpty(groups.get(clazz));
+        }
+        return !ObjectUtils.isEmpty(getRuleGroup(clazz)) ||
+                (clazz.isAnnotationPresent(Sensitive.class) && WindReflectUtils.findFields(clazz, Sensitive.class).length > 0);
+    }
+
+    private void clearCaches() {
+        requireMasks.clear();
+        plans.clear();
     }
 
     private MaskRuleGroup buildRuleGroup(Class<?> clazz) {
         return MaskRuleGroup.builder().form(clazz).last();
     }
 
+    /**
+     * @param clazz 类类型
+     * @return 是否为 JDK 内置类型（包括原始类型）
+     */
+    static boolean isJdkClass(Class<?> clazz) {
+        String name = clazz.getName();
+        return clazz.isPrimitive() || name.startsWith("java.") || name.startsWith("javax.");
+    }
+
 }
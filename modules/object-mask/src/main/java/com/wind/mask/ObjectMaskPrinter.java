@@ -2,24 +2,20 @@ package com.wind.mask;
 
 import com.wind.common.WindConstants;
 import com.wind.common.annotations.VisibleForTesting;
-import com.wind.common.util.WindReflectUtils;
-import com.wind.mask.annotation.Sensitive;
-import com.wind.mask.masker.MaskerFactory;
+import com.wind.common.exception.AssertUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
-import org.springframework.util.ReflectionUtils;
 
-import javax.validation.constraints.NotNull;
-import java.lang.reflect.Field;
 import java.time.temporal.Temporal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
-import java.util.List;
+import java.util.IdentityHashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Set;
 
 import static com.wind.mask.MaskRuleGroup.convertMapRules;
 
@@ -38,36 +34,79 @@ public final class ObjectMaskPrinter implements ObjectMasker<Object, String> {
     private static final String FIELD_CONNECTOR = ", ";
 
     /**
-     * 遍历对象，连接字符串时，最后需要移除的 {@link #FIELD_CONNECTOR} 长度
+     * 默认的最大输出长度
      */
-    private static final int REMOVE_LENGTH = FIELD_CONNECTOR.length();
+    public static final int DEFAULT_MAX_LENGTH = 64 * 1024;
 
     /**
-     * 对象不为空（null） toSting 后的最小长度
+     * 超过最大输出长度时追加的标记
      */
-    private static final int MIN_LENGTH = REMOVE_LENGTH + 1;
+    public static final String TRUNCATED_FLAG = "...(truncated)";
+
+    /**
+     * 线程复用的字符缓冲区，超过该容量的缓冲区使用后不再复用，避免长期占用内存
+     */
+    private static final int MAX_RETAINED_CAPACITY = 16 * 1024;
+
+    /**
+     * 线程复用的字符缓冲区，使用期间置为 null，嵌套调用（例如：自定义脱敏器中再次打印对象）时分配新的缓冲区
+     */
+    private static final ThreadLocal<StringBuilder> BUILDERS = ThreadLocal.withInitial(() -> new StringBuilder(256));
 
     private final MaskRuleRegistry rueRegistry;
 
+    /**
+     * 最大输出长度，超过后截断并追加 {@link #TRUNCATED_FLAG}
+     */
+    private final int maxLength;
+
     public ObjectMaskPrinter(MaskRuleRegistry rueRegistry) {
+        this(rueRegistry, DEFAULT_MAX_LENGTH);
+    }
+
+    public ObjectMaskPrinter(MaskRuleRegistry rueRegistry, int maxLength) {
+        AssertUtils.isTrue(maxLength > 0, "argument maxLength must greater than 0");
         this.rueRegistry = rueRegistry;
+        this.maxLength = maxLength;
     }
 
     @Override
     public String mask(Object obj, Collection<String> keys) {
+        StringBuilder builder = acquireBuilder();
         try {
-            IdentityLimitPrinter printer = new IdentityLimitPrinter();
+            IdentityLimitPrinter printer = new IdentityLimitPrinter(builder);
             return printer.mask(obj);
         } catch (Throwable throwable) {
             log.warn("sanitize object error", throwable);
             return WindConstants.EMPTY;
+        } finally {
+            releaseBuilder(builder);
+        }
+    }
+
+    private static StringBuilder acquireBuilder() {
+        StringBuilder result = BUILDERS.get();
+        if (result == null) {
+            return new StringBuilder(256);
+        }
+        BUILDERS.set(null);
+        return result;
+    }
+
+    private static void releaseBuilder(StringBuilder builder) {
+        if (builder.capacity() <= MAX_RETAINED_CAPACITY) {
+            builder.setLength(0);
+            BUILDERS.set(builder);
+        } else {
+            BUILDERS.remove();
         }
     }
 
     /**
-     * 打印时通过 {@link #references} 检查对象是否存在循环引用的 ObjectSanitizer 实现
+     * 打印时通过 {@link #references}（按对象地址比较）检查对象是否存在循环引用的 ObjectSanitizer 实现
      * 通过 {@link #isOverPrintSize(int)} 限制打印数组的长度
-     * 通过 {@link #maxPrintDepth} {@link #depthCounter} 限制递归打印对象的深度，避免超大对于 toString 占用过多的内存
+     * 通过 {@link #maxPrintDepth} {@link #depth} 限制递归打印对象的深度，通过 {@link #maxLength} 限制输出的总长度，避免超大对于 toString 占用过多的内存
+     * 整个遍历过程写入同一个 {@link #output}
      */
     @VisibleForTesting
     class IdentityLimitPrinter implements ObjectMasker<Object, String> {
@@ -81,95 +120,112 @@ public final class ObjectMaskPrinter implements ObjectMasker<Object, String> {
         static final int MAX_COLLECTION_SIZE = 128;
 
         /**
-         * 打印对象的引用缓存
+         * 已打印的对象引用
          */
-        private final List<Object> references = new ArrayList<>();
+        private final Set<Object> references = Collections.newSetFromMap(new IdentityHashMap<>());
 
         /**
          * 最大打印深度
          */
         private final int maxPrintDepth;
 
-        private final AtomicInteger depthCounter = new AtomicInteger();
+        private final StringBuilder output;
+
+        private int depth;
 
-        public IdentityLimitPrinter() {
-            this(3);
+        private boolean truncated;
+
+        public IdentityLimitPrinter(StringBuilder output) {
+            this(output, 3);
         }
 
-        public IdentityLimitPrinter(int maxPrintDepth) {
+        public IdentityLimitPrinter(StringBuilder output, int maxPrintDepth) {
+            this.output = output;
             this.maxPrintDepth = maxPrintDepth;
         }
 
         @Override
         public String mask(Object obj, Collection<String> keys) {
-            return checkCycleRefAndSanitize(obj, null);
+            write(obj, null);
+            if (truncated) {
+                output.setLength(maxLength);
+                output.append(TRUNCATED_FLAG);
+            }
+            return output.toString();
         }
 
-        private String checkCycleRefAndSanitize(Object value, @Nullable MaskRule fieldRule) {
+        /**
+         * 写入一个值，对象、数组、集合、Map 会检查循环引用并递归打印
+         *
+         * @param value     打印的对象
+         * @param fieldRule 在 {@param value} 为字段时，该字段的配置规则
+         */
+        private void write(Object value, @Nullable MaskRule fieldRule) {
+            if (isOverLength()) {
+                return;
+            }
             if (value == null) {
-                return WindConstants.NULL;
+                append(WindConstants.NULL);
+                return;
             }
             if (value instanceof String) {
                 // TODO 单纯的字符串先不支持脱敏
-                return (String) value;
+                append((String) value);
+                return;
             }
             if (value instanceof Throwable) {
-                return value.toString();
+                append(value.toString());
+                return;
             }
             Class<?> clazz = value.getClass();
             if (isLambdaExpression(clazz)) {
-                return value.toString();
+                append(value.toString());
+                return;
             }
             if (ClassUtils.isPrimitiveArray(clazz)) {
                 // TODO 原始类型数组先不限制打印的长度
-                return printPrimitiveArray(value);
+                append(printPrimitiveArray(value));
+                return;
             }
             if (noneSensitive(clazz)) {
                 // 不需要脱敏的类型
-                return String.valueOf(value);
+                append(String.valueOf(value));
+                return;
             }
-            if (isCycleRef(value)) {
-                return String.format("%s[%s]", CYCLE_REF_FLAG, Integer.toHexString(hashCode()));
+            if (!references.add(value)) {
+                appendCycleRef(value);
+                return;
             }
-            if (depthCounter.incrementAndGet() > maxPrintDepth) {
-                return String.format("%s 对象打印深度超过了：%d", value.getClass().getName(), maxPrintDepth);
+            if (depth >= maxPrintDepth) {
+                append(String.format("%s 对象打印深度超过了：%d", clazz.getName(), maxPrintDepth));
+                return;
             }
+            depth++;
             try {
-                return sanitizeByRule(value, fieldRule);
+                writeByRule(value, fieldRule);
             } finally {
-                depthCounter.decrementAndGet();
+                depth--;
             }
         }
 
-        private boolean isCycleRef(Object value) {
-            // 是否为循序引用（通过对象地址比较）
-            boolean isCycleRef = references.stream().anyMatch(o -> o == value);
-            if (!isCycleRef) {
-                // 非循环引用，加入引用队列
-                references.add(value);
-            }
-            return isCycleRef;
-        }
-
-        /**
-         * @param value     脱敏的对象
-         * @param fieldRule 在 {@param value} 为字段时，改字段的配置规则组
-         */
-        private String sanitizeByRule(Object value, @Nullable MaskRule fieldRule) {
+        private void writeByRule(Object value, @Nullable MaskRule fieldRule) {
             Class<?> clazz = value.getClass();
             if (clazz.isArray()) {
-                return printArray((Object[]) value, fieldRule);
+                writeArray((Object[]) value, fieldRule);
+                return;
             }
             if (ClassUtils.isAssignable(Collection.class, clazz)) {
                 // 先 copy 后转化为数组打印，避免 ConcurrentModificationException、UnsupportedOperationException 等异常
                 Collection<?> objects = new ArrayList<>((Collection<?>) value);
-                return printArray(objects.toArray(new Object[0]), fieldRule);
+                writeArray(objects.toArray(new Object[0]), fieldRule);
+                return;
             }
             if (ClassUtils.isAssignable(Map.class, clazz)) {
                 // TODO ConcurrentModificationException 异常处理（暂时没有发现，先不加复制处理）
-                return printMap((Map<?, ?>) value, fieldRule);
+                writeMap((Map<?, ?>) value, fieldRule, null);
+                return;
             }
-            return printObject(value);
+            writeObject(value);
         }
 
         private boolean noneSensitive(Class<?> clazz) {
@@ -182,94 +238,111 @@ public final class ObjectMaskPrinter implements ObjectMasker<Object, String> {
         /**
          * copy form {@link Arrays#toString}
          */
-        private String printArray(Object[] objects, MaskRule fieldRule) {
-            int iMax = objects.length - 1;
-            if (iMax == -1) {
-                return "[]";
+        private void writeArray(Object[] objects, MaskRule fieldRule) {
+            if (objects.length == 0) {
+                append("[]");
+                return;
             }
             if (isOverPrintSize(objects.length)) {
-                return toOverMaxSizeString(objects.getClass());
-            }
-            StringBuilder result = new StringBuilder();
-            result.append('[');
-            for (int i = 0; ; i++) {
-                result.append(checkCycleRefAndSanitize(objects[i], fieldRule));
-                if (i == iMax) {
-                    return result.append(']').toString();
+                append(toOverMaxSizeString(objects.getClass()));
+                return;
+            }
+            output.append('[');
+            for (int i = 0; i < objects.length && !isOverLength(); i++) {
+                if (i > 0) {
+                    output.append(FIELD_CONNECTOR);
                 }
-                result.append(", ");
+                write(objects[i], fieldRule);
             }
+            output.append(']');
         }
 
-        private String printMap(Map<?, ?> map, MaskRule maskRule) {
+        /**
+         * @param group 字段脱敏计划中预先转换的规则组，为空时根据 {@param maskRule} 获取
+         */
+        private void writeMap(Map<?, ?> map, MaskRule maskRule, @Nullable MaskRuleGroup group) {
             if (map.isEmpty()) {
-                return "{}";
+                append("{}");
+                return;
             }
             if (isOverPrintSize(map.size())) {
-                return toOverMaxSizeString(map.getClass());
+                append(toOverMaxSizeString(map.getClass()));
+                return;
             }
-            if (isCycleRef(map)) {
-                return "{" + String.format("%s[%s]", CYCLE_REF_FLAG, Integer.toHexString(hashCode())) + "}, ";
+            if (group == null) {
+                group = maskRule == null ? rueRegistry.getRuleGroup(Map.class) : convertMapRules(maskRule);
             }
-            MaskRuleGroup group = maskRule == null ? rueRegistry.getRuleGroup(Map.class) : convertMapRules(maskRule);
-            StringBuilder result = new StringBuilder();
-            result.append('{');
+            output.append('{');
+            boolean first = true;
             for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (isOverLength()) {
+                    break;
+                }
+                if (!first) {
+                    output.append(FIELD_CONNECTOR);
+                }
+                first = false;
                 Object key = entry.getKey();
-                result.append(key).append("=");
+                output.append(key).append('=');
                 if (key instanceof String) {
-                    WindMasker<Object, Object> masker = getMasker(group.matchesWithKey((String) key));
-                    result.append(masker == null ? checkCycleRefAndSanitize(entry.getValue(), maskRule) : masker.mask(entry.getValue()));
+                    writeMasked(entry.getValue(), group.matchesWithKey((String) key), maskRule);
                 } else {
-                    result.append(mask(entry.getValue()));
+                    write(entry.getValue(), null);
                 }
-                result.append(", ");
             }
-            deleteLastBlank(result);
-            result.append('}');
-            return result.toString();
+            output.append('}');
         }
 
-        @SuppressWarnings({"unchecked", "rawtypes"})
-        private String printObject(Object obj) {
-            Class<?> clazz = obj.getClass();
-            StringBuilder result = new StringBuilder(obj.getClass().getSimpleName()).append("(");
-            for (Field field : WindReflectUtils.getFields(clazz)) {
-                ReflectionUtils.makeAccessible(field);
-                Object value = ReflectionUtils.getField(field, obj);
-                MaskRule rule = getFieldRuleGroup(field);
-                if (isCycleRef(value)) {
-                    result.append(field.getName()).append("=").append(String.format("%s[%s]", CYCLE_REF_FLAG, Integer.toHexString(hashCode()))).append(", ");
-                    continue;
+        private void writeObject(Object obj) {
+            MaskPlan plan = rueRegistry.getMaskPlan(obj.getClass());
+            if (!plan.isSupported()) {
+                // JDK 内置类型或无法访问字段
+                append(String.valueOf(obj));
+                return;
+            }
+            output.append(obj.getClass().getSimpleName()).append('(');
+            MaskPlan.FieldPlan[] fields = plan.getFields();
+            for (int i = 0; i < fields.length && !isOverLength(); i++) {
+                MaskPlan.FieldPlan field = fields[i];
+                if (i > 0) {
+                    output.append(FIELD_CONNECTOR);
                 }
-                if (value instanceof Map && MaskRule.EMPTY == rule) {
+                output.append(field.getName()).append('=');
+                Object value = field.getValue(obj);
+                if (value instanceof Map && field.isEmptyRule()) {
                     // Map 类型字段，未单独设置脱敏规则
-                    result.append(field.getName()).append("=").append(printMap((Map<?, ?>) value, rule)).append(", ");
+                    writeMapField((Map<?, ?>) value, field.getRule(), field.getMapRuleGroup());
                 } else {
-                    WindMasker<Object, Object> masker = getMasker(rule);
-                    Object val;
-                    if (masker == null) {
-                        val = checkCycleRefAndSanitize(value, rule);
-                    } else {
-                        val = masker instanceof ObjectMasker ? ((ObjectMasker) masker).mask(value, rule.getKeys()) : masker.mask(value);
-                    }
-                    result.append(field.getName()).append("=").append(val).append(", ");
+                    writeMasked(value, field.getRule(), field.getRule());
                 }
             }
-            deleteLastBlank(result);
-            result.append(')');
-            return result.toString();
+            output.append(')');
         }
 
-        @NotNull
-        private MaskRule getFieldRuleGroup(Field field) {
-            Sensitive annotation = field.getAnnotation(Sensitive.class);
-            String name = field.getName();
-            if (annotation == null) {
-                MaskRuleGroup ruleGroup = rueRegistry.getRuleGroup(field.getDeclaringClass());
-                return ruleGroup == null ? MaskRule.EMPTY : ruleGroup.matchesWithName(name);
+        private void writeMapField(Map<?, ?> value, MaskRule rule, MaskRuleGroup group) {
+            if (!references.add(value)) {
+                appendCycleRef(value);
+                return;
             }
-            return new MaskRule(name, Arrays.asList(annotation.names()), MaskerFactory.getMasker(annotation.masker()));
+            writeMap(value, rule, group);
+        }
+
+        /**
+         * 使用规则的脱敏器写入值，未配置规则时递归打印
+         *
+         * @param value      打印的对象
+         * @param rule       匹配的规则
+         * @param nestedRule 递归打印时使用的规则
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private void writeMasked(Object value, MaskRule rule, @Nullable MaskRule nestedRule) {
+            WindMasker<Object, Object> masker = getMasker(rule);
+            if (masker == null) {
+                write(value, nestedRule);
+                return;
+            }
+            Object val = masker instanceof ObjectMasker ? ((ObjectMasker) masker).mask(value, rule.getKeys()) : masker.mask(value);
+            append(String.valueOf(val));
         }
 
         private String printPrimitiveArray(Object o) {
@@ -300,19 +373,31 @@ public final class ObjectMaskPrinter implements ObjectMasker<Object, String> {
             return null;
         }
 
+        /**
+         * 未配置规则（{@link MaskRule#EMPTY}）时返回 null，由调用方递归打印
+         */
         @SuppressWarnings("unchecked")
         private WindMasker<Object, Object> getMasker(MaskRule rule) {
-            if (rule == null) {
+            if (rule == null || rule == MaskRule.EMPTY) {
                 return null;
             }
             return (WindMasker<Object, Object>) rule.getMasker();
         }
 
-        private void deleteLastBlank(StringBuilder builder) {
-            // 非常规写法，只是为了减少重复的代码
-            if (builder.length() > MIN_LENGTH) {
-                builder.deleteCharAt(builder.length() - REMOVE_LENGTH);
+        private void append(String text) {
+            output.append(text);
+            isOverLength();
+        }
+
+        private void appendCycleRef(Object value) {
+            append(String.format("%s[%s]", CYCLE_REF_FLAG, Integer.toHexString(System.identityHashCode(value))));
+        }
+
+        private boolean isOverLength() {
+            if (!truncated && output.length() > maxLength) {
+                truncated = true;
             }
+            return truncated;
         }
 
         private boolean isLambdaExpression(Class<?> clazz) {
@@ -0,0 +1,267 @@
+package com.wind.mask.masker.json;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 预编译的 json 脱敏路径，支持：
+ * 1: 字段名称，例如：ak，与 JSONPath 一致只匹配顶层字段（等同于 $.ak）
+ * 2: 递归字段名称，例如：$..ak，匹配任意层级中名称相同的字段
+ * 3: JSONPath 子集，例如：$.data.ak、$.data.values[0].ak、$['data'].values[*].ak、$.data.*
+ * 不支持的表达式（过滤器、切片等）编译失败，由调用方回退到 JSONPath 处理
+ *
+ * @author wuxp
+ * @date 2024-08-16 09:20
+ **/
+final class JsonMaskPaths {
+
+    /**
+     * 同时匹配的路径数量上限，匹配状态使用 long 位图保存
+     */
+    static final int MAX_PATHS = Long.SIZE;
+
+    /**
+     * 通配符
+     */
+    static final Object WILDCARD = new Object();
+
+    /**
+     * 路径分段，元素为 {@link String} 字段名称、{@link Integer} 数组下标或 {@link #WILDCARD}
+     */
+    private final Object[][] paths;
+
+    /**
+     * 递归匹配的字段名称（$..name）
+     */
+    private final String[] fieldNames;
+
+    /**
+     * 是否脱敏整个文档（路径为 $）
+     */
+    private final boolean maskRoot;
+
+    private JsonMaskPaths(Object[][] paths, String[] fieldNames, boolean maskRoot) {
+        this.paths = paths;
+        this.fieldNames = fieldNames;
+        this.maskRoot = maskRoot;
+    }
+
+    /**
+     * 编译脱敏路径
+     *
+     * @param keys 字段名称或 JSONPath
+     * @return 存在不支持的表达式时返回 null
+     */
+    static JsonMaskPaths compile(Collection<String> keys) {
+        List<Object[]> paths = new ArrayList<>();
+        Set<String> fieldNames = new LinkedHashSet<>();
+        boolean maskRoot = false;
+        for (String key : keys) {
+            if (key == null || key.isEmpty()) {
+                continue;
+            }
+            if (key.charAt(0) != '$') {
+                if (!isSimpleName(key)) {
+                    return null;
+                }
+                paths.add(new Object[]{key});
+                continue;
+            }
+            if (key.startsWith("$..")) {
+                String name = key.substring(3);
+                if (!isSimpleName(name)) {
+                    return null;
+                }
+                fieldNames.add(name);
+                continue;
+            }
+            Object[] segments = parsePath(key);
+            if (segments == null) {
+                return null;
+            }
+            if (segments.length == 0) {
+                maskRoot = true;
+            } else {
+                paths.add(segments);
+            }
+        }
+        if (paths.size() > MAX_PATHS) {
+            return null;
+        }
+        return new JsonMaskPaths(paths.toArray(new Object[0][]), fieldNames.toArray(new String[0]), maskRoot);
+    }
+
+    int size() {
+        return paths.length;
+    }
+
+    long all() {
+        return paths.length == MAX_PATHS ? -1L : (1L << paths.length) - 1;
+    }
+
+    boolean isMaskRoot() {
+        return maskRoot;
+    }
+
+    boolean isEmpty() {
+        return paths.length == 0 && fieldNames.length == 0 && !maskRoot;
+    }
+
+    /**
+     * 是否为需要递归脱敏的字段名称
+     *
+     * @param json  json 文本
+     * @param start 字段名称起始位置（不包含引号）
+     * @param end   字段名称结束位置（不包含引号）
+     */
+    boolean isFieldName(String json, int start, int end) {
+        for (String name : fieldNames) {
+            if (regionEquals(json, start, end, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 进入对象字段后仍在匹配中的路径
+     *
+     * @param alive 当前层级仍在匹配中的路径
+     * @param depth 当前层级
+     * @return 匹配的路径位图
+     */
+    long matchName(long alive, int depth, String json, int start, int end) {
+        long result = 0;
+        for (int i = 0; i < paths.length; i++) {
+            if ((alive & (1L << i)) == 0) {
+                continue;
+            }
+            Object segment = paths[i][depth];
+            if (segment == WILDCARD || (segment instanceof String && regionEquals(json, start, end, (String) segment))) {
+                result |= 1L << i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 进入数组元素后仍在匹配中的路径
+     */
+    long matchIndex(long alive, int depth, int index) {
+        long result = 0;
+        for (int i = 0; i < paths.length; i++) {
+            if ((alive & (1L << i)) == 0) {
+                continue;
+            }
+            Object segment = paths[i][depth];
+            if (segment == WILDCARD || (segment instanceof Integer && (Integer) segment == index)) {
+                result |= 1L << i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 在 depth + 1 层级完全匹配的路径
+     *
+     * @param matched 匹配的路径位图
+     * @param depth   当前层级
+     * @return 是否存在完全匹配的路径
+     */
+    boolean isCompleted(long matched, int depth) {
+        for (int i = 0; i < paths.length; i++) {
+            if ((matched & (1L << i)) != 0 && paths[i].length == depth + 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 在 depth + 1 层级还需要继续匹配的路径
+     */
+    long continued(long matched, int depth) {
+        long result = 0;
+        for (int i = 0; i < paths.length; i++) {
+            if ((matched & (1L << i)) != 0 && paths[i].length > depth + 1) {
+                result |= 1L << i;
+            }
+        }
+        return result;
+    }
+
+    private static Object[] parsePath(String path) {
+        List<Object> result = new ArrayList<>();
+        int index = 1;
+        int length = path.length();
+        while (index < length) {
+            char c = path.charAt(index);
+            if (c == '.') {
+                int end = index + 1;
+                while (end < length && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                String name = path.substring(index + 1, end);
+                if ("*".equals(name)) {
+                    result.add(WILDCARD);
+                } else if (isSimpleName(name)) {
+                    result.add(name);
+                } else {
+                    return null;
+                }
+                index = end;
+            } else if (c == '[') {
+                int end = path.indexOf(']', index);
+                if (end < 0) {
+                    return null;
+                }
+                String content = path.substring(index + 1, end).trim();
+                if ("*".equals(content)) {
+                    result.add(WILDCARD);
+                } else if (content.length() > 1 && (content.charAt(0) == '\'' || content.charAt(0) == '"') && content.charAt(content.length() - 1) == content.charAt(0)) {
+                    result.add(content.substring(1, content.length() - 1));
+                } else if (isDigits(content)) {
+                    result.add(Integer.valueOf(content));
+                } else {
+                    return null;
+                }
+                index = end + 1;
+            } else {
+                return null;
+            }
+        }
+        return result.toArray();
+    }
+
+    private static boolean isSimpleName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '*' || c == '?' || c == '(' || c == ')' || c == '@' || c == '[' || c == ']' || c == '.' || c == ',' || c == ':') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigits(String text) {
+        if (text.isEmpty() || text.length() > 9) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean regionEquals(String json, int start, int end, String name) {
+        return end - start == name.length() && json.regionMatches(start, name, 0, name.length());
+    }
+}
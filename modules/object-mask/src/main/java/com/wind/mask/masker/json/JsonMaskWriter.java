@@ -0,0 +1,397 @@
+package com.wind.mask.masker.json;
+
+/**
+ * 单次遍历的 json 脱敏写入器，逐个扫描 token，将需要脱敏的值替换后写入输出缓冲区
+ * 未脱敏的内容按原文分段复制，不会构建对象树，也不会重新序列化
+ *
+ * @author wuxp
+ * @date 2024-08-16 09:48
+ **/
+final class JsonMaskWriter {
+
+    /**
+     * 最大嵌套深度，超过后抛出 {@link UnsupportedJsonException} 由调用方回退处理
+     */
+    private static final int MAX_DEPTH = 256;
+
+    private static final String NULL = "null";
+
+    private final String json;
+
+    private final JsonMaskPaths paths;
+
+    private final String maskValue;
+
+    private final int maxLength;
+
+    private final String truncatedFlag;
+
+    private StringBuilder output;
+
+    private int position;
+
+    /**
+     * 下一次写入输出时，需要从原文复制的起始位置
+     */
+    private int copyFrom;
+
+    private boolean truncated;
+
+    JsonMaskWriter(String json, JsonMaskPaths paths, String maskValue, int maxLength, String truncatedFlag) {
+        this.json = json;
+        this.paths = paths;
+        this.maskValue = maskValue;
+        this.maxLength = maxLength;
+        this.truncatedFlag = truncatedFlag;
+    }
+
+    /**
+     * @return 脱敏后的 json，没有需要脱敏的值且未超过长度限制时返回原文
+     */
+    String write() {
+        skipWhitespace();
+        if (paths.isMaskRoot()) {
+            if (startsWithNull()) {
+                return json;
+            }
+            int start = position;
+            skipValue();
+            replace(start, position);
+        } else {
+            writeValue(paths.all(), 0);
+        }
+        if (truncated) {
+            return output.toString();
+        }
+        skipWhitespace();
+        if (position < json.length()) {
+            throw new MalformedJsonException(position);
+        }
+        if (output == null) {
+            if (json.length() <= maxLength) {
+                return json;
+            }
+            ensureOutput();
+        }
+        append(json.length());
+        return output.toString();
+    }
+
+    private void writeValue(long alive, int depth) {
+        if (truncated) {
+            return;
+        }
+        char c = current();
+        if (c == '{') {
+            writeObject(alive, depth);
+        } else if (c == '[') {
+            writeArray(alive, depth);
+        } else {
+            skipValue();
+        }
+    }
+
+    private void writeObject(long alive, int depth) {
+        checkDepth(depth);
+        position++;
+        skipWhitespace();
+        if (current() == '}') {
+            position++;
+            return;
+        }
+        while (!truncated) {
+            skipWhitespace();
+            expect('"');
+            int keyStart = position;
+            boolean escaped = skipString();
+            int keyEnd = position - 1;
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            String key = json;
+            int start = keyStart;
+            int end = keyEnd;
+            if (escaped) {
+                // 字段名称包含转义字符时解码后匹配
+                key = unescape(keyStart, keyEnd);
+                start = 0;
+                end = key.length();
+            }
+            long matched = alive == 0 ? 0 : paths.matchName(alive, depth, key, start, end);
+            if (paths.isFieldName(key, start, end) || paths.isCompleted(matched, depth)) {
+                maskValue();
+            } else {
+                writeValue(paths.continued(matched, depth), depth + 1);
+            }
+            if (isOverLimit()) {
+                return;
+            }
+            skipWhitespace();
+            char c = next();
+            if (c == '}') {
+                return;
+            }
+            if (c != ',') {
+                throw new MalformedJsonException(position - 1);
+            }
+        }
+    }
+
+    private void writeArray(long alive, int depth) {
+        checkDepth(depth);
+        position++;
+        skipWhitespace();
+        if (current() == ']') {
+            position++;
+            return;
+        }
+        int index = 0;
+        while (!truncated) {
+            skipWhitespace();
+            long matched = alive == 0 ? 0 : paths.matchIndex(alive, depth, index);
+            if (paths.isCompleted(matched, depth)) {
+                maskValue();
+            } else {
+                writeValue(paths.continued(matched, depth), depth + 1);
+            }
+            if (isOverLimit()) {
+                return;
+            }
+            index++;
+            skipWhitespace();
+            char c = next();
+            if (c == ']') {
+                return;
+            }
+            if (c != ',') {
+                throw new MalformedJsonException(position - 1);
+            }
+        }
+    }
+
+    /**
+     * 已扫描的内容超过长度限制时截断并停止扫描
+     */
+    private boolean isOverLimit() {
+        if (truncated) {
+            return true;
+        }
+        if ((output == null ? 0 : output.length()) + position - copyFrom <= maxLength) {
+            return false;
+        }
+        ensureOutput();
+        append(position);
+        return true;
+    }
+
+    private void maskValue() {
+        if (startsWithNull()) {
+            // 空值不脱敏
+            position += NULL.length();
+            return;
+        }
+        int start = position;
+        skipValue();
+        replace(start, position);
+    }
+
+    /**
+     * 将原文 [copyFrom, start) 写入输出，并使用脱敏值替换 [start, end)
+     */
+    private void replace(int start, int end) {
+        ensureOutput();
+        append(start);
+        if (truncated) {
+            return;
+        }
+        if (output.length() + maskValue.length() > maxLength) {
+            truncate();
+            return;
+        }
+        output.append(maskValue);
+        copyFrom = end;
+    }
+
+    private void ensureOutput() {
+        if (output == null) {
+            output = new StringBuilder(Math.min(json.length(), maxLength) + truncatedFlag.length());
+        }
+    }
+
+    private void append(int end) {
+        if (truncated) {
+            return;
+        }
+        int remaining = maxLength - output.length();
+        if (end - copyFrom > remaining) {
+            output.append(json, copyFrom, copyFrom + remaining);
+            truncate();
+            return;
+        }
+        output.append(json, copyFrom, end);
+        copyFrom = end;
+    }
+
+    private void truncate() {
+        output.append(truncatedFlag);
+        truncated = true;
+    }
+
+    private void skipValue() {
+        char c = current();
+        if (c == '"') {
+            position++;
+            skipString();
+            return;
+        }
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            while (position < json.length()) {
+                char ch = json.charAt(position++);
+                if (ch == '"') {
+                    skipString();
+                } else if (ch == '{' || ch == '[') {
+                    depth++;
+                } else if (ch == '}' || ch == ']') {
+                    if (--depth == 0) {
+                        return;
+                    }
+                }
+            }
+            throw new MalformedJsonException(position);
+        }
+        int start = position;
+        while (position < json.length()) {
+            char ch = json.charAt(position);
+            if (ch == ',' || ch == '}' || ch == ']' || isWhitespace(ch)) {
+                break;
+            }
+            position++;
+        }
+        if (start == position) {
+            throw new MalformedJsonException(position);
+        }
+    }
+
+    /**
+     * 跳过字符串，调用前 position 位于起始引号之后，调用后位于结束引号之后
+     *
+     * @return 是否包含转义字符
+     */
+    private boolean skipString() {
+        boolean escaped = false;
+        while (position < json.length()) {
+            char c = json.charAt(position++);
+            if (c == '\\') {
+                escaped = true;
+                position++;
+            } else if (c == '"') {
+                return escaped;
+            }
+        }
+        throw new MalformedJsonException(position);
+    }
+
+    private String unescape(int start, int end) {
+        StringBuilder result = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = json.charAt(i);
+            if (c != '\\' || i + 1 >= end) {
+                result.append(c);
+                continue;
+            }
+            char escape = json.charAt(++i);
+            switch (escape) {
+                case 'b':
+                    result.append('\b');
+                    break;
+                case 'f':
+                    result.append('\f');
+                    break;
+                case 'n':
+                    result.append('\n');
+                    break;
+                case 'r':
+                    result.append('\r');
+                    break;
+                case 't':
+                    result.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 >= end) {
+                        throw new MalformedJsonException(i);
+                    }
+                    result.append((char) Integer.parseInt(json.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                default:
+                    result.append(escape);
+            }
+        }
+        return result.toString();
+    }
+
+    private boolean startsWithNull() {
+        return json.startsWith(NULL, position);
+    }
+
+    private void checkDepth(int depth) {
+        if (depth >= MAX_DEPTH) {
+            throw new UnsupportedJsonException();
+        }
+    }
+
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw new MalformedJsonException(position - 1);
+        }
+    }
+
+    private char current() {
+        if (position >= json.length()) {
+            throw new MalformedJsonException(position);
+        }
+        return json.charAt(position);
+    }
+
+    private char next() {
+        char result = current();
+        position++;
+        return result;
+    }
+
+    private void skipWhitespace() {
+        while (position < json.length() && isWhitespace(json.charAt(position))) {
+            position++;
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    /**
+     * json 格式错误
+     */
+    static final class MalformedJsonException extends RuntimeException {
+
+        private static final long serialVersionUID = -5512405387826427047L;
+
+        MalformedJsonException(int position) {
+            super("malformed json at position = " + position, null, false, false);
+        }
+    }
+
+    /**
+     * 无法流式处理的 json（例如：嵌套过深）
+     */
+    static final class UnsupportedJsonException extends RuntimeException {
+
+        private static final long serialVersionUID = 2205834893517021337L;
+
+        UnsupportedJsonException() {
+            super("unsupported json", null, false, false);
+        }
+    }
+}
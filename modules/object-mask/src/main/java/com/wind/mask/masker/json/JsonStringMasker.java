@@ -2,36 +2,108 @@ package com.wind.mask.masker.json;
 
 import com.alibaba.fastjson2.JSON;
 import com.alibaba.fastjson2.JSONPath;
+import com.wind.common.exception.AssertUtils;
 import com.wind.mask.ObjectMaskPrinter;
 import com.wind.mask.ObjectMasker;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * json text 脱敏
+ * 使用 {@link JsonMaskWriter} 单次遍历 json 文本，将匹配的值替换为 {@link ObjectMaskPrinter#ASTERISK} 的结果，
+ * 存在 {@link JsonMaskPaths} 不支持的表达式时回退为 fastjson2 解析 + JSONPath 替换 + 重新序列化
  *
  * @author wuxp
  * @date 2024-08-02 15:04
  **/
 public final class JsonStringMasker implements ObjectMasker<String, String> {
 
+    /**
+     * 超过长度限制时追加的标记
+     */
+    public static final String TRUNCATED_FLAG = "...(truncated)";
+
+    private static final String MASK_VALUE = "\"" + ObjectMaskPrinter.ASTERISK.mask("") + "\"";
+
+    /**
+     * 编译后的路径缓存数量上限
+     */
+    private static final int MAX_CACHE_SIZE = 256;
+
+    private final Map<Collection<String>, Optional<JsonMaskPaths>> compiledPaths = new ConcurrentHashMap<>();
+
+    /**
+     * 输出的最大长度，超过后截断并追加 {@link #TRUNCATED_FLAG}
+     */
+    private final int maxLength;
+
+    public JsonStringMasker() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public JsonStringMasker(int maxLength) {
+        AssertUtils.isTrue(maxLength > 0, "argument maxLength must greater than 0");
+        this.maxLength = maxLength;
+    }
+
     @Override
     public String mask(String json, Collection<String> keys) {
-        if (StringUtils.hasText(json)) {
-            Object val = JSON.parse(json);
-            keys.forEach(key -> {
-                try {
-                    Object eval = JSONPath.eval(val, key);
-                    if (eval != null) {
-                        JSONPath.set(val, key, ObjectMaskPrinter.ASTERISK.mask(eval));
-                    }
-                } catch (Exception exception) {
-                    // ignore
+        if (!StringUtils.hasText(json)) {
+            return json;
+        }
+        JsonMaskPaths paths = getPaths(keys);
+        if (paths != null) {
+            if (paths.isEmpty() && json.length() <= maxLength) {
+                return json;
+            }
+            try {
+                return new JsonMaskWriter(json, paths, MASK_VALUE, maxLength, TRUNCATED_FLAG).write();
+            } catch (JsonMaskWriter.MalformedJsonException | JsonMaskWriter.UnsupportedJsonException exception) {
+                // 回退到 JSONPath 处理
+            }
+        }
+        return truncate(maskByJsonPath(json, keys));
+    }
+
+    private JsonMaskPaths getPaths(Collection<String> keys) {
+        Optional<JsonMaskPaths> result = compiledPaths.get(keys);
+        if (result == null) {
+            if (compiledPaths.size() >= MAX_CACHE_SIZE) {
+                compiledPaths.clear();
+            }
+            result = Optional.ofNullable(JsonMaskPaths.compile(keys));
+            // 复制一份作为缓存 key，避免调用方修改集合
+            compiledPaths.put(keys instanceof Set ? new HashSet<>(keys) : new ArrayList<>(keys), result);
+        }
+        return result.orElse(null);
+    }
+
+    private String maskByJsonPath(String json, Collection<String> keys) {
+        Object val = JSON.parse(json);
+        keys.forEach(key -> {
+            try {
+                Object eval = JSONPath.eval(val, key);
+                if (eval != null) {
+                    JSONPath.set(val, key, ObjectMaskPrinter.ASTERISK.mask(eval));
                 }
-            });
-            return JSON.toJSONString(val);
+            } catch (Exception exception) {
+                // ignore
+            }
+        });
+        return JSON.toJSONString(val);
+    }
+
+    private String truncate(String text) {
+        if (text.length() <= maxLength) {
+            return text;
         }
-        return json;
+        return text.substring(0, maxLength) + TRUNCATED_FLAG;
     }
-}
\ No newline at end of file
+}
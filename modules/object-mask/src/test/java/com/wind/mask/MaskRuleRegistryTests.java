@@ -0,0 +1,72 @@
+package com.wind.mask;
+
+import com.wind.mask.annotation.Sensitive;
+import com.wind.mask.masker.StringRangMasker;
+import lombok.Data;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author wuxp
+ * @date 2024-08-15 16:52
+ **/
+class MaskRuleRegistryTests {
+
+    private final MaskRuleRegistry registry = new MaskRuleRegistry();
+
+    @Test
+    void testGetMaskPlan() {
+        MaskPlan plan = registry.getMaskPlan(MaskPlanExample.class);
+        Assertions.assertSame(plan, registry.getMaskPlan(MaskPlanExample.class));
+        Assertions.assertEquals(3, plan.getFields().length);
+        Assertions.assertFalse(findField(plan, "mobilePhone").isEmptyRule());
+        Assertions.assertTrue(findField(plan, "password").isEmptyRule());
+        MaskPlanExample example = new MaskPlanExample();
+        example.setPassword("123456");
+        Assertions.assertEquals("123456", findField(plan, "password").getValue(example));
+    }
+
+    @Test
+    void testRegisterRuleRecompilePlan() {
+        MaskPlan plan = registry.getMaskPlan(MaskPlanExample.class);
+        registry.registerRule(MaskRuleGroup.builder().form(MaskPlanExample.class).of("password", StringRangMasker.secret()).last());
+        MaskPlan recompiled = registry.getMaskPlan(MaskPlanExample.class);
+        Assertions.assertNotSame(plan, recompiled);
+        Assertions.assertFalse(findField(recompiled, "password").isEmptyRule());
+    }
+
+    @Test
+    void testJdkClass() {
+        Assertions.assertFalse(registry.requireMask(String.class));
+        Assertions.assertFalse(registry.requireMask(Long.class));
+        Assertions.assertFalse(registry.requireMask(HashMap.class));
+        Assertions.assertFalse(registry.getMaskPlan(HashMap.class).isSupported());
+        Assertions.assertTrue(registry.getMaskPlan(MaskPlanExample.class).isSupported());
+
+        registry.registerRule(MaskRuleGroup.builder().form(Map.class).of(WindMasker.ASTERISK, "ak").last());
+        Assertions.assertTrue(registry.requireMask(Map.class));
+    }
+
+    private MaskPlan.FieldPlan findField(MaskPlan plan, String name) {
+        for (MaskPlan.FieldPlan field : plan.getFields()) {
+            if (field.getName().equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    @Data
+    static class MaskPlanExample {
+
+        @Sensitive
+        private String mobilePhone;
+
+        private String password;
+
+        private int age;
+    }
+}
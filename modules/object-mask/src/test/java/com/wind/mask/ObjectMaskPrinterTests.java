@@ -185,6 +185,39 @@ class ObjectMaskPrinterTests {
         Assertions.assertTrue(val.contains("****"));
     }
 
+    @Test
+    void testPrintNullFields() {
+        ObjectSanitizePrinterExample value = new ObjectSanitizePrinterExample();
+        value.setName("zhangs");
+        String result = printer.mask(value);
+        Assertions.assertFalse(result.contains("@ref["));
+        Assertions.assertTrue(result.contains("code=null, desc=null"));
+    }
+
+    @Test
+    void testPrintNestedObject() {
+        ObjectSanitizePrinterExample nested = new ObjectSanitizePrinterExample();
+        nested.setName("nested_name");
+        example.setObjectSanitizePrinterExample(nested);
+        String result = printer.mask(example);
+        // 嵌套对象的字段同样脱敏
+        Assertions.assertFalse(result.contains("nested_name"));
+        Assertions.assertFalse(result.contains("zhangs"));
+    }
+
+    @Test
+    void testPrintOverMaxLength() {
+        List<ObjectSanitizePrinterExample> examples = new ArrayList<>();
+        for (int i = 0; i < MAX_COLLECTION_SIZE; i++) {
+            ObjectSanitizePrinterExample value = new ObjectSanitizePrinterExample();
+            value.setDesc("desc-" + i);
+            examples.add(value);
+        }
+        String result = new ObjectMaskPrinter(new MaskRuleRegistry(), 1024).mask(examples);
+        Assertions.assertEquals(1024 + ObjectMaskPrinter.TRUNCATED_FLAG.length(), result.length());
+        Assertions.assertTrue(result.endsWith(ObjectMaskPrinter.TRUNCATED_FLAG));
+    }
+
     static Map<String, Object> buildSensitiveMaps() {
         Map<String, Object> sensitiveMaps = new HashMap<>();
         List<Map<String, String>> values = new ArrayList<>();
@@ -0,0 +1,81 @@
+package com.wind.mask.masker;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.wind.mask.masker.json.JsonStringMasker;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * @author wuxp
+ * @date 2024-08-16 10:36
+ **/
+class JsonStringMaskerTests {
+
+    private static final String JSON_TEXT = "{\"data\": {\"ak\": \"0001\", \"values\": [{\"ak\": \"0002\", \"sk\": 12}, {\"ak\": \"0003\", \"sk\": null}], \"user\": {\"password\": \"123456\"}}, \"name\": \"zhans\"}";
+
+    private final JsonStringMasker masker = new JsonStringMasker();
+
+    @Test
+    void testMaskWithPaths() {
+        String result = masker.mask(JSON_TEXT, Arrays.asList("$.data.ak", "$.data.values[0].ak"));
+        JSONObject json = JSON.parseObject(result);
+        Assertions.assertEquals("******", json.getJSONObject("data").getString("ak"));
+        Assertions.assertEquals("******", json.getJSONObject("data").getJSONArray("values").getJSONObject(0).getString("ak"));
+        Assertions.assertEquals("0003", json.getJSONObject("data").getJSONArray("values").getJSONObject(1).getString("ak"));
+        Assertions.assertEquals("zhans", json.getString("name"));
+    }
+
+    @Test
+    void testMaskWithWildcard() {
+        String result = masker.mask(JSON_TEXT, Arrays.asList("$.data.values[*].sk", "$['data'].user"));
+        JSONObject json = JSON.parseObject(result);
+        Assertions.assertEquals("******", json.getJSONObject("data").getJSONArray("values").getJSONObject(0).getString("sk"));
+        // null 值不脱敏
+        Assertions.assertNull(json.getJSONObject("data").getJSONArray("values").getJSONObject(1).getString("sk"));
+        Assertions.assertEquals("******", json.getJSONObject("data").getString("user"));
+    }
+
+    @Test
+    void testMaskWithFieldNames() {
+        String result = masker.mask(JSON_TEXT, Arrays.asList("$..ak", "$..password"));
+        Assertions.assertFalse(result.contains("0001"));
+        Assertions.assertFalse(result.contains("0002"));
+        Assertions.assertFalse(result.contains("0003"));
+        Assertions.assertFalse(result.contains("123456"));
+        Assertions.assertTrue(result.contains("zhans"));
+        Assertions.assertEquals("{\"p\\u0061ssword\":\"******\"}", masker.mask("{\"p\\u0061ssword\":\"123\"}", Collections.singletonList("password")));
+    }
+
+    @Test
+    void testMaskWithTopLevelFieldNames() {
+        // 与 JSONPath 一致，字段名称只匹配顶层字段
+        String result = masker.mask(JSON_TEXT, Arrays.asList("name", "ak"));
+        JSONObject json = JSON.parseObject(result);
+        Assertions.assertEquals("******", json.getString("name"));
+        Assertions.assertEquals("0001", json.getJSONObject("data").getString("ak"));
+    }
+
+    @Test
+    void testNoneMatches() {
+        Assertions.assertSame(JSON_TEXT, masker.mask(JSON_TEXT, Collections.singletonList("$.data.none")));
+        Assertions.assertSame(JSON_TEXT, masker.mask(JSON_TEXT, Collections.emptyList()));
+    }
+
+    @Test
+    void testTruncate() {
+        String result = new JsonStringMasker(20).mask(JSON_TEXT, Collections.singletonList("$..ak"));
+        // 脱敏值不会被截断输出
+        Assertions.assertEquals("{\"data\": {\"ak\": " + JsonStringMasker.TRUNCATED_FLAG, result);
+    }
+
+    @Test
+    void testFallbackJsonPath() {
+        String result = masker.mask(JSON_TEXT, Collections.singletonList("$.data.values[?(@.sk == 12)].ak"));
+        Assertions.assertFalse(result.contains("0002"));
+        Assertions.assertTrue(result.contains("0003"));
+    }
+}
@@ -1,8 +1,10 @@
 package com.wind.sequence;
 
 import com.wind.common.exception.AssertUtils;
-import lombok.AllArgsConstructor;
+import lombok.Getter;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -11,13 +13,25 @@ import java.util.concurrent.atomic.AtomicLong;
  * @author wuxp
  * @date 2023-10-18 08:18
  **/
-@AllArgsConstructor
 public class NumericSequenceGenerator implements SequenceGenerator {
 
+    @Getter
     private final AtomicLong counter;
 
+    @Getter
     private final int length;
 
+    /**
+     * 长度为 {@link #length} 的序列号最大值
+     */
+    private final long maxValue;
+
+    public NumericSequenceGenerator(AtomicLong counter, int length) {
+        this.counter = counter;
+        this.length = length;
+        this.maxValue = SequenceFormatUtils.maxValue(length);
+    }
+
     public NumericSequenceGenerator(AtomicLong counter) {
         this(counter, 8);
     }
@@ -28,9 +42,50 @@ public class NumericSequenceGenerator implements SequenceGenerator {
 
     @Override
     public String next() {
-        long seq = counter.incrementAndGet();
-        AssertUtils.isTrue(String.valueOf(seq).length() <= length, "sequence exceeds maximum length");
-        String format = "%0" + length + "d";
-        return String.format(format, seq);
+        return format(counter.incrementAndGet());
+    }
+
+    @Override
+    public List<String> next(int count) {
+        return allocate("", count);
+    }
+
+    /**
+     * 通过一次原子加法从计数器中申请一段连续的序列号
+     *
+     * @param prefix 前缀
+     * @param count  获取数量
+     * @return 序列号列表
+     */
+    private List<String> allocate(String prefix, int count) {
+        AssertUtils.isTrue(count > 0, "argument count must greater than 0");
+        long end = counter.addAndGet(count);
+        List<String> result = new ArrayList<>(count);
+        for (long seq = end - count + 1; seq <= end; seq++) {
+            result.add(format(prefix, seq));
+        }
+        return result;
+    }
+
+    /**
+     * 按照序列号长度左补 0
+     *
+     * @param seq 序列值
+     * @return 序列号
+     */
+    public String format(long seq) {
+        return format("", seq);
+    }
+
+    /**
+     * 拼接前缀并按照序列号长度左补 0
+     *
+     * @param prefix 前缀
+     * @param seq    序列值
+     * @return 序列号
+     */
+    public String format(String prefix, long seq) {
+        AssertUtils.isTrue(seq <= maxValue, "sequence exceeds maximum length");
+        return SequenceFormatUtils.format(prefix, seq, length);
     }
 }
@@ -0,0 +1,86 @@
+package com.wind.sequence;
+
+import com.wind.common.exception.AssertUtils;
+
+/**
+ * 序列号格式化工具，将数字写入线程复用的字符缓冲区，避免 {@link String#format(String, Object...)} 的开销
+ *
+ * @author wuxp
+ * @date 2024-08-12 10:21
+ **/
+public final class SequenceFormatUtils {
+
+    /**
+     * long 最大值为 19 位，前缀（例如：yyyyMMddHHmmss）加数字序列不会超过该长度
+     */
+    private static final int MAX_BUFFER_SIZE = 64;
+
+    private static final ThreadLocal<char[]> BUFFERS = ThreadLocal.withInitial(() -> new char[MAX_BUFFER_SIZE]);
+
+    private SequenceFormatUtils() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 数字序列的最大长度，19 位及以上的数字无法完整使用 long 表示
+     */
+    public static final int MAX_LENGTH = 18;
+
+    /**
+     * 获取指定长度数字序列可以表示的最大值
+     *
+     * @param length 数字长度，取值范围 [1, {@link #MAX_LENGTH}]
+     * @return 最大值
+     */
+    public static long maxValue(int length) {
+        AssertUtils.isTrue(length > 0 && length <= MAX_LENGTH, () -> String.format("sequence length must between 1 and %d, current = %d", MAX_LENGTH, length));
+        long result = 1;
+        for (int i = 0; i < length; i++) {
+            result *= 10;
+        }
+        return result - 1;
+    }
+
+    /**
+     * 将数字左补 0 到指定长度
+     *
+     * @param value  数字，不能为负数
+     * @param length 数字长度
+     * @return 格式化后的序列号
+     */
+    public static String format(long value, int length) {
+        return format("", value, length);
+    }
+
+    /**
+     * 拼接前缀并将数字左补 0 到指定长度
+     *
+     * @param prefix 前缀
+     * @param value  数字，不能为负数
+     * @param length 数字长度
+     * @return 格式化后的序列号
+     */
+    public static String format(String prefix, long value, int length) {
+        int prefixLength = prefix.length();
+        int size = prefixLength + length;
+        char[] buffer = size > MAX_BUFFER_SIZE ? new char[size] : BUFFERS.get();
+        prefix.getChars(0, prefixLength, buffer, 0);
+        writeDigits(buffer, prefixLength, length, value);
+        return new String(buffer, 0, size);
+    }
+
+    /**
+     * 将数字从右往左写入缓冲区，不足部分补 0
+     *
+     * @param buffer 缓冲区
+     * @param offset 写入的起始位置
+     * @param length 写入长度
+     * @param value  数字，不能为负数
+     */
+    public static void writeDigits(char[] buffer, int offset, int length, long value) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.wind.sequence;
 
+import com.wind.common.exception.AssertUtils;
 import org.apache.commons.lang3.RandomStringUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 序列号生成器
  *
@@ -17,6 +21,21 @@ public interface SequenceGenerator {
      */
     String next();
 
+    /**
+     * 批量获取序列号，支持的实现会一次性申请一段连续的序列号
+     *
+     * @param count 获取数量
+     * @return 序列号列表
+     */
+    default List<String> next(int count) {
+        AssertUtils.isTrue(count > 0, "argument count must greater than 0");
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(next());
+        }
+        return result;
+    }
+
     /**
      * 创建随机数字序列号
      *
@@ -0,0 +1,176 @@
+package com.wind.sequence;
+
+import com.wind.common.exception.AssertUtils;
+import com.wind.common.exception.BaseException;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 雪花算法序列号生成器，生成趋势递增的 64 位数字 id
+ * 结构：1 位符号位 + 41 位毫秒时间戳（相对 {@link #DEFAULT_EPOCH}）+ 10 位工作节点 id + 12 位毫秒内序列
+ * 1: 毫秒时间戳与毫秒内序列打包在一个 {@link AtomicLong} 中，通过 CAS 无锁更新
+ * 2: 同一毫秒内序列耗尽时等待下一毫秒
+ * 3: 时钟回拨在 {@link #maxBackwardMillis} 内时沿用上一次的时间戳继续分配，超过则抛出异常
+ * 4: 工作节点 id 租约过期（续约失败）后拒绝生成 id，避免与重新分配到该 id 的节点产生重复 id
+ *
+ * @author wuxp
+ * @date 2024-08-13 09:30
+ **/
+public class SnowflakeSequenceGenerator implements SequenceGenerator {
+
+    /**
+     * 默认时间起点 2024-01-01 00:00:00 UTC
+     */
+    public static final long DEFAULT_EPOCH = LocalDateTime.of(2024, 1, 1, 0, 0).toInstant(ZoneOffset.UTC).toEpochMilli();
+
+    private static final int WORKER_ID_BITS = 10;
+
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_WORKER_ID = ~(-1L << WORKER_ID_BITS);
+
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+
+    private static final int TIMESTAMP_SHIFT = WORKER_ID_BITS + SEQUENCE_BITS;
+
+    /**
+     * 默认允许的时钟回拨时间
+     */
+    private static final long DEFAULT_MAX_BACKWARD_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    private final WorkerIdAssigner assigner;
+
+    @Getter
+    private final long workerId;
+
+    private final long epoch;
+
+    private final long maxBackwardMillis;
+
+    /**
+     * 高位为上一次分配的时间戳（相对 {@link #epoch}），低 {@link #SEQUENCE_BITS} 位为该毫秒内的序列
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeSequenceGenerator(WorkerIdAssigner assigner) {
+        this(assigner, DEFAULT_EPOCH, DEFAULT_MAX_BACKWARD_MILLIS);
+    }
+
+    public SnowflakeSequenceGenerator(WorkerIdAssigner assigner, long epoch, long maxBackwardMillis) {
+        this.assigner = assigner;
+        this.workerId = assigner.assign(MAX_WORKER_ID);
+        AssertUtils.isTrue(workerId >= 0 && workerId <= MAX_WORKER_ID, () -> String.format("workerId must in [0, %d]", MAX_WORKER_ID));
+        AssertUtils.isTrue(epoch <= System.currentTimeMillis(), "epoch must not be greater than current time");
+        this.epoch = epoch;
+        this.maxBackwardMillis = maxBackwardMillis;
+    }
+
+    @Override
+    public String next() {
+        return String.valueOf(nextId());
+    }
+
+    @Override
+    public List<String> next(int count) {
+        long[] ids = nextIds(count);
+        List<String> result = new ArrayList<>(count);
+        for (long id : ids) {
+            result.add(String.valueOf(id));
+        }
+        return result;
+    }
+
+    /**
+     * 获取下一个 id
+     *
+     * @return id
+     */
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long next = nextState(current);
+            if (next < 0) {
+                awaitNextMillis();
+                continue;
+            }
+            if (state.compareAndSet(current, next)) {
+                return toId(next);
+            }
+        }
+    }
+
+    /**
+     * 批量获取 id，每次 CAS 从当前毫秒中申请尽可能多的连续序列
+     *
+     * @param count 获取数量
+     * @return id 列表
+     */
+    public long[] nextIds(int count) {
+        AssertUtils.isTrue(count > 0, "argument count must greater than 0");
+        long[] result = new long[count];
+        int index = 0;
+        while (index < count) {
+            long current = state.get();
+            long first = nextState(current);
+            if (first < 0) {
+                awaitNextMillis();
+                continue;
+            }
+            long last = first + Math.min(count - index, SEQUENCE_MASK - (first & SEQUENCE_MASK) + 1) - 1;
+            if (state.compareAndSet(current, last)) {
+                for (long next = first; next <= last; next++) {
+                    result[index++] = toId(next);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 计算下一个状态
+     *
+     * @param current 当前状态
+     * @return 下一个状态，返回 -1 表示当前毫秒序列已耗尽
+     */
+    private long nextState(long current) {
+        long now = System.currentTimeMillis();
+        if (now >= assigner.getLeaseExpireTime()) {
+            throw BaseException.common(String.format("worker id = %d lease expired, refusing to generate id", workerId));
+        }
+        long lastTimestamp = current >>> SEQUENCE_BITS;
+        long timestamp = now - epoch;
+        if (timestamp > lastTimestamp) {
+            return timestamp << SEQUENCE_BITS;
+        }
+        long backward = lastTimestamp - timestamp;
+        if (backward > maxBackwardMillis) {
+            throw BaseException.common(String.format("clock moved backwards %dms, refusing to generate id", backward));
+        }
+        return (current & SEQUENCE_MASK) == SEQUENCE_MASK ? -1 : current + 1;
+    }
+
+    private long toId(long value) {
+        return ((value >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT) | (workerId << SEQUENCE_BITS) | (value & SEQUENCE_MASK);
+    }
+
+    private static void awaitNextMillis() {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+    }
+
+    /**
+     * 从 id 中解析生成时间
+     *
+     * @param id id
+     * @return 生成时间的毫秒时间戳
+     */
+    public long getTimestamp(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + epoch;
+    }
+}
@@ -0,0 +1,43 @@
+package com.wind.sequence;
+
+import com.wind.common.exception.AssertUtils;
+
+/**
+ * 分布式序列号生成器的工作节点 id 分配器
+ *
+ * @author wuxp
+ * @date 2024-08-13 09:12
+ **/
+@FunctionalInterface
+public interface WorkerIdAssigner {
+
+    /**
+     * 获取当前节点的工作节点 id
+     *
+     * @param maxWorkerId 允许的最大工作节点 id（包含）
+     * @return 工作节点 id，范围为 [0, maxWorkerId]
+     */
+    long assign(long maxWorkerId);
+
+    /**
+     * 获取工作节点 id 租约的过期时间，过期后该 id 可能被其他节点分配，不能再使用该 id 生成序列号
+     *
+     * @return 过期时间的毫秒时间戳，不使用租约时返回 {@link Long#MAX_VALUE}
+     */
+    default long getLeaseExpireTime() {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * 使用固定的工作节点 id
+     *
+     * @param workerId 工作节点 id
+     * @return 工作节点 id 分配器
+     */
+    static WorkerIdAssigner fixed(long workerId) {
+        return maxWorkerId -> {
+            AssertUtils.isTrue(workerId >= 0 && workerId <= maxWorkerId, () -> String.format("workerId must in [0, %d]", maxWorkerId));
+            return workerId;
+        };
+    }
+}
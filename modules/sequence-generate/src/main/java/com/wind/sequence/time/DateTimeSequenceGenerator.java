@@ -1,31 +1,176 @@
 package com.wind.sequence.time;
 
+import com.wind.common.exception.AssertUtils;
+import com.wind.sequence.NumericSequenceGenerator;
 import com.wind.sequence.SequenceGenerator;
-import org.apache.commons.lang3.time.DateFormatUtils;
 
-import java.util.Date;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * 按照时间隔离的序列号生成器
  * 例如：20231029{index}  => 2023102900005
+ * 时间前缀按 {@link SequenceTimeScopeType} 时间窗口缓存，仅在窗口切换时重新格式化；
+ * 当使用 {@link NumericSequenceGenerator} 计数时，窗口切换时将其计数器重置为 0（新窗口从 0 开始计数），
+ * 获取序列后校验窗口未发生切换，切换期间获取的序列会被丢弃重试，避免新旧窗口产生重复序列号
  *
  * @author wuxp
  * @date 2023-10-18 08:02
  **/
 public class DateTimeSequenceGenerator implements SequenceGenerator {
 
+    private static final AtomicReferenceFieldUpdater<DateTimeSequenceGenerator, TimeWindow> WINDOW_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(DateTimeSequenceGenerator.class, TimeWindow.class, "window");
+
+    /**
+     * 窗口切换中的标记，此时计数器正在重置
+     */
+    private static final TimeWindow SWITCHING = new TimeWindow("", Long.MIN_VALUE);
+
     private final SequenceTimeScopeType timeScope;
 
     private final SequenceGenerator dateCounter;
 
+    /**
+     * 数字计数器，为 null 时使用 {@link #dateCounter} 生成序列
+     */
+    private final NumericSequenceGenerator numericCounter;
+
+    private final ZoneId zoneId;
+
+    private final DateTimeFormatter formatter;
+
+    private volatile TimeWindow window;
+
     private DateTimeSequenceGenerator(SequenceTimeScopeType timeScope, SequenceGenerator dateCounter) {
         this.timeScope = timeScope;
         this.dateCounter = dateCounter;
+        this.numericCounter = dateCounter instanceof NumericSequenceGenerator ? (NumericSequenceGenerator) dateCounter : null;
+        this.zoneId = ZoneId.systemDefault();
+        this.formatter = DateTimeFormatter.ofPattern(timeScope.getPattern());
+        // 第一个时间窗口沿用计数器的当前值
+        this.window = newWindow(System.currentTimeMillis());
     }
 
     @Override
     public String next() {
-        return String.format("%s%s", DateFormatUtils.format(new Date(), timeScope.getPattern()), dateCounter.next());
+        if (numericCounter == null) {
+            return currentWindow().prefix.concat(dateCounter.next());
+        }
+        AtomicLong counter = numericCounter.getCounter();
+        while (true) {
+            TimeWindow current = currentWindow();
+            long seq = counter.incrementAndGet();
+            if (window == current) {
+                return numericCounter.format(current.prefix, seq);
+            }
+        }
+    }
+
+    @Override
+    public List<String> next(int count) {
+        if (numericCounter == null) {
+            return SequenceGenerator.super.next(count);
+        }
+        AssertUtils.isTrue(count > 0, "argument count must greater than 0");
+        AtomicLong counter = numericCounter.getCounter();
+        while (true) {
+            TimeWindow current = currentWindow();
+            long end = counter.addAndGet(count);
+            if (window == current) {
+                List<String> result = new ArrayList<>(count);
+                for (long seq = end - count + 1; seq <= end; seq++) {
+                    result.add(numericCounter.format(current.prefix, seq));
+                }
+                return result;
+            }
+        }
+    }
+
+    private TimeWindow currentWindow() {
+        long now = System.currentTimeMillis();
+        while (true) {
+            TimeWindow result = window;
+            if (result == SWITCHING) {
+                Thread.yield();
+                continue;
+            }
+            // 时钟回拨时继续使用当前窗口，避免产生重复序列号
+            if (now < result.end) {
+                return result;
+            }
+            if (WINDOW_UPDATER.compareAndSet(this, result, SWITCHING)) {
+                // 先标记切换中再重置计数器，重置前后从旧窗口获取的序列都会因窗口变化而重试
+                TimeWindow next = newWindow(now);
+                if (numericCounter != null) {
+                    numericCounter.getCounter().set(0);
+                }
+                window = next;
+                return next;
+            }
+        }
+    }
+
+    private TimeWindow newWindow(long epochMillis) {
+        LocalDateTime start = truncate(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zoneId));
+        LocalDateTime end = start.plus(1, windowUnit());
+        return new TimeWindow(formatter.format(start), end.atZone(zoneId).toInstant().toEpochMilli());
+    }
+
+    private LocalDateTime truncate(LocalDateTime dateTime) {
+        switch (timeScope) {
+            case YEAR:
+                return dateTime.toLocalDate().withDayOfYear(1).atStartOfDay();
+            case MONTH:
+                return dateTime.toLocalDate().withDayOfMonth(1).atStartOfDay();
+            default:
+                return dateTime.truncatedTo(windowUnit());
+        }
+    }
+
+    private ChronoUnit windowUnit() {
+        switch (timeScope) {
+            case YEAR:
+                return ChronoUnit.YEARS;
+            case MONTH:
+                return ChronoUnit.MONTHS;
+            case DAY:
+                return ChronoUnit.DAYS;
+            case HOUR:
+                return ChronoUnit.HOURS;
+            case MINUTE:
+                return ChronoUnit.MINUTES;
+            default:
+                return ChronoUnit.SECONDS;
+        }
+    }
+
+    /**
+     * 时间窗口
+     */
+    private static final class TimeWindow {
+
+        /**
+         * 格式化后的时间前缀
+         */
+        private final String prefix;
+
+        /**
+         * 窗口结束时间（不包含）
+         */
+        private final long end;
+
+        private TimeWindow(String prefix, long end) {
+            this.prefix = prefix;
+            this.end = end;
+        }
     }
 
     /**
@@ -4,6 +4,7 @@ import com.wind.common.exception.BaseException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
 
 class NumericSequenceGeneratorTest {
@@ -22,10 +23,24 @@ class NumericSequenceGeneratorTest {
         Assertions.assertEquals("1003", generator.next());
     }
 
+    @Test
+    void testNextBatch() {
+        NumericSequenceGenerator generator = new NumericSequenceGenerator(new AtomicLong(1000), 4);
+        Assertions.assertEquals(Arrays.asList("1001", "1002", "1003"), generator.next(3));
+        Assertions.assertEquals("1004", generator.next());
+    }
+
     @Test
     void testNextError() {
         NumericSequenceGenerator generator = new NumericSequenceGenerator(new AtomicLong(10000), 4);
         BaseException exception = Assertions.assertThrows(BaseException.class, generator::next);
         Assertions.assertEquals("sequence exceeds maximum length", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testLengthExceedLimit() {
+        Assertions.assertEquals(999999999999999999L, SequenceFormatUtils.maxValue(18));
+        AtomicLong counter = new AtomicLong();
+        Assertions.assertThrows(BaseException.class, () -> new NumericSequenceGenerator(counter, 19));
+    }
+}
@@ -0,0 +1,71 @@
+package com.wind.sequence;
+
+import com.wind.common.exception.BaseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+class SnowflakeSequenceGeneratorTest {
+
+    @Test
+    void testNextId() {
+        SnowflakeSequenceGenerator generator = new SnowflakeSequenceGenerator(WorkerIdAssigner.fixed(3));
+        long begin = System.currentTimeMillis();
+        long prev = generator.nextId();
+        for (int i = 0; i < 10000; i++) {
+            long next = generator.nextId();
+            Assertions.assertTrue(next > prev);
+            prev = next;
+        }
+        Assertions.assertTrue(generator.getTimestamp(prev) >= begin);
+        Assertions.assertTrue(generator.getTimestamp(prev) <= System.currentTimeMillis());
+    }
+
+    @Test
+    void testConcurrentNextId() {
+        SnowflakeSequenceGenerator generator = new SnowflakeSequenceGenerator(WorkerIdAssigner.fixed(1));
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 100000).parallel().forEach(i -> ids.add(generator.nextId()));
+        Assertions.assertEquals(100000, ids.size());
+    }
+
+    @Test
+    void testNextIds() {
+        SnowflakeSequenceGenerator generator = new SnowflakeSequenceGenerator(WorkerIdAssigner.fixed(2));
+        long[] ids = generator.nextIds(10000);
+        for (int i = 1; i < ids.length; i++) {
+            Assertions.assertTrue(ids[i] > ids[i - 1]);
+        }
+        Assertions.assertTrue(generator.nextId() > ids[ids.length - 1]);
+    }
+
+    @Test
+    void testInvalidWorkerId() {
+        WorkerIdAssigner assigner = WorkerIdAssigner.fixed(SnowflakeSequenceGenerator.MAX_WORKER_ID + 1);
+        Assertions.assertThrows(BaseException.class, () -> new SnowflakeSequenceGenerator(assigner));
+    }
+
+    @Test
+    void testLeaseExpired() {
+        AtomicLong leaseExpireTime = new AtomicLong(Long.MAX_VALUE);
+        SnowflakeSequenceGenerator generator = new SnowflakeSequenceGenerator(new WorkerIdAssigner() {
+            @Override
+            public long assign(long maxWorkerId) {
+                return 4;
+            }
+
+            @Override
+            public long getLeaseExpireTime() {
+                return leaseExpireTime.get();
+            }
+        });
+        Assertions.assertTrue(generator.nextId() > 0);
+        leaseExpireTime.set(System.currentTimeMillis());
+        Assertions.assertThrows(BaseException.class, generator::nextId);
+        Assertions.assertThrows(BaseException.class, () -> generator.nextIds(10));
+    }
+}
@@ -0,0 +1,75 @@
+package com.wind.sequence.time;
+
+import com.wind.sequence.NumericSequenceGenerator;
+import com.wind.sequence.SequenceGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 序列号生成吞吐量基准测试，分别在 1、4、16、64 个线程下运行
+ * 运行方式：执行 {@link #main(String[])}
+ *
+ * @author wuxp
+ * @date 2024-08-12 11:05
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class DateTimeSequenceGeneratorBenchmark {
+
+    private SequenceGenerator dayNumeric;
+
+    private SequenceGenerator secondsNumeric;
+
+    private SequenceGenerator numeric;
+
+    @Setup
+    public void setup() {
+        dayNumeric = DateTimeSequenceGenerator.day(new NumericSequenceGenerator(new AtomicLong(), 12));
+        secondsNumeric = DateTimeSequenceGenerator.seconds(new NumericSequenceGenerator(new AtomicLong(), 12));
+        numeric = new NumericSequenceGenerator(new AtomicLong(), 18);
+    }
+
+    @Benchmark
+    public String dayNumeric() {
+        return dayNumeric.next();
+    }
+
+    @Benchmark
+    public String secondsNumeric() {
+        return secondsNumeric.next();
+    }
+
+    @Benchmark
+    public String numeric() {
+        return numeric.next();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 4, 16, 64}) {
+            Options options = new OptionsBuilder()
+                    .include(DateTimeSequenceGeneratorBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
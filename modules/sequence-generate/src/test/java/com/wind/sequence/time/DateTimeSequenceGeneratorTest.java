@@ -5,6 +5,13 @@ import com.wind.sequence.SequenceGenerator;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
 class DateTimeSequenceGeneratorTest {
 
 
@@ -29,5 +36,34 @@ class DateTimeSequenceGeneratorTest {
         String next = day.next();
         Assertions.assertEquals(16, next.length());
     }
-}
 
+    @Test
+    void testDayPrefix() {
+        SequenceGenerator day = DateTimeSequenceGenerator.day(new NumericSequenceGenerator(new AtomicLong(), 4));
+        String prefix = LocalDate.now().format(DateTimeFormatter.ofPattern(SequenceTimeScopeType.DAY.getPattern()));
+        Assertions.assertEquals(prefix + "0001", day.next());
+    }
+
+    @Test
+    void testConcurrentNext() {
+        SequenceGenerator seconds = DateTimeSequenceGenerator.seconds(new NumericSequenceGenerator());
+        Set<String> sequences = ConcurrentHashMap.newKeySet();
+        IntStream.range(0, 10000).parallel().forEach(i -> sequences.add(seconds.next()));
+        Assertions.assertEquals(10000, sequences.size());
+    }
+
+    @Test
+    void testResetCounterOnRollover() throws InterruptedException {
+        AtomicLong counter = new AtomicLong();
+        SequenceGenerator seconds = DateTimeSequenceGenerator.seconds(new NumericSequenceGenerator(counter, 4));
+        String first = seconds.next();
+        seconds.next(100);
+        String next = first;
+        while (next.startsWith(first.substring(0, first.length() - 4))) {
+            Thread.sleep(20);
+            next = seconds.next();
+        }
+        Assertions.assertTrue(next.endsWith("0001"));
+        Assertions.assertEquals(1, counter.get());
+    }
+}
@@ -14,6 +14,16 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 /**
  * @author wuxp
  * @date 2024-03-31 10:41
@@ -25,6 +35,9 @@ class JdbcSequenceRepositoryTests extends AbstractJdbcTest {
     @Autowired
     private SequenceRepository jdbcSequenceRepository;
 
+    @Autowired
+    private SequenceRepository segmentSequenceRepository;
+
     @Test
     void testSequence() {
         SequenceGenerator sequenceGenerator = jdbcSequenceRepository.getSequence("test");
@@ -33,6 +46,45 @@ class JdbcSequenceRepositoryTests extends AbstractJdbcTest {
         }
     }
 
+    @Test
+    void testBatchSequence() {
+        SequenceGenerator sequenceGenerator = jdbcSequenceRepository.getSequence("test_batch");
+        Assertions.assertEquals("1", sequenceGenerator.next());
+        Assertions.assertEquals(Arrays.asList("2", "3", "4"), sequenceGenerator.next(3));
+        Assertions.assertEquals("5", sequenceGenerator.next());
+    }
+
+    @Test
+    void testSegmentBatchSequence() {
+        SequenceGenerator sequenceGenerator = segmentSequenceRepository.getSequence("test_segment_batch");
+        List<String> sequences = new ArrayList<>(sequenceGenerator.next(10));
+        sequences.addAll(sequenceGenerator.next(100));
+        sequences.add(sequenceGenerator.next());
+        Assertions.assertEquals(111, new HashSet<>(sequences).size());
+    }
+
+    @Test
+    void testSegmentSequence() throws Exception {
+        SequenceGenerator sequenceGenerator = segmentSequenceRepository.getSequence("test_segment");
+        Assertions.assertSame(sequenceGenerator, segmentSequenceRepository.getSequence("test_segment"));
+        int threads = 4, count = 500;
+        Set<String> sequences = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < count; j++) {
+                    sequences.add(sequenceGenerator.next());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        Assertions.assertEquals(threads * count, sequences.size());
+    }
+
     @Configuration
     static class TestConfig {
 
@@ -40,5 +92,10 @@ class JdbcSequenceRepositoryTests extends AbstractJdbcTest {
         public SequenceRepository jdbcSequenceRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
             return new JdbcSequenceRepository(jdbcTemplate, transactionManager);
         }
+
+        @Bean
+        public SequenceRepository segmentSequenceRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+            return new JdbcSequenceRepository(jdbcTemplate, transactionManager, 64);
+        }
     }
 }
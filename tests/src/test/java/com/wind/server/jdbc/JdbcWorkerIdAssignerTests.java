@@ -0,0 +1,48 @@
+package com.wind.server.jdbc;
+
+import com.wind.AbstractJdbcTest;
+import com.wind.sequence.SnowflakeSequenceGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+/**
+ * @author wuxp
+ * @date 2024-08-13 11:02
+ **/
+class JdbcWorkerIdAssignerTests extends AbstractJdbcTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testAssign() {
+        JdbcWorkerIdAssigner assigner1 = new JdbcWorkerIdAssigner(jdbcTemplate, "t_wind_sequence", "test", Duration.ofMinutes(1));
+        JdbcWorkerIdAssigner assigner2 = new JdbcWorkerIdAssigner(jdbcTemplate, "t_wind_sequence", "test", Duration.ofMinutes(1));
+        Assertions.assertEquals(0, assigner1.assign(SnowflakeSequenceGenerator.MAX_WORKER_ID));
+        Assertions.assertEquals(0, assigner1.assign(SnowflakeSequenceGenerator.MAX_WORKER_ID));
+        Assertions.assertEquals(1, assigner2.assign(SnowflakeSequenceGenerator.MAX_WORKER_ID));
+        assigner1.destroy();
+        JdbcWorkerIdAssigner assigner3 = new JdbcWorkerIdAssigner(jdbcTemplate, "t_wind_sequence", "test", Duration.ofMinutes(1));
+        // 已释放的租约需要等待一个租约时间才能复用
+        Assertions.assertEquals(2, assigner3.assign(SnowflakeSequenceGenerator.MAX_WORKER_ID));
+        assigner2.destroy();
+        assigner3.destroy();
+    }
+
+    @Test
+    void testReuseReleasedLease() throws Exception {
+        JdbcWorkerIdAssigner assigner1 = new JdbcWorkerIdAssigner(jdbcTemplate, "t_wind_sequence", "test-reuse", Duration.ofMillis(300));
+        Assertions.assertEquals(0, assigner1.assign(SnowflakeSequenceGenerator.MAX_WORKER_ID));
+        Assertions.assertTrue(assigner1.getLeaseExpireTime() > System.currentTimeMillis());
+        assigner1.destroy();
+        Assertions.assertEquals(0, assigner1.getLeaseExpireTime());
+        Thread.sleep(400);
+        JdbcWorkerIdAssigner assigner2 = new JdbcWorkerIdAssigner(jdbcTemplate, "t_wind_sequence", "test-reuse", Duration.ofMillis(300));
+        Assertions.assertEquals(0, assigner2.assign(SnowflakeSequenceGenerator.MAX_WORKER_ID));
+        assigner2.destroy();
+    }
+}
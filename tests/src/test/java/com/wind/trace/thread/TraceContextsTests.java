@@ -0,0 +1,133 @@
+package com.wind.trace.thread;
+
+import com.wind.common.WindConstants;
+import com.wind.trace.WindTraceContext;
+import com.wind.trace.WindTracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @author wuxp
+ * @date 2024-08-17 15:10
+ **/
+class TraceContextsTests {
+
+    @AfterEach
+    void after() {
+        WindTracer.TRACER.clear();
+    }
+
+    @Test
+    void testSupplyAsync() throws Exception {
+        WindTracer.TRACER.trace("test-trace-id");
+        WindTraceContext context = WindTracer.TRACER.getTraceContext();
+        Assertions.assertSame(context, TraceContexts.supplyAsync(WindTracer.TRACER::getTraceContext).get());
+        Assertions.assertEquals("test-trace-id", TraceContexts.supplyAsync(() -> MDC.get(WindConstants.TRACE_ID_NAME)).get());
+    }
+
+    @Test
+    void testExecutor() throws Exception {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            Executor executor = TraceContexts.executor(executorService);
+            Assertions.assertSame(executor, TraceContexts.executor(executor));
+            WindTracer.TRACER.trace("test-trace-id");
+            Assertions.assertEquals("test-trace-id", CompletableFuture.supplyAsync(WindTracer.TRACER::getTraceId, executor).get());
+            // 执行结束后清除工作线程的上下文
+            executorService.submit(() -> Assertions.assertNull(MDC.get(WindConstants.TRACE_ID_NAME))).get();
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    void testParallelStream() {
+        WindTracer.TRACER.trace("test-trace-id");
+        WindTraceContext context = WindTracer.TRACER.getTraceContext();
+        Set<String> traceIds = IntStream.range(0, 1000)
+                .boxed()
+                .parallel()
+                .map(TraceContexts.wrapFunction(i -> WindTracer.TRACER.getTraceId()))
+                .collect(Collectors.toSet());
+        Assertions.assertEquals(1, traceIds.size());
+        Assertions.assertTrue(traceIds.contains("test-trace-id"));
+        // 调用线程的上下文不变
+        Assertions.assertSame(context, WindTracer.TRACER.getTraceContext());
+    }
+
+    @Test
+    void testForkJoinPool() throws Exception {
+        ForkJoinPool pool = new TraceContextForkJoinPool(2);
+        try {
+            WindTracer.TRACER.trace("test-trace-id");
+            Assertions.assertEquals("test-trace-id", pool.submit(WindTracer.TRACER::getTraceId).get());
+            List<String> traceIds = pool.submit(() -> IntStream.range(0, 100)
+                    .parallel()
+                    .mapToObj(i -> WindTracer.TRACER.getTraceId())
+                    .collect(Collectors.toList())).get();
+            Assertions.assertTrue(traceIds.contains("test-trace-id"));
+            Assertions.assertEquals("test-trace-id", pool.invoke(ForkJoinTask.adapt(WindTracer.TRACER::getTraceId)));
+
+            // 通过提交的原任务获取结果
+            ForkJoinTask<String> task = ForkJoinTask.adapt(WindTracer.TRACER::getTraceId);
+            Assertions.assertSame(task, pool.submit(task));
+            Assertions.assertEquals("test-trace-id", task.get(5, TimeUnit.SECONDS));
+            ForkJoinTask<String> executed = ForkJoinTask.adapt(WindTracer.TRACER::getTraceId);
+            pool.execute(executed);
+            Assertions.assertEquals("test-trace-id", executed.get(5, TimeUnit.SECONDS));
+            ForkJoinTask<String> failed = ForkJoinTask.adapt(() -> {
+                throw new IllegalStateException("failed");
+            });
+            Assertions.assertThrows(IllegalStateException.class, () -> pool.invoke(failed));
+
+            List<Callable<String>> tasks = Arrays.asList(WindTracer.TRACER::getTraceId, WindTracer.TRACER::getTraceId);
+            for (Future<String> future : pool.invokeAll(tasks)) {
+                Assertions.assertEquals("test-trace-id", future.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testRestoreCallerMdcWhenRunInline() {
+        MDC.put("userId", "u1");
+        AtomicReference<String> traceId = new AtomicReference<>();
+        Runnable task = TraceContexts.wrap(() -> traceId.set(WindTracer.TRACER.getTraceId()));
+        // 获取上下文时不修改调用线程的 MDC
+        Assertions.assertNull(MDC.get(WindConstants.TRACE_ID_NAME));
+        task.run();
+        Assertions.assertNotNull(traceId.get());
+        Assertions.assertEquals("u1", MDC.get("userId"));
+        Assertions.assertNull(MDC.get(WindConstants.TRACE_ID_NAME));
+
+        MDC.put(WindConstants.TRACE_ID_NAME, "mdc-trace-id");
+        Set<String> traceIds = IntStream.range(0, 100)
+                .boxed()
+                .parallel()
+                .map(TraceContexts.wrapFunction(i -> WindTracer.TRACER.getTraceId()))
+                .collect(Collectors.toSet());
+        Assertions.assertEquals(Collections.singleton("mdc-trace-id"), traceIds);
+        Assertions.assertEquals("u1", MDC.get("userId"));
+        Assertions.assertEquals("mdc-trace-id", MDC.get(WindConstants.TRACE_ID_NAME));
+    }
+}
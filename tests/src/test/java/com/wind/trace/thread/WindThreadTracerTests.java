@@ -0,0 +1,94 @@
+package com.wind.trace.thread;
+
+import com.wind.common.WindConstants;
+import com.wind.trace.WindTraceContext;
+import com.wind.trace.WindTracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author wuxp
+ * @date 2024-08-16 15:02
+ **/
+class WindThreadTracerTests {
+
+    @AfterEach
+    void after() {
+        WindTracer.TRACER.clear();
+    }
+
+    @Test
+    void testTrace() {
+        WindTracer.TRACER.trace("test-trace-id", Collections.singletonMap("requestIp", 1L));
+        WindTraceContext context = WindTracer.TRACER.getTraceContext();
+        Assertions.assertSame(context, WindTracer.TRACER.getTraceContext());
+        Assertions.assertEquals("test-trace-id", context.getTraceId());
+        Assertions.assertEquals(1L, (Long) context.getContextVariable("requestIp"));
+        Assertions.assertEquals("test-trace-id", MDC.get(WindConstants.TRACE_ID_NAME));
+    }
+
+    @Test
+    void testGetTraceContextFromMdc() {
+        MDC.put(WindConstants.TRACE_ID_NAME, "mdc-trace-id");
+        Assertions.assertEquals("mdc-trace-id", WindTracer.TRACER.getTraceId());
+        WindTracer.TRACER.clear();
+        Assertions.assertNotNull(WindTracer.TRACER.getTraceId());
+        Assertions.assertEquals(WindTracer.TRACER.getTraceId(), MDC.get(WindConstants.TRACE_ID_NAME));
+    }
+
+    @Test
+    void testMdcChangedWithoutContext() {
+        String traceId = WindTracer.TRACER.getTraceId();
+        Assertions.assertEquals(traceId, MDC.get(WindConstants.TRACE_ID_NAME));
+        // 没有上下文时不缓存从 MDC 中读取的 traceId
+        MDC.put(WindConstants.TRACE_ID_NAME, "mdc-trace-id");
+        Assertions.assertEquals("mdc-trace-id", WindTracer.TRACER.getTraceId());
+        MDC.clear();
+        Assertions.assertNotEquals("mdc-trace-id", WindTracer.TRACER.getTraceId());
+    }
+
+    @Test
+    void testCarryMdcEntriesBeforeTrace() throws Exception {
+        MDC.put("userId", "u1");
+        WindTracer.TRACER.trace("test-trace-id");
+        Assertions.assertEquals("u1", MDC.get("userId"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Runnable task = TraceContextTask.of().decorate(() -> Assertions.assertEquals("u1", MDC.get("userId")));
+            CompletableFuture.runAsync(task, executor).get();
+            Assertions.assertEquals("u1", TraceContexts.supplyAsync(() -> MDC.get("userId"), executor).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testDecorate() throws Exception {
+        WindTracer.TRACER.trace("test-trace-id");
+        WindTraceContext context = WindTracer.TRACER.getTraceContext();
+        AtomicReference<WindTraceContext> taskContext = new AtomicReference<>();
+        AtomicReference<String> mdcTraceId = new AtomicReference<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Runnable task = TraceContextTask.of().decorate(() -> {
+                taskContext.set(WindTracer.TRACER.getTraceContext());
+                mdcTraceId.set(MDC.get(WindConstants.TRACE_ID_NAME));
+            });
+            CompletableFuture.runAsync(task, executor).get();
+            Assertions.assertSame(context, taskContext.get());
+            Assertions.assertEquals("test-trace-id", mdcTraceId.get());
+            // 任务执行完成后清除上下文
+            Assertions.assertNull(CompletableFuture.supplyAsync(() -> MDC.get(WindConstants.TRACE_ID_NAME), executor).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.wind.common.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * 执行器指标注册，仅在 micrometer 存在时加载
+ *
+ * @author wuxp
+ * @date 2024-08-17 10:30
+ **/
+final class ExecutorServiceMetrics implements LongConsumer {
+
+    private static final String METRIC_PREFIX = "wind.executor.";
+
+    private final Timer timer;
+
+    private final List<Meter> meters;
+
+    private ExecutorServiceMetrics(Timer timer, List<Meter> meters) {
+        this.timer = timer;
+        this.meters = meters;
+    }
+
+    /**
+     * 注册执行器指标
+     *
+     * @param executor 执行器
+     * @return 执行器指标，用于记录任务执行耗时（纳秒）
+     */
+    static ExecutorServiceMetrics bind(WindExecutorService executor) {
+        Tags tags = Tags.of("name", executor.getName());
+        Gauge queued = Gauge.builder(METRIC_PREFIX + "queued", executor, WindExecutorService::getQueuedCount)
+                .tags(tags)
+                .description("the number of tasks waiting to be executed")
+                .register(Metrics.globalRegistry);
+        Gauge active = Gauge.builder(METRIC_PREFIX + "active", executor, WindExecutorService::getActiveCount)
+                .tags(tags)
+                .description("the number of tasks being executed")
+                .register(Metrics.globalRegistry);
+        FunctionCounter rejected = FunctionCounter.builder(METRIC_PREFIX + "rejected", executor, WindExecutorService::getRejectedCount)
+                .tags(tags)
+                .description("the number of rejected tasks")
+                .register(Metrics.globalRegistry);
+        FunctionCounter completed = FunctionCounter.builder(METRIC_PREFIX + "completed", executor, WindExecutorService::getCompletedCount)
+                .tags(tags)
+                .description("the number of completed tasks")
+                .register(Metrics.globalRegistry);
+        Timer timer = Timer.builder(METRIC_PREFIX + "task")
+                .tags(tags)
+                .description("task execution latency")
+                .register(Metrics.globalRegistry);
+        return new ExecutorServiceMetrics(timer, Arrays.asList(queued, active, rejected, completed, timer));
+    }
+
+    @Override
+    public void accept(long nanos) {
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 移除注册的执行器指标，避免执行器关闭后指标（以及执行器自身）一直被全局注册表持有
+     */
+    void unbind() {
+        meters.forEach(Metrics.globalRegistry::remove);
+    }
+}
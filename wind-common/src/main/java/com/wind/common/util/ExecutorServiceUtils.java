@@ -1,20 +1,39 @@
 package com.wind.common.util;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
+import java.lang.reflect.Method;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 线程池创建工具
+ * 虚拟线程执行器在 JDK 21 以下自动降级为平台线程池，项目以 JDK 8 编译，虚拟线程相关 api 通过反射调用
  *
  * @author wuxp
  * @date 2023-12-26 10:35
  **/
+@Slf4j
 public final class ExecutorServiceUtils {
 
+    /**
+     * 不支持虚拟线程且不限制并发时，降级线程池的线程数
+     */
+    private static final int FALLBACK_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 8;
+
+    /**
+     * 不支持虚拟线程时，降级线程池的等待队列大小，队列满时拒绝任务
+     */
+    private static final int FALLBACK_WORK_QUEUE_SIZE = 2048;
+
+    private static final boolean VIRTUAL_THREAD_SUPPORTED = detectVirtualThread();
+
     private ExecutorServiceUtils() {
         throw new AssertionError();
     }
@@ -56,4 +75,67 @@ public final class ExecutorServiceUtils {
     private static ThreadPoolExecutor newExecutor(String threadNamePrefix, int corePoolSize, int maximumPoolSize, BlockingQueue<Runnable> workQueue) {
         return new ThreadPoolExecutor(corePoolSize, maximumPoolSize, 90, TimeUnit.SECONDS, workQueue, new CustomizableThreadFactory(threadNamePrefix));
     }
+
+    /**
+     * 创建不限制并发的虚拟线程执行器，每个任务一个虚拟线程
+     *
+     * @param threadNamePrefix 线程名称前缀，同时作为指标的 name 标签
+     * @return 执行器
+     * @see #newVirtualThreadExecutor(String, int)
+     */
+    public static WindExecutorService newVirtualThreadExecutor(String threadNamePrefix) {
+        return newVirtualThreadExecutor(threadNamePrefix, 0);
+    }
+
+    /**
+     * 创建虚拟线程执行器，每个任务一个虚拟线程，适用于 IO 密集型任务
+     * 1: 不支持虚拟线程（JDK 21 以下）时，降级为线程数为 maxConcurrency（不限制时为 cpu 核数 * 8）、等待队列为 {@link #FALLBACK_WORK_QUEUE_SIZE} 的平台线程池
+     * 2: 提交任务时自动传递 trace 上下文
+     * 3: 同时执行的任务数超过 maxConcurrency 时，任务在信号量上等待
+     *
+     * @param threadNamePrefix 线程名称前缀，同时作为指标的 name 标签
+     * @param maxConcurrency   最大并发数，小于等于 0 表示不限制
+     * @return 执行器
+     */
+    public static WindExecutorService newVirtualThreadExecutor(String threadNamePrefix, int maxConcurrency) {
+        ExecutorService delegate = VIRTUAL_THREAD_SUPPORTED ? newThreadPerTaskExecutor(threadNamePrefix) : null;
+        if (delegate == null) {
+            int poolSize = maxConcurrency > 0 ? maxConcurrency : FALLBACK_POOL_SIZE;
+            ThreadPoolExecutor executor = newExecutor(threadNamePrefix, poolSize, poolSize, FALLBACK_WORK_QUEUE_SIZE);
+            executor.allowCoreThreadTimeOut(true);
+            delegate = executor;
+        }
+        return new WindExecutorService(threadNamePrefix, delegate, maxConcurrency);
+    }
+
+    /**
+     * @return 当前运行环境是否支持虚拟线程
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_THREAD_SUPPORTED;
+    }
+
+    private static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+        try {
+            // Thread.ofVirtual().name(prefix, 0).factory()
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+        } catch (Exception exception) {
+            // JDK 19、20 未开启 preview 时无法创建
+            log.warn("create virtual thread executor failure, fallback to platform thread pool, prefix = {}", threadNamePrefix, exception);
+            return null;
+        }
+    }
+
+    private static boolean detectVirtualThread() {
+        try {
+            Method method = Thread.class.getMethod("ofVirtual");
+            return method != null;
+        } catch (NoSuchMethodException exception) {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,193 @@
+package com.wind.common.util;
+
+import com.wind.common.exception.AssertUtils;
+import com.wind.trace.thread.TraceContextTask;
+import lombok.Getter;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.lang.NonNull;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+/**
+ * 包装执行器，提交任务时：
+ * 1: 使用 {@link TraceContextTask} 传递 trace 上下文
+ * 2: 使用信号量限制同时执行的任务数，保护下游系统（虚拟线程没有线程数上限）
+ * 3: 统计排队、执行中、拒绝的任务数以及任务执行耗时，存在 micrometer 时自动注册指标
+ *
+ * @author wuxp
+ * @date 2024-08-17 10:12
+ **/
+public final class WindExecutorService extends AbstractExecutorService {
+
+    private static final boolean METRICS_PRESENT = ClassDetectionUtils.isPresent("io.micrometer.core.instrument.Metrics");
+
+    private static final TaskDecorator TRACE_DECORATOR = TraceContextTask.of();
+
+    /**
+     * 执行器名称
+     */
+    @Getter
+    private final String name;
+
+    private final ExecutorService delegate;
+
+    /**
+     * 并发限制，为 null 表示不限制
+     */
+    private final Semaphore semaphore;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder completed = new LongAdder();
+
+    /**
+     * 任务执行耗时记录（纳秒）
+     */
+    private final LongConsumer latencyRecorder;
+
+    /**
+     * 执行器关闭时移除注册的指标
+     */
+    private final Runnable metricsRemover;
+
+    WindExecutorService(String name, ExecutorService delegate, int maxConcurrency) {
+        AssertUtils.hasText(name, "argument name must not empty");
+        AssertUtils.notNull(delegate, "argument delegate must not null");
+        this.name = name;
+        this.delegate = delegate;
+        this.semaphore = maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null;
+        if (METRICS_PRESENT) {
+            ExecutorServiceMetrics metrics = ExecutorServiceMetrics.bind(this);
+            this.latencyRecorder = metrics;
+            this.metricsRemover = metrics::unbind;
+        } else {
+            this.latencyRecorder = nanos -> {
+            };
+            this.metricsRemover = () -> {
+            };
+        }
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        AssertUtils.notNull(command, "argument command must not null");
+        Runnable task = TRACE_DECORATOR.decorate(command);
+        queued.incrementAndGet();
+        try {
+            delegate.execute(() -> run(task, command));
+        } catch (RejectedExecutionException exception) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw exception;
+        }
+    }
+
+    private void run(Runnable task, Runnable command) {
+        if (!acquire()) {
+            if (command instanceof Future) {
+                // 通过 submit 提交的任务，取消 Future，避免调用方一直等待
+                ((Future<?>) command).cancel(false);
+            }
+            return;
+        }
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        long begin = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            latencyRecorder.accept(System.nanoTime() - begin);
+            active.decrementAndGet();
+            completed.increment();
+            if (semaphore != null) {
+                semaphore.release();
+            }
+        }
+    }
+
+    private boolean acquire() {
+        if (semaphore == null) {
+            return true;
+        }
+        try {
+            semaphore.acquire();
+            return true;
+        } catch (InterruptedException exception) {
+            // 等待许可时执行器被关闭，任务视为被拒绝
+            Thread.currentThread().interrupt();
+            queued.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+    }
+
+    /**
+     * @return 已提交等待执行（包括等待并发许可）的任务数
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * @return 执行中的任务数
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * @return 被拒绝的任务数
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return 已完成的任务数
+     */
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+        metricsRemover.run();
+    }
+
+    @Override
+    @NonNull
+    public List<Runnable> shutdownNow() {
+        List<Runnable> result = delegate.shutdownNow();
+        metricsRemover.run();
+        return result;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
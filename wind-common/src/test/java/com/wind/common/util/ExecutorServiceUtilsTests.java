@@ -0,0 +1,114 @@
+package com.wind.common.util;
+
+import com.wind.trace.WindTracer;
+import io.micrometer.core.instrument.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author wuxp
+ * @date 2024-08-17 11:05
+ **/
+class ExecutorServiceUtilsTests {
+
+    @AfterEach
+    void after() {
+        WindTracer.TRACER.clear();
+    }
+
+    @Test
+    void testTracePropagation() throws Exception {
+        WindExecutorService executor = ExecutorServiceUtils.newVirtualThreadExecutor("test-trace-");
+        try {
+            WindTracer.TRACER.trace("trace-0001");
+            Future<String> future = executor.submit(() -> WindTracer.TRACER.getTraceId());
+            Assertions.assertEquals("trace-0001", future.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testMaxConcurrency() throws Exception {
+        WindExecutorService executor = ExecutorServiceUtils.newVirtualThreadExecutor("test-bounded-", 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(executor.submit(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // 完成计数在任务的 Future 完成之后更新，等待执行器终止
+        Assertions.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(maxRunning.get() <= 2);
+        Assertions.assertEquals(20, executor.getCompletedCount());
+        Assertions.assertEquals(0, executor.getQueuedCount());
+        Assertions.assertEquals(0, executor.getActiveCount());
+    }
+
+    @Test
+    void testRemoveMetricsOnShutdown() {
+        WindExecutorService executor = ExecutorServiceUtils.newVirtualThreadExecutor("test-metrics-");
+        Assertions.assertFalse(Metrics.globalRegistry.find("wind.executor.queued").tag("name", executor.getName()).meters().isEmpty());
+        executor.shutdown();
+        Assertions.assertTrue(Metrics.globalRegistry.find("wind.executor.queued").tag("name", executor.getName()).meters().isEmpty());
+        Assertions.assertTrue(Metrics.globalRegistry.find("wind.executor.task").tag("name", executor.getName()).meters().isEmpty());
+
+        executor = ExecutorServiceUtils.newVirtualThreadExecutor("test-metrics-now-");
+        executor.shutdownNow();
+        Assertions.assertTrue(Metrics.globalRegistry.find("wind.executor.completed").tag("name", executor.getName()).meters().isEmpty());
+    }
+
+    @Test
+    void testRejected() {
+        WindExecutorService executor = ExecutorServiceUtils.newVirtualThreadExecutor("test-rejected-");
+        executor.shutdown();
+        Assertions.assertThrows(Exception.class, () -> executor.execute(() -> {
+        }));
+        Assertions.assertEquals(1, executor.getRejectedCount());
+    }
+
+    @Test
+    void testCancelWhenAcquireInterrupted() throws Exception {
+        WindExecutorService executor = new WindExecutorService("test-interrupted-", Executors.newCachedThreadPool(), 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch latch = new CountDownLatch(1);
+        Future<?> running = executor.submit(() -> {
+            started.countDown();
+            latch.await();
+            return null;
+        });
+        // 等待第一个任务获取许可，避免关闭时两个任务都在等待许可
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<?> waiting = executor.submit(() -> {
+        });
+        executor.shutdownNow();
+        Assertions.assertThrows(Exception.class, () -> running.get(5, TimeUnit.SECONDS));
+        Assertions.assertThrows(CancellationException.class, () -> waiting.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, executor.getRejectedCount());
+    }
+}
@@ -52,9 +52,19 @@ public interface ConfigRepository {
      * @return 配置内容
      */
     default List<PropertySource<?>> getConfigs(ConfigDescriptor descriptor) {
+        return parseConfigs(descriptor, getTextConfig(descriptor));
+    }
+
+    /**
+     * 解析文本格式的配置，默认使用 {@link PropertiesPropertySourceLoader} 解析配置
+     *
+     * @param descriptor 配置描述
+     * @param content    配置内容
+     * @return 配置内容
+     */
+    default List<PropertySource<?>> parseConfigs(ConfigDescriptor descriptor, String content) {
         try {
-            String config = getTextConfig(descriptor);
-            return PROPERTY_SOURCE_LOADER.load(descriptor.getName(), new ByteArrayResource(config.getBytes(StandardCharsets.UTF_8)));
+            return PROPERTY_SOURCE_LOADER.load(descriptor.getName(), new ByteArrayResource(content.getBytes(StandardCharsets.UTF_8)));
         } catch (Exception exception) {
             throw new BaseException(DefaultExceptionCode.COMMON_ERROR, String.format("load config name = %s failure", descriptor.getName()), exception);
         }
@@ -51,9 +51,8 @@ public class NacosConfigRepository implements ConfigRepository {
     }
 
     @Override
-    public List<PropertySource<?>> getConfigs(ConfigDescriptor descriptor) {
-        String config = getTextConfig(descriptor);
-        List<PropertySource<?>> result = getPropertySources(descriptor, config);
+    public List<PropertySource<?>> parseConfigs(ConfigDescriptor descriptor, String content) {
+        List<PropertySource<?>> result = getPropertySources(descriptor, content);
         collectNacosPropertySource(result, descriptor);
         return result;
     }
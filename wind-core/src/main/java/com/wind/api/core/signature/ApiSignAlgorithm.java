@@ -5,8 +5,6 @@ import com.wind.signature.algorithm.Sha256WithRsaSigner;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
-import java.util.Objects;
-
 /**
  * @author wuxp
  * @date 2024-03-05 09:57
@@ -29,7 +27,7 @@ public enum ApiSignAlgorithm implements ApiSigner {
          */
         @Override
         public boolean verify(ApiSignatureRequest request, String secretKey, String sign) {
-            return Objects.equals(sign(request, secretKey), sign);
+            return HmacSHA256Signer.verify(request.getSignTextForDigest(), secretKey, sign);
         }
 
 
@@ -76,7 +76,15 @@ public class ApiSignatureRequest {
      */
     private final String requestBody;
 
-    private ApiSignatureRequest(String method, String requestPath, String nonce, String timestamp, String queryString, String requestBody) {
+    /**
+     * 请求体 md5 摘要（16 进制），设置后摘要签名直接使用该值，不再对 {@link #requestBody} 计算摘要
+     * 用于服务端在读取请求体时增量计算摘要，避免将整个请求体转换为字符串
+     */
+    @Nullable
+    private final String requestBodyDigest;
+
+    private ApiSignatureRequest(String method, String requestPath, String nonce, String timestamp, String queryString, String requestBody,
+                                String requestBodyDigest) {
         AssertUtils.hasText(method, "method must not empty");
         AssertUtils.notNull(requestPath, "requestPath must not null");
         AssertUtils.hasText(nonce, "nonce must not empty");
@@ -88,6 +96,7 @@ public class ApiSignatureRequest {
         // 将查询字符串 key 按照字典序排序
         this.queryString = buildCanonicalizedQueryString(parseQueryParamsAsMap(queryString));
         this.requestBody = requestBody;
+        this.requestBodyDigest = requestBodyDigest;
     }
 
     /**
@@ -105,15 +114,24 @@ public class ApiSignatureRequest {
                     .append(WindConstants.EQ)
                     .append(DigestUtils.md5DigestAsHex(queryString.getBytes(StandardCharsets.UTF_8)));
         }
-        if (StringUtils.hasLength(requestBody)) {
+        String requestBodyMd5 = getRequestBodyMd5();
+        if (requestBodyMd5 != null) {
             result.append(WindConstants.AND)
                     .append(String.format("%s%s", Fields.requestBody, MD5_TAG))
                     .append(WindConstants.EQ)
-                    .append(DigestUtils.md5DigestAsHex(requestBody.getBytes(StandardCharsets.UTF_8)));
+                    .append(requestBodyMd5);
         }
         return result.toString();
     }
 
+    @Nullable
+    private String getRequestBodyMd5() {
+        if (StringUtils.hasLength(requestBodyDigest)) {
+            return requestBodyDigest;
+        }
+        return StringUtils.hasLength(requestBody) ? DigestUtils.md5DigestAsHex(requestBody.getBytes(StandardCharsets.UTF_8)) : null;
+    }
+
     /**
      * @return 获取 Sha256WithRsa 签名字符串
      */
@@ -8,10 +8,13 @@ import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 /**
  * HmacSHA256 算法签名
+ * 1: 秘钥按照秘钥字符串缓存，{@link Mac} 实例线程内复用
+ * 2: 签名验证使用常量时间比较
  *
  * @author wuxp
  * @date 2023-10-18 22:08
@@ -20,6 +23,19 @@ public final class HmacSHA256Signer {
 
     private static final String ALGORITHM = "HmacSHA256";
 
+    private static final SignKeyCache<SecretKeySpec> SECRET_KEYS = new SignKeyCache<>(secretKey -> {
+        byte[] appSecretBytes = secretKey.getBytes(StandardCharsets.UTF_8);
+        return new SecretKeySpec(appSecretBytes, 0, appSecretBytes.length, ALGORITHM);
+    });
+
+    private static final ThreadLocal<Mac> MACS = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new BaseException(DefaultExceptionCode.BAD_REQUEST, "签名验失败", exception);
+        }
+    });
+
     private HmacSHA256Signer() {
         throw new AssertionError();
     }
@@ -32,13 +48,31 @@ public final class HmacSHA256Signer {
      * @return 签名内容
      */
     public static String sign(String signText, String secretKey) {
+        return Base64Utils.encodeToString(doSign(signText, secretKey));
+    }
+
+    /**
+     * 签名验证
+     *
+     * @param signText  用于生成签名的字符串
+     * @param secretKey 签名秘钥
+     * @param sign      待验证的签名
+     * @return 签名验证是否通过
+     */
+    public static boolean verify(String signText, String secretKey, String sign) {
+        if (sign == null) {
+            return false;
+        }
+        byte[] expected = Base64Utils.encode(doSign(signText, secretKey));
+        return MessageDigest.isEqual(expected, sign.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] doSign(String signText, String secretKey) {
+        Mac mac = MACS.get();
         try {
-            Mac mac = Mac.getInstance(ALGORITHM);
-            byte[] appSecretBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-            mac.init(new SecretKeySpec(appSecretBytes, 0, appSecretBytes.length, ALGORITHM));
-            byte[] md5Result = mac.doFinal(signText.getBytes(StandardCharsets.UTF_8));
-            return Base64Utils.encodeToString(md5Result);
-        } catch (NoSuchAlgorithmException | InvalidKeyException exception) {
+            mac.init(SECRET_KEYS.get(secretKey));
+            return mac.doFinal(signText.getBytes(StandardCharsets.UTF_8));
+        } catch (InvalidKeyException exception) {
             throw new BaseException(DefaultExceptionCode.BAD_REQUEST, "签名验失败", exception);
         }
     }
@@ -7,6 +7,8 @@ import org.springframework.util.Base64Utils;
 import java.security.InvalidKeyException;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
 import java.security.Signature;
 import java.security.SignatureException;
 import java.security.spec.InvalidKeySpecException;
@@ -16,6 +18,7 @@ import java.security.spec.X509EncodedKeySpec;
 
 /**
  * SHA256 With RSA 签名验证是一种常见的数字签名方法，它结合了消息摘要算法（SHA-256）和非对称加密算法（RSA）。这种签名机制确保数据的完整性和来源的真实性
+ * 解析后的公钥、私钥按照秘钥字符串缓存，{@link Signature} 实例线程内复用
  *
  * @author wuxp
  * @date 2024-02-21 17:58
@@ -26,6 +29,34 @@ public final class Sha256WithRsaSigner {
 
     private static final String SIGNATURE_ALGORITHM = "SHA256WithRSA";
 
+    private static final SignKeyCache<PrivateKey> PRIVATE_KEYS = new SignKeyCache<>(privateKey -> {
+        // 构造PKCS8EncodedKeySpec对象
+        PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(Base64Utils.decodeFromString(privateKey));
+        try {
+            return getKeyFactory().generatePrivate(keySpec);
+        } catch (InvalidKeySpecException exception) {
+            throw new BaseException(DefaultExceptionCode.COMMON_ERROR, "sign error", exception);
+        }
+    });
+
+    private static final SignKeyCache<PublicKey> PUBLIC_KEYS = new SignKeyCache<>(publicKey -> {
+        // 构造X509EncodedKeySpec对象
+        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(Base64Utils.decodeFromString(publicKey));
+        try {
+            return getKeyFactory().generatePublic(keySpec);
+        } catch (InvalidKeySpecException exception) {
+            throw new BaseException(DefaultExceptionCode.COMMON_ERROR, "verify sign error", exception);
+        }
+    });
+
+    private static final ThreadLocal<Signature> SIGNATURES = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance(SIGNATURE_ALGORITHM);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new BaseException(DefaultExceptionCode.COMMON_ERROR, "signature algorithm not found", exception);
+        }
+    });
+
     private Sha256WithRsaSigner() {
         throw new AssertionError();
     }
@@ -38,18 +69,13 @@ public final class Sha256WithRsaSigner {
      * @return 签名结果
      */
     public static String sign(String signText, String privateKey) {
-        // 构造PKCS8EncodedKeySpec对象
-        PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(Base64Utils.decodeFromString(privateKey));
         try {
-            // 指定加密算法
-            KeyFactory keyFactory = KeyFactory.getInstance(KEY_ALGORITHM);
             // 用私钥对信息生成数字签名
-            Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
-            signature.initSign(keyFactory.generatePrivate(keySpec));
+            Signature signature = SIGNATURES.get();
+            signature.initSign(PRIVATE_KEYS.get(privateKey));
             signature.update(signText.getBytes());
             return Base64Utils.encodeToString(signature.sign());
-        } catch (NoSuchAlgorithmException | InvalidKeyException | InvalidKeySpecException |
-                 SignatureException exception) {
+        } catch (InvalidKeyException | SignatureException exception) {
             throw new BaseException(DefaultExceptionCode.COMMON_ERROR, "sign error", exception);
         }
     }
@@ -63,19 +89,23 @@ public final class Sha256WithRsaSigner {
      * @return 签名验证是否通过
      */
     public static boolean verify(String signText, String publicKey, String sign) {
-        // 构造X509EncodedKeySpec对象
-        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(Base64Utils.decodeFromString(publicKey));
         try {
-            // 指定加密算法
-            KeyFactory keyFactory = KeyFactory.getInstance(KEY_ALGORITHM);
-            Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
-            signature.initVerify(keyFactory.generatePublic(keySpec));
+            Signature signature = SIGNATURES.get();
+            signature.initVerify(PUBLIC_KEYS.get(publicKey));
             signature.update(signText.getBytes());
             // 验证签名是否正常
             return signature.verify(Base64Utils.decodeFromString(sign));
-        } catch (NoSuchAlgorithmException | InvalidKeyException | InvalidKeySpecException |
-                 SignatureException exception) {
+        } catch (InvalidKeyException | SignatureException exception) {
             throw new BaseException(DefaultExceptionCode.COMMON_ERROR, "verify sign error", exception);
         }
     }
+
+    private static KeyFactory getKeyFactory() {
+        try {
+            // 指定加密算法
+            return KeyFactory.getInstance(KEY_ALGORITHM);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new BaseException(DefaultExceptionCode.COMMON_ERROR, "key algorithm not found", exception);
+        }
+    }
 }
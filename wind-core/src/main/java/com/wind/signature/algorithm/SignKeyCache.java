@@ -0,0 +1,36 @@
+package com.wind.signature.algorithm;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 签名秘钥缓存，避免每次签名都重新解析秘钥
+ * 缓存数量超过上限时清空，秘钥数量通常远小于上限
+ *
+ * @author wuxp
+ * @date 2024-08-20 09:30
+ **/
+final class SignKeyCache<K> {
+
+    private static final int MAX_SIZE = 1024;
+
+    private final Map<String, K> keys = new ConcurrentHashMap<>();
+
+    private final Function<String, K> loader;
+
+    SignKeyCache(Function<String, K> loader) {
+        this.loader = loader;
+    }
+
+    K get(String secretKey) {
+        K result = keys.get(secretKey);
+        if (result == null) {
+            if (keys.size() >= MAX_SIZE) {
+                keys.clear();
+            }
+            result = keys.computeIfAbsent(secretKey, loader);
+        }
+        return result;
+    }
+}
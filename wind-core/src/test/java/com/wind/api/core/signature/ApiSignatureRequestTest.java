@@ -2,7 +2,9 @@ package com.wind.api.core.signature;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -66,6 +68,19 @@ class ApiSignatureRequestTest {
                 "{}\n", request.getSignTextForSha256WithRsa());
     }
 
+    @Test
+    void testSignTextWithRequestBodyDigest() {
+        ApiSignatureRequest request = ApiSignatureRequest.builder()
+                .method("POST")
+                .requestPath("/api/v1/example/users")
+                .queryString("a=1&b=2&c=b,cd")
+                .requestBodyDigest(DigestUtils.md5DigestAsHex("{}".getBytes(StandardCharsets.UTF_8)))
+                .timestamp("123456789")
+                .nonce("jlj3rn2930d-123210dq")
+                .build();
+        Assertions.assertEquals(buildRequest("a=1&b=2&c=b,cd", "{}").getSignTextForDigest(), request.getSignTextForDigest());
+    }
+
     @Test
     void testSignRequireRequestBody() {
         Assertions.assertFalse(ApiSignatureRequest.signRequireRequestBody(null));
@@ -0,0 +1,38 @@
+package com.wind.signature.algorithm;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.Base64Utils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author wuxp
+ * @date 2024-08-20 10:05
+ **/
+class HmacSHA256SignerTests {
+
+    @Test
+    void testSignCompatible() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("k1".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String expected = Base64Utils.encodeToString(mac.doFinal("text".getBytes(StandardCharsets.UTF_8)));
+        Assertions.assertEquals(expected, HmacSHA256Signer.sign("text", "k1"));
+        // 切换秘钥后复用的 Mac 实例不能保留旧的秘钥
+        Assertions.assertNotEquals(expected, HmacSHA256Signer.sign("text", "k2"));
+        Assertions.assertEquals(expected, HmacSHA256Signer.sign("text", "k1"));
+        Assertions.assertEquals(expected, CompletableFuture.supplyAsync(() -> HmacSHA256Signer.sign("text", "k1")).get());
+    }
+
+    @Test
+    void testVerify() {
+        String sign = HmacSHA256Signer.sign("text", "k1");
+        Assertions.assertTrue(HmacSHA256Signer.verify("text", "k1", sign));
+        Assertions.assertFalse(HmacSHA256Signer.verify("text", "k2", sign));
+        Assertions.assertFalse(HmacSHA256Signer.verify("text", "k1", sign.substring(1)));
+        Assertions.assertFalse(HmacSHA256Signer.verify("text", "k1", null));
+    }
+}
@@ -0,0 +1,120 @@
+package com.wind.signature.algorithm;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.Base64Utils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 签名算法基准测试，legacy 开头的为改造前每次调用都解析秘钥、创建 Mac/Signature 的实现，用于对比
+ * 运行方式：执行 {@link #main(String[])}
+ *
+ * @author wuxp
+ * @date 2024-08-20 10:20
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Threads(4)
+@Fork(1)
+public class SignerBenchmark {
+
+    private static final String SIGN_TEXT = "method=POST&requestPath=/api/v1/users&nonce=j12j34124i1j5219902103120&timestamp=17182381131&requestBody={id:\"1\"}";
+
+    private static final String SECRET_KEY = "0241nl401kmdsai21o312..";
+
+    private String hmacSign;
+
+    private String publicKey;
+
+    private String privateKey;
+
+    private String rsaSign;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.genKeyPair();
+        publicKey = Base64Utils.encodeToString(keyPair.getPublic().getEncoded());
+        privateKey = Base64Utils.encodeToString(keyPair.getPrivate().getEncoded());
+        hmacSign = HmacSHA256Signer.sign(SIGN_TEXT, SECRET_KEY);
+        rsaSign = Sha256WithRsaSigner.sign(SIGN_TEXT, privateKey);
+    }
+
+    @Benchmark
+    public boolean legacyHmacVerify() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        byte[] appSecretBytes = SECRET_KEY.getBytes(StandardCharsets.UTF_8);
+        mac.init(new SecretKeySpec(appSecretBytes, 0, appSecretBytes.length, "HmacSHA256"));
+        return Objects.equals(Base64Utils.encodeToString(mac.doFinal(SIGN_TEXT.getBytes(StandardCharsets.UTF_8))), hmacSign);
+    }
+
+    @Benchmark
+    public boolean hmacVerify() {
+        return HmacSHA256Signer.verify(SIGN_TEXT, SECRET_KEY, hmacSign);
+    }
+
+    @Benchmark
+    public boolean legacyRsaVerify() throws Exception {
+        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(Base64Utils.decodeFromString(publicKey));
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        Signature signature = Signature.getInstance("SHA256WithRSA");
+        signature.initVerify(keyFactory.generatePublic(keySpec));
+        signature.update(SIGN_TEXT.getBytes());
+        return signature.verify(Base64Utils.decodeFromString(rsaSign));
+    }
+
+    @Benchmark
+    public boolean rsaVerify() {
+        return Sha256WithRsaSigner.verify(SIGN_TEXT, publicKey, rsaSign);
+    }
+
+    @Benchmark
+    public byte[] legacyRsaSign() throws Exception {
+        PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(Base64Utils.decodeFromString(privateKey));
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        Signature signature = Signature.getInstance("SHA256WithRSA");
+        signature.initSign(keyFactory.generatePrivate(keySpec));
+        signature.update(SIGN_TEXT.getBytes());
+        return signature.sign();
+    }
+
+    @Benchmark
+    public String rsaSign() {
+        return Sha256WithRsaSigner.sign(SIGN_TEXT, privateKey);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SignerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
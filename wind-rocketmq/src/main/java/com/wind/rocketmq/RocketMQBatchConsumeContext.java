@@ -0,0 +1,62 @@
+package com.wind.rocketmq;
+
+import com.wind.common.exception.AssertUtils;
+import lombok.Getter;
+import org.apache.rocketmq.common.message.MessageExt;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量消费上下文
+ *
+ * @author wuxp
+ * @date 2024-08-21 10:20
+ **/
+public final class RocketMQBatchConsumeContext {
+
+    /**
+     * 未确认
+     */
+    public static final int NOT_ACK = -1;
+
+    /**
+     * 原始消息，和转换后的消息一一对应
+     */
+    @Getter
+    private final List<MessageExt> messages;
+
+    /**
+     * 每批最多消费的消息数量
+     */
+    @Getter
+    private final int consumeMessageBatchMaxSize;
+
+    /**
+     * 最后一条消费成功的消息下标
+     */
+    @Getter
+    private int ackIndex = NOT_ACK;
+
+    /**
+     * 是否调用过 {@link #setAckIndex(int)}
+     */
+    @Getter
+    private boolean acknowledged;
+
+    public RocketMQBatchConsumeContext(List<MessageExt> messages, int consumeMessageBatchMaxSize) {
+        this.messages = Collections.unmodifiableList(messages);
+        this.consumeMessageBatchMaxSize = consumeMessageBatchMaxSize;
+    }
+
+    /**
+     * 确认 [0, ackIndex] 范围内的消息已消费成功，ackIndex 之后的消息将被重新投递
+     *
+     * @param ackIndex 最后一条消费成功的消息下标，-1 表示没有消息消费成功
+     */
+    public void setAckIndex(int ackIndex) {
+        AssertUtils.isTrue(ackIndex >= NOT_ACK && ackIndex < messages.size(), () -> String.format("ackIndex = %d out of range [-1, %d)", ackIndex, messages.size()));
+        this.ackIndex = ackIndex;
+        this.acknowledged = true;
+    }
+}
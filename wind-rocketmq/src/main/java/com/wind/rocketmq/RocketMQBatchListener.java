@@ -0,0 +1,41 @@
+package com.wind.rocketmq;
+
+import java.util.List;
+
+/**
+ * 批量消费 RocketMQ 消息，需要配合 {@link org.apache.rocketmq.spring.annotation.RocketMQMessageListener} 使用
+ * 1: 每批消息只进行一次流控和 trace 设置，适合批量写库等场景
+ * 2: 部分消息消费成功时，可以通过 {@link RocketMQBatchConsumeContext#setAckIndex(int)} 确认已成功消费的消息，只重试失败的消息
+ *
+ * @param <T> 消息类型
+ * @author wuxp
+ * @date 2024-08-21 10:20
+ **/
+public interface RocketMQBatchListener<T> {
+
+    /**
+     * 默认每批最多消费的消息数量
+     */
+    int DEFAULT_CONSUME_MESSAGE_BATCH_MAX_SIZE = 32;
+
+    /**
+     * 批量消费消息
+     * 1: 正常返回且未设置 ackIndex 时，整批消息消费成功
+     * 2: 设置 ackIndex 后，ackIndex 之后的消息会被重新投递（无论是否抛出异常）
+     * 3: 未设置 ackIndex 且抛出异常时，整批消息重新投递
+     * 顺序消费模式下不支持部分确认，消费失败时整批消息重新消费；广播模式下 ackIndex 之后的消息不会重新投递
+     *
+     * @param messages 转换后的消息，数量不超过 {@link #getConsumeMessageBatchMaxSize()}
+     * @param context  批量消费上下文
+     */
+    void onMessages(List<T> messages, RocketMQBatchConsumeContext context);
+
+    /**
+     * rocketmq-spring 的 {@link org.apache.rocketmq.spring.annotation.RocketMQMessageListener} 不支持配置批量大小，由监听器提供
+     *
+     * @return 每批最多消费的消息数量
+     */
+    default int getConsumeMessageBatchMaxSize() {
+        return DEFAULT_CONSUME_MESSAGE_BATCH_MAX_SIZE;
+    }
+}
@@ -0,0 +1,320 @@
+package com.wind.rocketmq;
+
+import com.wind.common.WindConstants;
+import com.wind.common.exception.AssertUtils;
+import com.wind.common.exception.BaseException;
+import com.wind.trace.WindTracer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageClientIDSetter;
+import org.apache.rocketmq.common.message.MessageConst;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量异步发送消息
+ * 1: 消息按照 topic 凑批，达到 maxBatchSize、maxBatchBytes 或等待时间超过 linger 时合并为一次批量发送
+ * 2: 在调用线程中将 traceId 写入消息，发送线程中没有 trace 上下文
+ * 3: 延迟消息、定时消息不支持批量发送，直接异步发送
+ * 4: 记录每批消息数量、发送耗时以及发送失败的消息数量
+ *
+ * @author wuxp
+ * @date 2024-08-21 16:10
+ **/
+@Slf4j
+public class RocketMQBatchingProducer implements DisposableBean {
+
+    private static final String BATCH_SIZE_METRIC_NAME = "wind.rocketmq.producer.batch.size";
+
+    private static final String SEND_LATENCY_METRIC_NAME = "wind.rocketmq.producer.send.latency";
+
+    private static final String SEND_FAILURES_METRIC_NAME = "wind.rocketmq.producer.send.failures";
+
+    private static final String TOPIC_TAG_NAME = "topic";
+
+    /**
+     * 估算消息大小时，除消息体以外的长度（消息头、属性等）
+     */
+    private static final int MESSAGE_OVERHEAD_BYTES = 256;
+
+    private final DefaultMQProducer producer;
+
+    private final RocketMQBatchingProducerProperties properties;
+
+    private final Map<String, TopicAccumulator> accumulators = new ConcurrentHashMap<>();
+
+    private final Semaphore pendingMessages;
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean closed = false;
+
+    public RocketMQBatchingProducer(DefaultMQProducer producer, RocketMQBatchingProducerProperties properties) {
+        AssertUtils.notNull(producer, "argument producer must not null");
+        AssertUtils.isTrue(properties.getMaxBatchSize() > 0, "maxBatchSize must greater than 0");
+        AssertUtils.isTrue(properties.getMaxBatchBytes() > 0, "maxBatchBytes must greater than 0");
+        AssertUtils.isTrue(properties.getMaxPendingMessages() > 0, "maxPendingMessages must greater than 0");
+        this.producer = producer;
+        this.properties = properties;
+        this.pendingMessages = new Semaphore(properties.getMaxPendingMessages());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(newThreadFactory());
+    }
+
+    /**
+     * 异步发送消息
+     *
+     * @param message 消息
+     * @return 发送结果，等待发送的消息超过 maxPendingMessages 或已关闭时发送失败
+     */
+    public CompletableFuture<SendResult> send(Message message) {
+        AssertUtils.notNull(message, "argument message must not null");
+        AssertUtils.hasText(message.getTopic(), "message topic must not empty");
+        CompletableFuture<SendResult> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(BaseException.common("batching producer closed"));
+            return result;
+        }
+        if (!pendingMessages.tryAcquire()) {
+            result.completeExceptionally(BaseException.common(String.format("pending messages exceed limit = %d", properties.getMaxPendingMessages())));
+            return result;
+        }
+        // 发送线程中没有 trace 上下文，在调用线程中写入
+        message.putUserProperty(WindConstants.TRACE_ID_NAME, WindTracer.TRACER.getTraceId());
+        PendingMessage pending = new PendingMessage(message, result);
+        TopicAccumulator accumulator = accumulators.computeIfAbsent(message.getTopic(), TopicAccumulator::new);
+        if (isBatchable(message)) {
+            accumulator.append(pending);
+        } else {
+            accumulator.send(Collections.singletonList(pending));
+        }
+        return result;
+    }
+
+    /**
+     * 立即发送所有等待凑批的消息
+     */
+    public void flush() {
+        accumulators.values().forEach(TopicAccumulator::flush);
+    }
+
+    /**
+     * 停止接收新消息，发送剩余的消息并等待发送完成（最长等待 sendTimeout），然后移除注册的指标
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // 先关闭调度器再发送剩余的消息，之后凑批的消息无法调度，会直接发送
+        scheduler.shutdownNow();
+        flush();
+        if (pendingMessages.tryAcquire(properties.getMaxPendingMessages(), properties.getSendTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            pendingMessages.release(properties.getMaxPendingMessages());
+        } else {
+            log.warn("wait for pending messages timeout, remaining = {}", properties.getMaxPendingMessages() - pendingMessages.availablePermits());
+        }
+        accumulators.values().forEach(TopicAccumulator::removeMeters);
+    }
+
+    private static boolean isBatchable(Message message) {
+        return message.getDelayTimeLevel() <= 0
+                && message.getProperty(MessageConst.PROPERTY_TIMER_DELIVER_MS) == null
+                && message.getProperty(MessageConst.PROPERTY_TIMER_DELAY_SEC) == null
+                && message.getProperty(MessageConst.PROPERTY_TIMER_DELAY_MS) == null;
+    }
+
+    private static CustomizableThreadFactory newThreadFactory() {
+        CustomizableThreadFactory result = new CustomizableThreadFactory("wind-rocketmq-batching-producer-");
+        result.setDaemon(true);
+        return result;
+    }
+
+    private final class TopicAccumulator {
+
+        private final String topic;
+
+        private final DistributionSummary batchSize;
+
+        private final Timer sendLatency;
+
+        private final Counter sendFailures;
+
+        private List<PendingMessage> messages = new ArrayList<>();
+
+        private long bytes;
+
+        @Nullable
+        private ScheduledFuture<?> lingerTask;
+
+        private TopicAccumulator(String topic) {
+            this.topic = topic;
+            this.batchSize = DistributionSummary.builder(BATCH_SIZE_METRIC_NAME)
+                    .tag(TOPIC_TAG_NAME, topic)
+                    .register(Metrics.globalRegistry);
+            this.sendLatency = Timer.builder(SEND_LATENCY_METRIC_NAME)
+                    .tag(TOPIC_TAG_NAME, topic)
+                    .register(Metrics.globalRegistry);
+            this.sendFailures = Counter.builder(SEND_FAILURES_METRIC_NAME)
+                    .tag(TOPIC_TAG_NAME, topic)
+                    .register(Metrics.globalRegistry);
+        }
+
+        private void append(PendingMessage message) {
+            List<PendingMessage> previous = null;
+            List<PendingMessage> current = null;
+            synchronized (this) {
+                if (!messages.isEmpty() && bytes + message.size > properties.getMaxBatchBytes()) {
+                    // 加入后超过字节限制，先发送已有的消息
+                    previous = drain();
+                }
+                messages.add(message);
+                bytes += message.size;
+                if (messages.size() >= properties.getMaxBatchSize() || bytes >= properties.getMaxBatchBytes()) {
+                    current = drain();
+                } else if (lingerTask == null) {
+                    try {
+                        lingerTask = scheduler.schedule(this::flush, properties.getLinger().toMillis(), TimeUnit.MILLISECONDS);
+                    } catch (RejectedExecutionException exception) {
+                        // 已关闭，直接发送
+                        current = drain();
+                    }
+                }
+            }
+            send(previous);
+            send(current);
+        }
+
+        private void flush() {
+            List<PendingMessage> batch;
+            synchronized (this) {
+                batch = drain();
+            }
+            send(batch);
+        }
+
+        private void removeMeters() {
+            Metrics.globalRegistry.remove(batchSize);
+            Metrics.globalRegistry.remove(sendLatency);
+            Metrics.globalRegistry.remove(sendFailures);
+        }
+
+        private List<PendingMessage> drain() {
+            if (lingerTask != null) {
+                lingerTask.cancel(false);
+                lingerTask = null;
+            }
+            List<PendingMessage> result = messages;
+            messages = new ArrayList<>();
+            bytes = 0;
+            return result;
+        }
+
+        private void send(@Nullable List<PendingMessage> batch) {
+            if (batch == null || batch.isEmpty()) {
+                return;
+            }
+            long begin = System.nanoTime();
+            SendCallback callback = new SendCallback() {
+                @Override
+                public void onSuccess(SendResult sendResult) {
+                    sendLatency.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+                    complete(batch, sendResult);
+                }
+
+                @Override
+                public void onException(Throwable throwable) {
+                    sendLatency.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+                    fail(batch, throwable);
+                }
+            };
+            batchSize.record(batch.size());
+            long timeout = properties.getSendTimeout().toMillis();
+            try {
+                if (batch.size() == 1) {
+                    producer.send(batch.get(0).message, callback, timeout);
+                } else {
+                    List<Message> values = new ArrayList<>(batch.size());
+                    for (PendingMessage message : batch) {
+                        values.add(message.message);
+                    }
+                    producer.send(values, callback, timeout);
+                }
+            } catch (Exception exception) {
+                fail(batch, exception);
+            }
+        }
+
+        private void complete(List<PendingMessage> batch, SendResult sendResult) {
+            if (batch.size() == 1) {
+                batch.get(0).complete(sendResult);
+                return;
+            }
+            // 批量发送时 offsetMsgId 为逗号分隔的每条消息的 offsetMsgId，queueOffset 为第一条消息的 offset
+            String[] offsetMsgIds = sendResult.getOffsetMsgId() == null ? new String[0] : sendResult.getOffsetMsgId().split(",");
+            for (int i = 0; i < batch.size(); i++) {
+                PendingMessage message = batch.get(i);
+                String offsetMsgId = offsetMsgIds.length == batch.size() ? offsetMsgIds[i] : sendResult.getOffsetMsgId();
+                message.complete(new SendResult(sendResult.getSendStatus(), MessageClientIDSetter.getUniqID(message.message), offsetMsgId,
+                        sendResult.getMessageQueue(), sendResult.getQueueOffset() + i));
+            }
+        }
+
+        private void fail(List<PendingMessage> batch, Throwable throwable) {
+            log.error("send messages failure, topic = {}, size = {}", topic, batch.size(), throwable);
+            sendFailures.increment(batch.size());
+            for (PendingMessage message : batch) {
+                message.fail(throwable);
+            }
+        }
+    }
+
+    private final class PendingMessage {
+
+        private final Message message;
+
+        private final CompletableFuture<SendResult> future;
+
+        /**
+         * 估算的消息大小
+         */
+        private final int size;
+
+        private PendingMessage(Message message, CompletableFuture<SendResult> future) {
+            this.message = message;
+            this.future = future;
+            this.size = (message.getBody() == null ? 0 : message.getBody().length) + MESSAGE_OVERHEAD_BYTES;
+        }
+
+        private void complete(SendResult sendResult) {
+            pendingMessages.release();
+            future.complete(sendResult);
+        }
+
+        private void fail(Throwable throwable) {
+            pendingMessages.release();
+            future.completeExceptionally(throwable);
+        }
+    }
+}
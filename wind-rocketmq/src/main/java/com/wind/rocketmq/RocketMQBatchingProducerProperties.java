@@ -0,0 +1,49 @@
+package com.wind.rocketmq;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 批量发送消息配置
+ *
+ * @author wuxp
+ * @date 2024-08-21 16:10
+ **/
+@Data
+@ConfigurationProperties(prefix = RocketMQBatchingProducerProperties.PREFIX)
+public class RocketMQBatchingProducerProperties {
+
+    public static final String PREFIX = "wind.rocketmq.batching-producer";
+
+    /**
+     * 是否启用
+     */
+    private boolean enabled = false;
+
+    /**
+     * 每批最多发送的消息数量
+     */
+    private int maxBatchSize = 64;
+
+    /**
+     * 每批消息的最大字节数，RocketMQ 单次发送默认限制为 4M
+     */
+    private int maxBatchBytes = 1024 * 1024;
+
+    /**
+     * 消息等待凑批的最长时间
+     */
+    private Duration linger = Duration.ofMillis(5);
+
+    /**
+     * 最多等待发送（包括发送中）的消息数量，超过后新的消息直接发送失败
+     */
+    private int maxPendingMessages = 10000;
+
+    /**
+     * 发送超时时间
+     */
+    private Duration sendTimeout = Duration.ofSeconds(3);
+}
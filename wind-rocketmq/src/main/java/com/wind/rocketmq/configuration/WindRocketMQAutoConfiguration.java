@@ -1,27 +1,44 @@
 package com.wind.rocketmq.configuration;
 
 import com.wind.rocketmq.DefaultMqProducerBeanPostProcessor;
+import com.wind.rocketmq.RocketMQBatchingProducer;
+import com.wind.rocketmq.RocketMQBatchingProducerProperties;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
 import org.apache.rocketmq.spring.autoconfigure.RocketMQAutoConfiguration;
 import org.apache.rocketmq.spring.autoconfigure.RocketMQProperties;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
 import org.springframework.core.type.AnnotationMetadata;
 
+import static com.wind.common.WindConstants.ENABLED_NAME;
+import static com.wind.common.WindConstants.TRUE;
+
 /**
  * @author wuxp
  * @date 2024-06-17 15:55
  **/
 @Configuration
-@EnableConfigurationProperties(value = {RocketMQProperties.class})
+@EnableConfigurationProperties(value = {RocketMQProperties.class, RocketMQBatchingProducerProperties.class})
 @AutoConfigureAfter(RocketMQAutoConfiguration.class)
 @Import(WindRocketMQAutoConfiguration.DefaultMqProducerHookConfiguration.class)
 public class WindRocketMQAutoConfiguration {
 
+    @Bean
+    @ConditionalOnBean(DefaultMQProducer.class)
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = RocketMQBatchingProducerProperties.PREFIX, name = ENABLED_NAME, havingValue = TRUE)
+    public RocketMQBatchingProducer rocketMQBatchingProducer(DefaultMQProducer producer, RocketMQBatchingProducerProperties properties) {
+        return new RocketMQBatchingProducer(producer, properties);
+    }
 
     @Configuration
     public static class DefaultMqProducerHookConfiguration implements ImportBeanDefinitionRegistrar {
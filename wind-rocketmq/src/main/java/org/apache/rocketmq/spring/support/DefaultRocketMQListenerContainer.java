@@ -19,6 +19,9 @@ package org.apache.rocketmq.spring.support;
 
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.wind.common.WindConstants;
+import com.wind.common.util.ClassDetectionUtils;
+import com.wind.rocketmq.RocketMQBatchConsumeContext;
+import com.wind.rocketmq.RocketMQBatchListener;
 import com.wind.sentinel.SentinelResource;
 import com.wind.sentinel.SentinelResourceBuilder;
 import com.wind.sentinel.util.SentinelFlowLimitUtils;
@@ -59,6 +62,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.SmartLifecycle;
 import org.springframework.core.MethodParameter;
+import org.springframework.lang.Nullable;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.converter.MessageConversionException;
@@ -73,8 +77,12 @@ import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 @Data
@@ -82,6 +90,13 @@ public class DefaultRocketMQListenerContainer implements InitializingBean,
         RocketMQListenerContainer, SmartLifecycle, ApplicationContextAware {
     private final static Logger log = LoggerFactory.getLogger(DefaultRocketMQListenerContainer.class);
 
+    /**
+     * 最多缓存的流控资源数量（按照 tag 区分）
+     */
+    private static final int MAX_CACHED_SENTINEL_RESOURCES = 1024;
+
+    private static final boolean JACKSON_PRESENT = ClassDetectionUtils.isPresent("com.fasterxml.jackson.databind.ObjectMapper");
+
     private ApplicationContext applicationContext;
 
     /**
@@ -127,6 +142,14 @@ public class DefaultRocketMQListenerContainer implements InitializingBean,
     @SuppressWarnings("rawtypes")
     private RocketMQReplyListener rocketMQReplyListener;
 
+    @SuppressWarnings("rawtypes")
+    private RocketMQBatchListener rocketMQBatchListener;
+
+    /**
+     * 批量消费时每批最多消费的消息数量，默认由 {@link RocketMQBatchListener#getConsumeMessageBatchMaxSize()} 提供
+     */
+    private int consumeMessageBatchMaxSize = 1;
+
     private RocketMQMessageListener rocketMQMessageListener;
 
     private DefaultMQPushConsumer consumer;
@@ -135,6 +158,16 @@ public class DefaultRocketMQListenerContainer implements InitializingBean,
 
     private MethodParameter methodParameter;
 
+    /**
+     * 消息体转换，在 {@link #afterPropertiesSet()} 中根据消息类型确定
+     */
+    private MessagePayloadReader payloadReader;
+
+    /**
+     * 流控资源缓存，key 为消息 tag
+     */
+    private final Map<String, SentinelResource> sentinelResources = new ConcurrentHashMap<>();
+
     private boolean running;
 
     // The following properties came from @RocketMQMessageListener.
@@ -250,6 +283,7 @@ public class DefaultRocketMQListenerContainer implements InitializingBean,
 
         this.messageType = getMessageType();
         this.methodParameter = getMethodParameter();
+        this.payloadReader = resolvePayloadReader();
         log.debug("RocketMQ messageType: {}", messageType);
     }
 
@@ -286,6 +320,98 @@ public class DefaultRocketMQListenerContainer implements InitializingBean,
         }
     }
 
+    public class BatchMessageListenerConcurrently implements MessageListenerConcurrently {
+
+        @Override
+        public ConsumeConcurrentlyStatus consumeMessage(List<MessageExt> msgs, ConsumeConcurrentlyContext context) {
+            RocketMQBatchConsumeContext batchContext = new RocketMQBatchConsumeContext(msgs, consumeMessageBatchMaxSize);
+            try {
+                handleMessages(batchContext);
+            } catch (Exception e) {
+                MessageExt message = msgs.get(Math.max(0, batchContext.getAckIndex() + 1));
+                log.warn("consume messages failed. size:{}, ackIndex:{}, messageId:{}, topic:{}, reconsumeTimes:{}", msgs.size(), batchContext.getAckIndex(), message.getMsgId(), message.getTopic(), message.getReconsumeTimes(), e);
+                if (!batchContext.isAcknowledged()) {
+                    context.setDelayLevelWhenNextConsume(delayLevelWhenNextConsume);
+                    return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+                }
+            }
+            if (batchContext.isAcknowledged()) {
+                // ackIndex 之后的消息会被重新投递，RECONSUME_LATER 会忽略 ackIndex，所以返回 CONSUME_SUCCESS
+                context.setAckIndex(batchContext.getAckIndex());
+                context.setDelayLevelWhenNextConsume(delayLevelWhenNextConsume);
+            }
+            return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+        }
+    }
+
+    public class BatchMessageListenerOrderly implements MessageListenerOrderly {
+
+        @Override
+        public ConsumeOrderlyStatus consumeMessage(List<MessageExt> msgs, ConsumeOrderlyContext context) {
+            RocketMQBatchConsumeContext batchContext = new RocketMQBatchConsumeContext(msgs, consumeMessageBatchMaxSize);
+            try {
+                handleMessages(batchContext);
+            } catch (Exception e) {
+                log.warn("consume messages failed. size:{}, messageId:{}, topic:{}, reconsumeTimes:{}", msgs.size(), msgs.get(0).getMsgId(), msgs.get(0).getTopic(), msgs.get(0).getReconsumeTimes(), e);
+                context.setSuspendCurrentQueueTimeMillis(suspendCurrentQueueTimeMillis);
+                return ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT;
+            }
+            if (batchContext.isAcknowledged() && batchContext.getAckIndex() < msgs.size() - 1) {
+                // 顺序消费不支持部分确认，整批重新消费
+                context.setSuspendCurrentQueueTimeMillis(suspendCurrentQueueTimeMillis);
+                return ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT;
+            }
+            return ConsumeOrderlyStatus.SUCCESS;
+        }
+    }
+
+    /**
+     * 批量消费消息，每批只进行一次 trace 设置和流控
+     *
+     * @param context 批量消费上下文
+     */
+    @SuppressWarnings("unchecked")
+    public void handleMessages(RocketMQBatchConsumeContext context) throws BlockException {
+        List<MessageExt> messages = context.getMessages();
+        boolean debugEnabled = log.isDebugEnabled();
+        long now = debugEnabled ? System.currentTimeMillis() : -1;
+
+        // 同一批消息可能来自不同的链路，使用第一条消息的 traceId
+        String traceId = messages.get(0).getUserProperty(WindConstants.TRACE_ID_NAME);
+        boolean traceMessage = StringUtils.hasText(traceId);
+        if (traceMessage) {
+            WindTracer.TRACER.trace(traceId);
+        }
+        try {
+            List<Object> payloads = new ArrayList<>(messages.size());
+            for (MessageExt message : messages) {
+                payloads.add(doConvertMessage(message));
+            }
+            if (enableFlowControl) {
+                Consumer<Exception> exceptionConsumer = SentinelFlowLimitUtils.flowControl(getSentinelResource(messages.get(0).getTags()));
+                Exception exception = null;
+                try {
+                    rocketMQBatchListener.onMessages(payloads, context);
+                } catch (RuntimeException e) {
+                    exception = e;
+                    throw e;
+                } finally {
+                    exceptionConsumer.accept(exception);
+                }
+            } else {
+                rocketMQBatchListener.onMessages(payloads, context);
+            }
+        } finally {
+            if (traceMessage) {
+                WindTracer.TRACER.clear();
+            }
+        }
+
+        if (debugEnabled) {
+            log.debug("consume {} messages cost: {} ms", messages.size(), System.currentTimeMillis() - now);
+        }
+    }
+
     public void handleMessage(MessageExt messageExt) throws MQClientException, RemotingException, InterruptedException, BlockException {
         log.debug("received msg: {}", messageExt);
         boolean debugEnabled = log.isDebugEnabled();
@@ -314,12 +440,7 @@ public class DefaultRocketMQListenerContainer implements InitializingBean,
 
     private void tryFlowControl(MessageExt messageExt) throws BlockException, MQClientException, RemotingException, InterruptedException {
         if (enableFlowControl) {
-            SentinelResource resource = SentinelResourceBuilder.rocketConsumer()
-                    .groupName(consumerGroup)
-                    .topic(topic)
-                    .tag(messageExt.getTags())
-                    .build();
-            Consumer<Exception> exceptionConsumer = SentinelFlowLimitUtils.flowControl(resource);
+            Consumer<Exception> exceptionConsumer = SentinelFlowLimitUtils.flowControl(getSentinelResource(messageExt.getTags()));
             Exception exception = null;
             try {
                 dispatchMessage(messageExt);
@@ -334,6 +455,23 @@ public class DefaultRocketMQListenerContainer implements InitializingBean,
         }
     }
 
+    private SentinelResource getSentinelResource(@Nullable String tag) {
+        String key = tag == null ? "" : tag;
+        SentinelResource result = sentinelResources.get(key);
+        if (result == null) {
+            result = SentinelResourceBuilder.rocketConsumer()
+                    .groupName(consumerGroup)
+                    .topic(topic)
+                    .tag(tag)
+                    .build();
+            if (sentinelResources.size() < MAX_CACHED_SENTINEL_RESOURCES) {
+                // tag 数量异常时不再缓存，避免内存无限增长
+                sentinelResources.putIfAbsent(key, result);
+            }
+        }
+        return result;
+    }
+
     @SuppressWarnings("unchecked")
     private void dispatchMessage(MessageExt messageExt) throws MQClientException, RemotingException, InterruptedException {
         if (rocketMQListener != null) {
@@ -406,39 +544,46 @@ public class DefaultRocketMQListenerContainer implements InitializingBean,
     }
 
     private Object doConvertMessage(MessageExt messageExt) {
+        try {
+            return payloadReader.read(messageExt);
+        } catch (Exception e) {
+            log.info("convert failed. str:{}, msgType:{}", new String(messageExt.getBody(), Charset.forName(charset)), messageType);
+            throw new RuntimeException("cannot convert message to " + messageType, e);
+        }
+    }
+
+    private MessagePayloadReader resolvePayloadReader() {
         if (Objects.equals(messageType, MessageExt.class) || Objects.equals(messageType, org.apache.rocketmq.common.message.Message.class)) {
-            return messageExt;
-        } else {
-            String str = new String(messageExt.getBody(), Charset.forName(charset));
-            if (Objects.equals(messageType, String.class)) {
-                return str;
-            } else {
-                // If msgType not string, use objectMapper change it.
-                try {
-                    if (messageType instanceof Class) {
-                        //if the messageType has not Generic Parameter
-                        return this.getMessageConverter().fromMessage(MessageBuilder.withPayload(str).build(), (Class<?>) messageType);
-                    } else {
-                        //if the messageType has Generic Parameter, then use SmartMessageConverter#fromMessage with third parameter "conversionHint".
-                        //we have validate the MessageConverter is SmartMessageConverter in this#getMethodParameter.
-                        return ((SmartMessageConverter) this.getMessageConverter()).fromMessage(MessageBuilder.withPayload(str).build(), (Class<?>) ((ParameterizedType) messageType).getRawType(), methodParameter);
-                    }
-                } catch (Exception e) {
-                    log.info("convert failed. str:{}, msgType:{}", str, messageType);
-                    throw new RuntimeException("cannot convert message to " + messageType, e);
-                }
+            return messageExt -> messageExt;
+        }
+        Charset messageCharset = Charset.forName(charset);
+        if (Objects.equals(messageType, String.class)) {
+            return messageExt -> new String(messageExt.getBody(), messageCharset);
+        }
+        if (Objects.equals(messageType, byte[].class)) {
+            return MessageExt::getBody;
+        }
+        if (JACKSON_PRESENT && StandardCharsets.UTF_8.equals(messageCharset)) {
+            // 直接从 byte[] 反序列化，jackson 会自动识别 UTF 编码
+            MessagePayloadReader result = MessagePayloadReader.JacksonPayloadReaders.of(getMessageConverter(), messageType);
+            if (result != null) {
+                return result;
             }
         }
+        if (messageType instanceof Class) {
+            //if the messageType has not Generic Parameter
+            Class<?> messageClass = (Class<?>) messageType;
+            return messageExt -> getMessageConverter().fromMessage(MessageBuilder.withPayload(new String(messageExt.getBody(), messageCharset)).build(), messageClass);
+        }
+        //if the messageType has Generic Parameter, then use SmartMessageConverter#fromMessage with third parameter "conversionHint".
+        //we have validate the MessageConverter is SmartMessageConverter in this#getMethodParameter.
+        Class<?> rawType = (Class<?>) ((ParameterizedType) messageType).getRawType();
+        return messageExt -> ((SmartMessageConverter) getMessageConverter()).fromMessage(MessageBuilder.withPayload(new String(messageExt.getBody(), messageCharset)).build(), rawType, methodParameter);
     }
 
     @SuppressWarnings("rawtypes")
     private MethodParameter getMethodParameter() {
-        Class<?> targetClass;
-        if (rocketMQListener != null) {
-            targetClass = AopProxyUtils.ultimateTargetClass(rocketMQListener);
-        } else {
-            targetClass = AopProxyUtils.ultimateTargetClass(rocketMQReplyListener);
-        }
+        Class<?> targetClass = getListenerTargetClass();
         Type messageType = this.getMessageType();
         Class clazz = null;
         if (messageType instanceof ParameterizedType && messageConverter instanceof SmartMessageConverter) {
@@ -449,6 +594,11 @@ public class DefaultRocketMQListenerContainer implements InitializingBean,
             throw new RuntimeException("parameterType:" + messageType + " of onMessage method is not supported");
         }
         try {
+            if (rocketMQBatchListener != null) {
+                // 批量消费时使用 List 的元素类型作为转换提示
+                final Method method = targetClass.getMethod("onMessages", List.class, RocketMQBatchConsumeContext.class);
+                return new MethodParameter(method, 0).nested();
+            }
             final Method method = targetClass.getMethod("onMessage", clazz);
             return new MethodParameter(method, 0);
         } catch (NoSuchMethodException e) {
@@ -457,20 +607,24 @@ public class DefaultRocketMQListenerContainer implements InitializingBean,
         }
     }
 
-    private Type getMessageType() {
-        Class<?> targetClass;
+    private Class<?> getListenerTargetClass() {
         if (rocketMQListener != null) {
-            targetClass = AopProxyUtils.ultimateTargetClass(rocketMQListener);
-        } else {
-            targetClass = AopProxyUtils.ultimateTargetClass(rocketMQReplyListener);
+            return AopProxyUtils.ultimateTargetClass(rocketMQListener);
+        } else if (rocketMQReplyListener != null) {
+            return AopProxyUtils.ultimateTargetClass(rocketMQReplyListener);
         }
+        return AopProxyUtils.ultimateTargetClass(rocketMQBatchListener);
+    }
+
+    private Type getMessageType() {
+        Class<?> targetClass = getListenerTargetClass();
         Type matchedGenericInterface = null;
         while (Objects.nonNull(targetClass)) {
             Type[] interfaces = targetClass.getGenericInterfaces();
             if (Objects.nonNull(interfaces)) {
                 for (Type type : interfaces) {
                     if (type instanceof ParameterizedType &&
-                            (Objects.equals(((ParameterizedType) type).getRawType(), RocketMQListener.class) || Objects.equals(((ParameterizedType) type).getRawType(), RocketMQReplyListener.class))) {
+                            isListenerInterface(((ParameterizedType) type).getRawType())) {
                         matchedGenericInterface = type;
                         break;
                     }
@@ -489,9 +643,13 @@ public class DefaultRocketMQListenerContainer implements InitializingBean,
         return Object.class;
     }
 
+    private static boolean isListenerInterface(Type type) {
+        return Objects.equals(type, RocketMQListener.class) || Objects.equals(type, RocketMQReplyListener.class) || Objects.equals(type, RocketMQBatchListener.class);
+    }
+
     private void initRocketMQPushConsumer() throws MQClientException {
-        if (rocketMQListener == null && rocketMQReplyListener == null) {
-            throw new IllegalArgumentException("Property 'rocketMQListener' or 'rocketMQReplyListener' is required");
+        if (rocketMQListener == null && rocketMQReplyListener == null && rocketMQBatchListener == null) {
+            throw new IllegalArgumentException("Property 'rocketMQListener', 'rocketMQReplyListener' or 'rocketMQBatchListener' is required");
         }
         Assert.notNull(consumerGroup, "Property 'consumerGroup' is required");
         Assert.notNull(nameServer, "Property 'nameServer' is required");
@@ -530,6 +688,12 @@ public class DefaultRocketMQListenerContainer implements InitializingBean,
         consumer.setMaxReconsumeTimes(maxReconsumeTimes);
         consumer.setAwaitTerminationMillisWhenShutdown(awaitTerminationMillisWhenShutdown);
         consumer.setInstanceName(instanceName);
+        if (rocketMQBatchListener != null) {
+            consumeMessageBatchMaxSize = Math.max(1, rocketMQBatchListener.getConsumeMessageBatchMaxSize());
+            consumer.setConsumeMessageBatchMaxSize(consumeMessageBatchMaxSize);
+            // 一次拉取的消息数量不足时无法凑满一批
+            consumer.setPullBatchSize(Math.max(consumer.getPullBatchSize(), consumeMessageBatchMaxSize));
+        }
         switch (messageModel) {
             case BROADCASTING:
                 consumer.setMessageModel(org.apache.rocketmq.remoting.protocol.heartbeat.MessageModel.BROADCASTING);
@@ -554,10 +718,10 @@ public class DefaultRocketMQListenerContainer implements InitializingBean,
 
         switch (consumeMode) {
             case ORDERLY:
-                consumer.setMessageListener(new DefaultMessageListenerOrderly());
+                consumer.setMessageListener(rocketMQBatchListener == null ? new DefaultMessageListenerOrderly() : new BatchMessageListenerOrderly());
                 break;
             case CONCURRENTLY:
-                consumer.setMessageListener(new DefaultMessageListenerConcurrently());
+                consumer.setMessageListener(rocketMQBatchListener == null ? new DefaultMessageListenerConcurrently() : new BatchMessageListenerConcurrently());
                 break;
             default:
                 throw new IllegalArgumentException("Property 'consumeMode' was wrong.");
@@ -570,6 +734,8 @@ public class DefaultRocketMQListenerContainer implements InitializingBean,
             ((RocketMQPushConsumerLifecycleListener) rocketMQListener).prepareStart(consumer);
         } else if (rocketMQReplyListener instanceof RocketMQPushConsumerLifecycleListener) {
             ((RocketMQPushConsumerLifecycleListener) rocketMQReplyListener).prepareStart(consumer);
+        } else if (rocketMQBatchListener instanceof RocketMQPushConsumerLifecycleListener) {
+            ((RocketMQPushConsumerLifecycleListener) rocketMQBatchListener).prepareStart(consumer);
         }
 
     }
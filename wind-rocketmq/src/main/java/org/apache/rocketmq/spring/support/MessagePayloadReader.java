@@ -0,0 +1,80 @@
+package org.apache.rocketmq.spring.support;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * 将消息体转换为监听器需要的消息类型，在容器初始化时按照消息类型确定，避免每条消息重复判断
+ *
+ * @author wuxp
+ * @date 2024-08-21 14:05
+ **/
+@FunctionalInterface
+interface MessagePayloadReader {
+
+    /**
+     * @param messageExt 消息
+     * @return 转换后的消息
+     */
+    Object read(MessageExt messageExt) throws IOException;
+
+    /**
+     * 直接使用 jackson 从 byte[] 反序列化消息体，不需要先解码为 String，仅在 jackson 存在时加载
+     */
+    final class JacksonPayloadReaders {
+
+        private JacksonPayloadReaders() {
+            throw new AssertionError();
+        }
+
+        /**
+         * @param converter   消息转换器
+         * @param messageType 消息类型
+         * @return 消息转换器实际会使用 jackson 转换该类型时返回，否则返回 null
+         */
+        @Nullable
+        static MessagePayloadReader of(MessageConverter converter, Type messageType) {
+            MappingJackson2MessageConverter jacksonConverter = findJacksonConverter(converter);
+            if (jacksonConverter == null || jacksonConverter.isStrictContentTypeMatch()) {
+                return null;
+            }
+            ObjectMapper objectMapper = jacksonConverter.getObjectMapper();
+            JavaType javaType = objectMapper.getTypeFactory().constructType(messageType);
+            if (!objectMapper.canDeserialize(javaType)) {
+                return null;
+            }
+            ObjectReader reader = objectMapper.readerFor(javaType);
+            return messageExt -> reader.readValue(messageExt.getBody());
+        }
+
+        @Nullable
+        private static MappingJackson2MessageConverter findJacksonConverter(MessageConverter converter) {
+            if (converter instanceof MappingJackson2MessageConverter) {
+                return (MappingJackson2MessageConverter) converter;
+            }
+            if (converter instanceof CompositeMessageConverter) {
+                for (MessageConverter messageConverter : ((CompositeMessageConverter) converter).getConverters()) {
+                    if (messageConverter instanceof MappingJackson2MessageConverter) {
+                        return (MappingJackson2MessageConverter) messageConverter;
+                    }
+                    if (!(messageConverter instanceof StringMessageConverter || messageConverter instanceof ByteArrayMessageConverter)) {
+                        // 排在前面的转换器可能会处理该类型
+                        return null;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.rocketmq.spring.support;
 
+import com.wind.rocketmq.RocketMQBatchListener;
 import org.apache.rocketmq.client.AccessChannel;
 import org.apache.rocketmq.spring.annotation.ConsumeMode;
 import org.apache.rocketmq.spring.annotation.MessageModel;
@@ -71,12 +72,13 @@ public class RocketMQMessageListenerContainerRegistrar implements ApplicationCon
     public void registerContainer(String beanName, Object bean, RocketMQMessageListener annotation) {
         Class<?> clazz = AopProxyUtils.ultimateTargetClass(bean);
 
-        if (RocketMQListener.class.isAssignableFrom(bean.getClass()) && RocketMQReplyListener.class.isAssignableFrom(bean.getClass())) {
-            throw new IllegalStateException(clazz + " cannot be both instance of " + RocketMQListener.class.getName() + " and " + RocketMQReplyListener.class.getName());
+        int listenerCount = (bean instanceof RocketMQListener ? 1 : 0) + (bean instanceof RocketMQReplyListener ? 1 : 0) + (bean instanceof RocketMQBatchListener ? 1 : 0);
+        if (listenerCount > 1) {
+            throw new IllegalStateException(clazz + " can only be one instance of " + RocketMQListener.class.getName() + ", " + RocketMQReplyListener.class.getName() + " or " + RocketMQBatchListener.class.getName());
         }
 
-        if (!RocketMQListener.class.isAssignableFrom(bean.getClass()) && !RocketMQReplyListener.class.isAssignableFrom(bean.getClass())) {
-            throw new IllegalStateException(clazz + " is not instance of " + RocketMQListener.class.getName() + " or " + RocketMQReplyListener.class.getName());
+        if (listenerCount == 0) {
+            throw new IllegalStateException(clazz + " is not instance of " + RocketMQListener.class.getName() + ", " + RocketMQReplyListener.class.getName() + " or " + RocketMQBatchListener.class.getName());
         }
 
         String consumerGroup = this.environment.resolvePlaceholders(annotation.consumerGroup());
@@ -144,6 +146,8 @@ public class RocketMQMessageListenerContainerRegistrar implements ApplicationCon
             container.setRocketMQListener((RocketMQListener) bean);
         } else if (RocketMQReplyListener.class.isAssignableFrom(bean.getClass())) {
             container.setRocketMQReplyListener((RocketMQReplyListener) bean);
+        } else if (RocketMQBatchListener.class.isAssignableFrom(bean.getClass())) {
+            container.setRocketMQBatchListener((RocketMQBatchListener<?>) bean);
         }
         container.setMessageConverter(rocketMQMessageConverter.getMessageConverter());
         container.setName(name);
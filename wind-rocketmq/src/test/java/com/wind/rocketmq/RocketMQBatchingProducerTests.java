@@ -0,0 +1,174 @@
+package com.wind.rocketmq;
+
+import com.wind.common.WindConstants;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.apache.rocketmq.common.message.Message;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author wuxp
+ * @date 2024-08-21 17:05
+ **/
+class RocketMQBatchingProducerTests {
+
+    private static final String TOPIC = "wind-test-topic";
+
+    private static final String BATCH_SIZE_METRIC_NAME = "wind.rocketmq.producer.batch.size";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<SendCallback> callbacks = new ArrayList<>();
+
+    private final List<Collection<Message>> batches = new ArrayList<>();
+
+    private DefaultMQProducer producer;
+
+    private RocketMQBatchingProducerProperties properties;
+
+    @BeforeEach
+    void setup() throws Exception {
+        Metrics.addRegistry(meterRegistry);
+        producer = Mockito.mock(DefaultMQProducer.class);
+        Mockito.doAnswer(invocation -> {
+            synchronized (batches) {
+                batches.add(invocation.getArgument(0));
+                callbacks.add(invocation.getArgument(1));
+            }
+            return null;
+        }).when(producer).send(ArgumentMatchers.<Collection<Message>>any(), ArgumentMatchers.any(SendCallback.class), ArgumentMatchers.anyLong());
+        Mockito.doAnswer(invocation -> {
+            synchronized (batches) {
+                batches.add(Collections.singletonList(invocation.getArgument(0)));
+                callbacks.add(invocation.getArgument(1));
+            }
+            return null;
+        }).when(producer).send(ArgumentMatchers.any(Message.class), ArgumentMatchers.any(SendCallback.class), ArgumentMatchers.anyLong());
+        properties = new RocketMQBatchingProducerProperties();
+        properties.setMaxBatchSize(3);
+        properties.setLinger(Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void after() {
+        Metrics.removeRegistry(meterRegistry);
+        meterRegistry.close();
+    }
+
+    @Test
+    void testSendWhenBatchFull() throws Exception {
+        RocketMQBatchingProducer batchingProducer = new RocketMQBatchingProducer(producer, properties);
+        List<CompletableFuture<SendResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(batchingProducer.send(newMessage(i)));
+        }
+        Assertions.assertEquals(1, batches.size());
+        Assertions.assertEquals(3, batches.get(0).size());
+        for (Message message : batches.get(0)) {
+            Assertions.assertNotNull(message.getUserProperty(WindConstants.TRACE_ID_NAME));
+        }
+        Assertions.assertFalse(futures.get(0).isDone());
+
+        MessageQueue queue = new MessageQueue(TOPIC, "broker-a", 1);
+        callbacks.get(0).onSuccess(new SendResult(SendStatus.SEND_OK, "id0,id1,id2", "o0,o1,o2", queue, 10));
+        for (int i = 0; i < 3; i++) {
+            SendResult result = futures.get(i).get(1, TimeUnit.SECONDS);
+            Assertions.assertEquals("o" + i, result.getOffsetMsgId());
+            Assertions.assertEquals(10 + i, result.getQueueOffset());
+            Assertions.assertEquals(queue, result.getMessageQueue());
+        }
+        Assertions.assertEquals(3, meterRegistry.get(BATCH_SIZE_METRIC_NAME).summary().totalAmount());
+        batchingProducer.destroy();
+    }
+
+    @Test
+    void testSendAfterLinger() throws Exception {
+        properties.setMaxBatchSize(100);
+        properties.setLinger(Duration.ofMillis(20));
+        RocketMQBatchingProducer batchingProducer = new RocketMQBatchingProducer(producer, properties);
+        batchingProducer.send(newMessage(0));
+        batchingProducer.send(newMessage(1));
+        Mockito.verify(producer, Mockito.timeout(2000)).send(ArgumentMatchers.<Collection<Message>>any(), ArgumentMatchers.any(SendCallback.class), ArgumentMatchers.anyLong());
+        Assertions.assertEquals(2, batches.get(0).size());
+        callbacks.get(0).onSuccess(new SendResult(SendStatus.SEND_OK, "id0,id1", "o0,o1", new MessageQueue(TOPIC, "broker-a", 0), 0));
+        batchingProducer.destroy();
+    }
+
+    @Test
+    void testFlushLingeringMessagesAndRemoveMetersOnDestroy() throws Exception {
+        properties.setMaxBatchSize(100);
+        properties.setSendTimeout(Duration.ofMillis(100));
+        RocketMQBatchingProducer batchingProducer = new RocketMQBatchingProducer(producer, properties);
+        batchingProducer.send(newMessage(0));
+        batchingProducer.send(newMessage(1));
+        Assertions.assertTrue(batches.isEmpty());
+        Assertions.assertNotNull(Metrics.globalRegistry.find(BATCH_SIZE_METRIC_NAME).tag("topic", TOPIC).summary());
+
+        batchingProducer.destroy();
+        Assertions.assertEquals(1, batches.size());
+        Assertions.assertEquals(2, batches.get(0).size());
+        Assertions.assertNull(Metrics.globalRegistry.find(BATCH_SIZE_METRIC_NAME).tag("topic", TOPIC).summary());
+        Assertions.assertNull(Metrics.globalRegistry.find("wind.rocketmq.producer.send.latency").tag("topic", TOPIC).timer());
+        Assertions.assertNull(Metrics.globalRegistry.find("wind.rocketmq.producer.send.failures").tag("topic", TOPIC).counter());
+    }
+
+    @Test
+    void testSendFailure() throws Exception {
+        Mockito.doThrow(new MQClientException("mock error", null))
+                .when(producer).send(ArgumentMatchers.<Collection<Message>>any(), ArgumentMatchers.any(SendCallback.class), ArgumentMatchers.anyLong());
+        RocketMQBatchingProducer batchingProducer = new RocketMQBatchingProducer(producer, properties);
+        List<CompletableFuture<SendResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(batchingProducer.send(newMessage(i)));
+        }
+        for (CompletableFuture<SendResult> future : futures) {
+            ExecutionException exception = Assertions.assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+            Assertions.assertInstanceOf(MQClientException.class, exception.getCause());
+        }
+        Assertions.assertEquals(3, meterRegistry.get("wind.rocketmq.producer.send.failures").counter().count());
+        batchingProducer.destroy();
+    }
+
+    @Test
+    void testRejectWhenPendingExceedLimit() throws Exception {
+        properties.setMaxPendingMessages(2);
+        properties.setSendTimeout(Duration.ofMillis(100));
+        RocketMQBatchingProducer batchingProducer = new RocketMQBatchingProducer(producer, properties);
+        batchingProducer.send(newMessage(0));
+        batchingProducer.send(newMessage(1));
+        CompletableFuture<SendResult> rejected = batchingProducer.send(newMessage(2));
+        Assertions.assertTrue(rejected.isCompletedExceptionally());
+
+        batchingProducer.flush();
+        callbacks.get(0).onSuccess(new SendResult(SendStatus.SEND_OK, "id0,id1", "o0,o1", new MessageQueue(TOPIC, "broker-a", 0), 0));
+        batchingProducer.send(newMessage(3));
+        batchingProducer.destroy();
+        Assertions.assertEquals(2, batches.size());
+        Assertions.assertTrue(batchingProducer.send(newMessage(4)).isCompletedExceptionally());
+    }
+
+    private static Message newMessage(int index) {
+        return new Message(TOPIC, "test", ("message-" + index).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,218 @@
+package org.apache.rocketmq.spring.support;
+
+import com.wind.common.WindConstants;
+import com.wind.common.exception.BaseException;
+import com.wind.rocketmq.RocketMQBatchConsumeContext;
+import com.wind.rocketmq.RocketMQBatchListener;
+import com.wind.sentinel.SentinelResource;
+import com.wind.sentinel.SentinelResourcesType;
+import com.wind.trace.WindTracer;
+import lombok.Data;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyContext;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.ConsumeOrderlyContext;
+import org.apache.rocketmq.client.consumer.listener.ConsumeOrderlyStatus;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.common.message.MessageQueue;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.apache.rocketmq.spring.autoconfigure.RocketMQProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * @author wuxp
+ * @date 2024-08-21 15:20
+ **/
+class DefaultRocketMQListenerContainerTests {
+
+    private static final String TOPIC = "wind-test-topic";
+
+    private static final String CONSUMER_GROUP = "wind-test-group";
+
+    private final GenericApplicationContext applicationContext = new GenericApplicationContext();
+
+    private final OrderBatchListener listener = new OrderBatchListener();
+
+    private final List<MessageExt> messages = Arrays.asList(newMessage(0), newMessage(1), newMessage(2));
+
+    private DefaultRocketMQListenerContainer container;
+
+    @BeforeEach
+    void setup() throws Exception {
+        System.setProperty(WindConstants.SPRING_APPLICATION_NAME, "wind-rocketmq-test");
+        applicationContext.registerBean(RocketMQProperties.class, RocketMQProperties::new);
+        applicationContext.refresh();
+        container = new DefaultRocketMQListenerContainer();
+        container.setApplicationContext(applicationContext);
+        container.setRocketMQMessageListener(OrderBatchListener.class.getAnnotation(RocketMQMessageListener.class));
+        container.setNameServer("127.0.0.1:9876");
+        container.setTopic(TOPIC);
+        container.setConsumerGroup(CONSUMER_GROUP);
+        container.setMessageConverter(new RocketMQMessageConverter().getMessageConverter());
+        container.setRocketMQBatchListener(listener);
+        container.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void after() {
+        container.destroy();
+        applicationContext.close();
+    }
+
+    @Test
+    void testConcurrentlyConsumeSuccess() {
+        List<String> traceIds = new ArrayList<>();
+        listener.handler = (orders, context) -> traceIds.add(WindTracer.TRACER.getTraceId());
+        ConsumeConcurrentlyContext context = newConcurrentlyContext();
+        Assertions.assertEquals(ConsumeConcurrentlyStatus.CONSUME_SUCCESS, container.new BatchMessageListenerConcurrently().consumeMessage(messages, context));
+        // 未设置 ackIndex 时整批消费成功
+        Assertions.assertEquals(Integer.MAX_VALUE, context.getAckIndex());
+        Assertions.assertEquals(3, listener.received.size());
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(Long.valueOf(i), listener.received.get(i).getId());
+            Assertions.assertEquals("SN" + i, listener.received.get(i).getOrderSn());
+        }
+        // 使用第一条消息的 traceId
+        Assertions.assertEquals(messages.get(0).getUserProperty(WindConstants.TRACE_ID_NAME), traceIds.get(0));
+    }
+
+    @Test
+    void testConcurrentlyAckPrefixThenThrow() {
+        listener.handler = (orders, context) -> {
+            context.setAckIndex(1);
+            throw new IllegalStateException("mock error");
+        };
+        ConsumeConcurrentlyContext context = newConcurrentlyContext();
+        // RECONSUME_LATER 会忽略 ackIndex，部分确认时返回 CONSUME_SUCCESS，ackIndex 之后的消息重新投递
+        Assertions.assertEquals(ConsumeConcurrentlyStatus.CONSUME_SUCCESS, container.new BatchMessageListenerConcurrently().consumeMessage(messages, context));
+        Assertions.assertEquals(1, context.getAckIndex());
+    }
+
+    @Test
+    void testConcurrentlyAckPrefixWithoutException() {
+        listener.handler = (orders, context) -> context.setAckIndex(0);
+        ConsumeConcurrentlyContext context = newConcurrentlyContext();
+        Assertions.assertEquals(ConsumeConcurrentlyStatus.CONSUME_SUCCESS, container.new BatchMessageListenerConcurrently().consumeMessage(messages, context));
+        Assertions.assertEquals(0, context.getAckIndex());
+    }
+
+    @Test
+    void testConcurrentlyThrowWithoutAck() {
+        listener.handler = (orders, context) -> {
+            throw new IllegalStateException("mock error");
+        };
+        ConsumeConcurrentlyContext context = newConcurrentlyContext();
+        Assertions.assertEquals(ConsumeConcurrentlyStatus.RECONSUME_LATER, container.new BatchMessageListenerConcurrently().consumeMessage(messages, context));
+    }
+
+    @Test
+    void testOrderlyConsume() {
+        ConsumeOrderlyContext context = new ConsumeOrderlyContext(new MessageQueue(TOPIC, "broker-a", 0));
+        DefaultRocketMQListenerContainer.BatchMessageListenerOrderly orderly = container.new BatchMessageListenerOrderly();
+        Assertions.assertEquals(ConsumeOrderlyStatus.SUCCESS, orderly.consumeMessage(messages, context));
+
+        listener.handler = (orders, ctx) -> ctx.setAckIndex(messages.size() - 1);
+        Assertions.assertEquals(ConsumeOrderlyStatus.SUCCESS, orderly.consumeMessage(messages, context));
+
+        // 顺序消费不支持部分确认
+        listener.handler = (orders, ctx) -> ctx.setAckIndex(1);
+        Assertions.assertEquals(ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT, orderly.consumeMessage(messages, context));
+
+        listener.handler = (orders, ctx) -> {
+            ctx.setAckIndex(1);
+            throw new IllegalStateException("mock error");
+        };
+        Assertions.assertEquals(ConsumeOrderlyStatus.SUSPEND_CURRENT_QUEUE_A_MOMENT, orderly.consumeMessage(messages, context));
+        Assertions.assertEquals(container.getSuspendCurrentQueueTimeMillis(), context.getSuspendCurrentQueueTimeMillis());
+    }
+
+    @Test
+    void testAckIndexOutOfRange() {
+        RocketMQBatchConsumeContext context = new RocketMQBatchConsumeContext(messages, 4);
+        Assertions.assertThrows(BaseException.class, () -> context.setAckIndex(messages.size()));
+        Assertions.assertThrows(BaseException.class, () -> context.setAckIndex(-2));
+        Assertions.assertFalse(context.isAcknowledged());
+        context.setAckIndex(RocketMQBatchConsumeContext.NOT_ACK);
+        Assertions.assertTrue(context.isAcknowledged());
+
+        // 越界的 ackIndex 视为消费失败，整批重新投递
+        listener.handler = (orders, ctx) -> ctx.setAckIndex(messages.size());
+        Assertions.assertEquals(ConsumeConcurrentlyStatus.RECONSUME_LATER, container.new BatchMessageListenerConcurrently().consumeMessage(messages, newConcurrentlyContext()));
+    }
+
+    @Test
+    void testSentinelResourceCachedByTag() throws Exception {
+        container.setEnableFlowControl(true);
+        MessageExt other = newMessage(3);
+        other.setTags("order-paid");
+        container.handleMessages(new RocketMQBatchConsumeContext(messages, 4));
+        container.handleMessages(new RocketMQBatchConsumeContext(messages, 4));
+        container.handleMessages(new RocketMQBatchConsumeContext(Collections.singletonList(other), 4));
+        Map<String, SentinelResource> resources = container.getSentinelResources();
+        Assertions.assertEquals(2, resources.size());
+        SentinelResource resource = resources.get("order-created");
+        Assertions.assertEquals(String.format("%s@%s:%s:%s", SentinelResourcesType.ROCKETMQ_CONSUMER.getTypeName(), CONSUMER_GROUP, TOPIC, "order-created"), resource.getName());
+        container.handleMessages(new RocketMQBatchConsumeContext(messages, 4));
+        Assertions.assertSame(resource, container.getSentinelResources().get("order-created"));
+
+        // 没有 tag 的消息使用空字符串作为缓存 key
+        MessageExt untagged = newMessage(4);
+        untagged.setTags(null);
+        container.handleMessages(new RocketMQBatchConsumeContext(Collections.singletonList(untagged), 4));
+        Assertions.assertEquals(String.format("%s@%s:%s", SentinelResourcesType.ROCKETMQ_CONSUMER.getTypeName(), CONSUMER_GROUP, TOPIC), container.getSentinelResources().get("").getName());
+    }
+
+    private static ConsumeConcurrentlyContext newConcurrentlyContext() {
+        return new ConsumeConcurrentlyContext(new MessageQueue(TOPIC, "broker-a", 0));
+    }
+
+    private static MessageExt newMessage(int index) {
+        String body = String.format("{\"id\":%d,\"orderSn\":\"SN%d\"}", index, index);
+        MessageExt result = new MessageExt();
+        result.setTopic(TOPIC);
+        result.setTags("order-created");
+        result.setMsgId("7F000001000000000000000000" + index);
+        result.setBody(body.getBytes(StandardCharsets.UTF_8));
+        result.putUserProperty(WindConstants.TRACE_ID_NAME, "8d2fe52c1c8e4f5c9a0a1b2c3d4e5f6" + index);
+        return result;
+    }
+
+    @Data
+    public static class Order {
+
+        private Long id;
+
+        private String orderSn;
+    }
+
+    @RocketMQMessageListener(topic = TOPIC, consumerGroup = CONSUMER_GROUP)
+    private static class OrderBatchListener implements RocketMQBatchListener<Order> {
+
+        private final List<Order> received = new ArrayList<>();
+
+        private BiConsumer<List<Order>, RocketMQBatchConsumeContext> handler = (orders, context) -> {
+        };
+
+        @Override
+        public void onMessages(List<Order> orders, RocketMQBatchConsumeContext context) {
+            received.addAll(orders);
+            handler.accept(orders, context);
+        }
+
+        @Override
+        public int getConsumeMessageBatchMaxSize() {
+            return 4;
+        }
+    }
+}
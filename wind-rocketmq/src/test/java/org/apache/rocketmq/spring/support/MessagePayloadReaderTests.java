@@ -0,0 +1,127 @@
+package org.apache.rocketmq.spring.support;
+
+import com.wind.rocketmq.RocketMQBatchConsumeContext;
+import com.wind.rocketmq.RocketMQBatchListener;
+import lombok.Data;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.GenericMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.converter.SmartMessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author wuxp
+ * @date 2024-08-21 15:40
+ **/
+class MessagePayloadReaderTests {
+
+    private static final String ORDER_BODY = "{\"id\":1,\"orderSn\":\"SN1\",\"tags\":[\"a\",\"b\"]}";
+
+    private static final String WRAPPER_BODY = "{\"code\":\"SUCCESS\",\"data\":" + ORDER_BODY + "}";
+
+    private final MessageConverter converter = new RocketMQMessageConverter().getMessageConverter();
+
+    @Test
+    void testReadClass() throws Exception {
+        MessagePayloadReader reader = MessagePayloadReader.JacksonPayloadReaders.of(converter, Order.class);
+        Assertions.assertNotNull(reader);
+        Object expected = converter.fromMessage(newMessage(ORDER_BODY), Order.class);
+        Object actual = reader.read(newMessageExt(ORDER_BODY));
+        Assertions.assertInstanceOf(Order.class, actual);
+        Assertions.assertEquals(expected, actual);
+    }
+
+    @Test
+    void testReadParameterizedType() throws Exception {
+        MethodParameter parameter = new MethodParameter(WrapperListener.class.getMethod("onMessage", Wrapper.class), 0);
+        Type messageType = parameter.getGenericParameterType();
+        Assertions.assertInstanceOf(ParameterizedType.class, messageType);
+        MessagePayloadReader reader = MessagePayloadReader.JacksonPayloadReaders.of(converter, messageType);
+        Assertions.assertNotNull(reader);
+        Object expected = ((SmartMessageConverter) converter).fromMessage(newMessage(WRAPPER_BODY), Wrapper.class, parameter);
+        Object actual = reader.read(newMessageExt(WRAPPER_BODY));
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertInstanceOf(Order.class, ((Wrapper<?>) actual).getData());
+    }
+
+    @Test
+    void testReadBatchListenerElementType() throws Exception {
+        // 批量消费时使用 List 的元素类型
+        MethodParameter parameter = new MethodParameter(WrapperBatchListener.class.getMethod("onMessages", List.class, RocketMQBatchConsumeContext.class), 0).nested();
+        Type messageType = parameter.getNestedGenericParameterType();
+        Assertions.assertInstanceOf(ParameterizedType.class, messageType);
+        Assertions.assertEquals(Wrapper.class, ((ParameterizedType) messageType).getRawType());
+        MessagePayloadReader reader = MessagePayloadReader.JacksonPayloadReaders.of(converter, messageType);
+        Assertions.assertNotNull(reader);
+        Object expected = ((SmartMessageConverter) converter).fromMessage(newMessage(WRAPPER_BODY), Wrapper.class, parameter);
+        Object actual = reader.read(newMessageExt(WRAPPER_BODY));
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertInstanceOf(Order.class, ((Wrapper<?>) actual).getData());
+    }
+
+    @Test
+    void testNotJacksonConverter() {
+        // 排在 jackson 之前的转换器可能会处理该类型
+        CompositeMessageConverter composite = new CompositeMessageConverter(Arrays.asList(new StringMessageConverter(), new GenericMessageConverter(), new MappingJackson2MessageConverter()));
+        Assertions.assertNull(MessagePayloadReader.JacksonPayloadReaders.of(composite, Order.class));
+        Assertions.assertNull(MessagePayloadReader.JacksonPayloadReaders.of(new GenericMessageConverter(), Order.class));
+        MappingJackson2MessageConverter strict = new MappingJackson2MessageConverter();
+        strict.setStrictContentTypeMatch(true);
+        Assertions.assertNull(MessagePayloadReader.JacksonPayloadReaders.of(strict, Order.class));
+        Assertions.assertNotNull(MessagePayloadReader.JacksonPayloadReaders.of(new CompositeMessageConverter(Arrays.asList(new StringMessageConverter(), new MappingJackson2MessageConverter())), Order.class));
+    }
+
+    private static Message<String> newMessage(String body) {
+        return MessageBuilder.withPayload(body).build();
+    }
+
+    private static MessageExt newMessageExt(String body) {
+        MessageExt result = new MessageExt();
+        result.setBody(body.getBytes(StandardCharsets.UTF_8));
+        return result;
+    }
+
+    @Data
+    public static class Order {
+
+        private Long id;
+
+        private String orderSn;
+
+        private List<String> tags;
+    }
+
+    @Data
+    public static class Wrapper<T> {
+
+        private String code;
+
+        private T data;
+    }
+
+    public static class WrapperListener {
+
+        public void onMessage(Wrapper<Order> message) {
+        }
+    }
+
+    public static class WrapperBatchListener implements RocketMQBatchListener<Wrapper<Order>> {
+
+        @Override
+        public void onMessages(List<Wrapper<Order>> messages, RocketMQBatchConsumeContext context) {
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package org.apache.rocketmq.spring.support;
+
+import com.wind.common.WindConstants;
+import com.wind.rocketmq.RocketMQBatchConsumeContext;
+import com.wind.rocketmq.RocketMQBatchListener;
+import com.wind.sentinel.SentinelResource;
+import com.wind.sentinel.SentinelResourceBuilder;
+import com.wind.sentinel.util.SentinelFlowLimitUtils;
+import com.wind.trace.WindTracer;
+import lombok.Data;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.apache.rocketmq.spring.autoconfigure.RocketMQProperties;
+import org.apache.rocketmq.spring.core.RocketMQListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 单个消费线程的消息消费吞吐量（messages/s）基准测试，不连接 broker，直接调用容器的消费方法
+ * legacy 开头的为改造前每条消息都创建流控资源、先将消息体解码为 String 再转换的实现，用于对比
+ * 运行方式：执行 {@link #main(String[])}
+ *
+ * @author wuxp
+ * @date 2024-08-21 14:30
+ **/
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 8, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Threads(1)
+@Fork(1)
+public class RocketMQConsumeBenchmark {
+
+    private static final String TOPIC = "wind-benchmark-topic";
+
+    private static final String CONSUMER_GROUP = "wind-benchmark-group";
+
+    private static final String TAG = "order-created";
+
+    private static final int BATCH_SIZE = 32;
+
+    private final GenericApplicationContext applicationContext = new GenericApplicationContext();
+
+    /**
+     * 保存消费结果，避免被 JIT 优化
+     */
+    private volatile Object consumed;
+
+    private DefaultRocketMQListenerContainer container;
+
+    private DefaultRocketMQListenerContainer batchContainer;
+
+    private MessageConverter messageConverter;
+
+    private MessageExt message;
+
+    private List<MessageExt> messages;
+
+    @Setup
+    public void setup() throws Exception {
+        System.setProperty(WindConstants.SPRING_APPLICATION_NAME, "wind-rocketmq-benchmark");
+        RocketMQProperties properties = new RocketMQProperties();
+        properties.setEnabledFlowControl(true);
+        applicationContext.registerBean(RocketMQProperties.class, () -> properties);
+        applicationContext.refresh();
+        messageConverter = new RocketMQMessageConverter().getMessageConverter();
+
+        container = newContainer();
+        container.setRocketMQListener(new OrderListener());
+        container.afterPropertiesSet();
+        batchContainer = newContainer();
+        batchContainer.setRocketMQBatchListener(new OrderBatchListener());
+        batchContainer.afterPropertiesSet();
+
+        message = newMessage(1);
+        messages = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            messages.add(newMessage(i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        container.destroy();
+        batchContainer.destroy();
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public void legacyConsume() throws Exception {
+        WindTracer.TRACER.trace(message.getUserProperty(WindConstants.TRACE_ID_NAME));
+        try {
+            SentinelResource resource = SentinelResourceBuilder.rocketConsumer()
+                    .groupName(CONSUMER_GROUP)
+                    .topic(TOPIC)
+                    .tag(message.getTags())
+                    .build();
+            Consumer<Exception> exceptionConsumer = SentinelFlowLimitUtils.flowControl(resource);
+            try {
+                String text = new String(message.getBody(), StandardCharsets.UTF_8);
+                consumed = messageConverter.fromMessage(MessageBuilder.withPayload(text).build(), Order.class);
+            } finally {
+                exceptionConsumer.accept(null);
+            }
+        } finally {
+            WindTracer.TRACER.clear();
+        }
+    }
+
+    @Benchmark
+    public void consume() throws Exception {
+        container.handleMessage(message);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void batchConsume() throws Exception {
+        batchContainer.handleMessages(new RocketMQBatchConsumeContext(messages, BATCH_SIZE));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RocketMQConsumeBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+    private DefaultRocketMQListenerContainer newContainer() {
+        DefaultRocketMQListenerContainer result = new DefaultRocketMQListenerContainer();
+        result.setApplicationContext(applicationContext);
+        result.setRocketMQMessageListener(OrderListener.class.getAnnotation(RocketMQMessageListener.class));
+        result.setNameServer("127.0.0.1:9876");
+        result.setTopic(TOPIC);
+        result.setConsumerGroup(CONSUMER_GROUP);
+        result.setMessageConverter(messageConverter);
+        return result;
+    }
+
+    private static MessageExt newMessage(int index) {
+        String body = String.format("{\"id\":%d,\"orderSn\":\"SN2024082100000%d\",\"amount\":\"128.50\",\"buyer\":\"wind\",\"remark\":\"benchmark order\"}", index, index);
+        MessageExt result = new MessageExt();
+        result.setTopic(TOPIC);
+        result.setTags(TAG);
+        result.setMsgId("7F000001000000000000000000" + index);
+        result.setBody(body.getBytes(StandardCharsets.UTF_8));
+        result.putUserProperty(WindConstants.TRACE_ID_NAME, "8d2fe52c1c8e4f5c9a0a1b2c3d4e5f6" + index);
+        return result;
+    }
+
+    @Data
+    public static class Order {
+
+        private Long id;
+
+        private String orderSn;
+
+        private BigDecimal amount;
+
+        private String buyer;
+
+        private String remark;
+    }
+
+    @RocketMQMessageListener(topic = TOPIC, consumerGroup = CONSUMER_GROUP)
+    private class OrderListener implements RocketMQListener<Order> {
+
+        @Override
+        public void onMessage(Order order) {
+            consumed = order;
+        }
+    }
+
+    private class OrderBatchListener implements RocketMQBatchListener<Order> {
+
+        @Override
+        public void onMessages(List<Order> orders, RocketMQBatchConsumeContext context) {
+            consumed = orders;
+        }
+
+        @Override
+        public int getConsumeMessageBatchMaxSize() {
+            return BATCH_SIZE;
+        }
+    }
+}
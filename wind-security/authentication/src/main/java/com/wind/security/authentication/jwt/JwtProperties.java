@@ -57,4 +57,10 @@ public class JwtProperties extends AbstractRsaProperties {
 
     private Class<? extends JwtUser> userType = JwtUser.class;
 
+    /**
+     * 已验证 token 缓存的最大数量，缓存命中时跳过签名验证，小于等于 0 表示不缓存
+     * 默认：不缓存
+     */
+    private int verifiedTokenCacheSize = 0;
+
 }
@@ -0,0 +1,30 @@
+package com.wind.security.authentication.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 已验证 token 缓存指标注册，仅在 micrometer 存在时加载
+ * 存在多个 {@link JwtTokenCodec} 时，第一个缓存使用 {@link #CACHE_NAME}，其余的缓存名称添加序号后缀，避免指标冲突
+ *
+ * @author wuxp
+ * @date 2024-08-19 15:10
+ **/
+final class JwtTokenCacheMetrics {
+
+    private static final String CACHE_NAME = "wind.jwt.verified-tokens";
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private JwtTokenCacheMetrics() {
+        throw new AssertionError();
+    }
+
+    static void bind(Cache<String, JwtToken> cache) {
+        int index = SEQUENCE.getAndIncrement();
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, cache, index == 0 ? CACHE_NAME : CACHE_NAME + "-" + index);
+    }
+}
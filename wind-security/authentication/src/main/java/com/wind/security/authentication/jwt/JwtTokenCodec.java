@@ -1,6 +1,10 @@
 package com.wind.security.authentication.jwt;
 
 import com.alibaba.fastjson2.JSON;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.RSAKey;
@@ -11,6 +15,8 @@ import com.nimbusds.jwt.proc.DefaultJWTProcessor;
 import com.wind.common.exception.AssertUtils;
 import com.wind.common.exception.BaseException;
 import com.wind.common.exception.DefaultExceptionCode;
+import com.wind.common.util.ClassDetectionUtils;
+import lombok.AllArgsConstructor;
 import org.springframework.lang.Nullable;
 import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
 import org.springframework.security.oauth2.jwt.JwsHeader;
@@ -24,15 +30,24 @@ import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.interfaces.RSAPublicKey;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
 
 /**
  * jwt token 编码解码
+ * 1: 配置了 {@link JwtProperties#getVerifiedTokenCacheSize()} 时，缓存已验证的 token（key 为 token 的 SHA-256 摘要），缓存在 token 过期时失效
+ * 2: 通过 {@link #revoke(String)} 吊销 token（例如：退出登录），吊销后的 token 在过期前解析都会失败
+ * 3: 吊销记录仅保存在当前节点内存中，不会同步到其他节点，也不会在重启后保留，多节点部署时需要在外部（例如：redis）共享吊销记录
  *
  * @author wuxp
  * @date 2023-09-24 16:59
@@ -43,6 +58,20 @@ public final class JwtTokenCodec {
 
     private static final String JWT_AUTH_KEY_ID = "jwt-auth-codec-kind";
 
+    private static final String TOKEN_INVALID_MESSAGE = "登录令牌已失效，请重新登陆";
+
+    private static final boolean METRICS_PRESENT = ClassDetectionUtils.isPresent("io.micrometer.core.instrument.Metrics");
+
+    private static final ThreadLocal<MessageDigest> SHA256_DIGESTS = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new BaseException(DefaultExceptionCode.COMMON_ERROR, "SHA-256 algorithm not found", exception);
+        }
+    });
+
+    private static final Base64.Encoder BASE64_ENCODER = Base64.getEncoder().withoutPadding();
+
     private final JwtProperties properties;
 
     private final JwtEncoder jwtEncoder;
@@ -51,11 +80,26 @@ public final class JwtTokenCodec {
 
     private final JwsHeader jwsHeader = JwsHeader.with(SignatureAlgorithm.RS256).build();
 
+    /**
+     * 已验证的 token 缓存，未开启时为 null
+     */
+    @Nullable
+    private final Cache<String, JwtToken> verifiedTokens;
+
+    /**
+     * 已吊销的 token，value 为 token 过期时间
+     * 不限制数量，避免按容量淘汰导致吊销失效，吊销记录在 token 过期时移除
+     */
+    private final Cache<String, Long> revokedTokens = Caffeine.newBuilder()
+            .expireAfter(new TokenExpiry<Long>(expireTime -> expireTime))
+            .build();
+
     public JwtTokenCodec(JwtProperties properties) {
         this.properties = properties;
         RSAKey rsaKey = generateRsaKey(properties.getKeyPair());
         this.jwtEncoder = buildJwtEncoder(rsaKey);
         this.jwtDecoder = buildJwtDecoder(rsaKey);
+        this.verifiedTokens = buildVerifiedTokenCache(properties.getVerifiedTokenCacheSize());
     }
 
     /**
@@ -66,22 +110,82 @@ public final class JwtTokenCodec {
      */
     @Nullable
     public JwtToken parse(String jwtToken) {
-        if (StringUtils.hasLength(jwtToken)) {
-            Jwt jwt = parseJwt(jwtToken);
-            Map<String, Object> claims = jwt.getClaims();
-            JwtUser user = JSON.to(properties.getUserType(), claims.get(AUTHENTICATION_VARIABLE_NAME));
-            Instant expiresAt = jwt.getExpiresAt();
-            AssertUtils.notNull(expiresAt, "jwt token expire must not null");
-            return new JwtToken(jwtToken, jwt.getSubject(), user, expiresAt.toEpochMilli());
+        if (!StringUtils.hasLength(jwtToken)) {
+            return null;
         }
-        return null;
+        String key = verifiedTokens == null && revokedTokens.estimatedSize() == 0 ? null : digest(jwtToken);
+        if (key != null) {
+            if (revokedTokens.getIfPresent(key) != null) {
+                throw BaseException.common(TOKEN_INVALID_MESSAGE);
+            }
+            JwtToken result = verifiedTokens == null ? null : verifiedTokens.getIfPresent(key);
+            if (result != null && result.getExpireTime() > System.currentTimeMillis()) {
+                return result;
+            }
+        }
+        Jwt jwt = parseJwt(jwtToken);
+        Map<String, Object> claims = jwt.getClaims();
+        JwtUser user = JSON.to(properties.getUserType(), claims.get(AUTHENTICATION_VARIABLE_NAME));
+        Instant expiresAt = jwt.getExpiresAt();
+        AssertUtils.notNull(expiresAt, "jwt token expire must not null");
+        JwtToken result = new JwtToken(jwtToken, jwt.getSubject(), user, expiresAt.toEpochMilli());
+        if (verifiedTokens != null) {
+            verifiedTokens.put(key == null ? digest(jwtToken) : key, result);
+        }
+        return result;
+    }
+
+    /**
+     * 吊销 token，用于退出登录等场景，token 在过期前不能再被解析，仅对当前节点生效
+     *
+     * @param jwtToken jwt token
+     */
+    public void revoke(String jwtToken) {
+        if (!StringUtils.hasLength(jwtToken)) {
+            return;
+        }
+        String key = digest(jwtToken);
+        JwtToken cached = verifiedTokens == null ? null : verifiedTokens.getIfPresent(key);
+        long expireTime;
+        if (cached != null) {
+            expireTime = cached.getExpireTime();
+            verifiedTokens.invalidate(key);
+        } else {
+            try {
+                Instant expiresAt = jwtDecoder.decode(jwtToken).getExpiresAt();
+                expireTime = expiresAt == null ? System.currentTimeMillis() + properties.getEffectiveTime().toMillis() : expiresAt.toEpochMilli();
+            } catch (JwtException exception) {
+                // 无效或已过期的 token 不需要吊销
+                return;
+            }
+        }
+        revokedTokens.put(key, expireTime);
+    }
+
+    /**
+     * @param jwtToken jwt token
+     * @return token 是否已被吊销
+     */
+    public boolean isRevoked(String jwtToken) {
+        if (!StringUtils.hasLength(jwtToken) || revokedTokens.estimatedSize() == 0) {
+            return false;
+        }
+        return revokedTokens.getIfPresent(digest(jwtToken)) != null;
+    }
+
+    /**
+     * @return 已验证 token 缓存的统计信息，未开启缓存时返回 null
+     */
+    @Nullable
+    public CacheStats getVerifiedTokenCacheStats() {
+        return verifiedTokens == null ? null : verifiedTokens.stats();
     }
 
     private Jwt parseJwt(String jwtToken) {
         try {
             return jwtDecoder.decode(jwtToken);
         } catch (JwtException exception) {
-            throw new BaseException(DefaultExceptionCode.COMMON_ERROR, "登录令牌已失效，请重新登陆", exception);
+            throw new BaseException(DefaultExceptionCode.COMMON_ERROR, TOKEN_INVALID_MESSAGE, exception);
         }
     }
 
@@ -139,6 +243,33 @@ public final class JwtTokenCodec {
                 .subject(userId);
     }
 
+    @Nullable
+    private static Cache<String, JwtToken> buildVerifiedTokenCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            return null;
+        }
+        Cache<String, JwtToken> result = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry<>(JwtToken::getExpireTime))
+                .recordStats()
+                .build();
+        if (METRICS_PRESENT) {
+            JwtTokenCacheMetrics.bind(result);
+        }
+        return result;
+    }
+
+    /**
+     * 计算 token 摘要，用于缓存 key，避免在内存中长期保存 token 原文
+     *
+     * @param jwtToken jwt token
+     * @return token 的 SHA-256 摘要（base64 编码）
+     */
+    public static String digest(String jwtToken) {
+        MessageDigest digest = SHA256_DIGESTS.get();
+        return BASE64_ENCODER.encodeToString(digest.digest(jwtToken.getBytes(StandardCharsets.US_ASCII)));
+    }
+
     private JwtDecoder buildJwtDecoder(RSAKey rsaKey) {
         DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
         processor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, new ImmutableJWKSet<>(new JWKSet(rsaKey))));
@@ -149,6 +280,31 @@ public final class JwtTokenCodec {
         return new NimbusJwtEncoder(new ImmutableJWKSet<>(new JWKSet(rsaKey)));
     }
 
+    /**
+     * 缓存在 token 过期时失效
+     */
+    @AllArgsConstructor
+    private static final class TokenExpiry<V> implements Expiry<String, V> {
+
+        private final ToLongFunction<V> expireTimeGetter;
+
+        @Override
+        public long expireAfterCreate(String key, V value, long currentTime) {
+            long millis = expireTimeGetter.applyAsLong(value) - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, V value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, V value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
     private RSAKey generateRsaKey(KeyPair keyPair) {
         // https://github.com/spring-projects/spring-security/blob/main/oauth2/oauth2-jose/src/test/java/org/springframework/security/oauth2/jose/TestKeys.java
         return new RSAKey.Builder((RSAPublicKey) keyPair.getPublic())
@@ -0,0 +1,224 @@
+package com.wind.security.authority;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 使用位图表示的权限集合，不可变
+ * 1: 权限标识（权限 id、角色等）通过 {@link Interner} 驻留为连续的整数，权限判断为位图的位运算
+ * 2: 驻留表由创建方（例如：权限加载器）持有，权限数据变化时重建，不会随权限标识的变化无限增长
+ * 3: 不同驻留表创建的权限集合之间按照权限标识比较
+ * 4: {@link #getAuthorities()} 在首次调用时创建，同一个权限集合在多次请求之间共享
+ *
+ * @author wuxp
+ * @date 2024-08-19 09:40
+ **/
+public final class AuthorityBitSet {
+
+    public static final AuthorityBitSet EMPTY = new AuthorityBitSet(new Interner(), new long[0], Collections.emptySet());
+
+    private final Interner interner;
+
+    private final long[] words;
+
+    private final Set<String> names;
+
+    private volatile Set<GrantedAuthority> authorities;
+
+    private AuthorityBitSet(Interner interner, long[] words, Set<String> names) {
+        this.interner = interner;
+        this.words = words;
+        this.names = names;
+    }
+
+    /**
+     * 使用独立的驻留表创建权限集合，驻留表随权限集合一起回收
+     *
+     * @param authorities 权限标识
+     * @return 权限集合
+     */
+    public static AuthorityBitSet of(Collection<String> authorities) {
+        return new Interner().of(authorities);
+    }
+
+    /**
+     * 合并权限集合，不同驻留表创建的权限集合合并时使用新的驻留表
+     *
+     * @param values 权限集合
+     * @return 合并后的权限集合
+     */
+    public static AuthorityBitSet union(Collection<AuthorityBitSet> values) {
+        List<AuthorityBitSet> nonEmpty = new ArrayList<>(values.size());
+        for (AuthorityBitSet value : values) {
+            if (!value.isEmpty()) {
+                nonEmpty.add(value);
+            }
+        }
+        if (nonEmpty.isEmpty()) {
+            return EMPTY;
+        }
+        AuthorityBitSet first = nonEmpty.get(0);
+        if (nonEmpty.size() == 1) {
+            return first;
+        }
+        int length = 0;
+        boolean sameInterner = true;
+        Set<String> names = new HashSet<>();
+        for (AuthorityBitSet value : nonEmpty) {
+            length = Math.max(length, value.words.length);
+            names.addAll(value.names);
+            sameInterner = sameInterner && value.interner == first.interner;
+        }
+        if (!sameInterner) {
+            return of(names);
+        }
+        long[] words = new long[length];
+        for (AuthorityBitSet value : nonEmpty) {
+            for (int i = 0; i < value.words.length; i++) {
+                words[i] |= value.words[i];
+            }
+        }
+        return new AuthorityBitSet(first.interner, words, Collections.unmodifiableSet(names));
+    }
+
+    /**
+     * @param authority 权限标识
+     * @return 是否包含权限
+     */
+    public boolean contains(String authority) {
+        Integer id = interner.ids.get(authority);
+        return id != null && get(id);
+    }
+
+    /**
+     * @param authorities 权限标识
+     * @return 是否包含任意一个权限
+     */
+    public boolean containsAny(String... authorities) {
+        for (String authority : authorities) {
+            if (contains(authority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param other 其他权限集合
+     * @return 两个权限集合是否有交集
+     */
+    public boolean intersects(AuthorityBitSet other) {
+        if (interner != other.interner) {
+            Set<String> smaller = names.size() <= other.names.size() ? names : other.names;
+            Set<String> larger = smaller == names ? other.names : names;
+            for (String name : smaller) {
+                if (larger.contains(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        int length = Math.min(words.length, other.words.length);
+        for (int i = 0; i < length; i++) {
+            if ((words[i] & other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return 权限标识集合
+     */
+    public Set<String> getNames() {
+        return names;
+    }
+
+    /**
+     * @return spring security 权限对象集合
+     */
+    public Set<GrantedAuthority> getAuthorities() {
+        Set<GrantedAuthority> result = authorities;
+        if (result == null) {
+            Set<GrantedAuthority> values = new HashSet<>(names.size());
+            for (String name : names) {
+                values.add(new SimpleGrantedAuthority(name));
+            }
+            result = Collections.unmodifiableSet(values);
+            authorities = result;
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return names.isEmpty();
+    }
+
+    private boolean get(int id) {
+        int index = id >>> 6;
+        return index < words.length && (words[index] & (1L << id)) != 0;
+    }
+
+    private static long[] set(long[] words, int id) {
+        int index = id >>> 6;
+        long[] result = index < words.length ? words : Arrays.copyOf(words, index + 1);
+        result[index] |= 1L << id;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return names.toString();
+    }
+
+    /**
+     * 权限标识驻留表，权限标识 -> 连续的整数编号
+     * 同一个驻留表创建的权限集合之间才能进行位运算，持有方在权限数据变化时创建新的驻留表，旧的驻留表随权限集合一起回收
+     */
+    public static final class Interner {
+
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        /**
+         * 创建权限集合
+         *
+         * @param authorities 权限标识
+         * @return 权限集合
+         */
+        public AuthorityBitSet of(Collection<String> authorities) {
+            if (authorities == null || authorities.isEmpty()) {
+                return EMPTY;
+            }
+            long[] words = new long[0];
+            for (String authority : authorities) {
+                words = set(words, intern(authority));
+            }
+            return new AuthorityBitSet(this, words, Collections.unmodifiableSet(new HashSet<>(authorities)));
+        }
+
+        /**
+         * @return 已驻留的权限标识数量
+         */
+        public int size() {
+            return ids.size();
+        }
+
+        private int intern(String authority) {
+            Integer result = ids.get(authority);
+            return result == null ? ids.computeIfAbsent(authority, key -> sequence.getAndIncrement()) : result;
+        }
+    }
+}
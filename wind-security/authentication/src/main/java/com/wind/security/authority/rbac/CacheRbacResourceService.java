@@ -8,7 +8,6 @@ import com.wind.security.core.rbac.RbacResource;
 import com.wind.security.core.rbac.RbacResourceCacheManager;
 import com.wind.security.core.rbac.RbacResourceChangeEvent;
 import com.wind.security.core.rbac.RbacResourceService;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.ApplicationListener;
@@ -17,11 +16,16 @@ import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import javax.annotation.Nonnull;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -31,11 +35,13 @@ import static com.wind.security.WebSecurityConstants.RBAC_USER_ROLE_CACHE_NAME;
 
 /**
  * 基于缓存刷新的rbac资源服务
+ * 1: 资源变更事件携带 id 时按 id 增量更新缓存，否则全量刷新
+ * 2: 每次缓存变更后递增对应资源的版本（{@link #getVersion(Class)}），调用方通过版本判断派生的数据是否需要重建
+ * 3: 缓存条目被淘汰（过期、超出容量）时同样递增版本（{@link RbacResourceCacheManager#addEvictionListener(Consumer)}），派生的数据不会继续使用已淘汰的缓存条目
  *
  * @author wuxp
  * @date 2024-05-15 18:18
  **/
-@AllArgsConstructor
 @Slf4j
 public class CacheRbacResourceService implements RbacResourceService, ApplicationListener<RbacResourceChangeEvent>, DisposableBean {
 
@@ -52,22 +58,63 @@ public class CacheRbacResourceService implements RbacResourceService, Applicatio
      */
     private final Duration refreshInterval;
 
+    /**
+     * 版本序列，每次缓存变更后从该序列获取新的版本
+     */
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    /**
+     * 各类资源缓存的当前版本
+     */
+    private final Map<Class<?>, Long> versions = new ConcurrentHashMap<>();
+
+    private volatile ValuesSnapshot<RbacResource.Permission> permissionsSnapshot;
+
+    private volatile ValuesSnapshot<RbacResource.Role> rolesSnapshot;
+
     private final ScheduledExecutorService schedule = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("web-rbac-resource-refresher"));
 
     public CacheRbacResourceService(RbacResourceService delegate, RbacResourceCacheManager cacheManager, LockFactory lockFactory) {
         this(delegate, cacheManager, lockFactory, Duration.ofMinutes(3));
     }
 
+    public CacheRbacResourceService(RbacResourceService delegate, RbacResourceCacheManager cacheManager, LockFactory lockFactory, Duration refreshInterval) {
+        this.delegate = delegate;
+        this.cacheManager = cacheManager;
+        this.lockFactory = lockFactory;
+        this.refreshInterval = refreshInterval;
+        cacheManager.addEvictionListener(this::onCacheEvicted);
+    }
+
     @Override
     public Set<RbacResource.Permission> getPermissions() {
-        Map<String, RbacResource.Permission> result = getPermissionCache();
-        return result.isEmpty() ? delegate.getPermissions() : ImmutableSet.copyOf(result.values());
+        // 先获取版本再读取缓存，保证快照的数据不会旧于快照版本
+        long version = getVersion(RbacResource.Permission.class);
+        Map<String, RbacResource.Permission> cache = getPermissionCache();
+        if (cache.isEmpty()) {
+            return delegate.getPermissions();
+        }
+        ValuesSnapshot<RbacResource.Permission> snapshot = permissionsSnapshot;
+        if (snapshot == null || !snapshot.isValid(version, cache)) {
+            snapshot = new ValuesSnapshot<>(version, cache);
+            permissionsSnapshot = snapshot;
+        }
+        return snapshot.values;
     }
 
     @Override
     public Set<RbacResource.Role> getRoles() {
-        Map<String, RbacResource.Role> result = getRoleCache();
-        return result.isEmpty() ? delegate.getRoles() : ImmutableSet.copyOf(result.values());
+        long version = getVersion(RbacResource.Role.class);
+        Map<String, RbacResource.Role> cache = getRoleCache();
+        if (cache.isEmpty()) {
+            return delegate.getRoles();
+        }
+        ValuesSnapshot<RbacResource.Role> snapshot = rolesSnapshot;
+        if (snapshot == null || !snapshot.isValid(version, cache)) {
+            snapshot = new ValuesSnapshot<>(version, cache);
+            rolesSnapshot = snapshot;
+        }
+        return snapshot.values;
     }
 
     @Override
@@ -75,6 +122,11 @@ public class CacheRbacResourceService implements RbacResourceService, Applicatio
         return getUserRoleCache();
     }
 
+    @Override
+    public long getVersion(Class<? extends RbacResource> resourceType) {
+        return versions.getOrDefault(resourceType, -1L);
+    }
+
     // TODO 待优化或 remove
     public void startScheduleRefreshCache() {
         log.info("start schedule refresh cache task");
@@ -89,17 +141,29 @@ public class CacheRbacResourceService implements RbacResourceService, Applicatio
     @Override
     public void onApplicationEvent(RbacResourceChangeEvent event) {
         log.info("refresh rbac cache , type = {} , ids = {}", event.getResourceType().getName(), event.getResourceIds());
+        Collection<String> ids = event.getResourceIds();
         if (event.getResourceType() == RbacResource.Permission.class) {
-            refreshPermissionCache();
+            if (ids.isEmpty()) {
+                refreshPermissionCache();
+            } else {
+                refreshPermissionCache(ids);
+            }
         }
 
         if (event.getResourceType() == RbacResource.Role.class) {
-            refreshRoleCache();
+            if (ids.isEmpty()) {
+                refreshRoleCache();
+            } else {
+                refreshRoleCache(ids);
+            }
         }
 
         if (event.getResourceType() == RbacResource.User.class) {
-            // TODO 单个用户刷新
-            refreshUserRoleCache();
+            if (ids.isEmpty()) {
+                refreshUserRoleCache();
+            } else {
+                refreshUserRoleCache(ids);
+            }
         }
         if (event.getResourceType() == RbacResource.class) {
             // 刷新所有 rbac 资源
@@ -139,6 +203,13 @@ public class CacheRbacResourceService implements RbacResourceService, Applicatio
     private void refreshUserRoleCache() {
         // 刷新用户角色缓存
         cacheManager.store(RBAC_USER_ROLE_CACHE_NAME, delegate.getUserRoles());
+        incrementVersion(RbacResource.User.class);
+    }
+
+    private void refreshUserRoleCache(Collection<String> userIds) {
+        Map<String, Set<RbacResource.UserRole>> userRoles = delegate.findUserRoles(userIds);
+        updateCache(RBAC_USER_ROLE_CACHE_NAME, userIds, userRoles);
+        incrementVersion(RbacResource.User.class);
     }
 
     private void refreshPermissionCache() {
@@ -146,6 +217,15 @@ public class CacheRbacResourceService implements RbacResourceService, Applicatio
                 .stream()
                 .collect(Collectors.toMap(RbacResource::getId, Function.identity()));
         cacheManager.store(RBAC_PERMISSION_CACHE_NAME, permissions);
+        incrementVersion(RbacResource.Permission.class);
+    }
+
+    private void refreshPermissionCache(Collection<String> ids) {
+        Map<String, RbacResource.Permission> permissions = delegate.findPermissions(ids)
+                .stream()
+                .collect(Collectors.toMap(RbacResource::getId, Function.identity()));
+        updateCache(RBAC_PERMISSION_CACHE_NAME, ids, permissions);
+        incrementVersion(RbacResource.Permission.class);
     }
 
     private void refreshRoleCache() {
@@ -153,6 +233,44 @@ public class CacheRbacResourceService implements RbacResourceService, Applicatio
                 .stream()
                 .collect(Collectors.toMap(RbacResource::getId, Function.identity()));
         cacheManager.store(RBAC_ROLE_CACHE_NAME, roles);
+        incrementVersion(RbacResource.Role.class);
+    }
+
+    private void refreshRoleCache(Collection<String> ids) {
+        Map<String, RbacResource.Role> roles = delegate.findRoles(ids)
+                .stream()
+                .collect(Collectors.toMap(RbacResource::getId, Function.identity()));
+        updateCache(RBAC_ROLE_CACHE_NAME, ids, roles);
+        incrementVersion(RbacResource.Role.class);
+    }
+
+    /**
+     * 按 id 增量更新缓存，查询不到的 id 视为已删除
+     */
+    private void updateCache(String cacheName, Collection<String> ids, Map<String, ?> entries) {
+        cacheManager.put(cacheName, entries);
+        List<String> removed = ids.stream().filter(id -> !entries.containsKey(id)).collect(Collectors.toList());
+        cacheManager.evict(cacheName, removed);
+    }
+
+    /**
+     * 缓存条目被淘汰后更新版本
+     */
+    private void onCacheEvicted(String cacheName) {
+        if (RBAC_PERMISSION_CACHE_NAME.equals(cacheName)) {
+            incrementVersion(RbacResource.Permission.class);
+        } else if (RBAC_ROLE_CACHE_NAME.equals(cacheName)) {
+            incrementVersion(RbacResource.Role.class);
+        } else if (RBAC_USER_ROLE_CACHE_NAME.equals(cacheName)) {
+            incrementVersion(RbacResource.User.class);
+        }
+    }
+
+    /**
+     * 缓存变更后更新版本，需要在缓存写入之后调用，并发写入时版本只增不减
+     */
+    private void incrementVersion(Class<? extends RbacResource> resourceType) {
+        versions.merge(resourceType, versionSequence.incrementAndGet(), Math::max);
     }
 
     @Nonnull
@@ -184,4 +302,29 @@ public class CacheRbacResourceService implements RbacResourceService, Applicatio
         return (Map<String, T>) result;
     }
 
+    /**
+     * 缓存值集合快照，版本及缓存对象都未变化时复用，避免每次调用都复制集合
+     */
+    private static final class ValuesSnapshot<T> {
+
+        private final long version;
+
+        /**
+         * 创建快照时的缓存对象，缓存管理器每次返回新的缓存对象时（例如：远程缓存）快照不会被复用
+         */
+        private final Map<String, T> cache;
+
+        private final Set<T> values;
+
+        private ValuesSnapshot(long version, Map<String, T> cache) {
+            this.version = version;
+            this.cache = cache;
+            this.values = ImmutableSet.copyOf(cache.values());
+        }
+
+        private boolean isValid(long currentVersion, Map<String, T> currentCache) {
+            return currentVersion >= 0 && version == currentVersion && cache == currentCache;
+        }
+    }
+
 }
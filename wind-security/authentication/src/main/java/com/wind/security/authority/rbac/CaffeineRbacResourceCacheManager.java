@@ -2,41 +2,87 @@ package com.wind.security.authority.rbac;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.Ticker;
 import com.wind.security.core.rbac.RbacResourceCacheManager;
-import lombok.AllArgsConstructor;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * caffeine cache 适配器
+ * 缓存条目过期或超出容量被淘汰时通知 {@link #addEvictionListener(Consumer)} 添加的监听器，
+ * 过期的条目在缓存读写或调度清理（JDK 9 及以上）时移除
  *
  * @author wuxp
  * @date 2023-10-22 11:02
  **/
-@AllArgsConstructor
 public class CaffeineRbacResourceCacheManager implements RbacResourceCacheManager {
 
     private final Map<String, Map<String, Object>> caches = new ConcurrentHashMap<>(8);
 
+    private final List<Consumer<String>> evictionListeners = new CopyOnWriteArrayList<>();
+
     private final Duration cacheEffectiveTime;
 
+    private final Ticker ticker;
+
+    public CaffeineRbacResourceCacheManager(Duration cacheEffectiveTime) {
+        this(cacheEffectiveTime, Ticker.systemTicker());
+    }
+
+    CaffeineRbacResourceCacheManager(Duration cacheEffectiveTime, Ticker ticker) {
+        this.cacheEffectiveTime = cacheEffectiveTime;
+        this.ticker = ticker;
+    }
+
     @Override
     public Map<String, Object> load(String cacheName) {
-        return caches.computeIfAbsent(cacheName, key -> buildRolesCaches(cacheEffectiveTime).asMap());
+        return caches.computeIfAbsent(cacheName, key -> buildRolesCaches(key).asMap());
     }
 
     @Override
     public void store(String cacheName, Map<String, ?> cache) {
-        Cache<String, Object> newCache = buildRolesCaches(cacheEffectiveTime);
+        Cache<String, Object> newCache = buildRolesCaches(cacheName);
         newCache.putAll(cache);
         caches.put(cacheName, newCache.asMap());
     }
 
-    private static Cache<String, Object> buildRolesCaches(Duration cacheEffectiveTime) {
-        return Caffeine.newBuilder()
+    @Override
+    public void put(String cacheName, Map<String, ?> entries) {
+        // 原地更新，避免重建整个缓存
+        load(cacheName).putAll(entries);
+    }
+
+    @Override
+    public void evict(String cacheName, Collection<String> keys) {
+        Map<String, Object> cache = load(cacheName);
+        keys.forEach(cache::remove);
+    }
+
+    @Override
+    public void addEvictionListener(Consumer<String> listener) {
+        evictionListeners.add(listener);
+    }
+
+    private Cache<String, Object> buildRolesCaches(String cacheName) {
+        AtomicReference<Map<String, Object>> current = new AtomicReference<>();
+        Cache<String, Object> result = Caffeine.newBuilder()
+                .ticker(ticker)
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener((key, value, cause) -> {
+                    // 忽略已被替换的缓存
+                    if (cause.wasEvicted() && caches.get(cacheName) == current.get()) {
+                        evictionListeners.forEach(listener -> listener.accept(cacheName));
+                    }
+                })
                 // 设置最后一次写入或访问后经过固定时间过期
                 .expireAfterWrite(cacheEffectiveTime.getSeconds() + 10, TimeUnit.SECONDS)
                 // 初始的缓存空间大小
@@ -44,6 +90,8 @@ public class CaffeineRbacResourceCacheManager implements RbacResourceCacheManage
                 // 缓存的最大条数
                 .maximumSize(200000)
                 .build();
+        current.set(result.asMap());
+        return result;
     }
 
 }
@@ -0,0 +1,172 @@
+package com.wind.security.authority.rbac;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.wind.security.authentication.jwt.JwtUser;
+import com.wind.security.authority.AuthorityBitSet;
+import com.wind.security.core.rbac.RbacResource;
+import com.wind.security.core.rbac.RbacResourceService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 基于 rbac 资源的用户权限加载器，用户权限由 用户角色 -> 角色 -> 权限 推导，包含用户拥有的权限 id 以及角色（角色前缀 + 角色 id）
+ * 1: 每个角色的权限预先计算为 {@link AuthorityBitSet}，用户权限为用户角色权限的并集，角色权限变化时使用新的 {@link AuthorityBitSet.Interner} 重新计算
+ * 2: 用户权限按照用户缓存，角色或用户角色的版本（{@link RbacResourceService#getVersion(Class)}）变化以及用户角色过期后重新计算
+ * 3: rbac 资源不支持版本时不缓存用户权限，角色集合引用未变化时复用角色权限
+ *
+ * @author wuxp
+ * @date 2024-08-19 10:20
+ **/
+public class RbacUserAuthoritySupplier implements Function<JwtUser, Set<String>> {
+
+    private final RbacResourceService rbacResourceService;
+
+    /**
+     * 角色权限前缀
+     */
+    private final String rolePrefix;
+
+    private final Cache<String, UserAuthorities> userAuthorities;
+
+    private volatile RoleAuthorities roleAuthorities;
+
+    public RbacUserAuthoritySupplier(RbacResourceService rbacResourceService, String rolePrefix) {
+        this(rbacResourceService, rolePrefix, 100000);
+    }
+
+    public RbacUserAuthoritySupplier(RbacResourceService rbacResourceService, String rolePrefix, long maximumSize) {
+        this.rbacResourceService = rbacResourceService;
+        this.rolePrefix = rolePrefix;
+        this.userAuthorities = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+    }
+
+    @Override
+    public Set<String> apply(JwtUser user) {
+        return getAuthorities(String.valueOf(user.getId())).getNames();
+    }
+
+    /**
+     * 获取用户拥有的权限
+     *
+     * @param userId 用户 id
+     * @return 权限集合
+     */
+    public AuthorityBitSet getAuthorities(String userId) {
+        long roleVersion = rbacResourceService.getVersion(RbacResource.Role.class);
+        long userVersion = rbacResourceService.getVersion(RbacResource.User.class);
+        boolean versioned = roleVersion >= 0 && userVersion >= 0;
+        if (versioned) {
+            UserAuthorities result = userAuthorities.getIfPresent(userId);
+            if (result != null && result.isValid(roleVersion, userVersion)) {
+                return result.authorities;
+            }
+        }
+        UserAuthorities result = loadUserAuthorities(userId, roleVersion, userVersion);
+        if (versioned) {
+            userAuthorities.put(userId, result);
+        }
+        return result.authorities;
+    }
+
+    private UserAuthorities loadUserAuthorities(String userId, long roleVersion, long userVersion) {
+        Map<String, AuthorityBitSet> roles = getRoleAuthorities(roleVersion);
+        long now = System.currentTimeMillis();
+        long expireTime = Long.MAX_VALUE;
+        List<AuthorityBitSet> values = new ArrayList<>();
+        for (RbacResource.UserRole userRole : rbacResourceService.getUserRoles().getOrDefault(userId, Collections.emptySet())) {
+            Long roleExpireTime = userRole.getExpireTime();
+            if (roleExpireTime != null && roleExpireTime <= now) {
+                // 已过期
+                continue;
+            }
+            AuthorityBitSet role = roles.get(userRole.getRoleId());
+            if (role != null) {
+                values.add(role);
+                if (roleExpireTime != null) {
+                    expireTime = Math.min(expireTime, roleExpireTime);
+                }
+            }
+        }
+        return new UserAuthorities(roleVersion, userVersion, expireTime, AuthorityBitSet.union(values));
+    }
+
+    private Map<String, AuthorityBitSet> getRoleAuthorities(long version) {
+        RoleAuthorities result = roleAuthorities;
+        if (result != null && version >= 0 && result.version == version) {
+            return result.roles;
+        }
+        Set<RbacResource.Role> values = rbacResourceService.getRoles();
+        if (result != null && result.values == values) {
+            // 不支持版本时，角色集合未变化则复用
+            return result.roles;
+        }
+        // 权限标识编号只在当前版本的角色权限中有效，重建时不保留已删除的权限标识
+        AuthorityBitSet.Interner interner = new AuthorityBitSet.Interner();
+        Map<String, AuthorityBitSet> roles = new HashMap<>();
+        for (RbacResource.Role role : values) {
+            Set<String> authorities = new HashSet<>(role.getPermissions());
+            authorities.add(rolePrefix + role.getId());
+            roles.put(role.getId(), interner.of(authorities));
+        }
+        roleAuthorities = new RoleAuthorities(version, values, roles);
+        return roles;
+    }
+
+    private static final class RoleAuthorities {
+
+        private final long version;
+
+        /**
+         * 计算角色权限使用的角色集合，不支持版本时通过引用判断是否发生变化
+         */
+        private final Set<RbacResource.Role> values;
+
+        /**
+         * 角色 id -> 角色权限
+         */
+        private final Map<String, AuthorityBitSet> roles;
+
+        private RoleAuthorities(long version, Set<RbacResource.Role> values, Map<String, AuthorityBitSet> roles) {
+            this.version = version;
+            this.values = values;
+            this.roles = roles;
+        }
+    }
+
+    private static final class UserAuthorities {
+
+        private final long roleVersion;
+
+        private final long userVersion;
+
+        /**
+         * 用户角色最早的过期时间
+         */
+        private final long expireTime;
+
+        private final AuthorityBitSet authorities;
+
+        private UserAuthorities(long roleVersion, long userVersion, long expireTime, AuthorityBitSet authorities) {
+            this.roleVersion = roleVersion;
+            this.userVersion = userVersion;
+            this.expireTime = expireTime;
+            this.authorities = authorities;
+        }
+
+        private boolean isValid(long currentRoleVersion, long currentUserVersion) {
+            return roleVersion == currentRoleVersion && userVersion == currentUserVersion && System.currentTimeMillis() < expireTime;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.wind.security.authority.rbac;
+
+import com.wind.common.WindConstants;
+import com.wind.security.core.rbac.RbacResource;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.util.StringUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 预编译的请求权限索引，将权限的 ant 路径按照 '/' 分段构建为前缀树，请求匹配的复杂度与请求路径长度相关，与权限数量无关
+ * 1: 支持的路径段：字面量、'*'、'{name}'、'**'，其他复杂的路径段（例如：'*.json'、'{id:\\d+}'）以及以 '/' 结尾的路径退化为 {@link AntPathRequestMatcher} 线性匹配
+ * 2: 匹配规则与 {@link AntPathRequestMatcher} 保持一致（区分大小写）
+ * 3: 索引创建后不可变，权限变化时重新创建并整体替换
+ *
+ * @author wuxp
+ * @date 2024-08-18 10:05
+ **/
+public final class RequestPermissionIndex {
+
+    private static final String PATH_SEPARATOR = "/";
+
+    private static final String DOUBLE_WILDCARD = "**";
+
+    private static final String[] EMPTY_SEGMENTS = new String[0];
+
+    private static final RequestPermissionIndex EMPTY = new RequestPermissionIndex(new Node(), Collections.emptyList(), 0);
+
+    private final Node root;
+
+    /**
+     * 无法使用前缀树匹配的权限
+     */
+    private final List<FallbackEntry> fallbacks;
+
+    /**
+     * 索引的权限数量
+     */
+    private final int size;
+
+    private RequestPermissionIndex(Node root, List<FallbackEntry> fallbacks, int size) {
+        this.root = root;
+        this.fallbacks = fallbacks;
+        this.size = size;
+    }
+
+    /**
+     * 创建请求权限索引
+     *
+     * @param permissions 权限列表，权限内容为 ant 路径，格式：{method} {path} 或 {path}
+     * @return 请求权限索引
+     */
+    public static RequestPermissionIndex build(Collection<? extends RbacResource.Permission> permissions) {
+        if (permissions == null || permissions.isEmpty()) {
+            return EMPTY;
+        }
+        Node root = new Node();
+        List<FallbackEntry> fallbacks = new ArrayList<>();
+        int size = 0;
+        for (RbacResource.Permission permission : permissions) {
+            if (permission == null || permission.getAttributes() == null) {
+                continue;
+            }
+            for (String attribute : permission.getAttributes()) {
+                String pattern = attribute;
+                HttpMethod method = null;
+                if (attribute.contains(WindConstants.SPACE)) {
+                    String[] parts = attribute.split(WindConstants.SPACE);
+                    method = HttpMethod.valueOf(parts[0]);
+                    pattern = parts[1];
+                }
+                if (!insert(root, pattern, new Entry(permission.getId(), method))) {
+                    fallbacks.add(new FallbackEntry(permission.getId(), new AntPathRequestMatcher(pattern, method == null ? null : method.name())));
+                }
+            }
+            size++;
+        }
+        return new RequestPermissionIndex(root, fallbacks.isEmpty() ? Collections.emptyList() : fallbacks, size);
+    }
+
+    /**
+     * 匹配请求需要的权限
+     *
+     * @param request            请求
+     * @param matchesAllPermission 是否返回所有匹配的权限，为 false 时匹配到一个权限即返回
+     * @return 权限 id 集合
+     */
+    public Set<String> matches(HttpServletRequest request, boolean matchesAllPermission) {
+        Set<String> result = matches(request.getMethod(), getRequestPath(request), matchesAllPermission);
+        if (fallbacks.isEmpty() || (!matchesAllPermission && !result.isEmpty())) {
+            return result;
+        }
+        for (FallbackEntry entry : fallbacks) {
+            if (entry.matcher.matches(request)) {
+                result.add(entry.permissionId);
+                if (!matchesAllPermission) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 使用前缀树匹配请求需要的权限，不包含退化为线性匹配的权限
+     *
+     * @param method               请求方法
+     * @param path                 请求路径
+     * @param matchesAllPermission 是否返回所有匹配的权限，为 false 时匹配到一个权限即返回
+     * @return 权限 id 集合
+     */
+    Set<String> matches(@Nullable String method, String path, boolean matchesAllPermission) {
+        Matching matching = new Matching(method, path.endsWith(PATH_SEPARATOR), matchesAllPermission);
+        if (path.startsWith(PATH_SEPARATOR)) {
+            match(root, tokenize(path), 0, matching);
+        } else if (root.doubleWildcard != null) {
+            // 不以 '/' 开头的路径只能被 '/**' 匹配
+            matching.collect(root.doubleWildcard.entries);
+        }
+        return matching.result;
+    }
+
+    /**
+     * @return 索引的权限数量
+     */
+    public int size() {
+        return size;
+    }
+
+    private static void match(Node node, String[] segments, int index, Matching matching) {
+        if (matching.isDone()) {
+            return;
+        }
+        if (node.doubleWildcard != null) {
+            // '**' 匹配 0 到多个路径段
+            for (int i = index; i <= segments.length && !matching.isDone(); i++) {
+                match(node.doubleWildcard, segments, i, matching);
+            }
+        }
+        if (index == segments.length) {
+            if (!matching.trailingSlash || node.isDoubleWildcard) {
+                matching.collect(node.entries);
+            } else if (node.star != null) {
+                // '/' 结尾的请求路径只能被 '**' 结尾的权限匹配，AntPathMatcher 中 '/a/*' 也可以匹配 '/a/'
+                matching.collect(node.star.entries);
+            }
+            return;
+        }
+        Node literal = node.literals.get(segments[index]);
+        if (literal != null) {
+            match(literal, segments, index + 1, matching);
+        }
+        if (node.star != null) {
+            match(node.star, segments, index + 1, matching);
+        }
+        if (node.variable != null) {
+            match(node.variable, segments, index + 1, matching);
+        }
+    }
+
+    /**
+     * 将权限路径插入到前缀树中
+     *
+     * @return 路径包含不支持的路径段时返回 false
+     */
+    private static boolean insert(Node root, String pattern, Entry entry) {
+        if (!pattern.startsWith(PATH_SEPARATOR) || pattern.endsWith(PATH_SEPARATOR)) {
+            return false;
+        }
+        String[] segments = tokenize(pattern);
+        for (String segment : segments) {
+            if (!isSupportedSegment(segment)) {
+                return false;
+            }
+        }
+        Node node = root;
+        for (String segment : segments) {
+            node = node.child(segment);
+        }
+        node.entries.add(entry);
+        return true;
+    }
+
+    private static boolean isSupportedSegment(String segment) {
+        if (DOUBLE_WILDCARD.equals(segment) || "*".equals(segment)) {
+            return true;
+        }
+        if (isVariable(segment)) {
+            // 不包含正则的路径变量
+            return segment.indexOf(':') < 0;
+        }
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c == '*' || c == '?' || c == '{' || c == '}') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVariable(String segment) {
+        return segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}' && segment.indexOf('{', 1) < 0;
+    }
+
+    /**
+     * 按照 '/' 分割路径，忽略空的路径段（与 AntPathMatcher 保持一致）
+     */
+    private static String[] tokenize(String path) {
+        int length = path.length();
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (path.charAt(i) != '/' && (i == 0 || path.charAt(i - 1) == '/')) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return EMPTY_SEGMENTS;
+        }
+        String[] result = new String[count];
+        int index = 0;
+        int begin = -1;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == '/') {
+                if (begin >= 0) {
+                    result[index++] = path.substring(begin, i);
+                    begin = -1;
+                }
+            } else if (begin < 0) {
+                begin = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 与 {@link AntPathRequestMatcher} 获取请求路径的方式保持一致
+     */
+    private static String getRequestPath(HttpServletRequest request) {
+        String url = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        if (pathInfo != null) {
+            url = StringUtils.hasLength(url) ? url + pathInfo : pathInfo;
+        }
+        return url;
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> literals = new HashMap<>();
+
+        private final List<Entry> entries = new ArrayList<>(1);
+
+        /**
+         * '*'
+         */
+        private Node star;
+
+        /**
+         * '{name}'
+         */
+        private Node variable;
+
+        /**
+         * '**'
+         */
+        private Node doubleWildcard;
+
+        private boolean isDoubleWildcard;
+
+        private Node child(String segment) {
+            if (DOUBLE_WILDCARD.equals(segment)) {
+                if (doubleWildcard == null) {
+                    doubleWildcard = new Node();
+                    doubleWildcard.isDoubleWildcard = true;
+                }
+                return doubleWildcard;
+            }
+            if ("*".equals(segment)) {
+                if (star == null) {
+                    star = new Node();
+                }
+                return star;
+            }
+            if (isVariable(segment)) {
+                if (variable == null) {
+                    variable = new Node();
+                }
+                return variable;
+            }
+            return literals.computeIfAbsent(segment, key -> new Node());
+        }
+    }
+
+    private static final class Entry {
+
+        private final String permissionId;
+
+        /**
+         * 为空表示匹配所有请求方法
+         */
+        @Nullable
+        private final HttpMethod method;
+
+        private Entry(String permissionId, @Nullable HttpMethod method) {
+            this.permissionId = permissionId;
+            this.method = method;
+        }
+    }
+
+    private static final class FallbackEntry {
+
+        private final String permissionId;
+
+        private final AntPathRequestMatcher matcher;
+
+        private FallbackEntry(String permissionId, AntPathRequestMatcher matcher) {
+            this.permissionId = permissionId;
+            this.matcher = matcher;
+        }
+    }
+
+    private static final class Matching {
+
+        /**
+         * 请求方法为空时与 AntPathRequestMatcher 一致，视为匹配所有请求方法
+         */
+        private final boolean anyMethod;
+
+        /**
+         * 无法识别的请求方法为 null
+         */
+        @Nullable
+        private final HttpMethod method;
+
+        private final boolean trailingSlash;
+
+        private final boolean matchesAllPermission;
+
+        private final Set<String> result = new LinkedHashSet<>();
+
+        private Matching(@Nullable String method, boolean trailingSlash, boolean matchesAllPermission) {
+            this.anyMethod = !StringUtils.hasText(method);
+            this.method = anyMethod ? null : HttpMethod.resolve(method);
+            this.trailingSlash = trailingSlash;
+            this.matchesAllPermission = matchesAllPermission;
+        }
+
+        private void collect(List<Entry> entries) {
+            for (Entry entry : entries) {
+                if (entry.method == null || anyMethod || entry.method == method) {
+                    result.add(entry.permissionId);
+                    if (isDone()) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private boolean isDone() {
+            return !matchesAllPermission && !result.isEmpty();
+        }
+    }
+}
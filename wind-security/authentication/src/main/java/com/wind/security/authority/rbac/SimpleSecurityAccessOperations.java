@@ -1,10 +1,14 @@
 package com.wind.security.authority.rbac;
 
 import com.wind.common.WindConstants;
+import com.wind.security.authority.AuthorityBitSet;
 import com.wind.security.core.SecurityAccessOperations;
+import com.wind.security.web.context.JwtAuthenticationToken;
 import lombok.AllArgsConstructor;
+import org.springframework.lang.Nullable;
 import org.springframework.security.authorization.AuthorityAuthorizationManager;
 import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.util.Collections;
@@ -29,14 +33,39 @@ public class SimpleSecurityAccessOperations implements SecurityAccessOperations
 
     @Override
     public boolean hasAnyAuthority(String... authorities) {
+        AuthorityBitSet authorityBitSet = getAuthorityBitSet();
+        if (authorityBitSet != null) {
+            return authorityBitSet.containsAny(authorities);
+        }
         return isGranted(AuthorityAuthorizationManager.hasAnyAuthority(authorities));
     }
 
     @Override
     public boolean hasAnyRole(String... roles) {
+        AuthorityBitSet authorityBitSet = getAuthorityBitSet();
+        if (authorityBitSet != null) {
+            for (String role : roles) {
+                if (authorityBitSet.contains(rolePrefix + role)) {
+                    return true;
+                }
+            }
+            return false;
+        }
         return isGranted(AuthorityAuthorizationManager.hasAnyRole(rolePrefix, roles));
     }
 
+    /**
+     * @return 当前用户位图表示的权限，不存在时返回 null
+     */
+    @Nullable
+    private static AuthorityBitSet getAuthorityBitSet() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof JwtAuthenticationToken && authentication.isAuthenticated()) {
+            return ((JwtAuthenticationToken) authentication).getAuthorityBitSet();
+        }
+        return null;
+    }
+
     private boolean isGranted(AuthorizationManager<Object> manager) {
         return manager.check(SecurityContextHolder.getContext()::getAuthentication, Collections.emptyList()).isGranted();
     }
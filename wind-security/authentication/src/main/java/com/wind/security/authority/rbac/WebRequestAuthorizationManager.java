@@ -1,8 +1,8 @@
 package com.wind.security.authority.rbac;
 
 import com.wind.security.core.SecurityAccessOperations;
+import com.wind.security.core.rbac.RbacResource;
 import com.wind.security.core.rbac.RbacResourceService;
-import com.wind.security.web.util.RequestMatcherUtils;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.Nullable;
@@ -10,14 +10,9 @@ import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
-import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.util.ObjectUtils;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
 
@@ -29,7 +24,6 @@ import static com.wind.security.WebSecurityConstants.REQUEST_REQUIRED_PERMISSION
  * @author wuxp
  * @date 2023-10-23 08:52
  **/
-@AllArgsConstructor
 @Slf4j
 public class WebRequestAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
 
@@ -47,6 +41,14 @@ public class WebRequestAuthorizationManager implements AuthorizationManager<Requ
      */
     private final boolean matchesRequestAllPermission;
 
+    private volatile PermissionIndexSnapshot indexSnapshot;
+
+    public WebRequestAuthorizationManager(RbacResourceService rbacResourceService, SecurityAccessOperations securityAccessOperations, boolean matchesRequestAllPermission) {
+        this.rbacResourceService = rbacResourceService;
+        this.securityAccessOperations = securityAccessOperations;
+        this.matchesRequestAllPermission = matchesRequestAllPermission;
+    }
+
     @Nullable
     @Override
     public AuthorizationDecision check(Supplier<Authentication> supplier, RequestAuthorizationContext context) {
@@ -79,25 +81,40 @@ public class WebRequestAuthorizationManager implements AuthorizationManager<Requ
      * @return 当前请求需要的角色权限
      */
     private Set<String> matchesRequestPermissions(HttpServletRequest request) {
-        Set<String> result = new HashSet<>();
-        for (Map.Entry<String, Set<RequestMatcher>> entry : getRequestPermissionMatchers().entrySet()) {
-            if (RequestMatcherUtils.matches(entry.getValue(), request)) {
-                // 权限匹配
-                result.add(entry.getKey());
-                if (!matchesRequestAllPermission) {
-                    //非匹配所有权限模式， 匹配到了则返回
-                    break;
-                }
-            }
+        // 非匹配所有权限模式， 匹配到了则返回
+        return getRequestPermissionIndex().matches(request, matchesRequestAllPermission);
+    }
+
+    RequestPermissionIndex getRequestPermissionIndex() {
+        long version = rbacResourceService.getVersion(RbacResource.Permission.class);
+        PermissionIndexSnapshot snapshot = indexSnapshot;
+        if (snapshot != null && version >= 0 && snapshot.version == version) {
+            // 权限版本未变化
+            return snapshot.index;
         }
+        Set<RbacResource.Permission> permissions = rbacResourceService.getPermissions();
+        if (snapshot != null && snapshot.permissions == permissions) {
+            return snapshot.index;
+        }
+        // 权限发生变化时重建索引并整体替换
+        RequestPermissionIndex result = RequestPermissionIndex.build(permissions);
+        indexSnapshot = new PermissionIndexSnapshot(version, permissions, result);
         return result;
     }
 
-    private Map<String, Set<RequestMatcher>> getRequestPermissionMatchers() {
-        Map<String, Set<RequestMatcher>> result = new HashMap<>();
-        rbacResourceService.getPermissions().stream()
-                .filter(Objects::nonNull)
-                .forEach(permission -> result.put(permission.getId(), RequestMatcherUtils.convertMatchers(permission.getAttributes())));
-        return result;
+    @AllArgsConstructor
+    private static final class PermissionIndexSnapshot {
+
+        /**
+         * 创建索引时的权限版本
+         */
+        private final long version;
+
+        /**
+         * 创建索引使用的权限集合，不支持版本时通过引用判断是否发生变化
+         */
+        private final Set<RbacResource.Permission> permissions;
+
+        private final RequestPermissionIndex index;
     }
 }
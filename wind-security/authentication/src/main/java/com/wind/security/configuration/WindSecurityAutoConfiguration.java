@@ -7,6 +7,7 @@ import com.wind.security.authentication.jwt.JwtProperties;
 import com.wind.security.authentication.jwt.JwtTokenCodec;
 import com.wind.security.authority.rbac.CacheRbacResourceService;
 import com.wind.security.authority.rbac.CaffeineRbacResourceCacheManager;
+import com.wind.security.authority.rbac.RbacUserAuthoritySupplier;
 import com.wind.security.authority.rbac.SimpleSecurityAccessOperations;
 import com.wind.security.authority.rbac.WebRequestAuthorizationManager;
 import com.wind.security.authority.rbac.WindSecurityRbacProperties;
@@ -105,6 +106,17 @@ public class WindSecurityAutoConfiguration {
         return new SimpleSecurityAccessOperations(properties.getRolePrefix());
     }
 
+    /**
+     * 基于 rbac 资源的用户权限加载器，类型为 {@link java.util.function.Function}，需要显式开启，避免和应用自定义的权限加载器冲突
+     */
+    @Bean
+    @ConditionalOnMissingBean(RbacUserAuthoritySupplier.class)
+    @ConditionalOnProperty(prefix = RBAC_PREFIX + ".user-authority-supplier", name = ENABLED_NAME, havingValue = TRUE)
+    @ConditionalOnBean({WindSecurityRbacProperties.class, RbacResourceService.class})
+    public RbacUserAuthoritySupplier rbacUserAuthoritySupplier(RbacResourceService rbacResourceService, WindSecurityRbacProperties properties) {
+        return new RbacUserAuthoritySupplier(rbacResourceService, properties.getRolePrefix());
+    }
+
     @Bean
     @ConditionalOnBean({WindSecurityRbacProperties.class, RbacResourceService.class})
     public WebRequestAuthorizationManager webRequestAuthorizationManager(RbacResourceService rbacResourceService, SecurityAccessOperations securityAccessOperations, WindSecurityRbacProperties properties) {
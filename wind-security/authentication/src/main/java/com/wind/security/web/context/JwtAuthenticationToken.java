@@ -1,8 +1,10 @@
 package com.wind.security.web.context;
 
+import com.wind.security.authority.AuthorityBitSet;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
+import org.springframework.lang.Nullable;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.SpringSecurityCoreVersion;
@@ -16,8 +18,8 @@ import java.util.Collection;
  * @date 2023-10-26 12:44
  **/
 @Getter
-@EqualsAndHashCode(callSuper = true)
-@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true, exclude = "authorityBitSet")
+@ToString(callSuper = true, exclude = "authorityBitSet")
 public class JwtAuthenticationToken extends AbstractAuthenticationToken {
 
     private static final long serialVersionUID = SpringSecurityCoreVersion.SERIAL_VERSION_UID;
@@ -26,10 +28,25 @@ public class JwtAuthenticationToken extends AbstractAuthenticationToken {
 
     private final Object credentials;
 
+    /**
+     * 位图表示的权限，用于快速判断权限，可能为空
+     */
+    @Nullable
+    private final transient AuthorityBitSet authorityBitSet;
+
     public JwtAuthenticationToken(Object principal, Object credentials, Collection<? extends GrantedAuthority> authorities) {
         super(authorities);
         this.principal = principal;
         this.credentials = credentials;
+        this.authorityBitSet = null;
+        setAuthenticated(true);
+    }
+
+    public JwtAuthenticationToken(Object principal, Object credentials, AuthorityBitSet authorities) {
+        super(authorities.getAuthorities());
+        this.principal = principal;
+        this.credentials = credentials;
+        this.authorityBitSet = authorities;
         setAuthenticated(true);
     }
 
@@ -37,6 +54,7 @@ public class JwtAuthenticationToken extends AbstractAuthenticationToken {
         super(null);
         this.principal = principal;
         this.credentials = credentials;
+        this.authorityBitSet = null;
         setAuthenticated(false);
     }
 }
@@ -1,13 +1,15 @@
 package com.wind.security.web.context;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.wind.common.exception.BaseException;
 import com.wind.security.authentication.jwt.JwtToken;
 import com.wind.security.authentication.jwt.JwtTokenCodec;
 import com.wind.security.authentication.jwt.JwtUser;
+import com.wind.security.authority.AuthorityBitSet;
+import com.wind.security.authority.rbac.RbacUserAuthoritySupplier;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpHeaders;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextImpl;
 import org.springframework.security.web.context.HttpRequestResponseHolder;
@@ -16,10 +18,10 @@ import org.springframework.security.web.context.SecurityContextRepository;
 import javax.annotation.Nonnull;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 import static com.wind.security.WebSecurityConstants.LOGIN_JWT_TOKEN_INVALID;
 import static org.springframework.security.web.context.HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY;
@@ -47,6 +49,16 @@ public class JwtSecurityContextRepository implements SecurityContextRepository {
      */
     private final String headerName;
 
+    /**
+     * 权限集合缓存，key 为 jwt token 的摘要，同一个 token 在有效期内的重复请求权限未变化时不需要重新创建权限集合
+     * token 每次都通过 {@link JwtTokenCodec#parse(String)} 验证（过期、吊销），跳过签名验证由 {@link JwtTokenCodec} 的已验证 token 缓存负责
+     * 只缓存不可变的权限位图，每个请求创建新的 {@link JwtAuthenticationToken}，避免并发请求共享可变的认证对象
+     */
+    private final Cache<String, AuthorityBitSet> tokenAuthorities = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
     public JwtSecurityContextRepository(JwtTokenCodec jwtTokenCodec, Function<JwtUser, Set<String>> authoritySupplier) {
         this(jwtTokenCodec, authoritySupplier, HttpHeaders.AUTHORIZATION);
     }
@@ -83,9 +95,30 @@ public class JwtSecurityContextRepository implements SecurityContextRepository {
         if (payload == null) {
             return EMPTY;
         }
-        // 加载用户权限
-        Set<SimpleGrantedAuthority> authorities = authoritySupplier.apply(payload.getUser()).stream().map(SimpleGrantedAuthority::new).collect(Collectors.toSet());
-        Authentication authentication = new JwtAuthenticationToken(payload.getUser(), jwtToken, authorities);
-        return new SecurityContextImpl(authentication);
+        JwtUser user = payload.getUser();
+        return new SecurityContextImpl(new JwtAuthenticationToken(user, jwtToken, loadAuthorities(jwtToken, user)));
+    }
+
+    /**
+     * 加载用户权限，权限未变化时复用上一次创建的权限集合
+     *
+     * @param jwtToken jwt token
+     * @param user     用户
+     * @return 用户权限
+     */
+    private AuthorityBitSet loadAuthorities(String jwtToken, JwtUser user) {
+        if (authoritySupplier instanceof RbacUserAuthoritySupplier) {
+            // 权限加载器自身按用户缓存了权限位图
+            return ((RbacUserAuthoritySupplier) authoritySupplier).getAuthorities(String.valueOf(user.getId()));
+        }
+        Set<String> authorities = authoritySupplier.apply(user);
+        String key = JwtTokenCodec.digest(jwtToken);
+        AuthorityBitSet previous = tokenAuthorities.getIfPresent(key);
+        if (previous != null && (previous.getNames() == authorities || previous.getNames().equals(authorities))) {
+            return previous;
+        }
+        AuthorityBitSet result = AuthorityBitSet.of(authorities);
+        tokenAuthorities.put(key, result);
+        return result;
     }
 }
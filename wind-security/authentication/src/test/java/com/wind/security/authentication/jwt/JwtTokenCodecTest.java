@@ -1,6 +1,9 @@
 package com.wind.security.authentication.jwt;
 
 import com.wind.common.exception.BaseException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.util.Base64Utils;
@@ -9,7 +12,10 @@ import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 class JwtTokenCodecTest {
 
@@ -39,6 +45,54 @@ class JwtTokenCodecTest {
         Assertions.assertEquals("登录令牌已失效，请重新登陆", exception.getMessage());
     }
 
+    @Test
+    void testVerifiedTokenCache() {
+        JwtProperties properties = jwtProperties(null);
+        properties.setVerifiedTokenCacheSize(16);
+        JwtTokenCodec codec = new JwtTokenCodec(properties);
+        String tokenValue = codec.encoding(new JwtUser(1L, "", Collections.emptyMap())).getTokenValue();
+        JwtToken token = codec.parse(tokenValue);
+        Assertions.assertSame(token, codec.parse(tokenValue));
+        Assertions.assertEquals(1, codec.getVerifiedTokenCacheStats().hitCount());
+        Assertions.assertEquals(1, codec.getVerifiedTokenCacheStats().missCount());
+        Assertions.assertNull(jwtTokenCodec.getVerifiedTokenCacheStats());
+    }
+
+    @Test
+    void testVerifiedTokenCacheMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            JwtProperties properties = jwtProperties(null);
+            properties.setVerifiedTokenCacheSize(16);
+            new JwtTokenCodec(properties);
+            new JwtTokenCodec(properties);
+            Collection<Gauge> gauges = registry.find("cache.size").gauges();
+            Set<String> cacheNames = gauges.stream().map(gauge -> gauge.getId().getTag("cache")).collect(Collectors.toSet());
+            Assertions.assertTrue(gauges.size() >= 2);
+            Assertions.assertEquals(gauges.size(), cacheNames.size());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
+    @Test
+    void testRevokeToken() {
+        JwtProperties properties = jwtProperties(null);
+        properties.setVerifiedTokenCacheSize(16);
+        JwtTokenCodec codec = new JwtTokenCodec(properties);
+        String tokenValue = codec.encoding(new JwtUser(1L, "", Collections.emptyMap())).getTokenValue();
+        codec.parse(tokenValue);
+        codec.revoke(tokenValue);
+        Assertions.assertTrue(codec.isRevoked(tokenValue));
+        BaseException exception = Assertions.assertThrows(BaseException.class, () -> codec.parse(tokenValue));
+        Assertions.assertEquals("登录令牌已失效，请重新登陆", exception.getMessage());
+
+        String other = jwtTokenCodec.encoding(new JwtUser(2L, "", Collections.emptyMap())).getTokenValue();
+        jwtTokenCodec.revoke(other);
+        Assertions.assertThrows(BaseException.class, () -> jwtTokenCodec.parse(other));
+    }
+
 
     private JwtProperties jwtProperties(Duration duration) {
         KeyPair keyPair = genKeyPir();
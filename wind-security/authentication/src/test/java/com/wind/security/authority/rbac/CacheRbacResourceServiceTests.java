@@ -0,0 +1,175 @@
+package com.wind.security.authority.rbac;
+
+import com.wind.security.authority.AuthorityBitSet;
+import com.wind.security.core.SecurityAccessOperations;
+import com.wind.security.core.rbac.RbacResource;
+import com.wind.security.core.rbac.RbacResourceChangeEvent;
+import com.wind.security.core.rbac.RbacResourceService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.wind.security.WebSecurityConstants.RBAC_PERMISSION_CACHE_NAME;
+
+/**
+ * @author wuxp
+ * @date 2024-08-18 15:30
+ **/
+class CacheRbacResourceServiceTests {
+
+    private final Map<String, RbacResource.Permission> permissions = new ConcurrentHashMap<>();
+
+    private final Map<String, RbacResource.Role> roles = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<RbacResource.UserRole>> userRoles = new ConcurrentHashMap<>();
+
+    private final AtomicInteger fullLoadCount = new AtomicInteger();
+
+    private CacheRbacResourceService rbacResourceService;
+
+    @BeforeEach
+    void setup() {
+        permissions.put("1", RbacResource.Permission.immutable("1", "p1", "/api/p1"));
+        permissions.put("2", RbacResource.Permission.immutable("2", "p2", "/api/p2"));
+        roles.put("r1", RbacResource.Role.immutable("r1", "r1", new HashSet<>(Arrays.asList("1", "2"))));
+        userRoles.put("u1", Collections.singleton(RbacResource.UserRole.immutable("r1")));
+        rbacResourceService = new CacheRbacResourceService(new MemoryRbacResourceService(), new CaffeineRbacResourceCacheManager(Duration.ofMinutes(3)), key -> null);
+        rbacResourceService.onApplicationEvent(mockEvent(RbacResource.class));
+        fullLoadCount.set(0);
+    }
+
+    @Test
+    void testRefreshPermissionsByIds() {
+        long version = rbacResourceService.getVersion(RbacResource.Permission.class);
+        Set<RbacResource.Permission> snapshot = rbacResourceService.getPermissions();
+        Assertions.assertTrue(version >= 0);
+        Assertions.assertSame(snapshot, rbacResourceService.getPermissions());
+
+        permissions.put("1", RbacResource.Permission.immutable("1", "p1-changed", "/api/p1"));
+        permissions.remove("2");
+        rbacResourceService.onApplicationEvent(mockEvent(RbacResource.Permission.class, "1", "2"));
+
+        Assertions.assertTrue(rbacResourceService.getVersion(RbacResource.Permission.class) > version);
+        Set<RbacResource.Permission> result = rbacResourceService.getPermissions();
+        Assertions.assertNotSame(snapshot, result);
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals("p1-changed", result.iterator().next().getName());
+        Assertions.assertEquals(0, fullLoadCount.get());
+    }
+
+    @Test
+    void testRefreshUserRolesByIds() {
+        long roleVersion = rbacResourceService.getVersion(RbacResource.Role.class);
+        userRoles.put("u2", Collections.singleton(RbacResource.UserRole.immutable("r1")));
+        userRoles.remove("u1");
+        rbacResourceService.onApplicationEvent(mockEvent(RbacResource.User.class, "u1", "u2"));
+
+        Assertions.assertEquals(Collections.singleton("r1"), rbacResourceService.findOwnerRoleIds("u2"));
+        Assertions.assertTrue(rbacResourceService.findOwnerRoleIds("u1").isEmpty());
+        Assertions.assertEquals(roleVersion, rbacResourceService.getVersion(RbacResource.Role.class));
+        Assertions.assertEquals(0, fullLoadCount.get());
+    }
+
+    @Test
+    void testRefreshAllPermissions() {
+        long version = rbacResourceService.getVersion(RbacResource.Permission.class);
+        permissions.put("3", RbacResource.Permission.immutable("3", "p3", "/api/p3"));
+        rbacResourceService.onApplicationEvent(mockEvent(RbacResource.Permission.class));
+        Assertions.assertTrue(rbacResourceService.getVersion(RbacResource.Permission.class) > version);
+        Assertions.assertEquals(3, rbacResourceService.getPermissions().size());
+        Assertions.assertEquals(1, fullLoadCount.get());
+    }
+
+    @Test
+    void testReuseSnapshotAfterRefreshInterval() throws Exception {
+        CacheRbacResourceService service = new CacheRbacResourceService(new MemoryRbacResourceService(), new CaffeineRbacResourceCacheManager(Duration.ofMinutes(3)),
+                key -> null, Duration.ofMillis(100));
+        service.onApplicationEvent(mockEvent(RbacResource.class));
+        WebRequestAuthorizationManager authorizationManager = new WebRequestAuthorizationManager(service, Mockito.mock(SecurityAccessOperations.class), false);
+        RbacUserAuthoritySupplier authoritySupplier = new RbacUserAuthoritySupplier(service, "ROLE_");
+        long version = service.getVersion(RbacResource.Permission.class);
+        Set<RbacResource.Permission> snapshot = service.getPermissions();
+        RequestPermissionIndex index = authorizationManager.getRequestPermissionIndex();
+        AuthorityBitSet authorities = authoritySupplier.getAuthorities("u1");
+        Thread.sleep(200);
+        Assertions.assertEquals(version, service.getVersion(RbacResource.Permission.class));
+        Assertions.assertSame(snapshot, service.getPermissions());
+        Assertions.assertSame(index, authorizationManager.getRequestPermissionIndex());
+        Assertions.assertSame(authorities, authoritySupplier.getAuthorities("u1"));
+    }
+
+    @Test
+    void testIncrementVersionOnExpired() throws Exception {
+        AtomicLong nanos = new AtomicLong();
+        CaffeineRbacResourceCacheManager cacheManager = new CaffeineRbacResourceCacheManager(Duration.ofMinutes(3), nanos::get);
+        CacheRbacResourceService service = new CacheRbacResourceService(new MemoryRbacResourceService(), cacheManager, key -> null);
+        service.onApplicationEvent(mockEvent(RbacResource.Permission.class));
+        long version = service.getVersion(RbacResource.Permission.class);
+        Set<RbacResource.Permission> snapshot = service.getPermissions();
+
+        nanos.addAndGet(Duration.ofMinutes(4).toNanos());
+        // 读取缓存触发过期清理
+        Assertions.assertNull(cacheManager.load(RBAC_PERMISSION_CACHE_NAME).get("1"));
+        long deadline = System.currentTimeMillis() + 2000;
+        while (service.getVersion(RbacResource.Permission.class) == version && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(service.getVersion(RbacResource.Permission.class) > version);
+        Assertions.assertNotSame(snapshot, service.getPermissions());
+    }
+
+    private static RbacResourceChangeEvent mockEvent(Class<?> resourceType, String... ids) {
+        RbacResourceChangeEvent result = Mockito.mock(RbacResourceChangeEvent.class);
+        Mockito.doReturn(resourceType).when(result).getResourceType();
+        Mockito.doReturn(Arrays.asList(ids)).when(result).getResourceIds();
+        return result;
+    }
+
+    private class MemoryRbacResourceService implements RbacResourceService {
+
+        @Override
+        public Set<RbacResource.Permission> getPermissions() {
+            fullLoadCount.incrementAndGet();
+            return new HashSet<>(permissions.values());
+        }
+
+        @Override
+        public Set<RbacResource.Role> getRoles() {
+            fullLoadCount.incrementAndGet();
+            return new HashSet<>(roles.values());
+        }
+
+        @Override
+        public Map<String, Set<RbacResource.UserRole>> getUserRoles() {
+            fullLoadCount.incrementAndGet();
+            return userRoles;
+        }
+
+        @Override
+        public Set<RbacResource.Permission> findPermissions(Collection<String> ids) {
+            Set<RbacResource.Permission> result = new HashSet<>();
+            ids.stream().map(permissions::get).filter(Objects::nonNull).forEach(result::add);
+            return result;
+        }
+
+        @Override
+        public Map<String, Set<RbacResource.UserRole>> findUserRoles(Collection<String> userIds) {
+            Map<String, Set<RbacResource.UserRole>> result = new ConcurrentHashMap<>();
+            userIds.stream().filter(userRoles::containsKey).forEach(id -> result.put(id, userRoles.get(id)));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.wind.security.authority.rbac;
+
+import com.wind.security.authority.AuthorityBitSet;
+import com.wind.security.core.rbac.RbacResource;
+import com.wind.security.core.rbac.RbacResourceChangeEvent;
+import com.wind.security.core.rbac.RbacResourceService;
+import com.wind.security.web.context.JwtAuthenticationToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author wuxp
+ * @date 2024-08-19 11:30
+ **/
+class RbacUserAuthoritySupplierTests {
+
+    private final Map<String, RbacResource.Role> roles = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<RbacResource.UserRole>> userRoles = new ConcurrentHashMap<>();
+
+    private CacheRbacResourceService rbacResourceService;
+
+    private RbacUserAuthoritySupplier authoritySupplier;
+
+    @BeforeEach
+    void setup() {
+        roles.put("r1", RbacResource.Role.immutable("r1", "r1", new HashSet<>(Arrays.asList("p1", "p2"))));
+        roles.put("r2", RbacResource.Role.immutable("r2", "r2", Collections.singleton("p3")));
+        userRoles.put("1", new HashSet<>(Arrays.asList(RbacResource.UserRole.immutable("r1"), RbacResource.UserRole.immutable("r2", System.currentTimeMillis() - 1))));
+        rbacResourceService = new CacheRbacResourceService(new MemoryRbacResourceService(), new CaffeineRbacResourceCacheManager(Duration.ofMinutes(3)), key -> null);
+        rbacResourceService.onApplicationEvent(mockEvent(RbacResource.class));
+        authoritySupplier = new RbacUserAuthoritySupplier(rbacResourceService, "ROLE_");
+    }
+
+    @AfterEach
+    void after() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testGetAuthorities() {
+        AuthorityBitSet authorities = authoritySupplier.getAuthorities("1");
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("p1", "p2", "ROLE_r1")), authorities.getNames());
+        Assertions.assertSame(authorities, authoritySupplier.getAuthorities("1"));
+        Assertions.assertTrue(authoritySupplier.getAuthorities("2").isEmpty());
+    }
+
+    @Test
+    void testRefreshAfterRoleChanged() {
+        AuthorityBitSet authorities = authoritySupplier.getAuthorities("1");
+        roles.put("r1", RbacResource.Role.immutable("r1", "r1", Collections.singleton("p4")));
+        rbacResourceService.onApplicationEvent(mockEvent(RbacResource.Role.class, "r1"));
+        AuthorityBitSet result = authoritySupplier.getAuthorities("1");
+        Assertions.assertNotSame(authorities, result);
+        Assertions.assertTrue(result.contains("p4"));
+        Assertions.assertFalse(result.contains("p1"));
+    }
+
+    @Test
+    void testReuseRoleAuthoritiesWithoutVersion() {
+        Set<RbacResource.Role> values = new HashSet<>(roles.values());
+        RbacResourceService service = Mockito.mock(RbacResourceService.class);
+        Mockito.doReturn(-1L).when(service).getVersion(Mockito.any());
+        Mockito.doReturn(values).when(service).getRoles();
+        Mockito.doReturn(userRoles).when(service).getUserRoles();
+        RbacUserAuthoritySupplier supplier = new RbacUserAuthoritySupplier(service, "ROLE_");
+        AuthorityBitSet authorities = supplier.getAuthorities("1");
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("p1", "p2", "ROLE_r1")), authorities.getNames());
+        Assertions.assertSame(authorities, supplier.getAuthorities("1"));
+
+        Mockito.doReturn(Collections.singleton(RbacResource.Role.immutable("r1", "r1", Collections.singleton("p4")))).when(service).getRoles();
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("p4", "ROLE_r1")), supplier.getAuthorities("1").getNames());
+    }
+
+    @Test
+    void testAccessOperations() {
+        AuthorityBitSet authorities = authoritySupplier.getAuthorities("1");
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken("1", "token", authorities));
+        SimpleSecurityAccessOperations operations = new SimpleSecurityAccessOperations("ROLE_");
+        Assertions.assertTrue(operations.hasAnyAuthority("p0", "p2"));
+        Assertions.assertFalse(operations.hasAnyAuthority("p3", "not-exists"));
+        Assertions.assertTrue(operations.hasRole("r1"));
+        Assertions.assertFalse(operations.hasRole("r2"));
+        Assertions.assertFalse(operations.isSupperAdmin());
+        Assertions.assertTrue(AuthorityBitSet.of(Collections.singleton("p2")).intersects(authorities));
+    }
+
+    @Test
+    void testInternerScopedToRoleAuthorities() {
+        AuthorityBitSet authorities = authoritySupplier.getAuthorities("1");
+        roles.put("r1", RbacResource.Role.immutable("r1", "r1", Collections.singleton("p4")));
+        rbacResourceService.onApplicationEvent(mockEvent(RbacResource.Role.class, "r1"));
+        AuthorityBitSet result = authoritySupplier.getAuthorities("1");
+        // 重建角色权限后原有的权限集合不受影响
+        Assertions.assertTrue(authorities.contains("p1"));
+        Assertions.assertFalse(result.contains("p1"));
+        // 不同驻留表的权限集合按照权限标识比较
+        Assertions.assertTrue(result.intersects(authorities));
+        Assertions.assertFalse(result.intersects(AuthorityBitSet.of(Arrays.asList("p1", "p2"))));
+        Assertions.assertTrue(result.intersects(AuthorityBitSet.of(Arrays.asList("p0", "p4"))));
+
+        AuthorityBitSet.Interner interner = new AuthorityBitSet.Interner();
+        AuthorityBitSet first = interner.of(Arrays.asList("p1", "p2"));
+        AuthorityBitSet second = interner.of(Collections.singleton("p3"));
+        AuthorityBitSet other = AuthorityBitSet.of(Arrays.asList("p3", "p5"));
+        Assertions.assertEquals(3, interner.size());
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("p1", "p2", "p3")), AuthorityBitSet.union(Arrays.asList(first, second)).getNames());
+        AuthorityBitSet union = AuthorityBitSet.union(Arrays.asList(first, other, AuthorityBitSet.EMPTY));
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("p1", "p2", "p3", "p5")), union.getNames());
+        Assertions.assertTrue(union.contains("p5"));
+        Assertions.assertEquals(3, interner.size());
+    }
+
+    private static RbacResourceChangeEvent mockEvent(Class<?> resourceType, String... ids) {
+        RbacResourceChangeEvent result = Mockito.mock(RbacResourceChangeEvent.class);
+        Mockito.doReturn(resourceType).when(result).getResourceType();
+        Mockito.doReturn(Arrays.asList(ids)).when(result).getResourceIds();
+        return result;
+    }
+
+    private class MemoryRbacResourceService implements RbacResourceService {
+
+        @Override
+        public Set<RbacResource.Permission> getPermissions() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Set<RbacResource.Role> getRoles() {
+            return new HashSet<>(roles.values());
+        }
+
+        @Override
+        public Map<String, Set<RbacResource.UserRole>> getUserRoles() {
+            return userRoles;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.wind.security.authority.rbac;
+
+import com.wind.security.core.rbac.RbacResource;
+import com.wind.security.web.util.RequestMatcherUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求权限匹配基准测试，linear 为改造前每次请求创建匹配器并线性匹配的实现，用于对比
+ * 运行方式：执行 {@link #main(String[])}
+ *
+ * @author wuxp
+ * @date 2024-08-18 11:50
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class RequestPermissionIndexBenchmark {
+
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE"};
+
+    @Param({"1000", "10000"})
+    private int permissionSize;
+
+    private Set<RbacResource.Permission> permissions;
+
+    private RequestPermissionIndex index;
+
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setup() {
+        permissions = new LinkedHashSet<>();
+        for (int i = 0; i < permissionSize; i++) {
+            String resource = "/api/module" + (i % 50) + "/resource" + i;
+            Set<String> attributes = new HashSet<>();
+            attributes.add(METHODS[i % METHODS.length] + " " + resource + "/{id}");
+            attributes.add(resource + "/*/items/**");
+            permissions.add(RbacResource.Permission.immutable(String.valueOf(i), "permission-" + i, attributes));
+        }
+        index = RequestPermissionIndex.build(permissions);
+        // 匹配最后一个权限，线性匹配的最坏情况
+        int last = permissionSize - 1;
+        String path = "/api/module" + (last % 50) + "/resource" + last + "/1/items/2";
+        request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+    }
+
+    @Benchmark
+    public Set<String> linear() {
+        Map<String, Set<RequestMatcher>> matchers = new HashMap<>();
+        for (RbacResource.Permission permission : permissions) {
+            matchers.put(permission.getId(), RequestMatcherUtils.convertMatchers(permission.getAttributes()));
+        }
+        Set<String> result = new HashSet<>();
+        for (Map.Entry<String, Set<RequestMatcher>> entry : matchers.entrySet()) {
+            if (RequestMatcherUtils.matches(entry.getValue(), request)) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Set<String> index() {
+        return index.matches(request, true);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(RequestPermissionIndexBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
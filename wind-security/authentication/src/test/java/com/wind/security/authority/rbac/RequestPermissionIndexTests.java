@@ -0,0 +1,91 @@
+package com.wind.security.authority.rbac;
+
+import com.wind.security.core.rbac.RbacResource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author wuxp
+ * @date 2024-08-18 11:20
+ **/
+class RequestPermissionIndexTests {
+
+    private static final List<String> PATTERNS = Arrays.asList(
+            "/api/users",
+            "GET /api/users/{id}",
+            "DELETE /api/users/{id}",
+            "/api/users/*/roles",
+            "/api/orders/**",
+            "POST /api/orders/**/items",
+            "/api/**/export",
+            "/api/files/*.json",
+            "/api/goods/{id:\\d+}",
+            "/api/docs/",
+            "/**/health",
+            "/api/a?c"
+    );
+
+    private static final List<String> PATHS = Arrays.asList(
+            "", "/", "/api", "/api/", "/api/users", "/api/users/", "/api/users/1", "/api/users/1/", "/api/users/1/roles",
+            "/api/users/1/roles/", "/api/users//1", "/api/orders", "/api/orders/", "/api/orders/1", "/api/orders/1/items",
+            "/api/orders/1/2/items", "/api/export", "/api/a/b/export", "/api/files/a.json", "/api/files/a.xml", "/api/goods/12",
+            "/api/goods/ab", "/api/docs/", "/api/docs", "/health", "/a/b/health", "/api/abc", "/api/ac", "/API/users"
+    );
+
+    @Test
+    void testMatchesSameAsAntPathRequestMatcher() {
+        List<RbacResource.Permission> permissions = new ArrayList<>();
+        for (int i = 0; i < PATTERNS.size(); i++) {
+            permissions.add(RbacResource.Permission.immutable(String.valueOf(i), "", Collections.singleton(PATTERNS.get(i))));
+        }
+        RequestPermissionIndex index = RequestPermissionIndex.build(permissions);
+        for (String method : Arrays.asList("GET", "POST", "DELETE", "", "UNKNOWN")) {
+            for (String path : PATHS) {
+                MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+                request.setServletPath(path);
+                Assertions.assertEquals(expectedPermissions(request), index.matches(request, true), () -> method + " " + path);
+            }
+        }
+    }
+
+    @Test
+    void testMatchesAnyPermission() {
+        RequestPermissionIndex index = RequestPermissionIndex.build(Arrays.asList(
+                RbacResource.Permission.immutable("1", "", "/api/users/**"),
+                RbacResource.Permission.immutable("2", "", "GET /api/users/{id},/api/users/*.json")
+        ));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        request.setServletPath("/api/users/1");
+        Assertions.assertEquals(new HashSet<>(Arrays.asList("1", "2")), index.matches(request, true));
+        Assertions.assertEquals(1, index.matches(request, false).size());
+        Assertions.assertEquals(2, index.size());
+    }
+
+    @Test
+    void testEmpty() {
+        RequestPermissionIndex index = RequestPermissionIndex.build(Collections.emptyList());
+        Assertions.assertTrue(index.matches(new MockHttpServletRequest("GET", "/api"), true).isEmpty());
+    }
+
+    private static Set<String> expectedPermissions(MockHttpServletRequest request) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i < PATTERNS.size(); i++) {
+            String pattern = PATTERNS.get(i);
+            String[] parts = pattern.split(" ");
+            AntPathRequestMatcher matcher = parts.length == 2 ? new AntPathRequestMatcher(parts[1], parts[0]) : new AntPathRequestMatcher(pattern);
+            if (matcher.matches(request)) {
+                result.add(String.valueOf(i));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,81 @@
+package com.wind.security.web.context;
+
+import com.wind.common.exception.BaseException;
+import com.wind.security.authentication.jwt.JwtProperties;
+import com.wind.security.authentication.jwt.JwtTokenCodec;
+import com.wind.security.authentication.jwt.JwtUser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.Base64Utils;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @author wuxp
+ * @date 2024-08-19 14:10
+ **/
+class JwtSecurityContextRepositoryTests {
+
+    private final Set<String> authorities = new HashSet<>(Arrays.asList("p1", "p2"));
+
+    @Test
+    void testLoadContext() throws Exception {
+        JwtTokenCodec codec = new JwtTokenCodec(jwtProperties());
+        JwtSecurityContextRepository repository = new JwtSecurityContextRepository(codec, user -> authorities);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, codec.encoding(new JwtUser(1L, "", Collections.emptyMap())).getTokenValue());
+
+        JwtAuthenticationToken authentication = (JwtAuthenticationToken) repository.loadContext(request).get().getAuthentication();
+        Assertions.assertNotNull(authentication.getAuthorityBitSet());
+        Assertions.assertTrue(authentication.getAuthorityBitSet().contains("p1"));
+        JwtAuthenticationToken other = (JwtAuthenticationToken) repository.loadContext(request).get().getAuthentication();
+        Assertions.assertNotSame(authentication, other);
+        // 权限未变化时复用权限集合，token 由 codec 的已验证 token 缓存跳过签名验证
+        Assertions.assertSame(authentication.getAuthorityBitSet(), other.getAuthorityBitSet());
+        Assertions.assertEquals(1, codec.getVerifiedTokenCacheStats().hitCount());
+
+        authorities.add("p3");
+        other = (JwtAuthenticationToken) repository.loadContext(request).get().getAuthentication();
+        Assertions.assertTrue(other.getAuthorityBitSet().contains("p3"));
+    }
+
+    @Test
+    void testLoadRevokedToken() {
+        JwtTokenCodec codec = new JwtTokenCodec(jwtProperties());
+        JwtSecurityContextRepository repository = new JwtSecurityContextRepository(codec, user -> authorities);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        String tokenValue = codec.encoding(new JwtUser(1L, "", Collections.emptyMap())).getTokenValue();
+        request.addHeader(HttpHeaders.AUTHORIZATION, tokenValue);
+        Assertions.assertNotNull(repository.loadContext(request).get().getAuthentication());
+        codec.revoke(tokenValue);
+        Assertions.assertThrows(BaseException.class, () -> repository.loadContext(request).get());
+    }
+
+    private static JwtProperties jwtProperties() {
+        KeyPair keyPair = genKeyPair();
+        JwtProperties result = new JwtProperties();
+        result.setIssuer("test");
+        result.setAudience("test");
+        result.setRsaPublicKey(Base64Utils.encodeToString(keyPair.getPublic().getEncoded()));
+        result.setRsaPrivateKey(Base64Utils.encodeToString(keyPair.getPrivate().getEncoded()));
+        result.setVerifiedTokenCacheSize(16);
+        return result;
+    }
+
+    private static KeyPair genKeyPair() {
+        try {
+            KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+            keyPairGenerator.initialize(2048);
+            return keyPairGenerator.genKeyPair();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
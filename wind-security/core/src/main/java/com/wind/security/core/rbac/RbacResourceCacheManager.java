@@ -2,7 +2,10 @@ package com.wind.security.core.rbac;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * rbac资源缓存管理
@@ -28,4 +31,42 @@ public interface RbacResourceCacheManager {
      * @param cache     缓存
      */
     void store(@NotBlank String cacheName, @NotNull Map<String, ?> cache);
+
+    /**
+     * 增量写入缓存，默认实现为复制后整体替换，实现类可以覆盖为原地更新
+     *
+     * @param cacheName 缓存名称
+     * @param entries   需要新增或更新的缓存
+     */
+    default void put(@NotBlank String cacheName, @NotNull Map<String, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Map<String, Object> cache = new HashMap<>(load(cacheName));
+        cache.putAll(entries);
+        store(cacheName, cache);
+    }
+
+    /**
+     * 移除缓存，默认实现为复制后整体替换，实现类可以覆盖为原地更新
+     *
+     * @param cacheName 缓存名称
+     * @param keys      需要移除的缓存 key
+     */
+    default void evict(@NotBlank String cacheName, @NotNull Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Map<String, Object> cache = new HashMap<>(load(cacheName));
+        keys.forEach(cache::remove);
+        store(cacheName, cache);
+    }
+
+    /**
+     * 添加缓存条目淘汰（过期、超出容量）监听器，默认实现不会淘汰缓存条目，不需要通知
+     *
+     * @param listener 监听器，参数为缓存名称
+     */
+    default void addEvictionListener(@NotNull Consumer<String> listener) {
+    }
 }
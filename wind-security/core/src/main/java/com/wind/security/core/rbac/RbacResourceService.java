@@ -2,7 +2,9 @@ package com.wind.security.core.rbac;
 
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -33,6 +35,57 @@ public interface RbacResourceService {
     @NotEmpty
     Map<String, Set<RbacResource.UserRole>> getUserRoles();
 
+    /**
+     * 通过 id 查找权限，用于按照 id 增量刷新缓存，实现类可以覆盖该方法按 id 查询
+     *
+     * @param ids 权限 id
+     * @return 存在的权限，不存在的权限 id 视为已删除
+     */
+    @NotNull
+    default Set<RbacResource.Permission> findPermissions(@NotNull Collection<String> ids) {
+        return getPermissions().stream().filter(permission -> ids.contains(permission.getId())).collect(Collectors.toSet());
+    }
+
+    /**
+     * 通过 id 查找角色，用于按照 id 增量刷新缓存，实现类可以覆盖该方法按 id 查询
+     *
+     * @param ids 角色 id
+     * @return 存在的角色，不存在的角色 id 视为已删除
+     */
+    @NotNull
+    default Set<RbacResource.Role> findRoles(@NotNull Collection<String> ids) {
+        return getRoles().stream().filter(role -> ids.contains(role.getId())).collect(Collectors.toSet());
+    }
+
+    /**
+     * 通过用户 id 查找用户角色，用于按照用户增量刷新缓存，实现类可以覆盖该方法按 id 查询
+     *
+     * @param userIds 用户 id
+     * @return 用户角色，key 为用户 id，不存在的用户视为没有角色
+     */
+    @NotNull
+    default Map<String, Set<RbacResource.UserRole>> findUserRoles(@NotNull Collection<String> userIds) {
+        Map<String, Set<RbacResource.UserRole>> userRoles = getUserRoles();
+        Map<String, Set<RbacResource.UserRole>> result = new HashMap<>();
+        for (String userId : userIds) {
+            Set<RbacResource.UserRole> roles = userRoles.get(userId);
+            if (roles != null) {
+                result.put(userId, roles);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取 rbac 资源的快照版本，资源每次变更后版本单调递增，调用方通过版本判断派生的数据（例如：索引）是否需要重建
+     *
+     * @param resourceType 资源类型：{@link RbacResource.Permission}、{@link RbacResource.Role}、{@link RbacResource.User}（用户角色）
+     * @return 版本，小于 0 表示不支持版本
+     */
+    default long getVersion(@NotNull Class<? extends RbacResource> resourceType) {
+        return -1;
+    }
+
     /**
      * 通过角色 id 获取权限列表
      *
@@ -5,15 +5,26 @@ import com.alibaba.fastjson2.JSON;
 import com.wind.configcenter.core.ConfigRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.env.PropertySource;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 基于配置中心的规则配置数据源，支持从多个配置加载限流规则，并合并
+ * 1: 每个配置解析后的规则和配置内容摘要一起缓存，配置变更时只解析变更的配置，内容未变化的推送直接忽略
+ * 2: 短时间内的多次配置变更合并为一次规则更新，合并窗口为 debounceMillis
  *
  * @author wuxp
  * @date 2024-03-12 10:04
@@ -21,29 +32,61 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 public class ConfigCenterSentinelDataSource<T> extends AbstractDataSource<String, List<T>> {
 
+    /**
+     * 默认的规则更新合并窗口
+     */
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 100;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(newThreadFactory());
+
     private final ConfigRepository configRepository;
 
     private final List<ConfigRepository.ConfigDescriptor> descriptors;
 
     private final Map<ConfigRepository.ConfigDescriptor, ConfigRepository.ConfigSubscription> subscriptions = new ConcurrentHashMap<>();
 
+    /**
+     * 每个配置解析后的规则
+     */
+    private final Map<ConfigRepository.ConfigDescriptor, ParsedRules<T>> rules = new ConcurrentHashMap<>();
+
     private final Class<T> configType;
 
+    private final long debounceMillis;
+
+    /**
+     * 是否已有待执行的规则更新
+     */
+    private final AtomicBoolean updateScheduled = new AtomicBoolean(false);
+
     public ConfigCenterSentinelDataSource(ConfigRepository configRepository, ConfigRepository.ConfigDescriptor descriptor, Class<T> configType) {
         this(configRepository, Collections.singletonList(descriptor), configType);
     }
 
     public ConfigCenterSentinelDataSource(ConfigRepository configRepository, List<ConfigRepository.ConfigDescriptor> descriptors, Class<T> configType) {
+        this(configRepository, descriptors, configType, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    /**
+     * @param configRepository 配置仓库
+     * @param descriptors      规则配置描述，按照顺序合并
+     * @param configType       规则类型
+     * @param debounceMillis   规则更新合并窗口（毫秒），小于等于 0 时每次变更立即更新
+     */
+    public ConfigCenterSentinelDataSource(ConfigRepository configRepository, List<ConfigRepository.ConfigDescriptor> descriptors, Class<T> configType, long debounceMillis) {
         super(source -> JSON.parseArray(source, configType));
         this.configRepository = configRepository;
         this.configType = configType;
         this.descriptors = descriptors;
+        this.debounceMillis = debounceMillis;
         for (ConfigRepository.ConfigDescriptor descriptor : descriptors) {
             ConfigRepository.ConfigSubscription subscription = configRepository.onChange(descriptor, new ConfigRepository.ConfigListener() {
                 @Override
                 public void change(String config) {
-                    // 有配置发生变更，重新加载所有的配置
-                    loadAllConfig();
+                    // 只重新解析发生变更的配置
+                    if (refreshRules(descriptor, config)) {
+                        scheduleUpdate();
+                    }
                 }
 
                 @Override
@@ -57,14 +100,26 @@ public class ConfigCenterSentinelDataSource<T> extends AbstractDataSource<String
         loadAllConfig();
     }
 
-
     @Override
     public String readSource() throws Exception {
+        return JSON.toJSONString(loadConfig());
+    }
+
+    /**
+     * 直接合并已解析的规则，避免序列化为 json 后再解析
+     *
+     * @return 合并后的规则
+     */
+    @Override
+    public List<T> loadConfig() {
         List<T> result = new ArrayList<>();
-        descriptors.stream().map(configRepository::getTextConfig)
-                .map(text -> JSON.parseArray(text, this.configType))
-                .forEach(result::addAll);
-        return JSON.toJSONString(result);
+        for (ConfigRepository.ConfigDescriptor descriptor : descriptors) {
+            ParsedRules<T> values = rules.get(descriptor);
+            if (values != null) {
+                result.addAll(values.rules);
+            }
+        }
+        return result;
     }
 
     @Override
@@ -73,18 +128,83 @@ public class ConfigCenterSentinelDataSource<T> extends AbstractDataSource<String
     }
 
     private void loadAllConfig() {
+        for (ConfigRepository.ConfigDescriptor descriptor : descriptors) {
+            try {
+                refreshRules(descriptor, configRepository.getTextConfig(descriptor));
+            } catch (Exception exception) {
+                log.error("load sentinel config exception, configId = {}", descriptor.getConfigId(), exception);
+            }
+        }
+        updateConfig();
+    }
+
+    /**
+     * 解析配置，配置内容未变化时忽略
+     *
+     * @param descriptor 配置描述
+     * @param content    配置内容
+     * @return 规则是否发生变化
+     */
+    private boolean refreshRules(ConfigRepository.ConfigDescriptor descriptor, @Nullable String content) {
+        String digest = content == null ? null : DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
+        ParsedRules<T> prev = rules.get(descriptor);
+        if (prev != null && Objects.equals(prev.digest, digest)) {
+            log.debug("sentinel config not changed, configId = {}", descriptor.getConfigId());
+            return false;
+        }
+        List<T> values;
         try {
-            updateConfig(loadConfig());
+            values = content == null ? null : JSON.parseArray(content, configType);
         } catch (Exception exception) {
-            log.error("load sentinel config exception", exception);
+            // 解析失败时保留原有的规则
+            log.error("parse sentinel config exception, configId = {}", descriptor.getConfigId(), exception);
+            return false;
         }
+        rules.put(descriptor, new ParsedRules<>(digest, values == null ? Collections.emptyList() : Collections.unmodifiableList(values)));
+        return true;
     }
 
-    private void updateConfig(List<T> newValue) {
-        if (newValue == null) {
-            log.warn("sentinel config is null, no be update");
+    private void scheduleUpdate() {
+        if (debounceMillis <= 0) {
+            updateConfig();
             return;
         }
-        getProperty().updateValue(newValue);
+        if (updateScheduled.compareAndSet(false, true)) {
+            SCHEDULER.schedule(() -> {
+                // 先重置标记，合并窗口之后的变更会触发新的更新
+                updateScheduled.set(false);
+                updateConfig();
+            }, debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void updateConfig() {
+        try {
+            getProperty().updateValue(loadConfig());
+        } catch (Exception exception) {
+            log.error("update sentinel config exception", exception);
+        }
+    }
+
+    private static CustomizableThreadFactory newThreadFactory() {
+        CustomizableThreadFactory result = new CustomizableThreadFactory("wind-sentinel-rule-refresh-");
+        result.setDaemon(true);
+        return result;
+    }
+
+    private static final class ParsedRules<T> {
+
+        /**
+         * 配置内容摘要
+         */
+        @Nullable
+        private final String digest;
+
+        private final List<T> rules;
+
+        private ParsedRules(@Nullable String digest, List<T> rules) {
+            this.digest = digest;
+            this.rules = rules;
+        }
     }
 }
@@ -1,16 +1,20 @@
 package com.wind.sentinel;
 
+import com.alibaba.csp.sentinel.property.PropertyListener;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
 import com.alibaba.fastjson2.JSON;
 import com.wind.configcenter.core.ConfigRepository;
+import org.awaitility.Awaitility;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author wuxp
@@ -29,11 +33,46 @@ class ConfigCenterSentinelDataSourceTests {
         List<FlowRule> rules = FlowRuleManager.getRules();
         Assertions.assertEquals(9, rules.size());
         configRepository.mockPushConfig(descriptor1, SentinelFlowTestUtils.mockFlowRules("t11", "t12"));
-        List<FlowRule> rules2 = FlowRuleManager.getRules();
-        Assertions.assertEquals(8, rules2.size());
+        // 规则更新在合并窗口之后执行
+        Awaitility.await().atMost(Duration.ofSeconds(2)).until(() -> FlowRuleManager.getRules().size() == 8);
         configRepository.mockPushConfig(descriptor2, SentinelFlowTestUtils.mockFlowRules("t21", "t22"));
-        List<FlowRule> rules3 = FlowRuleManager.getRules();
-        Assertions.assertEquals(7, rules3.size());
+        Awaitility.await().atMost(Duration.ofSeconds(2)).until(() -> FlowRuleManager.getRules().size() == 7);
+    }
+
+    @Test
+    void testCoalesceAndSkipUnchangedConfig() throws Exception {
+        MockConfigRepository configRepository = new MockConfigRepository();
+        ConfigRepository.ConfigDescriptor descriptor1 = ConfigRepository.ConfigDescriptor.immutable("c1", "c1");
+        ConfigRepository.ConfigDescriptor descriptor2 = ConfigRepository.ConfigDescriptor.immutable("c2", "c2");
+        ConfigCenterSentinelDataSource<FlowRule> dataSource = new ConfigCenterSentinelDataSource<>(configRepository, Arrays.asList(descriptor1, descriptor2), FlowRule.class, 200);
+        AtomicInteger updateCount = new AtomicInteger();
+        dataSource.getProperty().addListener(new PropertyListener<List<FlowRule>>() {
+            @Override
+            public void configUpdate(List<FlowRule> value) {
+                updateCount.incrementAndGet();
+            }
+
+            @Override
+            public void configLoad(List<FlowRule> value) {
+                // 注册时触发
+            }
+        });
+        Assertions.assertEquals(6, dataSource.loadConfig().size());
+
+        // 配置内容未变化
+        configRepository.mockPushConfig(descriptor1, JSON.parseArray(configRepository.getTextConfig(descriptor1)));
+        // 多次变更合并为一次更新
+        for (int i = 0; i < 5; i++) {
+            configRepository.mockPushConfig(descriptor1, SentinelFlowTestUtils.mockFlowRules("c1-" + i));
+            configRepository.mockPushConfig(descriptor2, SentinelFlowTestUtils.mockFlowRules("c2-" + i, "c2-" + i));
+        }
+        Awaitility.await().atMost(Duration.ofSeconds(2)).until(() -> updateCount.get() == 1);
+        List<FlowRule> rules = dataSource.loadConfig();
+        Assertions.assertEquals(3, rules.size());
+        Assertions.assertEquals("c1-41", rules.get(0).getResource());
+        Thread.sleep(300);
+        Assertions.assertEquals(1, updateCount.get());
+        dataSource.close();
     }
 
     static class MockConfigRepository implements ConfigRepository {
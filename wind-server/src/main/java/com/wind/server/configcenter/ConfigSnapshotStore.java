@@ -0,0 +1,149 @@
+package com.wind.server.configcenter;
+
+import com.wind.configcenter.core.ConfigRepository.ConfigDescriptor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+
+/**
+ * 配置本地快照，配置中心不可用或加载超时时使用最后一次成功加载的配置
+ * 快照文件格式：第一行为配置内容的 SHA-256 校验和，其余为配置内容，校验失败的快照会被忽略
+ *
+ * @author wuxp
+ * @date 2024-08-20 16:30
+ **/
+@Slf4j
+final class ConfigSnapshotStore {
+
+    private static final String CHECKSUM_PREFIX = "# sha256=";
+
+    private static final byte LF = '\n';
+
+    private final Path directory;
+
+    ConfigSnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param snapshotDir     快照目录，为空时使用 ${user.home}/.wind/config-snapshots
+     * @param applicationName 应用名称，不同应用的快照相互隔离
+     * @return 快照存储
+     */
+    static ConfigSnapshotStore of(@Nullable String snapshotDir, @Nullable String applicationName) {
+        Path root = StringUtils.hasText(snapshotDir) ? Paths.get(snapshotDir) : Paths.get(System.getProperty("user.home"), ".wind", "config-snapshots");
+        return new ConfigSnapshotStore(StringUtils.hasText(applicationName) ? root.resolve(normalize(applicationName)) : root);
+    }
+
+    /**
+     * 保存配置快照，保存失败不影响配置加载
+     *
+     * @param descriptor 配置描述
+     * @param content    配置内容，为 null 表示配置不存在，删除快照
+     */
+    void save(ConfigDescriptor descriptor, @Nullable String content) {
+        Path file = getSnapshotFile(descriptor);
+        try {
+            if (content == null) {
+                Files.deleteIfExists(file);
+                return;
+            }
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            byte[] header = (CHECKSUM_PREFIX + checksum(bytes) + "\n").getBytes(StandardCharsets.UTF_8);
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                restrictPermissions(temp);
+                byte[] snapshot = Arrays.copyOf(header, header.length + bytes.length);
+                System.arraycopy(bytes, 0, snapshot, header.length, bytes.length);
+                Files.write(temp, snapshot);
+                move(temp, file);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException exception) {
+            log.warn("save config snapshot failure, configId = {}, group = {}", descriptor.getConfigId(), descriptor.getGroup(), exception);
+        }
+    }
+
+    /**
+     * @param descriptor 配置描述
+     * @return 配置内容，快照不存在或校验失败时返回 null
+     */
+    @Nullable
+    String load(ConfigDescriptor descriptor) {
+        Path file = getSnapshotFile(descriptor);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            byte[] snapshot = Files.readAllBytes(file);
+            int index = indexOf(snapshot);
+            if (index < 0) {
+                log.warn("config snapshot format error, file = {}", file);
+                return null;
+            }
+            String header = new String(snapshot, 0, index, StandardCharsets.UTF_8);
+            byte[] content = Arrays.copyOfRange(snapshot, index + 1, snapshot.length);
+            if (!header.startsWith(CHECKSUM_PREFIX) || !header.substring(CHECKSUM_PREFIX.length()).equals(checksum(content))) {
+                log.warn("config snapshot checksum mismatch, file = {}", file);
+                return null;
+            }
+            return new String(content, StandardCharsets.UTF_8);
+        } catch (IOException exception) {
+            log.warn("load config snapshot failure, file = {}", file, exception);
+            return null;
+        }
+    }
+
+    Path getSnapshotFile(ConfigDescriptor descriptor) {
+        return directory.resolve(normalize(descriptor.getGroup())).resolve(normalize(descriptor.getConfigId()));
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void restrictPermissions(Path file) throws IOException {
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            // 配置中可能包含密码等敏感信息
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        }
+    }
+
+    private static int indexOf(byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == LF) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String normalize(@Nullable String name) {
+        if (name == null || name.equals(".") || name.equals("..")) {
+            return "_";
+        }
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static String checksum(byte[] content) {
+        return DigestUtils.sha256Hex(content);
+    }
+}
@@ -3,6 +3,7 @@ package com.wind.server.configcenter;
 import com.wind.common.enums.ConfigFileType;
 import lombok.Data;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 
@@ -35,4 +36,24 @@ public class WindConfigCenterProperties {
      * 配置文件类型
      */
     private ConfigFileType configFileType = ConfigFileType.PROPERTIES;
+
+    /**
+     * 启动时加载配置的总超时时间，超时未加载到的配置使用本地快照
+     */
+    private Duration loadTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 启动时并发加载配置的线程数
+     */
+    private int loadParallelism = 8;
+
+    /**
+     * 是否启用配置本地快照，配置中心不可用或加载超时时使用最后一次成功加载的配置
+     */
+    private boolean snapshotEnabled = true;
+
+    /**
+     * 配置本地快照目录，为空时使用 ${user.home}/.wind/config-snapshots
+     */
+    private String snapshotDir;
 }
@@ -5,7 +5,10 @@ import com.wind.common.WindConstants;
 import com.wind.common.enums.ConfigFileType;
 import com.wind.common.enums.WindMiddlewareType;
 import com.wind.common.exception.AssertUtils;
+import com.wind.common.exception.BaseException;
+import com.wind.common.exception.DefaultExceptionCode;
 import com.wind.common.util.ClassDetectionUtils;
+import com.wind.common.util.ExecutorServiceUtils;
 import com.wind.configcenter.core.ConfigRepository;
 import com.wind.configcenter.core.ConfigRepository.ConfigDescriptor;
 import lombok.AllArgsConstructor;
@@ -15,14 +18,22 @@ import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.MapPropertySource;
 import org.springframework.core.env.PropertySource;
+import org.springframework.lang.Nullable;
 import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static com.wind.common.WindConstants.SPRING_APPLICATION_NAME;
@@ -33,6 +44,8 @@ import static com.wind.common.WindConstants.WIND_SERVER_USED_MIDDLEWARE;
 
 /**
  * 配置中心配置加载器
+ * 1: 启动时并发加载所有配置，总耗时取决于最慢的配置，超过 {@link WindConfigCenterProperties#getLoadTimeout()} 未加载到的配置使用本地快照
+ * 2: 加载成功的配置保存为带校验和的本地快照 {@link ConfigSnapshotStore}，配置中心不可用时使用最后一次成功加载的快照
  * 配置相关参见：https://www.yuque.com/suiyuerufeng-akjad/wind/lb2kacr9ch1l70td
  *
  * @author wuxp
@@ -44,6 +57,8 @@ public class WindPropertySourceLoader {
 
     private static final String REDISSON_CLIENT_CLASS_NAME = "org.redisson.api.RedissonClient";
 
+    private static final String LOADER_THREAD_NAME_PREFIX = "wind-config-loader-";
+
     /**
      * 是否使用 redisson
      */
@@ -61,8 +76,7 @@ public class WindPropertySourceLoader {
     public void loadGlobalConfigs(ConfigurableEnvironment environment) {
         CompositePropertySource globalProperties = new CompositePropertySource(WindConstants.GLOBAL_CONFIG_NAME);
         ConfigDescriptor descriptor = ConfigDescriptor.immutable(WindConstants.GLOBAL_CONFIG_NAME, WindConstants.GLOBAL_CONFIG_GROUP);
-        List<PropertySource<?>> configs = repository.getConfigs(descriptor);
-        configs.forEach(globalProperties::addFirstPropertySource);
+        loadConfigs(Collections.singletonList(new ConfigLoadTask(descriptor)), environment, globalProperties);
         environment.getPropertySources().addLast(globalProperties);
     }
 
@@ -81,31 +95,33 @@ public class WindPropertySourceLoader {
         AssertUtils.hasText(applicationName, () -> SPRING_APPLICATION_NAME + " must not empty");
         // 中间件配置共享模式下的名称
         String middlewareShareName = environment.getProperty(WIND_MIDDLEWARE_SHARE_NAME, applicationName);
+        List<ConfigLoadTask> tasks = new ArrayList<>();
         // 加载中间件配置
         for (WindMiddlewareType type : getUsedMiddlewareTypes(environment)) {
             String name = environment.getProperty(type.getConfigName(), middlewareShareName);
             AssertUtils.notNull(name, type.getConfigName() + " must not empty");
             if (Objects.equals(type, WindMiddlewareType.REDIS) && REDISSON_IF_PRESENT) {
                 // redisson 配置支持
-                loadRedissonConfig(name, result);
+                addRedissonConfig(name, tasks);
             } else if (Objects.equals(type, WindMiddlewareType.DYNAMIC_TP)) {
                 // dynamic-tp 使用 yaml
-                WindDynamicTpConfigDescriptorDetector.getConfigDescriptors(middlewareShareName).forEach(descriptor -> loadConfigs(descriptor, result));
+                WindDynamicTpConfigDescriptorDetector.getConfigDescriptors(middlewareShareName).forEach(descriptor -> tasks.add(new ConfigLoadTask(descriptor)));
             } else {
                 SimpleConfigDescriptor descriptor = buildDescriptor(name + WindConstants.DASHED + type.name().toLowerCase(), type.name());
-                loadConfigs(descriptor, result);
+                tasks.add(new ConfigLoadTask(descriptor));
             }
         }
         // 加载应用配置
-        loadConfigs(buildDescriptor(applicationName, WindConstants.APP_CONFIG_GROUP), result);
+        tasks.add(new ConfigLoadTask(buildDescriptor(applicationName, WindConstants.APP_CONFIG_GROUP)));
         if (!ObjectUtils.isEmpty(properties.getAppShareConfigs())) {
             // 加载应用间的共享配置
-            properties.getAppShareConfigs().forEach(name -> loadConfigs(buildDescriptor(name, WindConstants.APP_SHARE_CONFIG_GROUP), result));
+            properties.getAppShareConfigs().forEach(name -> tasks.add(new ConfigLoadTask(buildDescriptor(name, WindConstants.APP_SHARE_CONFIG_GROUP))));
         }
         if (!ObjectUtils.isEmpty(properties.getExtensionConfigs())) {
             // 加载额外的自定义配置
-            properties.getExtensionConfigs().forEach(descriptor -> loadConfigs(descriptor, result));
+            properties.getExtensionConfigs().forEach(descriptor -> tasks.add(new ConfigLoadTask(descriptor)));
         }
+        loadConfigs(tasks, environment, result);
         return result;
     }
 
@@ -129,20 +145,97 @@ public class WindPropertySourceLoader {
         return result;
     }
 
-    private void loadConfigs(ConfigDescriptor descriptor, CompositePropertySource result) {
-        if (log.isDebugEnabled()) {
-            log.debug("load config，id = {}, group = {}, refreshable = {}", descriptor.getConfigId(), descriptor.getGroup(), descriptor.isRefreshable());
+    /**
+     * 并发加载配置，按照任务顺序添加到 result 中，后面的配置优先级更高
+     *
+     * @param tasks       配置加载任务
+     * @param environment spring environment
+     * @param result      配置
+     */
+    private void loadConfigs(List<ConfigLoadTask> tasks, Environment environment, CompositePropertySource result) {
+        ConfigSnapshotStore snapshotStore = properties.isSnapshotEnabled() ? ConfigSnapshotStore.of(properties.getSnapshotDir(), environment.getProperty(SPRING_APPLICATION_NAME)) : null;
+        int poolSize = Math.max(1, Math.min(tasks.size(), properties.getLoadParallelism()));
+        ThreadPoolExecutor executor = ExecutorServiceUtils.newExecutor(LOADER_THREAD_NAME_PREFIX, poolSize, poolSize, tasks.size());
+        try {
+            List<Future<String>> futures = new ArrayList<>(tasks.size());
+            for (ConfigLoadTask task : tasks) {
+                if (log.isDebugEnabled()) {
+                    log.debug("load config，id = {}, group = {}, refreshable = {}", task.descriptor.getConfigId(), task.descriptor.getGroup(), task.descriptor.isRefreshable());
+                }
+                futures.add(executor.submit(() -> repository.getTextConfig(task.descriptor)));
+            }
+            long deadline = System.nanoTime() + properties.getLoadTimeout().toNanos();
+            for (int i = 0; i < tasks.size(); i++) {
+                ConfigLoadTask task = tasks.get(i);
+                String content = getTextConfig(task.descriptor, futures.get(i), deadline, snapshotStore);
+                task.parse(repository, content).forEach(result::addFirstPropertySource);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String getTextConfig(ConfigDescriptor descriptor, Future<String> future, long deadline, @Nullable ConfigSnapshotStore snapshotStore) {
+        try {
+            String result = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (snapshotStore != null) {
+                snapshotStore.save(descriptor, result);
+            }
+            return result;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return loadSnapshot(descriptor, snapshotStore, exception);
+        } catch (ExecutionException exception) {
+            return loadSnapshot(descriptor, snapshotStore, exception.getCause());
+        } catch (TimeoutException exception) {
+            future.cancel(true);
+            return loadSnapshot(descriptor, snapshotStore, exception);
+        }
+    }
+
+    private String loadSnapshot(ConfigDescriptor descriptor, @Nullable ConfigSnapshotStore snapshotStore, Throwable throwable) {
+        String result = snapshotStore == null ? null : snapshotStore.load(descriptor);
+        if (result == null) {
+            if (throwable instanceof BaseException) {
+                throw (BaseException) throwable;
+            }
+            throw new BaseException(DefaultExceptionCode.COMMON_ERROR, String.format("load config：%s error", descriptor.getConfigId()), throwable);
         }
-        List<PropertySource<?>> configs = repository.getConfigs(descriptor);
-        configs.forEach(result::addFirstPropertySource);
+        log.warn("load config failure, use local snapshot, configId = {}, group = {}", descriptor.getConfigId(), descriptor.getGroup(), throwable);
+        return result;
     }
 
-    private void loadRedissonConfig(String redissonName, CompositePropertySource result) {
+    private void addRedissonConfig(String redissonName, List<ConfigLoadTask> tasks) {
         if (StringUtils.hasLength(redissonName)) {
             String name = String.format("%s%s%s", redissonName, WindConstants.DASHED, WindConstants.REDISSON_NAME);
             ConfigDescriptor descriptor = ConfigDescriptor.immutable(name, WindMiddlewareType.REDIS.name(), ConfigFileType.YAML);
-            Map<String, Object> source = ImmutableMap.of(SPRING_REDISSON_CONFIG_NAME, repository.getTextConfig(descriptor));
-            result.addFirstPropertySource(new MapPropertySource(WIND_REDISSON_PROPERTY_SOURCE_NAME, source));
+            tasks.add(new ConfigLoadTask(descriptor, content -> {
+                Map<String, Object> source = ImmutableMap.of(SPRING_REDISSON_CONFIG_NAME, content);
+                return Collections.singletonList(new MapPropertySource(WIND_REDISSON_PROPERTY_SOURCE_NAME, source));
+            }));
+        }
+    }
+
+    /**
+     * 配置加载任务
+     */
+    @AllArgsConstructor
+    private static final class ConfigLoadTask {
+
+        private final ConfigDescriptor descriptor;
+
+        /**
+         * 配置解析器，为 null 时使用 {@link ConfigRepository#parseConfigs(ConfigDescriptor, String)}
+         */
+        @Nullable
+        private final Function<String, List<PropertySource<?>>> parser;
+
+        ConfigLoadTask(ConfigDescriptor descriptor) {
+            this(descriptor, null);
+        }
+
+        List<PropertySource<?>> parse(ConfigRepository repository, String content) {
+            return parser == null ? repository.parseConfigs(descriptor, content) : parser.apply(content);
         }
     }
 }
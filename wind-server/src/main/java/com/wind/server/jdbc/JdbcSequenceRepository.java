@@ -7,16 +7,31 @@ import lombok.Data;
 import lombok.Getter;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.springframework.transaction.TransactionDefinition.PROPAGATION_REQUIRED;
+import static org.springframework.transaction.TransactionDefinition.PROPAGATION_REQUIRES_NEW;
 
 /**
  * 基于数据库的序列号存储
+ * 1: 默认模式：每获取一个序列号执行一次数据库事务
+ * 2: 号段模式（segmentSize > 1）：每次从数据库申请一段序列号在内存中分配，当前号段使用到一定比例时，
+ * 在后台线程预取下一个号段（双 buffer），调用方几乎不会阻塞在数据库上，节点重启会导致未使用完的号段被跳过
  *
  * @author wuxp
  * @date 2024-03-31 09:41
@@ -30,32 +45,107 @@ public class JdbcSequenceRepository implements SequenceRepository {
             "update `%s` set seq_value = seq_value + step where id = ? and seq_value = ?"
     );
 
+    /**
+     * 号段预取线程池，使用守护线程，避免阻止应用退出
+     */
+    private static final ThreadPoolExecutor SEGMENT_EXECUTOR = newSegmentExecutor();
+
+    /**
+     * 号段使用超过该比例时预取下一个号段
+     */
+    private static final double SEGMENT_PREFETCH_RATIO = 0.2;
+
     private final SequenceSql sequenceSql;
 
     private final JdbcTemplate jdbcTemplate;
 
     private final TransactionTemplate transactionTemplate;
 
+    /**
+     * 号段大小，小于等于 1 时不启用号段模式
+     */
+    private final int segmentSize;
+
+    /**
+     * 号段模式下的序列生成器缓存，同一个序列在节点内共享号段
+     */
+    private final ConcurrentMap<String, SequenceGenerator> segmentGenerators = new ConcurrentHashMap<>();
+
     public JdbcSequenceRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
         this(DEFAULT_SQL, jdbcTemplate, transactionManager);
     }
 
+    /**
+     * 号段模式，号段申请使用独立事务，避免长时间持有序列行锁
+     *
+     * @param segmentSize 号段大小
+     */
+    public JdbcSequenceRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, int segmentSize) {
+        this(DEFAULT_SQL, jdbcTemplate, transactionManager, PROPAGATION_REQUIRES_NEW, segmentSize);
+    }
+
     public JdbcSequenceRepository(SequenceSql sequenceSql, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
         this(sequenceSql, jdbcTemplate, transactionManager, PROPAGATION_REQUIRED);
     }
 
     public JdbcSequenceRepository(SequenceSql sequenceSql, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, int propagationBehavior) {
+        this(sequenceSql, jdbcTemplate, transactionManager, propagationBehavior, 1);
+    }
+
+    public JdbcSequenceRepository(SequenceSql sequenceSql, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, int propagationBehavior, int segmentSize) {
         this.sequenceSql = sequenceSql;
         this.jdbcTemplate = jdbcTemplate;
         this.transactionTemplate = new TransactionTemplate(transactionManager, new DefaultTransactionDefinition(propagationBehavior));
+        this.segmentSize = segmentSize;
     }
 
 
     @Override
     public SequenceGenerator getSequence(String sequenceName, String groupName) {
+        if (segmentSize > 1) {
+            return segmentGenerators.computeIfAbsent(sequenceName, name -> new SegmentSequenceGenerator(name, groupName));
+        }
         return new JdbcSequenceGenerator(sequenceName, groupName);
     }
 
+    /**
+     * 通过一次更新从数据库中申请一段连续的序列号
+     *
+     * @param sequenceName 序列名称
+     * @param sequenceId   序列 id
+     * @param size         申请的数量
+     * @return 号段
+     */
+    private Segment allocateRange(String sequenceName, Long sequenceId, int size) {
+        SequenceValue value = transactionTemplate.execute(transactionStatus -> {
+            AssertUtils.isTrue(jdbcTemplate.update(sequenceSql.nextSegment, size, sequenceId) > 0, () -> String.format("allocate sequence name = %s segment error", sequenceName));
+            return jdbcTemplate.queryForObject(sequenceSql.querySequenceValue, new BeanPropertyRowMapper<>(SequenceValue.class), sequenceId);
+        });
+        AssertUtils.notNull(value, () -> String.format("allocate sequence name = %s segment error", sequenceName));
+        long step = value.stepValue;
+        return new Segment(value.sequenceValue - step * size, step, size, (long) (size * SEGMENT_PREFETCH_RATIO));
+    }
+
+    private static ThreadPoolExecutor newSegmentExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("wind-sequence-segment-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(1, 2, 90, TimeUnit.SECONDS, new ArrayBlockingQueue<>(256), threadFactory);
+    }
+
+    private Long findOrCreateSequenceId(String sequenceName, String groupName) {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = jdbcTemplate.queryForList(sequenceSql.findId, Long.class, sequenceName);
+            if (ids.isEmpty()) {
+                // 创建序列
+                jdbcTemplate.update(sequenceSql.create, sequenceName, groupName);
+                Long result = jdbcTemplate.queryForObject(sequenceSql.findId, Long.class, sequenceName);
+                AssertUtils.notNull(result, String.format("find sequence name = %s id error", sequenceName));
+                return result;
+            }
+            return ids.get(0);
+        });
+    }
+
     @Getter
     public static class SequenceSql {
 
@@ -79,15 +169,25 @@ public class JdbcSequenceRepository implements SequenceRepository {
          */
         private final String next;
 
+        /**
+         * 申请号段 sql，参数为：号段大小、序列 id，依赖行锁保证并发安全
+         */
+        private final String nextSegment;
+
         public SequenceSql(String create, String findId, String querySequenceValue, String next) {
             this("t_wind_sequence", create, findId, querySequenceValue, next);
         }
 
         public SequenceSql(String tableName, String create, String findId, String querySequenceValue, String next) {
+            this(tableName, create, findId, querySequenceValue, next, "update `%s` set seq_value = seq_value + step * ? where id = ?");
+        }
+
+        public SequenceSql(String tableName, String create, String findId, String querySequenceValue, String next, String nextSegment) {
             this.create = String.format(create, tableName);
             this.findId = String.format(findId, tableName);
             this.querySequenceValue = String.format(querySequenceValue, tableName);
             this.next = String.format(next, tableName);
+            this.nextSegment = String.format(nextSegment, tableName);
         }
 
     }
@@ -100,22 +200,12 @@ public class JdbcSequenceRepository implements SequenceRepository {
 
         public JdbcSequenceGenerator(String sequenceName, String groupName) {
             this.sequenceName = sequenceName;
-            this.sequenceId = transactionTemplate.execute(status -> {
-                List<Long> ids = jdbcTemplate.queryForList(sequenceSql.findId, Long.class, sequenceName);
-                if (ids.isEmpty()) {
-                    // 创建序列
-                    jdbcTemplate.update(sequenceSql.create, sequenceName, groupName);
-                    Long result = jdbcTemplate.queryForObject(sequenceSql.findId, Long.class, sequenceName);
-                    AssertUtils.notNull(result, String.format("find sequence name = %s id error", sequenceName));
-                    return result;
-                }
-                return ids.get(0);
-            });
+            this.sequenceId = findOrCreateSequenceId(sequenceName, groupName);
         }
 
         @Override
         public String next() {
-            Integer next = transactionTemplate.execute(transactionStatus -> {
+            Long next = transactionTemplate.execute(transactionStatus -> {
                 SequenceValue current = jdbcTemplate.queryForObject(sequenceSql.querySequenceValue, new BeanPropertyRowMapper<>(SequenceValue.class), sequenceId);
                 AssertUtils.notNull(current, () -> "not found current sequence value");
                 AssertUtils.isTrue(jdbcTemplate.update(sequenceSql.next, sequenceId, current.sequenceValue) > 0, () -> String.format("update sequence name = %s error", sequenceName));
@@ -124,13 +214,154 @@ public class JdbcSequenceRepository implements SequenceRepository {
             AssertUtils.notNull(next, () -> String.format("get sequence name = %s error", sequenceName));
             return String.valueOf(next);
         }
+
+        @Override
+        public List<String> next(int count) {
+            AssertUtils.isTrue(count > 0, "argument count must greater than 0");
+            return allocateRange(sequenceName, sequenceId, count).values(0, count);
+        }
+    }
+
+    /**
+     * 号段模式的序列生成器，当前号段使用到 {@link #SEGMENT_PREFETCH_RATIO} 时异步预取下一个号段
+     */
+    class SegmentSequenceGenerator implements SequenceGenerator {
+
+        private final String sequenceName;
+
+        private final Long sequenceId;
+
+        /**
+         * 当前正在分配的号段
+         */
+        private volatile Segment current;
+
+        /**
+         * 预取中（或已预取完成）的下一个号段
+         */
+        private final AtomicReference<CompletableFuture<Segment>> prefetching = new AtomicReference<>();
+
+        public SegmentSequenceGenerator(String sequenceName, String groupName) {
+            this.sequenceName = sequenceName;
+            this.sequenceId = findOrCreateSequenceId(sequenceName, groupName);
+            this.current = allocateSegment();
+        }
+
+        @Override
+        public List<String> next(int count) {
+            AssertUtils.isTrue(count > 0, "argument count must greater than 0");
+            while (true) {
+                Segment segment = current;
+                long index = segment.cursor.get();
+                if (index + count > segment.size) {
+                    // 当前号段剩余不足，直接从数据库申请
+                    return allocateRange(sequenceName, sequenceId, count).values(0, count);
+                }
+                if (segment.cursor.compareAndSet(index, index + count)) {
+                    if (index <= segment.prefetchIndex && segment.prefetchIndex < index + count) {
+                        prefetch();
+                    }
+                    return segment.values(index, count);
+                }
+            }
+        }
+
+        @Override
+        public String next() {
+            while (true) {
+                Segment segment = current;
+                long index = segment.cursor.getAndIncrement();
+                if (index < segment.size) {
+                    if (index == segment.prefetchIndex) {
+                        prefetch();
+                    }
+                    return String.valueOf(segment.valueOf(index));
+                }
+                switchSegment(segment);
+            }
+        }
+
+        private void prefetch() {
+            CompletableFuture<Segment> future = new CompletableFuture<>();
+            if (prefetching.compareAndSet(null, future)) {
+                try {
+                    SEGMENT_EXECUTOR.execute(() -> {
+                        try {
+                            future.complete(allocateSegment());
+                        } catch (Throwable throwable) {
+                            future.completeExceptionally(throwable);
+                        }
+                    });
+                } catch (RejectedExecutionException exception) {
+                    // 预取线程池已满，放弃本次预取，号段用完时同步申请，避免切换号段时一直等待未完成的 future
+                    prefetching.compareAndSet(future, null);
+                    future.completeExceptionally(exception);
+                }
+            }
+        }
+
+        private synchronized void switchSegment(Segment exhausted) {
+            if (current != exhausted) {
+                // 其他线程已切换号段
+                return;
+            }
+            CompletableFuture<Segment> future = prefetching.getAndSet(null);
+            Segment next = null;
+            if (future != null) {
+                try {
+                    next = future.join();
+                } catch (Exception ignore) {
+                    // 预取失败，同步申请号段
+                }
+            }
+            current = next == null ? allocateSegment() : next;
+        }
+
+        private Segment allocateSegment() {
+            return allocateRange(sequenceName, sequenceId, segmentSize);
+        }
+    }
+
+    /**
+     * 号段，范围为 (start, start + step * size]
+     */
+    static class Segment {
+
+        private final long start;
+
+        private final long step;
+
+        private final long size;
+
+        private final long prefetchIndex;
+
+        private final AtomicLong cursor = new AtomicLong();
+
+        Segment(long start, long step, long size, long prefetchIndex) {
+            this.start = start;
+            this.step = step;
+            this.size = size;
+            this.prefetchIndex = prefetchIndex;
+        }
+
+        long valueOf(long index) {
+            return start + step * (index + 1);
+        }
+
+        List<String> values(long fromIndex, int count) {
+            List<String> result = new ArrayList<>(count);
+            for (long index = fromIndex; index < fromIndex + count; index++) {
+                result.add(String.valueOf(valueOf(index)));
+            }
+            return result;
+        }
     }
 
     @Data
     static class SequenceValue {
 
-        private Integer sequenceValue;
+        private Long sequenceValue;
 
-        private Integer stepValue;
+        private Long stepValue;
     }
 }
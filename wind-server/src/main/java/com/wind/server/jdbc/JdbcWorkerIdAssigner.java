@@ -0,0 +1,175 @@
+package com.wind.server.jdbc;
+
+import com.wind.common.exception.BaseException;
+import com.wind.sequence.WorkerIdAssigner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于数据库租约的工作节点 id 分配器，复用序列号表（默认：t_wind_sequence）存储租约
+ * 每个工作节点 id 对应一行记录：name = {groupName}:worker:{workerId}，seq_value = 租约过期时间，version = 持有者令牌
+ * 1: 分配时优先抢占过期超过一个租约时间的租约（容忍节点间的时钟偏差），没有则插入新的工作节点 id
+ * 2: 每隔 1/3 租约时间续约一次，续约失败时租约在本地按过期时间失效，租约被其他节点抢占时立即失效，
+ * 失效后 {@link #getLeaseExpireTime()} 已过期，使用方需拒绝生成序列号
+ * 3: 释放租约时将过期时间设置为释放时间，同样需要等待一个租约时间后才会被重新分配
+ *
+ * @author wuxp
+ * @date 2024-08-13 10:16
+ **/
+@Slf4j
+public class JdbcWorkerIdAssigner implements WorkerIdAssigner, DisposableBean {
+
+    private static final String DEFAULT_TABLE_NAME = "t_wind_sequence";
+
+    private static final String QUERY_LEASES_SQL = "select name, seq_value from `%s` where group_name = ?";
+
+    private static final String CREATE_LEASE_SQL = "insert into `%s`(`name`,`group_name`,`seq_value`,`step`,`version`) values (?, ?, ?, 1, ?)";
+
+    private static final String ACQUIRE_LEASE_SQL = "update `%s` set seq_value = ?, version = ? where name = ? and seq_value < ?";
+
+    private static final String RENEW_LEASE_SQL = "update `%s` set seq_value = ? where name = ? and version = ?";
+
+    private static final String RELEASE_LEASE_SQL = "update `%s` set seq_value = ? where name = ? and version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String tableName;
+
+    private final String groupName;
+
+    private final long leaseMillis;
+
+    /**
+     * 租约持有者令牌
+     */
+    private final int token = ThreadLocalRandom.current().nextInt(1, Integer.MAX_VALUE);
+
+    private final ScheduledThreadPoolExecutor scheduled = new ScheduledThreadPoolExecutor(1, newThreadFactory());
+
+    private volatile String leaseName;
+
+    private volatile Long workerId;
+
+    /**
+     * 本节点持有的租约过期时间
+     */
+    private volatile long leaseExpireTime;
+
+    public JdbcWorkerIdAssigner(JdbcTemplate jdbcTemplate, String groupName) {
+        this(jdbcTemplate, DEFAULT_TABLE_NAME, groupName, Duration.ofMinutes(1));
+    }
+
+    public JdbcWorkerIdAssigner(JdbcTemplate jdbcTemplate, String tableName, String groupName, Duration leaseTime) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableName = tableName;
+        this.groupName = groupName;
+        this.leaseMillis = leaseTime.toMillis();
+    }
+
+    @Override
+    public synchronized long assign(long maxWorkerId) {
+        if (workerId != null && workerId <= maxWorkerId) {
+            return workerId;
+        }
+        Map<Long, Long> leases = queryLeases();
+        long now = System.currentTimeMillis();
+        // 优先抢占过期超过一个租约时间的租约，原持有者在租约过期时已停止使用
+        long reusableBefore = now - leaseMillis;
+        for (Map.Entry<Long, Long> entry : leases.entrySet()) {
+            if (entry.getKey() <= maxWorkerId && entry.getValue() < reusableBefore && tryAcquire(entry.getKey(), now)) {
+                return onAcquired(entry.getKey(), now);
+            }
+        }
+        for (long id = 0; id <= maxWorkerId; id++) {
+            if (!leases.containsKey(id) && tryCreate(id, now)) {
+                return onAcquired(id, now);
+            }
+        }
+        throw BaseException.common(String.format("group = %s no available worker id, max worker id = %d", groupName, maxWorkerId));
+    }
+
+    private Map<Long, Long> queryLeases() {
+        Map<Long, Long> result = new HashMap<>();
+        String prefix = getLeaseName("");
+        jdbcTemplate.query(String.format(QUERY_LEASES_SQL, tableName), rs -> {
+            String name = rs.getString(1);
+            if (name.startsWith(prefix)) {
+                result.put(Long.parseLong(name.substring(prefix.length())), rs.getLong(2));
+            }
+        }, groupName);
+        return result;
+    }
+
+    private boolean tryAcquire(long id, long now) {
+        return jdbcTemplate.update(String.format(ACQUIRE_LEASE_SQL, tableName), now + leaseMillis, token, getLeaseName(id), now - leaseMillis) > 0;
+    }
+
+    private boolean tryCreate(long id, long now) {
+        try {
+            return jdbcTemplate.update(String.format(CREATE_LEASE_SQL, tableName), getLeaseName(id), groupName, now + leaseMillis, token) > 0;
+        } catch (DuplicateKeyException exception) {
+            // 其他节点已创建
+            return false;
+        }
+    }
+
+    private long onAcquired(long acquiredWorkerId, long acquiredTime) {
+        if (leaseName == null) {
+            scheduled.scheduleWithFixedDelay(this::renew, leaseMillis / 3, leaseMillis / 3, TimeUnit.MILLISECONDS);
+        }
+        leaseName = getLeaseName(acquiredWorkerId);
+        workerId = acquiredWorkerId;
+        leaseExpireTime = acquiredTime + leaseMillis;
+        log.info("acquired worker id = {}, group = {}", acquiredWorkerId, groupName);
+        return acquiredWorkerId;
+    }
+
+    private void renew() {
+        // 以续约前的时间计算过期时间，保证本地先于数据库记录过期
+        long now = System.currentTimeMillis();
+        try {
+            if (jdbcTemplate.update(String.format(RENEW_LEASE_SQL, tableName), now + leaseMillis, leaseName, token) > 0) {
+                leaseExpireTime = now + leaseMillis;
+            } else {
+                leaseExpireTime = 0;
+                log.error("renew worker id lease failure, lease name = {} is held by another node", leaseName);
+            }
+        } catch (Exception exception) {
+            log.error("renew worker id lease error, lease name = {}, expire time = {}", leaseName, leaseExpireTime, exception);
+        }
+    }
+
+    @Override
+    public long getLeaseExpireTime() {
+        return leaseExpireTime;
+    }
+
+    private String getLeaseName(Object id) {
+        return String.format("%s:worker:%s", groupName, id);
+    }
+
+    private static CustomizableThreadFactory newThreadFactory() {
+        CustomizableThreadFactory result = new CustomizableThreadFactory("wind-worker-id-lease");
+        result.setDaemon(true);
+        return result;
+    }
+
+    @Override
+    public void destroy() {
+        scheduled.shutdown();
+        if (leaseName != null) {
+            leaseExpireTime = 0;
+            jdbcTemplate.update(String.format(RELEASE_LEASE_SQL, tableName), System.currentTimeMillis(), leaseName, token);
+        }
+    }
+}
@@ -14,8 +14,7 @@ import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -28,14 +27,26 @@ import java.util.Map;
 
 /**
  * 支持重复读取的 {@link HttpServletRequestWrapper}
- * 注意：请谨慎使用该类，由于会缓存请求内容 {@link #cachedContent}，不要缓存大请求（例如文件上传），导致内存压力过大而导致程序奔溃
+ * 1: 请求内容缓存在池化的内存块中 {@link #cachedContent}，重复读取时直接读取内存块，不复制请求内容
+ * 2: 请求内容超过内存阈值后转存到临时文件，避免大请求导致内存压力过大
+ * 注意：请求结束后必须调用 {@link #close()} 释放内存块和临时文件
  *
  * @author wuxp
  * @see org.springframework.web.util.ContentCachingRequestWrapper
  */
-public class RepeatableReadRequestWrapper extends HttpServletRequestWrapper {
+public class RepeatableReadRequestWrapper extends HttpServletRequestWrapper implements Closeable {
 
-    private final ByteArrayOutputStream cachedContent;
+    /**
+     * 未知请求内容长度时默认最多缓存的字节数
+     */
+    private static final int DEFAULT_CONTENT_CACHE_LIMIT = 32 * 1024 * 1024;
+
+    /**
+     * 默认内存中最多缓存的字节数，超过后转存到临时文件
+     */
+    private static final int DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+
+    private final RequestBodyBuffer cachedContent;
 
     private final int contentCacheLimit;
 
@@ -47,8 +58,6 @@ public class RepeatableReadRequestWrapper extends HttpServletRequestWrapper {
 
     private ServletInputStream inputStream;
 
-    private BodyInputStream bodyInputStream;
-
     private BufferedReader reader;
 
     /**
@@ -57,7 +66,7 @@ public class RepeatableReadRequestWrapper extends HttpServletRequestWrapper {
      * @param request the original servlet request
      */
     public RepeatableReadRequestWrapper(HttpServletRequest request) {
-        this(request, request.getContentLength() > 0 ? request.getContentLength() : 1024);
+        this(request, request.getContentLength() > 0 ? request.getContentLength() : DEFAULT_CONTENT_CACHE_LIMIT);
     }
 
     /**
@@ -69,8 +78,19 @@ public class RepeatableReadRequestWrapper extends HttpServletRequestWrapper {
      * @since 4.3.6
      */
     public RepeatableReadRequestWrapper(HttpServletRequest request, int contentCacheLimit) {
+        this(request, contentCacheLimit, DEFAULT_MEMORY_THRESHOLD);
+    }
+
+    /**
+     * Create a new RepeatableReadRequestWrapper for the given servlet request.
+     *
+     * @param request           the original servlet request
+     * @param contentCacheLimit the maximum number of bytes to cache per request
+     * @param memoryThreshold   内存中最多缓存的字节数，超过后转存到临时文件
+     */
+    public RepeatableReadRequestWrapper(HttpServletRequest request, int contentCacheLimit, int memoryThreshold) {
         super(request);
-        this.cachedContent = new ByteArrayOutputStream(contentCacheLimit);
+        this.cachedContent = new RequestBodyBuffer(memoryThreshold);
         this.contentCacheLimit = contentCacheLimit;
         tryCacheRequestParameters();
     }
@@ -81,12 +101,23 @@ public class RepeatableReadRequestWrapper extends HttpServletRequestWrapper {
             this.inputStream = new ContentCachingInputStream(getRequest().getInputStream());
             return this.inputStream;
         }
-        if (this.bodyInputStream == null) {
-            this.bodyInputStream = new BodyInputStream(this.cachedContent.toByteArray());
-        }
-        // 重置流，用于多次读取
-        this.bodyInputStream.reset();
-        return this.bodyInputStream;
+        // 每次从头读取缓存的请求内容，用于多次读取
+        return new BodyInputStream(this.cachedContent.openInputStream());
+    }
+
+    /**
+     * @return 请求内容是否全部缓存在内存中
+     */
+    public boolean isContentInMemory() {
+        return cachedContent.isInMemory();
+    }
+
+    /**
+     * 释放缓存请求内容的内存块和临时文件，请求结束后调用
+     */
+    @Override
+    public void close() {
+        cachedContent.close();
     }
 
     @Override
@@ -198,7 +229,7 @@ public class RepeatableReadRequestWrapper extends HttpServletRequestWrapper {
         public int read() throws IOException {
             int ch = this.is.read();
             if (ch != -1 && !this.overflow) {
-                if (cachedContent.size() == contentCacheLimit) {
+                if (cachedContent.size() >= contentCacheLimit) {
                     this.overflow = true;
                     handleContentOverflow(contentCacheLimit);
                 } else {
@@ -215,11 +246,11 @@ public class RepeatableReadRequestWrapper extends HttpServletRequestWrapper {
             return count;
         }
 
-        private void writeToCache(final byte[] b, final int off, int count) {
+        private void writeToCache(final byte[] b, final int off, int count) throws IOException {
             if (!this.overflow && count > 0) {
                 if (count + cachedContent.size() > contentCacheLimit) {
                     this.overflow = true;
-                    cachedContent.write(b, off, contentCacheLimit - cachedContent.size());
+                    cachedContent.write(b, off, (int) (contentCacheLimit - cachedContent.size()));
                     handleContentOverflow(contentCacheLimit);
                     return;
                 }
@@ -261,8 +292,8 @@ public class RepeatableReadRequestWrapper extends HttpServletRequestWrapper {
 
         private final InputStream delegate;
 
-        public BodyInputStream(byte[] body) {
-            this.delegate = new ByteArrayInputStream(body);
+        public BodyInputStream(InputStream delegate) {
+            this.delegate = delegate;
         }
 
         @Override
@@ -0,0 +1,311 @@
+package com.wind.server.servlet;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 请求体缓冲区
+ * 1: 请求体写入从共享池中获取的固定大小内存块，重复读取时直接读取内存块，不复制
+ * 2: 请求体大小超过内存阈值后，转存到临时文件
+ * 3: 请求结束后需要调用 {@link #close()} 归还内存块并删除临时文件，关闭后读取输入流会抛出异常
+ * 4: 存在未关闭的内存块输入流时，释放的内存块不归还到池中，避免被其他请求复用后读取到其他请求的内容
+ * 非线程安全
+ *
+ * @author wuxp
+ * @date 2024-08-20 14:10
+ **/
+@Slf4j
+final class RequestBodyBuffer implements Closeable {
+
+    static final int CHUNK_SIZE = 8 * 1024;
+
+    /**
+     * 内存块池最多保留的块数量
+     */
+    private static final int MAX_POOLED_CHUNKS = 512;
+
+    private static final BlockingQueue<byte[]> CHUNK_POOL = new ArrayBlockingQueue<>(MAX_POOLED_CHUNKS);
+
+    /**
+     * 内存中最多保存的字节数，超过后转存到临时文件
+     */
+    private final int memoryThreshold;
+
+    private final List<byte[]> chunks = new ArrayList<>();
+
+    private final List<InputStream> openedStreams = new ArrayList<>();
+
+    /**
+     * 未关闭的内存块输入流数量
+     */
+    private int openedChunkStreams;
+
+    /**
+     * 最后一个内存块已写入的字节数
+     */
+    private int position = CHUNK_SIZE;
+
+    private long size;
+
+    @Nullable
+    private Path file;
+
+    @Nullable
+    private OutputStream fileOutput;
+
+    private boolean closed;
+
+    RequestBodyBuffer(int memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    void write(int b) throws IOException {
+        if (ensureMemoryCapacity(1)) {
+            nextChunkIfFull()[position++] = (byte) b;
+        } else {
+            fileOutput.write(b);
+        }
+        size++;
+    }
+
+    void write(byte[] b, int off, int len) throws IOException {
+        if (len <= 0) {
+            return;
+        }
+        if (ensureMemoryCapacity(len)) {
+            int offset = off;
+            int remaining = len;
+            while (remaining > 0) {
+                byte[] chunk = nextChunkIfFull();
+                int count = Math.min(remaining, CHUNK_SIZE - position);
+                System.arraycopy(b, offset, chunk, position, count);
+                position += count;
+                offset += count;
+                remaining -= count;
+            }
+        } else {
+            fileOutput.write(b, off, len);
+        }
+        size += len;
+    }
+
+    long size() {
+        return size;
+    }
+
+    boolean isInMemory() {
+        return file == null;
+    }
+
+    /**
+     * @return 从头读取缓冲区内容的输入流，每次调用返回新的输入流
+     */
+    InputStream openInputStream() throws IOException {
+        if (closed) {
+            throw new IOException("request body buffer closed");
+        }
+        if (file == null) {
+            openedChunkStreams++;
+            return new ChunkInputStream(new ArrayList<>(chunks), size);
+        }
+        fileOutput.flush();
+        InputStream result = Files.newInputStream(file);
+        openedStreams.add(result);
+        return result;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        releaseChunks();
+        for (InputStream stream : openedStreams) {
+            closeQuietly(stream);
+        }
+        openedStreams.clear();
+        if (file != null) {
+            closeQuietly(fileOutput);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException exception) {
+                log.warn("delete request body temp file error, file = {}", file, exception);
+            }
+        }
+    }
+
+    /**
+     * @param length 待写入的字节数
+     * @return 是否写入内存
+     */
+    private boolean ensureMemoryCapacity(int length) throws IOException {
+        if (closed) {
+            throw new IOException("request body buffer closed");
+        }
+        if (file != null) {
+            return false;
+        }
+        if (size + length <= memoryThreshold) {
+            return true;
+        }
+        spillToFile();
+        return false;
+    }
+
+    private void spillToFile() throws IOException {
+        Path path = Files.createTempFile("wind-request-body-", ".tmp");
+        OutputStream output = new BufferedOutputStream(Files.newOutputStream(path), CHUNK_SIZE);
+        long remaining = size;
+        for (byte[] chunk : chunks) {
+            int count = (int) Math.min(remaining, CHUNK_SIZE);
+            output.write(chunk, 0, count);
+            remaining -= count;
+        }
+        releaseChunks();
+        this.file = path;
+        this.fileOutput = output;
+    }
+
+    private byte[] nextChunkIfFull() {
+        if (position == CHUNK_SIZE) {
+            byte[] chunk = CHUNK_POOL.poll();
+            chunks.add(chunk == null ? new byte[CHUNK_SIZE] : chunk);
+            position = 0;
+        }
+        return chunks.get(chunks.size() - 1);
+    }
+
+    private void releaseChunks() {
+        if (openedChunkStreams == 0) {
+            for (byte[] chunk : chunks) {
+                // 池满时丢弃
+                CHUNK_POOL.offer(chunk);
+            }
+        }
+        chunks.clear();
+        position = CHUNK_SIZE;
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException exception) {
+            log.warn("close request body stream error", exception);
+        }
+    }
+
+    /**
+     * 直接读取内存块的输入流
+     */
+    private final class ChunkInputStream extends InputStream {
+
+        private final List<byte[]> chunks;
+
+        private final long size;
+
+        private long position;
+
+        private long mark;
+
+        private boolean streamClosed;
+
+        private ChunkInputStream(List<byte[]> chunks, long size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            ensureOpen();
+            if (position >= size) {
+                return -1;
+            }
+            byte result = chunks.get((int) (position / CHUNK_SIZE))[(int) (position % CHUNK_SIZE)];
+            position++;
+            return result & 0xFF;
+        }
+
+        @Override
+        public int read(@NonNull byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= size) {
+                return -1;
+            }
+            int total = (int) Math.min(len, size - position);
+            int remaining = total;
+            int offset = off;
+            while (remaining > 0) {
+                int index = (int) (position % CHUNK_SIZE);
+                int count = Math.min(remaining, CHUNK_SIZE - index);
+                System.arraycopy(chunks.get((int) (position / CHUNK_SIZE)), index, b, offset, count);
+                position += count;
+                offset += count;
+                remaining -= count;
+            }
+            return total;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            ensureOpen();
+            long result = Math.max(0, Math.min(n, size - position));
+            position += result;
+            return result;
+        }
+
+        @Override
+        public int available() throws IOException {
+            ensureOpen();
+            return (int) Math.min(Integer.MAX_VALUE, size - position);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            mark = position;
+        }
+
+        @Override
+        public synchronized void reset() {
+            position = mark;
+        }
+
+        @Override
+        public void close() {
+            if (!streamClosed) {
+                streamClosed = true;
+                openedChunkStreams--;
+            }
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("request body buffer closed");
+            }
+        }
+    }
+}
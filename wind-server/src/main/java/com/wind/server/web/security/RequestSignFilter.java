@@ -2,6 +2,7 @@ package com.wind.server.web.security;
 
 
 import com.wind.api.core.signature.ApiSecretAccount;
+import com.wind.api.core.signature.ApiSignAlgorithm;
 import com.wind.api.core.signature.ApiSignatureRequest;
 import com.wind.api.core.signature.SignatureHttpHeaderNames;
 import com.wind.common.WindHttpConstants;
@@ -18,9 +19,12 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.lang.Nullable;
 import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.util.DigestUtils;
 import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
 
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -29,6 +33,7 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.function.BiFunction;
@@ -44,6 +49,11 @@ import java.util.function.BiFunction;
 @AllArgsConstructor
 public class RequestSignFilter implements Filter, Ordered {
 
+    /**
+     * 空请求体的 md5 摘要
+     */
+    private static final String EMPTY_BODY_MD5 = DigestUtils.md5DigestAsHex(new byte[0]);
+
     private final SignatureHttpHeaderNames headerNames;
 
     private final ApiSecretAccountProvider apiSecretAccountProvider;
@@ -82,21 +92,33 @@ public class RequestSignFilter implements Filter, Ordered {
             return;
         }
 
-        boolean signRequireBody = ApiSignatureRequest.signRequireRequestBody(request.getContentType());
-        HttpServletRequest httpRequest = signRequireBody ? new RepeatableReadRequestWrapper(request) : request;
-        ApiSignatureRequest signatureRequest = buildSignatureRequest(httpRequest, signRequireBody);
-        String requestSign = request.getHeader(headerNames.getSign());
-
         // 使用访问标识和秘钥版本号加载秘钥账号
         ApiSecretAccount account = apiSecretAccountProvider.apply(accessId, request.getHeader(headerNames.getSecretVersion()));
         if (account == null) {
             badRequest(response, String.format("please check %s, %s request header", headerNames.getAccessId(), headerNames.getSecretVersion()));
             return;
         }
+
+        if (ApiSignatureRequest.signRequireRequestBody(request.getContentType())) {
+            RepeatableReadRequestWrapper requestWrapper = new RepeatableReadRequestWrapper(request);
+            try {
+                verifySignature(requestWrapper, response, chain, account, true);
+            } finally {
+                release(requestWrapper);
+            }
+        } else {
+            verifySignature(request, response, chain, account, false);
+        }
+    }
+
+    private void verifySignature(HttpServletRequest request, HttpServletResponse response, FilterChain chain, ApiSecretAccount account, boolean signRequireBody)
+            throws IOException, ServletException {
+        ApiSignatureRequest signatureRequest = buildSignatureRequest(request, signRequireBody, account.getSigner());
+        String requestSign = request.getHeader(headerNames.getSign());
         if (account.getSigner().verify(signatureRequest, account.getSecretKey(), requestSign)) {
             // 设置到签名认证账号到上下文中
             request.setAttribute(WindHttpConstants.API_SECRET_ACCOUNT_ATTRIBUTE_NAME, account);
-            chain.doFilter(httpRequest, servletResponse);
+            chain.doFilter(request, response);
             return;
         }
 
@@ -111,6 +133,37 @@ public class RequestSignFilter implements Filter, Ordered {
         badRequest(response, "sign verify error");
     }
 
+    /**
+     * 请求结束后释放缓存的请求体，异步请求在异步处理完成后释放
+     */
+    private static void release(RepeatableReadRequestWrapper requestWrapper) {
+        if (requestWrapper.isAsyncStarted()) {
+            requestWrapper.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    requestWrapper.close();
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                    // 超时后仍然会触发 onComplete
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                    // 出错后仍然会触发 onComplete
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                    event.getAsyncContext().addListener(this);
+                }
+            });
+        } else {
+            requestWrapper.close();
+        }
+    }
+
     private void badRequest(HttpServletResponse response, String message) {
         response.setStatus(HttpStatus.BAD_REQUEST.value());
         response.setCharacterEncoding(StandardCharsets.UTF_8.name());
@@ -126,7 +179,7 @@ public class RequestSignFilter implements Filter, Ordered {
         return ignoreRequestMatchers.stream().anyMatch(requestMatcher -> requestMatcher.matches(request));
     }
 
-    private ApiSignatureRequest buildSignatureRequest(HttpServletRequest request, boolean requiredBody) throws IOException {
+    private ApiSignatureRequest buildSignatureRequest(HttpServletRequest request, boolean requiredBody, ApiSignAlgorithm algorithm) throws IOException {
         ApiSignatureRequest.ApiSignatureRequestBuilder result = ApiSignatureRequest.builder()
                 // http 请求 path，不包含查询参数和域名
                 .requestPath(request.getRequestURI())
@@ -136,11 +189,26 @@ public class RequestSignFilter implements Filter, Ordered {
                 .nonce(request.getHeader(headerNames.getNonce()))
                 .timestamp(request.getHeader(headerNames.getTimestamp()));
         if (requiredBody) {
-            result.requestBody(StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8));
+            if (algorithm == ApiSignAlgorithm.HMAC_SHA256) {
+                // 摘要签名只需要请求体的 md5 值，读取请求体时增量计算摘要
+                result.requestBodyDigest(md5DigestAsHex(request.getInputStream()));
+            } else {
+                result.requestBody(StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8));
+            }
         }
         return result.build();
     }
 
+    /**
+     * @param inputStream 请求体输入流
+     * @return 请求体 md5 摘要（16 进制），请求体为空时返回 null
+     */
+    @Nullable
+    private static String md5DigestAsHex(InputStream inputStream) throws IOException {
+        String result = DigestUtils.md5DigestAsHex(inputStream);
+        return EMPTY_BODY_MD5.equals(result) ? null : result;
+    }
+
     @Override
     public int getOrder() {
         return WindWebFilterOrdered.REQUEST_SIGN_FILTER.getOrder();
@@ -0,0 +1,123 @@
+package com.wind.server.configcenter;
+
+import com.wind.common.WindConstants;
+import com.wind.common.exception.BaseException;
+import com.wind.configcenter.core.ConfigRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author wuxp
+ * @date 2024-08-20 17:10
+ **/
+class WindPropertySourceLoaderTests {
+
+    private final Map<String, String> configs = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> delays = new ConcurrentHashMap<>();
+
+    @TempDir
+    Path snapshotDir;
+
+    private WindConfigCenterProperties properties;
+
+    private WindPropertySourceLoader loader;
+
+    @BeforeEach
+    void setup() {
+        configs.put("example.properties", "app.name=example\napp.value=app");
+        configs.put("share-a.properties", "app.value=share-a\nshare.a=a");
+        configs.put("share-b.properties", "app.value=share-b\nshare.b=b");
+        properties = new WindConfigCenterProperties();
+        properties.setAppShareConfigs(Arrays.asList("share-a", "share-b"));
+        properties.setSnapshotDir(snapshotDir.toString());
+        properties.setLoadTimeout(Duration.ofSeconds(2));
+        loader = new WindPropertySourceLoader(new MemoryConfigRepository(), properties);
+    }
+
+    @Test
+    void testLoadConfigsConcurrently() {
+        configs.keySet().forEach(name -> delays.put(name, 300L));
+        MockEnvironment environment = newEnvironment();
+        long begin = System.currentTimeMillis();
+        loader.loadConfigs(environment);
+        Assertions.assertTrue(System.currentTimeMillis() - begin < 800);
+        Assertions.assertEquals("example", environment.getProperty("app.name"));
+        // 后加载的配置优先级更高
+        Assertions.assertEquals("share-b", environment.getProperty("app.value"));
+        Assertions.assertEquals("a", environment.getProperty("share.a"));
+    }
+
+    @Test
+    void testFallbackToSnapshot() {
+        loader.loadConfigs(newEnvironment());
+        // 配置中心不可用
+        configs.remove("share-a.properties");
+        configs.put("share-b.properties", "error");
+        delays.put("example.properties", 5000L);
+        properties.setLoadTimeout(Duration.ofMillis(300));
+        MockEnvironment environment = newEnvironment();
+        loader.loadConfigs(environment);
+        Assertions.assertEquals("example", environment.getProperty("app.name"));
+        Assertions.assertEquals("a", environment.getProperty("share.a"));
+        Assertions.assertEquals("b", environment.getProperty("share.b"));
+    }
+
+    @Test
+    void testCorruptedSnapshot() throws Exception {
+        loader.loadConfigs(newEnvironment());
+        ConfigSnapshotStore snapshotStore = ConfigSnapshotStore.of(snapshotDir.toString(), "example");
+        Path file = snapshotStore.getSnapshotFile(SimpleConfigDescriptor.of("example", WindConstants.APP_CONFIG_GROUP));
+        Files.write(file, new String(Files.readAllBytes(file), StandardCharsets.UTF_8).replace("app.name=example", "app.name=hacked").getBytes(StandardCharsets.UTF_8));
+        configs.remove("example.properties");
+        Assertions.assertThrows(BaseException.class, () -> loader.loadConfigs(newEnvironment()));
+    }
+
+    private static MockEnvironment newEnvironment() {
+        MockEnvironment result = new MockEnvironment();
+        result.setProperty(WindConstants.SPRING_APPLICATION_NAME, "example");
+        return result;
+    }
+
+    private class MemoryConfigRepository implements ConfigRepository {
+
+        @Override
+        public void saveTextConfig(ConfigDescriptor descriptor, String content) {
+            configs.put(descriptor.getConfigId(), content);
+        }
+
+        @Override
+        public String getConfigSourceName() {
+            return "Memory-Config";
+        }
+
+        @Override
+        public String getTextConfig(ConfigDescriptor descriptor) {
+            try {
+                Thread.sleep(delays.getOrDefault(descriptor.getConfigId(), 0L));
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw BaseException.common("interrupted");
+            }
+            String result = configs.get(descriptor.getConfigId());
+            if (result == null) {
+                throw BaseException.common("config not found: " + descriptor.getConfigId());
+            }
+            if ("error".equals(result)) {
+                throw BaseException.common("config center unavailable");
+            }
+            return result;
+        }
+    }
+}
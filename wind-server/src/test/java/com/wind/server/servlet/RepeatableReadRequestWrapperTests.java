@@ -0,0 +1,96 @@
+package com.wind.server.servlet;
+
+import com.wind.common.exception.BaseException;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.ServletInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author wuxp
+ * @date 2024-08-20 15:20
+ **/
+class RepeatableReadRequestWrapperTests {
+
+    @Test
+    void testRepeatableReadInMemory() throws IOException {
+        byte[] body = RandomStringUtils.randomAlphanumeric(RequestBodyBuffer.CHUNK_SIZE * 3 + 17).getBytes(StandardCharsets.UTF_8);
+        try (RepeatableReadRequestWrapper wrapper = new RepeatableReadRequestWrapper(mockRequest(body))) {
+            Assertions.assertArrayEquals(body, StreamUtils.copyToByteArray(wrapper.getInputStream()));
+            Assertions.assertArrayEquals(body, StreamUtils.copyToByteArray(wrapper.getInputStream()));
+            Assertions.assertArrayEquals(body, StreamUtils.copyToByteArray(wrapper.getInputStream()));
+            Assertions.assertTrue(wrapper.isContentInMemory());
+        }
+    }
+
+    @Test
+    void testSingleByteRead() throws IOException {
+        byte[] body = RandomStringUtils.randomAlphanumeric(RequestBodyBuffer.CHUNK_SIZE + 1).getBytes(StandardCharsets.UTF_8);
+        try (RepeatableReadRequestWrapper wrapper = new RepeatableReadRequestWrapper(mockRequest(body))) {
+            ServletInputStream inputStream = wrapper.getInputStream();
+            while (inputStream.read() != -1) {
+                // 逐字节读取
+            }
+            ServletInputStream replay = wrapper.getInputStream();
+            for (byte b : body) {
+                Assertions.assertEquals(b & 0xFF, replay.read());
+            }
+            Assertions.assertEquals(-1, replay.read());
+        }
+    }
+
+    @Test
+    void testSpillToFile() throws IOException {
+        byte[] body = RandomStringUtils.randomAlphanumeric(100 * 1024).getBytes(StandardCharsets.UTF_8);
+        RepeatableReadRequestWrapper wrapper = new RepeatableReadRequestWrapper(mockRequest(body), body.length, 16 * 1024);
+        Assertions.assertArrayEquals(body, StreamUtils.copyToByteArray(wrapper.getInputStream()));
+        Assertions.assertFalse(wrapper.isContentInMemory());
+        Assertions.assertArrayEquals(body, StreamUtils.copyToByteArray(wrapper.getInputStream()));
+        Assertions.assertArrayEquals(body, StreamUtils.copyToByteArray(wrapper.getInputStream()));
+        wrapper.close();
+        Assertions.assertThrows(IOException.class, wrapper::getInputStream);
+    }
+
+    @Test
+    void testReadAfterClose() throws IOException {
+        byte[] body = RandomStringUtils.randomAlphanumeric(RequestBodyBuffer.CHUNK_SIZE * 2).getBytes(StandardCharsets.UTF_8);
+        RepeatableReadRequestWrapper wrapper = new RepeatableReadRequestWrapper(mockRequest(body));
+        StreamUtils.copyToByteArray(wrapper.getInputStream());
+        ServletInputStream inputStream = wrapper.getInputStream();
+        Assertions.assertEquals(body[0] & 0xFF, inputStream.read());
+        wrapper.close();
+        Assertions.assertThrows(IOException.class, inputStream::read);
+        Assertions.assertThrows(IOException.class, () -> inputStream.read(new byte[16], 0, 16));
+    }
+
+    @Test
+    void testContentOverflow() {
+        byte[] body = RandomStringUtils.randomAlphanumeric(2048).getBytes(StandardCharsets.UTF_8);
+        try (RepeatableReadRequestWrapper wrapper = new RepeatableReadRequestWrapper(mockRequest(body), 1024)) {
+            Assertions.assertThrows(BaseException.class, () -> StreamUtils.copyToByteArray(wrapper.getInputStream()));
+        }
+    }
+
+    @Test
+    void testFormParameters() throws IOException {
+        MockHttpServletRequest request = mockRequest("name=wind&tags=a&tags=b".getBytes(StandardCharsets.UTF_8));
+        request.setContentType(MediaType.APPLICATION_FORM_URLENCODED_VALUE);
+        try (RepeatableReadRequestWrapper wrapper = new RepeatableReadRequestWrapper(request)) {
+            Assertions.assertEquals("wind", wrapper.getParameter("name"));
+            Assertions.assertArrayEquals(new String[]{"a", "b"}, wrapper.getParameterValues("tags"));
+            Assertions.assertEquals("name=wind&tags=a&tags=b", StreamUtils.copyToString(wrapper.getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static MockHttpServletRequest mockRequest(byte[] body) {
+        MockHttpServletRequest result = new MockHttpServletRequest("POST", "/api/v1/examples");
+        result.setContent(body);
+        return result;
+    }
+}
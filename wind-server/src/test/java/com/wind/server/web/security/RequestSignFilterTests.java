@@ -9,17 +9,23 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.mock.http.client.MockClientHttpResponse;
 import org.springframework.mock.web.MockFilterChain;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.Base64Utils;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.util.UriComponents;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author wuxp
@@ -69,4 +75,45 @@ class RequestSignFilterTests {
         signFilter.doFilter(request, response, new MockFilterChain());
         Assertions.assertNotNull(request.getAttribute(WindHttpConstants.API_SECRET_ACCOUNT_ATTRIBUTE_NAME));
     }
+
+    @Test
+    void testSignJsonBodySuccess() throws Exception {
+        assertJsonBodySign(secretAccount);
+    }
+
+    @Test
+    void testSha256WithRsaSignJsonBodySuccess() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        KeyPair keyPair = keyPairGenerator.genKeyPair();
+        String accessId = RandomStringUtils.randomAlphabetic(12);
+        ApiSecretAccount clientAccount = ApiSecretAccount.sha256WithRsa(accessId, Base64Utils.encodeToString(keyPair.getPrivate().getEncoded()));
+        ApiSecretAccount serverAccount = ApiSecretAccount.sha256WithRsa(accessId, Base64Utils.encodeToString(keyPair.getPublic().getEncoded()));
+        signFilter = new RequestSignFilter((id, secretVersion) -> serverAccount, Collections.emptyList(), true);
+        assertJsonBodySign(clientAccount);
+    }
+
+    private void assertJsonBodySign(ApiSecretAccount clientAccount) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/examples");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        byte[] requestBody = ("{\"name\":\"张三\",\"remark\":\"" + RandomStringUtils.randomAlphabetic(10000) + "\"}").getBytes(StandardCharsets.UTF_8);
+        request.setContent(requestBody);
+        ApiSignatureRequestInterceptor interceptor = new ApiSignatureRequestInterceptor(httpRequest -> clientAccount);
+        ServletServerHttpRequest httpRequest = new ServletServerHttpRequest(request);
+        httpRequest.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        interceptor.intercept(httpRequest, requestBody, (r, body) -> {
+            r.getHeaders().forEach((name, values) -> {
+                if (!ObjectUtils.isEmpty(values) && request.getHeader(name) == null) {
+                    request.addHeader(name, values.get(0));
+                }
+            });
+            return new MockClientHttpResponse(new byte[0], 200);
+        });
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<byte[]> readBody = new AtomicReference<>();
+        // 下游仍然可以读取完整的请求体
+        signFilter.doFilter(request, response, (req, resp) -> readBody.set(StreamUtils.copyToByteArray(req.getInputStream())));
+        Assertions.assertNotNull(request.getAttribute(WindHttpConstants.API_SECRET_ACCOUNT_ATTRIBUTE_NAME));
+        Assertions.assertArrayEquals(requestBody, readBody.get());
+    }
 }
@@ -44,6 +44,15 @@ public interface WindTracer {
      */
     void trace(@Null String traceId, @NotNull Map<String, Object> contextVariables);
 
+    /**
+     * 将其他线程获取的 trace 上下文设置到当前线程中，用于跨线程传递上下文
+     *
+     * @param context trace 上下文
+     */
+    default void attach(@NotNull WindTraceContext context) {
+        trace(context.getTraceId(), context.asContextVariables());
+    }
+
     /**
      * 清除 trace 上下文
      */
@@ -0,0 +1,100 @@
+package com.wind.trace.thread;
+
+import com.wind.trace.WindTraceContext;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.springframework.lang.NonNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 不可变的 trace 上下文，创建后不再修改，跨线程传递时只需要传递引用
+ *
+ * @author wuxp
+ * @date 2024-08-16 14:10
+ **/
+@ToString(exclude = "mdcContext")
+@EqualsAndHashCode(exclude = "mdcContext")
+public final class ImmutableTraceContext implements WindTraceContext {
+
+    private final String traceId;
+
+    private final Map<String, Object> contextVariables;
+
+    /**
+     * 上下文变量中的字符串变量，首次写入 MDC 时创建
+     */
+    private volatile Map<String, String> mdcContext;
+
+    private ImmutableTraceContext(String traceId, Map<String, Object> contextVariables) {
+        this.traceId = traceId;
+        this.contextVariables = contextVariables;
+    }
+
+    /**
+     * 创建 trace 上下文，会复制一次上下文变量
+     *
+     * @param traceId          traceId
+     * @param contextVariables 上下文变量
+     * @return trace 上下文
+     */
+    public static ImmutableTraceContext of(String traceId, Map<String, ?> contextVariables) {
+        return new ImmutableTraceContext(traceId, Collections.unmodifiableMap(new HashMap<>(contextVariables)));
+    }
+
+    /**
+     * 创建 trace 上下文，调用方需要保证不再修改上下文变量
+     */
+    static ImmutableTraceContext wrap(String traceId, Map<String, Object> contextVariables) {
+        return new ImmutableTraceContext(traceId, Collections.unmodifiableMap(contextVariables));
+    }
+
+    /**
+     * 创建一个增加了上下文变量的新 trace 上下文
+     *
+     * @param name  变量名称
+     * @param value 变量值
+     * @return 新的 trace 上下文
+     */
+    public ImmutableTraceContext with(String name, Object value) {
+        Map<String, Object> variables = new HashMap<>(contextVariables);
+        variables.put(name, value);
+        return new ImmutableTraceContext(traceId, Collections.unmodifiableMap(variables));
+    }
+
+    @Override
+    public String getTraceId() {
+        return traceId;
+    }
+
+    @Override
+    @NonNull
+    public Map<String, Object> asContextVariables() {
+        return contextVariables;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getContextVariable(String variableName) {
+        return (T) contextVariables.get(variableName);
+    }
+
+    /**
+     * @return 需要写入 MDC 的变量（仅包含字符串类型的变量）
+     */
+    Map<String, String> getMdcContext() {
+        Map<String, String> result = mdcContext;
+        if (result == null) {
+            result = new HashMap<>(contextVariables.size());
+            for (Map.Entry<String, Object> entry : contextVariables.entrySet()) {
+                if (entry.getValue() instanceof String) {
+                    result.put(entry.getKey(), (String) entry.getValue());
+                }
+            }
+            mdcContext = Collections.unmodifiableMap(result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,24 @@
+package com.wind.trace.thread;
+
+import lombok.AllArgsConstructor;
+import org.springframework.lang.NonNull;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 提交任务时传递 trace 上下文的执行器
+ *
+ * @author wuxp
+ * @date 2024-08-17 14:35
+ * @see TraceContexts#executor(Executor)
+ **/
+@AllArgsConstructor
+final class TraceContextExecutor implements Executor {
+
+    private final Executor delegate;
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        delegate.execute(TraceContexts.wrap(command));
+    }
+}
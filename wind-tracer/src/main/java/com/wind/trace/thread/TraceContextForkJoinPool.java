@@ -0,0 +1,88 @@
+package com.wind.trace.thread;
+
+import org.springframework.lang.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+
+/**
+ * 提交任务时传递 trace 上下文的 {@link ForkJoinPool}
+ * 注意：提交的 {@link ForkJoinTask} 在执行期间 fork 出的子任务可能被其他工作线程窃取执行，子任务需要上下文时使用 {@link TraceContexts} 包装子任务的执行逻辑
+ *
+ * @author wuxp
+ * @date 2024-08-17 14:40
+ **/
+public class TraceContextForkJoinPool extends ForkJoinPool {
+
+    public TraceContextForkJoinPool() {
+        super();
+    }
+
+    public TraceContextForkJoinPool(int parallelism) {
+        super(parallelism);
+    }
+
+    @Override
+    public void execute(@NonNull Runnable task) {
+        super.execute(TraceContexts.wrap(task));
+    }
+
+    @Override
+    public void execute(@NonNull ForkJoinTask<?> task) {
+        super.execute(wrap(task));
+    }
+
+    @Override
+    @NonNull
+    public ForkJoinTask<?> submit(@NonNull Runnable task) {
+        return super.submit(TraceContexts.wrap(task));
+    }
+
+    @Override
+    @NonNull
+    public <T> ForkJoinTask<T> submit(@NonNull Runnable task, T result) {
+        return super.submit(TraceContexts.wrap(task), result);
+    }
+
+    @Override
+    @NonNull
+    public <T> ForkJoinTask<T> submit(@NonNull Callable<T> task) {
+        return super.submit(TraceContexts.wrapCallable(task));
+    }
+
+    @Override
+    @NonNull
+    public <T> ForkJoinTask<T> submit(@NonNull ForkJoinTask<T> task) {
+        super.execute(wrap(task));
+        // 返回提交的任务，调用方通过原任务 join / get
+        return task;
+    }
+
+    @Override
+    public <T> T invoke(@NonNull ForkJoinTask<T> task) {
+        super.execute(wrap(task));
+        return task.join();
+    }
+
+    @Override
+    @NonNull
+    public <T> List<Future<T>> invokeAll(@NonNull Collection<? extends Callable<T>> tasks) {
+        List<Callable<T>> wrapped = new ArrayList<>(tasks.size());
+        for (Callable<T> task : tasks) {
+            wrapped.add(TraceContexts.wrapCallable(task));
+        }
+        return super.invokeAll(wrapped);
+    }
+
+    /**
+     * 在 trace 上下文中执行原任务，结果及异常记录在原任务中，调用方通过原任务获取
+     */
+    private static ForkJoinTask<?> wrap(ForkJoinTask<?> task) {
+        return ForkJoinTask.adapt(TraceContexts.wrap(task::quietlyInvoke));
+    }
+}
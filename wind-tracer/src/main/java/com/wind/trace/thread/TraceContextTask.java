@@ -28,8 +28,8 @@ public abstract class TraceContextTask implements TaskDecorator {
                     log.debug("task decorate, trace context: {}", context);
                 }
                 traceContext();
-                // 线程切换，复制上下文和 traceId
-                WindTracer.TRACER.trace(context.getTraceId(), context.asContextVariables());
+                // 线程切换，传递上下文引用
+                WindTracer.TRACER.attach(context);
                 task.run();
             } finally {
                 if (log.isDebugEnabled()) {
@@ -0,0 +1,149 @@
+package com.wind.trace.thread;
+
+import com.wind.common.exception.AssertUtils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * trace 上下文传递工具，用于 {@link CompletableFuture}、{@link ForkJoinPool}、并行流等无法使用 {@link TraceContextTask} 的场景
+ * 1: 包装时获取当前线程的上下文引用（不修改当前线程的 MDC），执行时切换到该上下文，结束后恢复执行线程原来的上下文及 MDC（并行流会在调用线程上执行部分元素）
+ * 2: 执行线程的上下文与捕获的上下文为同一引用时不做切换
+ * 并行流示例：list.parallelStream().map(TraceContexts.wrapFunction(item -> convert(item)))
+ *
+ * @author wuxp
+ * @date 2024-08-17 14:20
+ **/
+public final class TraceContexts {
+
+    private TraceContexts() {
+        throw new AssertionError();
+    }
+
+    /**
+     * 包装任务，执行时使用当前线程的 trace 上下文
+     */
+    public static Runnable wrap(Runnable task) {
+        AssertUtils.notNull(task, "argument task must not null");
+        ImmutableTraceContext context = WindThreadTracer.capture();
+        return () -> {
+            WindThreadTracer.PreviousContext previous = WindThreadTracer.switchTo(context);
+            try {
+                task.run();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    /**
+     * 包装任务，执行时使用当前线程的 trace 上下文
+     */
+    public static <T> Callable<T> wrapCallable(Callable<T> task) {
+        AssertUtils.notNull(task, "argument task must not null");
+        ImmutableTraceContext context = WindThreadTracer.capture();
+        return () -> {
+            WindThreadTracer.PreviousContext previous = WindThreadTracer.switchTo(context);
+            try {
+                return task.call();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    /**
+     * 包装 Supplier，执行时使用当前线程的 trace 上下文
+     */
+    public static <T> Supplier<T> wrapSupplier(Supplier<T> supplier) {
+        AssertUtils.notNull(supplier, "argument supplier must not null");
+        ImmutableTraceContext context = WindThreadTracer.capture();
+        return () -> {
+            WindThreadTracer.PreviousContext previous = WindThreadTracer.switchTo(context);
+            try {
+                return supplier.get();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    /**
+     * 包装 Function，执行时使用当前线程的 trace 上下文，用于并行流的 map 等操作
+     */
+    public static <T, R> Function<T, R> wrapFunction(Function<T, R> function) {
+        AssertUtils.notNull(function, "argument function must not null");
+        ImmutableTraceContext context = WindThreadTracer.capture();
+        return value -> {
+            WindThreadTracer.PreviousContext previous = WindThreadTracer.switchTo(context);
+            try {
+                return function.apply(value);
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    /**
+     * 包装 Consumer，执行时使用当前线程的 trace 上下文，用于并行流的 forEach 等操作
+     */
+    public static <T> Consumer<T> wrapConsumer(Consumer<T> consumer) {
+        AssertUtils.notNull(consumer, "argument consumer must not null");
+        ImmutableTraceContext context = WindThreadTracer.capture();
+        return value -> {
+            WindThreadTracer.PreviousContext previous = WindThreadTracer.switchTo(context);
+            try {
+                consumer.accept(value);
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    /**
+     * 包装执行器，提交任务时传递 trace 上下文，可用于 CompletableFuture 的 *Async 方法
+     *
+     * @param executor 执行器
+     * @return 传递 trace 上下文的执行器
+     */
+    public static Executor executor(Executor executor) {
+        AssertUtils.notNull(executor, "argument executor must not null");
+        if (executor instanceof TraceContextExecutor || executor instanceof TraceContextForkJoinPool) {
+            return executor;
+        }
+        return new TraceContextExecutor(executor);
+    }
+
+    /**
+     * @see CompletableFuture#supplyAsync(Supplier)
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(wrapSupplier(supplier));
+    }
+
+    /**
+     * @see CompletableFuture#supplyAsync(Supplier, Executor)
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        return CompletableFuture.supplyAsync(wrapSupplier(supplier), executor);
+    }
+
+    /**
+     * @see CompletableFuture#runAsync(Runnable)
+     */
+    public static CompletableFuture<Void> runAsync(Runnable task) {
+        return CompletableFuture.runAsync(wrap(task));
+    }
+
+    /**
+     * @see CompletableFuture#runAsync(Runnable, Executor)
+     */
+    public static CompletableFuture<Void> runAsync(Runnable task, Executor executor) {
+        return CompletableFuture.runAsync(wrap(task), executor);
+    }
+}
@@ -6,7 +6,8 @@ import com.wind.sequence.SequenceGenerator;
 import com.wind.trace.WindTraceContext;
 import com.wind.trace.WindTracer;
 import org.slf4j.MDC;
-import org.springframework.lang.NonNull;
+import org.slf4j.helpers.NOPMDCAdapter;
+import org.springframework.lang.Nullable;
 import org.springframework.util.StringUtils;
 
 import javax.validation.constraints.NotNull;
@@ -14,12 +15,18 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 import static com.wind.common.WindConstants.LOCAL_HOST_IP_V4;
 import static com.wind.common.WindConstants.TRACE_ID_NAME;
 
 /**
  * 线程上下文 trace工具类
+ * trace 上下文使用 {@link ImmutableTraceContext} 保存在 {@link ThreadLocal} 中，获取和跨线程传递上下文时只传递引用，不再复制 MDC
+ * MDC 仅用于日志输出，在设置上下文时同步写入（没有日志实现时跳过）
+ * 注意：MDC 没有替换引用的 API，切换上下文（{@link #attach(WindTraceContext)}、{@link TraceContexts}）时仍需通过 {@link MDC#setContextMap(Map)} 复制一次 MDC，
+ * 开启 trace 时 MDC 中已有的变量会合并到上下文中，切换线程后同样写入 MDC
+ * 没有上下文时每次都从 MDC 中读取，兼容直接写入 MDC 的场景
  *
  * @author wuxp
  * @date 2023-12-29 09:57
@@ -31,6 +38,17 @@ public final class WindThreadTracer implements WindTracer {
      */
     private static final SequenceGenerator TRACE_ID = () -> SequenceGenerator.randomAlphanumeric(32);
 
+    private static final ThreadLocal<ImmutableTraceContext> CONTEXT = new ThreadLocal<>();
+
+    /**
+     * 本机 ip 缓存时间，获取本机 ip 需要遍历网卡，每次开启 trace 都获取开销较大，定期刷新以感知网卡地址变化
+     */
+    private static final long LOCAL_HOST_IP_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static volatile String localHostIp;
+
+    private static volatile long localHostIpExpireTime;
+
     @Override
     public void trace() {
         trace(TRACE_ID.next());
@@ -43,60 +61,149 @@ public final class WindThreadTracer implements WindTracer {
 
     @Override
     public void trace(String traceId, @NotNull Map<String, Object> contextVariables) {
-        //  使用 MDC 保存
-        MDC.put(TRACE_ID_NAME, StringUtils.hasText(traceId) ? traceId : TRACE_ID.next());
-        MDC.put(LOCAL_HOST_IP_V4, IpAddressUtils.getLocalIpv4());
-        Objects.requireNonNull(contextVariables, "argument contextVariables must not null")
-                .forEach((key, val) -> {
-                    if (val instanceof String) {
-                        MDC.put(key, (String) val);
-                    }
-                });
+        Objects.requireNonNull(contextVariables, "argument contextVariables must not null");
+        Map<String, String> mdcContext = isMdcEnabled() ? MDC.getCopyOfContextMap() : null;
+        // MDC 中已有的变量（例如：在开启 trace 前写入的变量）一并保存，跨线程传递时写入新线程的 MDC
+        Map<String, Object> variables = mdcContext == null ? new HashMap<>() : new HashMap<>(mdcContext);
+        variables.putAll(contextVariables);
+        String id = StringUtils.hasText(traceId) ? traceId : TRACE_ID.next();
+        variables.put(TRACE_ID_NAME, id);
+        variables.put(LOCAL_HOST_IP_V4, getLocalHostIp());
+        ImmutableTraceContext context = ImmutableTraceContext.wrap(id, variables);
+        CONTEXT.set(context);
+        if (isMdcEnabled()) {
+            MDC.setContextMap(context.getMdcContext());
+        }
+    }
 
+    @Override
+    public void attach(@NotNull WindTraceContext context) {
+        Objects.requireNonNull(context, "argument context must not null");
+        ImmutableTraceContext traceContext = context instanceof ImmutableTraceContext ? (ImmutableTraceContext) context :
+                ImmutableTraceContext.of(context.getTraceId(), context.asContextVariables());
+        set(traceContext);
     }
 
     @Override
     public WindTraceContext getTraceContext() {
-        Map<String, Object> mdcContext = getMdcContext();
-        return new WindTraceContext() {
-            @Override
-            public String getTraceId() {
-                String traceId = getContextVariable(TRACE_ID_NAME);
-                if (traceId == null) {
-                    // 没有则生成
-                    traceId = TRACE_ID.next();
-                    MDC.put(TRACE_ID_NAME, traceId);
-                }
-                return traceId;
-            }
+        ImmutableTraceContext result = CONTEXT.get();
+        // 兼容直接写入 MDC 的场景，不保存到线程上下文中，避免线程复用时 MDC 变化后仍然返回旧的 traceId
+        return result == null ? getMdcContext(true) : result;
+    }
 
-            @Override
-            @NonNull
-            public Map<String, Object> asContextVariables() {
-                return mdcContext;
-            }
+    /**
+     * 获取当前线程的 trace 上下文引用，用于跨线程传递，不会修改当前线程的 MDC
+     *
+     * @return trace 上下文
+     */
+    static ImmutableTraceContext capture() {
+        ImmutableTraceContext result = CONTEXT.get();
+        return result == null ? getMdcContext(false) : result;
+    }
 
-            @Override
-            @SuppressWarnings("unchecked")
-            public <T> T getContextVariable(String variableName) {
-                return (T) mdcContext.get(variableName);
-            }
-        };
+    /**
+     * 切换当前线程的 trace 上下文，上下文引用未变化时不做任何操作
+     * 任务可能在调用线程上执行（例如：并行流、CallerRunsPolicy），切换时保存 MDC，恢复时还原调用线程的 MDC
+     *
+     * @param context 需要切换到的上下文
+     * @return 切换前的上下文，用于执行结束后恢复
+     */
+    static PreviousContext switchTo(ImmutableTraceContext context) {
+        ImmutableTraceContext previous = CONTEXT.get();
+        if (previous == context) {
+            return PreviousContext.UNCHANGED;
+        }
+        PreviousContext result = new PreviousContext(previous, isMdcEnabled() ? MDC.getCopyOfContextMap() : null);
+        set(context);
+        return result;
+    }
+
+    private static void set(ImmutableTraceContext context) {
+        CONTEXT.set(context);
+        if (isMdcEnabled()) {
+            // 一次性替换 MDC，避免逐个 put 时 MDC 实现重复复制
+            MDC.setContextMap(context.getMdcContext());
+        }
     }
 
-    @NonNull
-    private static Map<String, Object> getMdcContext() {
+    /**
+     * @param store MDC 中没有 traceId 时，是否将生成的 traceId 写入 MDC
+     */
+    private static ImmutableTraceContext getMdcContext(boolean store) {
         Map<String, String> context = MDC.getCopyOfContextMap();
-        if (context == null) {
-            context = Collections.singletonMap(TRACE_ID_NAME, TRACE_ID.next());
-            context.forEach(MDC::put);
+        String traceId = context == null ? null : context.get(TRACE_ID_NAME);
+        if (traceId == null) {
+            // 没有则生成
+            traceId = TRACE_ID.next();
+            if (store) {
+                MDC.put(TRACE_ID_NAME, traceId);
+            }
+        }
+        Map<String, Object> variables = context == null ? new HashMap<>() : new HashMap<>(context);
+        variables.put(TRACE_ID_NAME, traceId);
+        return ImmutableTraceContext.wrap(traceId, variables);
+    }
+
+    private static String getLocalHostIp() {
+        long now = System.currentTimeMillis();
+        String result = localHostIp;
+        if (result == null || now >= localHostIpExpireTime) {
+            // 并发刷新时重复获取，结果一致
+            result = IpAddressUtils.getLocalIpv4();
+            localHostIp = result;
+            localHostIpExpireTime = now + LOCAL_HOST_IP_TTL_MILLIS;
         }
-        return Collections.unmodifiableMap(new HashMap<>(context));
+        return result;
+    }
+
+    private static boolean isMdcEnabled() {
+        return !(MDC.getMDCAdapter() instanceof NOPMDCAdapter);
     }
 
     @Override
     public void clear() {
+        CONTEXT.remove();
         MDC.clear();
     }
 
+    /**
+     * 切换前的 trace 上下文及 MDC
+     */
+    static final class PreviousContext {
+
+        private static final PreviousContext UNCHANGED = new PreviousContext(null, null);
+
+        @Nullable
+        private final ImmutableTraceContext context;
+
+        @Nullable
+        private final Map<String, String> mdcContext;
+
+        private PreviousContext(@Nullable ImmutableTraceContext context, @Nullable Map<String, String> mdcContext) {
+            this.context = context;
+            this.mdcContext = mdcContext;
+        }
+
+        /**
+         * 恢复切换前的上下文
+         */
+        void restore() {
+            if (this == UNCHANGED) {
+                return;
+            }
+            if (context == null) {
+                CONTEXT.remove();
+            } else {
+                CONTEXT.set(context);
+            }
+            if (isMdcEnabled()) {
+                if (mdcContext == null) {
+                    MDC.clear();
+                } else {
+                    MDC.setContextMap(mdcContext);
+                }
+            }
+        }
+    }
+
 }